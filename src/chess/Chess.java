@@ -22,12 +22,18 @@
  **/
 package chess;
 
+import chess.engine.tablebase.TablebaseResult;
+import chess.engine.tablebase.Tablebases;
 import chess.game.Game;
 import chess.game.GameInfoWrapper;
 import chess.game.board.Position;
+import chess.game.events.BoardChangeAdapter;
+import chess.game.events.PieceMovedEvent;
 import chess.renderers.MoveRequestAction;
 import chess.renderers.swingRenderer.GameBoardPanel;
 import chess.renderers.StandardOutRenderer;
+import java.awt.BorderLayout;
+import java.nio.file.Paths;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.swing.*;
@@ -37,6 +43,9 @@ import javax.swing.*;
  * @author CarrollFD
  */
 public class Chess {
+    // the system property naming a directory of endgame tables to show
+    // the value of the position from
+    public static final String TABLEBASES_PROPERTY = "chess.tablebases";
 
     /**
      * @param args the command line arguments
@@ -50,17 +59,46 @@ public class Chess {
         gamePanel.setMoveRequestAction(new MoveRequestAction() {
             @Override
             public void moveRequest(Position startPosition, Position endPosition) {
-                if(game.getBoard().requestMove(startPosition, endPosition));
+                if(!game.requestMove(startPosition, endPosition)) {
                     System.out.println(game.getBoard().getMoveError());
+                }
             }
         });
         
         gamePanel.render();
-        frame.add(gamePanel);
+        frame.add(gamePanel, BorderLayout.CENTER);
+
+        String tablebaseDirectory = System.getProperty(TABLEBASES_PROPERTY);
+        if(tablebaseDirectory != null) {
+            frame.add(createTablebaseLabel(game, Tablebases.open(Paths.get(tablebaseDirectory))), BorderLayout.SOUTH);
+        }
+
         frame.pack();
         frame.setLocationRelativeTo(null);
         frame.setDefaultCloseOperation(WindowConstants.EXIT_ON_CLOSE);
         frame.setVisible(true);
     }
-    
+
+    /**
+     * Creates a label showing the endgame table value of the position,
+     * updated after every move.
+     */
+    private static JLabel createTablebaseLabel(Game game, Tablebases tablebases) {
+        JLabel label = new JLabel(" ");
+
+        game.addChangeListener(new BoardChangeAdapter() {
+            @Override
+            public void pieceMoved(PieceMovedEvent event) {
+                // probe after the move has been recorded by the game
+                SwingUtilities.invokeLater(() -> {
+                    TablebaseResult result = tablebases.probe(game);
+                    String side = game.getSideToMove() ? "White" : "Black";
+
+                    label.setText(result == null ? " " : "Tablebase: " + side + " to move, " + result);
+                });
+            }
+        });
+
+        return label;
+    }
 }
@@ -49,9 +49,10 @@ public class King extends Piece {
             return false;
         }
         
-        // check for a possible castle (the king moves exactly 2 spaces)
+        // check for a possible castle (the king moves exactly 2 spaces),
+        // castling never captures
         if(deltaX == 2 && deltaY == 0) {
-            return validateCastle();
+            return PieceCode.isEmpty(gameInfo.getPieceCode(position.getIndex())) && validateCastle();
         }
         
         // if not castling:
@@ -75,7 +75,8 @@ public class Pawn extends Piece {
             // first validate if it is an en passant
             if(!validateEnPassant(position)) {
                 // if not verify a valid capture
-                if(gameInfo.getPieceAt(position) == null || !gameInfo.isCapturable(getColor(), position)) {
+                if(PieceCode.isEmpty(gameInfo.getPieceCode(position.getIndex())) ||
+                        !gameInfo.isCapturable(getColor(), position)) {
                     // there is neither a valid en passant, or traditonal
                     // capture at the diagonal position
                     return false;
@@ -83,6 +84,9 @@ public class Pawn extends Piece {
             }
         } else if(deltaX > 1) {
             return false;
+        } else if(!PieceCode.isEmpty(gameInfo.getPieceCode(position.getIndex()))) {
+            // pawns can not capture moving straight ahead
+            return false;
         }
 
         // perform global validation
@@ -175,4 +175,14 @@ public abstract class Piece {
     public boolean isMoved() {
         return moved;
     }
+
+    /**
+     * Sets the moved flag, for pieces placed on a board set up from a
+     * position rather than moved there.
+     *
+     * @param moved TRUE if the piece counts as having moved
+     */
+    public void setMoved(boolean moved) {
+        this.moved = moved;
+    }
 }
@@ -0,0 +1,284 @@
+package chess.engine;
+
+/**
+ * The settings of a search engine.  Configurations are compared against
+ * each other in engine matches, so every setting affecting play belongs
+ * here.
+ *
+ * @author CarrollFD
+ */
+public class EngineConfig {
+    // the default search depth in moves
+    public static final int DEFAULT_DEPTH = 2;
+
+    // the default number of transposition table entries
+    public static final int DEFAULT_HASH_ENTRIES = 1 << 18;
+
+    // the name used when reporting results
+    private String name = "engine";
+
+    // the depth to search to
+    private int depth = DEFAULT_DEPTH;
+
+    // the number of transposition table entries
+    private int hashEntries = DEFAULT_HASH_ENTRIES;
+
+    // TRUE to extend leaves through captures
+    private boolean quiescence = true;
+
+    // selective search techniques, each may be disabled for comparison
+    private boolean principalVariationSearch = true;
+    private boolean aspirationWindows = true;
+    private boolean nullMovePruning = true;
+    private boolean lateMoveReductions = true;
+
+    // the directory of endgame tables to probe, or null for none
+    private String tablebases;
+
+    /**
+     * Constructs a configuration with the default settings.
+     */
+    public EngineConfig() {
+    }
+
+    /**
+     * Copy Constructor
+     *
+     * @param toCopy Configuration to copy
+     */
+    public EngineConfig(EngineConfig toCopy) {
+        name = toCopy.name;
+        depth = toCopy.depth;
+        hashEntries = toCopy.hashEntries;
+        quiescence = toCopy.quiescence;
+        principalVariationSearch = toCopy.principalVariationSearch;
+        aspirationWindows = toCopy.aspirationWindows;
+        nullMovePruning = toCopy.nullMovePruning;
+        lateMoveReductions = toCopy.lateMoveReductions;
+        tablebases = toCopy.tablebases;
+    }
+
+    /**
+     * @return the name used when reporting results
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @param name the name used when reporting results
+     */
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    /**
+     * @return the depth to search to, in moves
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * @param depth the depth to search to, in moves
+     */
+    public void setDepth(int depth) {
+        if(depth < 1) {
+            throw new IllegalArgumentException("Depth must be at least 1.");
+        }
+
+        this.depth = depth;
+    }
+
+    /**
+     * @return the number of transposition table entries
+     */
+    public int getHashEntries() {
+        return hashEntries;
+    }
+
+    /**
+     * @param hashEntries the number of transposition table entries,
+     *                    rounded down to a power of two
+     */
+    public void setHashEntries(int hashEntries) {
+        if(hashEntries < 1) {
+            throw new IllegalArgumentException("The table needs at least one entry.");
+        }
+
+        this.hashEntries = hashEntries;
+    }
+
+    /**
+     * @return TRUE if leaves are extended through captures
+     */
+    public boolean isQuiescence() {
+        return quiescence;
+    }
+
+    /**
+     * @param quiescence TRUE to extend leaves through captures
+     */
+    public void setQuiescence(boolean quiescence) {
+        this.quiescence = quiescence;
+    }
+
+    /**
+     * @return TRUE if moves after the first are searched with a zero window
+     */
+    public boolean isPrincipalVariationSearch() {
+        return principalVariationSearch;
+    }
+
+    /**
+     * @param principalVariationSearch TRUE to search moves after the first
+     *                                 with a zero window
+     */
+    public void setPrincipalVariationSearch(boolean principalVariationSearch) {
+        this.principalVariationSearch = principalVariationSearch;
+    }
+
+    /**
+     * @return TRUE if each iteration starts with a window around the
+     *         previous score
+     */
+    public boolean isAspirationWindows() {
+        return aspirationWindows;
+    }
+
+    /**
+     * @param aspirationWindows TRUE to start each iteration with a window
+     *                          around the previous score
+     */
+    public void setAspirationWindows(boolean aspirationWindows) {
+        this.aspirationWindows = aspirationWindows;
+    }
+
+    /**
+     * @return TRUE if null move pruning is used
+     */
+    public boolean isNullMovePruning() {
+        return nullMovePruning;
+    }
+
+    /**
+     * @param nullMovePruning TRUE to use null move pruning
+     */
+    public void setNullMovePruning(boolean nullMovePruning) {
+        this.nullMovePruning = nullMovePruning;
+    }
+
+    /**
+     * @return TRUE if late quiet moves are searched at reduced depth
+     */
+    public boolean isLateMoveReductions() {
+        return lateMoveReductions;
+    }
+
+    /**
+     * @param lateMoveReductions TRUE to search late quiet moves at reduced
+     *                           depth
+     */
+    public void setLateMoveReductions(boolean lateMoveReductions) {
+        this.lateMoveReductions = lateMoveReductions;
+    }
+
+    /**
+     * @return the directory of endgame tables to probe, or null for none
+     */
+    public String getTablebases() {
+        return tablebases;
+    }
+
+    /**
+     * @param tablebases the directory of endgame tables to probe, or null
+     *                   for none
+     */
+    public void setTablebases(String tablebases) {
+        this.tablebases = tablebases;
+    }
+
+    /**
+     * Applies a setting given as text, for command line tools.
+     *
+     * @param key The name of the setting
+     * @param value The value of the setting
+     *
+     * @throws IllegalArgumentException If the setting is not recognized or
+     *         its value is invalid
+     */
+    public void set(String key, String value) {
+        switch(key) {
+            case "name":
+                setName(value);
+                break;
+            case "depth":
+                setDepth(Integer.parseInt(value));
+                break;
+            case "hash":
+                setHashEntries(Integer.parseInt(value));
+                break;
+            case "quiescence":
+                setQuiescence(parseFlag(key, value));
+                break;
+            case "pvs":
+                setPrincipalVariationSearch(parseFlag(key, value));
+                break;
+            case "aspiration":
+                setAspirationWindows(parseFlag(key, value));
+                break;
+            case "nullmove":
+                setNullMovePruning(parseFlag(key, value));
+                break;
+            case "lmr":
+                setLateMoveReductions(parseFlag(key, value));
+                break;
+            case "tablebases":
+                setTablebases(value.isEmpty() ? null : value);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown engine setting: " + key);
+        }
+    }
+
+    /**
+     * @return The value of a switch, which must be "true" or "false"
+     */
+    private static boolean parseFlag(String key, String value) {
+        switch(value) {
+            case "true":
+                return true;
+            case "false":
+                return false;
+            default:
+                throw new IllegalArgumentException("Invalid value for " + key + ": " + value);
+        }
+    }
+
+    /**
+     * Parses a configuration from comma separated settings, such as
+     * "name=base,depth=3".
+     *
+     * @param settings The settings
+     *
+     * @return The configuration
+     */
+    public static EngineConfig parse(String settings) {
+        EngineConfig config = new EngineConfig();
+
+        for(String setting : settings.split(",")) {
+            if(setting.isEmpty()) {
+                continue;
+            }
+
+            int separator = setting.indexOf('=');
+            if(separator < 0) {
+                throw new IllegalArgumentException("Invalid engine setting: " + setting);
+            }
+
+            config.set(setting.substring(0, separator).trim(), setting.substring(separator + 1).trim());
+        }
+
+        return config;
+    }
+}
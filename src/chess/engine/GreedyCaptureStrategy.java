@@ -0,0 +1,73 @@
+package chess.engine;
+
+import chess.game.Game;
+import chess.game.Move;
+import chess.pieces.Piece;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Captures the most valuable piece available, choosing randomly between
+ * equally good moves, and plays a random move when there is no capture.
+ *
+ * @author CarrollFD
+ */
+public class GreedyCaptureStrategy implements MoveStrategy {
+    private final Random random;
+
+    /**
+     * @param seed The seed for choosing between equally good moves
+     */
+    public GreedyCaptureStrategy(long seed) {
+        random = new Random(seed);
+    }
+
+    @Override
+    public Move selectMove(Game game) {
+        List<Move> legalMoves = game.getBoard().getLegalMoves(game.getSideToMove());
+        List<Move> bestMoves = new ArrayList<>();
+        int bestValue = -1;
+
+        for(Move move : legalMoves) {
+            Piece captured = game.getBoard().getPieceAt(move.getEndPosition());
+            int value = captured == null ? 0 : getValue(captured);
+
+            if(value > bestValue) {
+                bestValue = value;
+                bestMoves.clear();
+            }
+
+            if(value == bestValue) {
+                bestMoves.add(move);
+            }
+        }
+
+        if(bestMoves.isEmpty()) {
+            return null;
+        }
+
+        return bestMoves.get(random.nextInt(bestMoves.size()));
+    }
+
+    /**
+     * @param piece The captured piece
+     * @return The conventional value of the piece in pawns
+     */
+    private static int getValue(Piece piece) {
+        switch(piece.getType()) {
+            case queen:
+                return 9;
+            case rook:
+                return 5;
+            case bishop:
+            case knight:
+                return 3;
+            case pawn:
+                return 1;
+            default:
+                return 0;
+        }
+    }
+}
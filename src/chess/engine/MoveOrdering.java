@@ -0,0 +1,235 @@
+package chess.engine;
+
+import chess.game.Move;
+import chess.game.board.Board;
+import chess.pieces.PieceCode;
+import chess.pieces.PieceType;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Scores moves so that the search tries the most promising ones first.
+ *
+ * Captures are scored most valuable victim, least valuable attacker, and
+ * always come before quiet moves.  Quiet moves that recently caused a beta
+ * cutoff at the same ply (killer moves) come next, and the remaining quiet
+ * moves are ordered by a history table of cutoffs indexed by color, start
+ * square and end square.
+ *
+ * Moves are identified by their start and end squares only, see encode().
+ *
+ * An ordering belongs to a single search and is not thread safe.
+ *
+ * @author CarrollFD
+ */
+public class MoveOrdering {
+    // the deepest ply killer moves are kept for
+    public static final int MAX_PLY = 128;
+
+    // the number of killer moves kept per ply
+    private static final int KILLER_SLOTS = 2;
+
+    // score bands, captures above killers above quiet moves
+    private static final int CAPTURE_SCORE = 1 << 24;
+    private static final int KILLER_SCORE = 1 << 22;
+
+    // history scores are halved once any reaches this
+    private static final int HISTORY_LIMIT = KILLER_SCORE - 1;
+
+    // victim and attacker ranks indexed by piece type ordinal: king, queen,
+    // bishop, knight, rook, pawn
+    private static final int[] PIECE_RANKS = { 6, 5, 3, 2, 4, 1 };
+
+    private static final int SQUARES = Board.BOARD_SIZE_X * Board.BOARD_SIZE_Y;
+
+    // killer moves by ply and slot, as encoded moves, -1 if empty
+    private final int[][] killers = new int[MAX_PLY][KILLER_SLOTS];
+
+    // cutoff history by color, start square and end square
+    private final int[][][] history = new int[2][SQUARES][SQUARES];
+
+    /**
+     * Constructs an empty ordering.
+     */
+    public MoveOrdering() {
+        clear();
+    }
+
+    /**
+     * Forgets all killer moves and history.
+     */
+    public void clear() {
+        for(int[] slots : killers) {
+            slots[0] = -1;
+            slots[1] = -1;
+        }
+
+        for(int[][] colorHistory : history) {
+            for(int[] fromHistory : colorHistory) {
+                Arrays.fill(fromHistory, 0);
+            }
+        }
+    }
+
+    /**
+     * Scores each move of a list, higher scores should be searched first.
+     *
+     * @param board The board the moves are made on
+     * @param moves The moves to score
+     * @param ply The distance from the root of the search
+     *
+     * @return The score of each move, in list order
+     */
+    public int[] scoreMoves(Board board, List<Move> moves, int ply) {
+        int[] scores = new int[moves.size()];
+
+        for(int i = 0; i < scores.length; i++) {
+            scores[i] = scoreMove(board, moves.get(i), ply);
+        }
+
+        return scores;
+    }
+
+    /**
+     * Scores a single move.
+     *
+     * @param board The board the move is made on
+     * @param move The move to score
+     * @param ply The distance from the root of the search
+     *
+     * @return The score, higher scores should be searched first
+     */
+    public int scoreMove(Board board, Move move, int ply) {
+        PieceType victim = getVictim(board, move);
+
+        if(victim != null) {
+            return CAPTURE_SCORE + PIECE_RANKS[victim.ordinal()] * 8 - PIECE_RANKS[move.getType().ordinal()];
+        }
+
+        int encoded = encode(move);
+
+        if(ply < MAX_PLY) {
+            if(killers[ply][0] == encoded) {
+                return KILLER_SCORE + 1;
+            } else if(killers[ply][1] == encoded) {
+                return KILLER_SCORE;
+            }
+        }
+
+        return history[colorIndex(move.isMoveColor())][move.getStartPosition().getIndex()]
+                [move.getEndPosition().getIndex()];
+    }
+
+    /**
+     * Records a move that caused a beta cutoff.  Only quiet moves are
+     * remembered, captures are already ordered first.
+     *
+     * @param board The board the move was made on
+     * @param move The move
+     * @param ply The distance from the root of the search
+     * @param depth The remaining depth of the search that was cut off
+     */
+    public void recordCutoff(Board board, Move move, int ply, int depth) {
+        if(isCapture(board, move)) {
+            return;
+        }
+
+        int encoded = encode(move);
+
+        // keep the two most recent distinct killers
+        if(ply < MAX_PLY && killers[ply][0] != encoded) {
+            killers[ply][1] = killers[ply][0];
+            killers[ply][0] = encoded;
+        }
+
+        int[] fromHistory = history[colorIndex(move.isMoveColor())][move.getStartPosition().getIndex()];
+        int to = move.getEndPosition().getIndex();
+
+        fromHistory[to] += depth * depth;
+
+        if(fromHistory[to] > HISTORY_LIMIT) {
+            ageHistory();
+        }
+    }
+
+    /**
+     * Halves every history score, so that recent cutoffs outweigh old ones.
+     */
+    public void ageHistory() {
+        for(int[][] colorHistory : history) {
+            for(int[] fromHistory : colorHistory) {
+                for(int to = 0; to < fromHistory.length; to++) {
+                    fromHistory[to] >>= 1;
+                }
+            }
+        }
+    }
+
+    /**
+     * @param move The move
+     * @param ply The distance from the root of the search
+     * @return TRUE if the move is a killer move at the ply
+     */
+    public boolean isKiller(Move move, int ply) {
+        int encoded = encode(move);
+
+        return ply < MAX_PLY && (killers[ply][0] == encoded || killers[ply][1] == encoded);
+    }
+
+    /**
+     * @param ply The distance from the root of the search
+     * @param slot The killer slot, 0 for the most recent
+     * @return The encoded killer move, or -1 if there is none
+     */
+    public int getKiller(int ply, int slot) {
+        return ply < MAX_PLY ? killers[ply][slot] : -1;
+    }
+
+    /**
+     * @param board The board the move is made on
+     * @param move The move
+     * @return TRUE if the move captures a piece
+     */
+    public static boolean isCapture(Board board, Move move) {
+        return getVictim(board, move) != null;
+    }
+
+    /**
+     * Provides the type of piece a move captures.
+     *
+     * @param board The board the move is made on
+     * @param move The move
+     *
+     * @return The captured piece type, or null for a quiet move
+     */
+    public static PieceType getVictim(Board board, Move move) {
+        int code = board.getPieceCode(move.getEndPosition().getIndex());
+
+        if(!PieceCode.isEmpty(code)) {
+            return PieceCode.getType(code);
+        }
+
+        // a pawn moving diagonally onto an empty square captures en passant
+        if(move.getType() == PieceType.pawn && move.getStartPosition().getX() != move.getEndPosition().getX()) {
+            return PieceType.pawn;
+        }
+
+        return null;
+    }
+
+    /**
+     * Encodes a move by its start and end squares.
+     *
+     * @param move The move
+     *
+     * @return The start square index times 64 plus the end square index
+     */
+    public static int encode(Move move) {
+        return move.getStartPosition().getIndex() * SQUARES + move.getEndPosition().getIndex();
+    }
+
+    private static int colorIndex(boolean color) {
+        return color ? 0 : 1;
+    }
+}
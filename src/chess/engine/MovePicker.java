@@ -0,0 +1,86 @@
+package chess.engine;
+
+import chess.game.Move;
+
+import java.util.List;
+
+/**
+ * Hands out moves in order of their scores.  Rather than sorting the whole
+ * list up front, each call selects the best of the remaining moves, so when
+ * a cutoff comes after the first few moves the rest are never sorted.
+ *
+ * @author CarrollFD
+ */
+public class MovePicker {
+    // the moves and their scores, reordered as moves are picked
+    private final List<Move> moves;
+    private final int[] scores;
+
+    // the number of moves already picked
+    private int picked;
+
+    /**
+     * Constructs a picker.
+     *
+     * @param moves The moves to pick from, which are reordered in place
+     * @param scores The score of each move, in list order
+     */
+    public MovePicker(List<Move> moves, int[] scores) {
+        if(moves.size() != scores.length) {
+            throw new IllegalArgumentException("Every move needs a score.");
+        }
+
+        this.moves = moves;
+        this.scores = scores;
+    }
+
+    /**
+     * @return TRUE if there are moves left
+     */
+    public boolean hasNext() {
+        return picked < scores.length;
+    }
+
+    /**
+     * Provides the best scoring move not yet picked.
+     *
+     * @return The move
+     */
+    public Move next() {
+        int best = picked;
+
+        for(int i = picked + 1; i < scores.length; i++) {
+            if(scores[i] > scores[best]) {
+                best = i;
+            }
+        }
+
+        // move the selected move into the picked part of the list
+        if(best != picked) {
+            int score = scores[best];
+            scores[best] = scores[picked];
+            scores[picked] = score;
+
+            moves.set(best, moves.set(picked, moves.get(best)));
+        }
+
+        return moves.get(picked++);
+    }
+
+    /**
+     * Sorts all remaining moves in the list, for callers that iterate the
+     * list itself rather than the picker.
+     */
+    public void sortRemaining() {
+        while(hasNext()) {
+            next();
+        }
+    }
+
+    /**
+     * @return The score of the move most recently picked
+     */
+    public int getLastScore() {
+        return scores[picked - 1];
+    }
+}
@@ -0,0 +1,35 @@
+package chess.engine;
+
+/**
+ * Creates move strategies by name, for command line tools.
+ *
+ * @author CarrollFD
+ */
+public final class MoveStrategies {
+    public static final String RANDOM = "random";
+    public static final String GREEDY = "greedy";
+
+    private MoveStrategies() {
+    }
+
+    /**
+     * Creates a strategy.
+     *
+     * @param name The name of the strategy
+     * @param seed The seed for any random choices the strategy makes
+     *
+     * @return A new strategy instance
+     *
+     * @throws IllegalArgumentException If the name is not recognized
+     */
+    public static MoveStrategy create(String name, long seed) {
+        switch(name) {
+            case RANDOM:
+                return new RandomMoveStrategy(seed);
+            case GREEDY:
+                return new GreedyCaptureStrategy(seed);
+            default:
+                throw new IllegalArgumentException("Unknown strategy: " + name);
+        }
+    }
+}
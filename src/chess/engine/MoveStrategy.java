@@ -0,0 +1,21 @@
+package chess.engine;
+
+import chess.game.Game;
+import chess.game.Move;
+
+/**
+ * Selects the move to play for the side to move in a game.  Strategies are
+ * not required to be thread safe, each game should use its own instance.
+ *
+ * @author CarrollFD
+ */
+public interface MoveStrategy {
+    /**
+     * Selects a legal move for the side to move.
+     *
+     * @param game The game in progress, which must not be modified
+     *
+     * @return The selected move, or null if there is no legal move
+     */
+    public Move selectMove(Game game);
+}
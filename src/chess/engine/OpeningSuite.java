@@ -0,0 +1,114 @@
+package chess.engine;
+
+import chess.game.CoordinateNotation;
+import chess.game.Game;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A list of opening lines used to start engine matches from varied
+ * positions.  Each line is a sequence of moves in coordinate notation,
+ * for example "e2e4 e7e5 g1f3".
+ *
+ * @author CarrollFD
+ */
+public class OpeningSuite {
+    // a small built-in suite of common, roughly balanced openings
+    private static final String[] DEFAULT_LINES = {
+        "e2e4 e7e5 g1f3 b8c6",
+        "e2e4 c7c5 g1f3 d7d6",
+        "e2e4 e7e6 d2d4 d7d5",
+        "e2e4 c7c6 d2d4 d7d5",
+        "d2d4 d7d5 c2c4 e7e6",
+        "d2d4 g8f6 c2c4 e7e6",
+        "d2d4 g8f6 c2c4 g7g6",
+        "c2c4 e7e5 b1c3 g8f6",
+        "g1f3 d7d5 g2g3 g8f6",
+        "e2e4 d7d5 e4d5 d8d5",
+        "d2d4 d7d5 g1f3 g8f6",
+        "e2e4 e7e5 f1c4 g8f6"
+    };
+
+    // the opening lines
+    private final List<String> lines;
+
+    /**
+     * Constructs a suite from the given lines.
+     *
+     * @param lines The opening lines, in coordinate notation
+     */
+    public OpeningSuite(List<String> lines) {
+        if(lines.isEmpty()) {
+            throw new IllegalArgumentException("An opening suite needs at least one line.");
+        }
+
+        this.lines = Collections.unmodifiableList(new ArrayList<>(lines));
+    }
+
+    /**
+     * @return The built-in opening suite
+     */
+    public static OpeningSuite getDefault() {
+        List<String> lines = new ArrayList<>();
+        Collections.addAll(lines, DEFAULT_LINES);
+
+        return new OpeningSuite(lines);
+    }
+
+    /**
+     * Reads a suite from a text file with one opening line per line.  Blank
+     * lines and lines starting with '#' are ignored.
+     *
+     * @param path The file to read
+     *
+     * @return The suite
+     */
+    public static OpeningSuite load(Path path) throws IOException {
+        List<String> lines = new ArrayList<>();
+
+        for(String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+            line = line.trim();
+
+            if(!line.isEmpty() && !line.startsWith("#")) {
+                lines.add(line);
+            }
+        }
+
+        return new OpeningSuite(lines);
+    }
+
+    /**
+     * @return The number of opening lines
+     */
+    public int size() {
+        return lines.size();
+    }
+
+    /**
+     * @param index The index of the line, wrapping around the suite
+     * @return The opening line
+     */
+    public String getLine(int index) {
+        return lines.get(index % lines.size());
+    }
+
+    /**
+     * Creates a new game with an opening line already played.
+     *
+     * @param index The index of the line, wrapping around the suite
+     *
+     * @return The game
+     */
+    public Game createGame(int index) {
+        Game game = new Game();
+        CoordinateNotation.playMoves(game, getLine(index));
+
+        return game;
+    }
+}
@@ -0,0 +1,34 @@
+package chess.engine;
+
+import chess.game.Game;
+import chess.game.Move;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Plays a uniformly random legal move.
+ *
+ * @author CarrollFD
+ */
+public class RandomMoveStrategy implements MoveStrategy {
+    private final Random random;
+
+    /**
+     * @param seed The seed for the random move selection
+     */
+    public RandomMoveStrategy(long seed) {
+        random = new Random(seed);
+    }
+
+    @Override
+    public Move selectMove(Game game) {
+        List<Move> legalMoves = game.getBoard().getLegalMoves(game.getSideToMove());
+
+        if(legalMoves.isEmpty()) {
+            return null;
+        }
+
+        return legalMoves.get(random.nextInt(legalMoves.size()));
+    }
+}
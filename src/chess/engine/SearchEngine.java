@@ -0,0 +1,575 @@
+package chess.engine;
+
+import chess.engine.tablebase.TablebaseResult;
+import chess.engine.tablebase.Tablebases;
+import chess.game.Game;
+import chess.game.Move;
+import chess.game.board.Board;
+import chess.game.evaluation.StaticExchange;
+import chess.pieces.PieceCode;
+import chess.pieces.PieceType;
+
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * A move strategy searching ahead with iterative deepening alpha-beta.
+ *
+ * The search is principal variation search with aspiration windows at the
+ * root, null move pruning and late move reductions, over moves from a
+ * staged generator that tries the transposition table's move first.  Each
+ * of the selective techniques can be
+ * turned off in the EngineConfig, and the statistics of a search report how
+ * often each triggered.  With endgame tables configured, positions they
+ * cover are scored from the tables instead of searched, and at the root the
+ * tables' best move is played.
+ *
+ * Positions are searched by copying the game for every move played, using
+ * Game.createSuccessor(...), so the search applies exactly the same rules
+ * as Board.requestMove(...).
+ *
+ * An engine is not thread safe, each game should use its own instance.
+ *
+ * @author CarrollFD
+ */
+public class SearchEngine implements MoveStrategy {
+    // the score of being checkmated at the root, mates found further away
+    // score closer to zero
+    public static final int MATE_SCORE = 100000;
+
+    // larger than any score
+    private static final int INFINITY = MATE_SCORE + 1;
+
+    // the positional swing allowed for when delta pruning captures
+    private static final int DELTA_MARGIN = 200;
+
+    // the half width of the window around the previous iteration's score
+    private static final int ASPIRATION_WINDOW = 50;
+
+    // null move pruning searches the position after passing this much
+    // less deeply, and only at or above the minimum depth
+    private static final int NULL_MOVE_REDUCTION = 2;
+    private static final int NULL_MOVE_MIN_DEPTH = 3;
+
+    // late move reductions apply from this depth and move number, with a
+    // larger reduction for very late moves in deep searches
+    private static final int LMR_MIN_DEPTH = 3;
+    private static final int LMR_MIN_MOVES = 3;
+    private static final int LMR_DEEP_DEPTH = 6;
+    private static final int LMR_DEEP_MOVES = 8;
+
+    // the engine's settings
+    private final EngineConfig config;
+
+    // the counts collected by the current search
+    private SearchStatistics statistics = new SearchStatistics();
+
+    // results of earlier searches, kept between searches of the same game
+    private final TranspositionTable table;
+
+    // the best move found by the latest call to searchRoot(...)
+    private Move rootBestMove;
+
+    // killer moves and history, kept between searches of the same game
+    private final MoveOrdering ordering = new MoveOrdering();
+
+    // the endgame tables, or null
+    private final Tablebases tablebases;
+
+    /**
+     * Constructs a new engine.
+     *
+     * @param config The engine's settings, which are copied
+     */
+    public SearchEngine(EngineConfig config) {
+        this.config = new EngineConfig(config);
+        this.table = new TranspositionTable(config.getHashEntries());
+        this.tablebases = config.getTablebases() == null ? null : Tablebases.open(Paths.get(config.getTablebases()));
+    }
+
+    /**
+     * @return The engine's settings
+     */
+    public EngineConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * Forgets the results, killer moves and history of earlier searches,
+     * so the engine may be reused for another game.
+     */
+    public void clear() {
+        table.clear();
+        ordering.clear();
+    }
+
+    @Override
+    public Move selectMove(Game game) {
+        return search(game).getBestMove();
+    }
+
+    /**
+     * Searches the position for the side to move to the configured depth.
+     *
+     * @param game The game to search, which is not modified
+     *
+     * @return The best move and its score
+     */
+    public SearchResult search(Game game) {
+        statistics = new SearchStatistics();
+
+        // play perfectly once the position is in the endgame tables
+        if(tablebases != null) {
+            TablebaseResult result = tablebases.probe(game);
+            Move move = result == null ? null : tablebases.selectMove(game);
+
+            if(move != null) {
+                statistics.tablebaseHits++;
+                return new SearchResult(move, getTablebaseScore(result, 0), 0, statistics);
+            }
+        }
+
+        // older cutoffs are less relevant to the new position
+        ordering.ageHistory();
+
+        List<Move> rootMoves = game.getBoard().getCandidateMoves(game.getSideToMove());
+        new MovePicker(rootMoves, ordering.scoreMoves(game.getBoard(), rootMoves, 0)).sortRemaining();
+        Move bestMove = null;
+        int bestScore = 0;
+        int completedDepth = 0;
+
+        for(int depth = 1; depth <= config.getDepth(); depth++) {
+            // search the previous iteration's best move first
+            if(bestMove != null) {
+                rootMoves.remove(bestMove);
+                rootMoves.add(0, bestMove);
+            }
+
+            int alpha = -INFINITY;
+            int beta = INFINITY;
+
+            // expect the score to stay close to the previous iteration's
+            if(config.isAspirationWindows() && depth > 1) {
+                alpha = bestScore - ASPIRATION_WINDOW;
+                beta = bestScore + ASPIRATION_WINDOW;
+            }
+
+            int score = searchRoot(game, rootMoves, depth, alpha, beta);
+
+            // the score fell outside the window, search again with a full one
+            if(score <= alpha || score >= beta) {
+                statistics.aspirationFailures++;
+                score = searchRoot(game, rootMoves, depth, -INFINITY, INFINITY);
+            }
+
+            // there are no legal moves, the game is over
+            if(rootBestMove == null) {
+                return new SearchResult(null, isInCheck(game) ? -MATE_SCORE : 0, 0, statistics);
+            }
+
+            bestMove = rootBestMove;
+            bestScore = score;
+            completedDepth = depth;
+        }
+
+        return new SearchResult(bestMove, bestScore, completedDepth, statistics);
+    }
+
+    /**
+     * @return The number of positions visited by the most recent search
+     */
+    public long getNodes() {
+        return statistics.getNodes();
+    }
+
+    /**
+     * @return The counts collected by the most recent search
+     */
+    public SearchStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Searches every root move with the given window, leaving the best move
+     * in rootBestMove.
+     *
+     * @param game The root position
+     * @param rootMoves The moves to search, best first
+     * @param depth The depth to search to
+     * @param alpha The lower bound of the window
+     * @param beta The upper bound of the window
+     *
+     * @return The best score, from the mover's point of view
+     */
+    private int searchRoot(Game game, List<Move> rootMoves, int depth, int alpha, int beta) {
+        rootBestMove = null;
+        int bestScore = -INFINITY;
+
+        for(Move move : rootMoves) {
+            Game successor = game.createSuccessor(move);
+
+            if(successor == null) {
+                continue;
+            }
+
+            int score = searchChild(successor, depth - 1, alpha, beta, 1, rootBestMove == null);
+
+            if(score > bestScore) {
+                bestScore = score;
+                rootBestMove = move;
+
+                if(score > alpha) {
+                    alpha = score;
+                }
+
+                if(score >= beta) {
+                    break;
+                }
+            }
+        }
+
+        return bestScore;
+    }
+
+    /**
+     * Searches a position with the given window.
+     *
+     * @param game The position to search
+     * @param depth The remaining depth
+     * @param alpha The score the mover is already guaranteed
+     * @param beta The score the opponent is already guaranteed
+     * @param ply The distance from the root
+     * @param allowNullMove FALSE directly after a null move
+     *
+     * @return The score from the mover's point of view
+     */
+    private int alphaBeta(Game game, int depth, int alpha, int beta, int ply, boolean allowNullMove) {
+        statistics.nodes++;
+
+        if(depth <= 0) {
+            return config.isQuiescence() ? quiesce(game, alpha, beta, ply) : evaluate(game);
+        }
+
+        // the tables know the exact result, there is nothing to search
+        if(tablebases != null) {
+            TablebaseResult result = tablebases.probe(game);
+
+            if(result != null) {
+                statistics.tablebaseHits++;
+                return getTablebaseScore(result, ply);
+            }
+        }
+
+        Board board = game.getBoard();
+        boolean inCheck = isInCheck(game);
+        boolean zeroWindow = beta - alpha == 1;
+        int originalAlpha = alpha;
+
+        // reuse the result of an earlier search of the same position, but
+        // only take cutoffs from it in zero window searches so the principal
+        // variation is always searched
+        long key = game.getHashKey();
+        int hashMove = TranspositionTable.NO_MOVE;
+        int slot = table.probe(key);
+
+        if(slot >= 0) {
+            hashMove = table.getMove(slot);
+
+            if(zeroWindow && table.getDepth(slot) >= depth) {
+                int score = fromTableScore(table.getScore(slot), ply);
+                int bound = table.getBound(slot);
+
+                if(bound == TranspositionTable.EXACT
+                        || (bound == TranspositionTable.LOWER_BOUND && score >= beta)
+                        || (bound == TranspositionTable.UPPER_BOUND && score <= alpha)) {
+                    statistics.tableCutoffs++;
+                    return score;
+                }
+            }
+        }
+
+        // if passing the turn still leaves the mover above beta, a real move
+        // almost certainly would too.  Passing is never better than moving
+        // unless the mover is in zugzwang, which is only likely with nothing
+        // but king and pawns left, so those positions are excluded.
+        if(config.isNullMovePruning() && allowNullMove && zeroWindow && !inCheck && depth >= NULL_MOVE_MIN_DEPTH
+                && hasPieces(board, game.getSideToMove()) && evaluate(game) >= beta) {
+            statistics.nullMoveTries++;
+
+            int score = -alphaBeta(game.createNullSuccessor(), depth - 1 - NULL_MOVE_REDUCTION,
+                    -beta, -beta + 1, ply + 1, false);
+
+            if(score >= beta) {
+                statistics.nullMoveCutoffs++;
+
+                // don't trust mate scores found without a real move
+                return score >= MATE_SCORE - MoveOrdering.MAX_PLY ? beta : score;
+            }
+        }
+
+        int bestScore = -INFINITY;
+        Move bestMove = null;
+        int movesSearched = 0;
+        StagedMoveGenerator generator = new StagedMoveGenerator(board, game.getSideToMove(), hashMove,
+                ordering, ply, false);
+        Move move;
+
+        while((move = generator.next()) != null) {
+            StagedMoveGenerator.Stage stage = generator.getLastStage();
+            boolean quiet = stage == StagedMoveGenerator.Stage.quietMoves
+                    || (stage == StagedMoveGenerator.Stage.hashMove && !MoveOrdering.isCapture(board, move));
+            Game successor = game.createSuccessor(move);
+
+            if(successor == null) {
+                continue;
+            }
+
+            int score;
+
+            // late quiet moves rarely turn out best, search them less deeply
+            // and only search them fully if they beat alpha after all
+            if(config.isLateMoveReductions() && depth >= LMR_MIN_DEPTH && movesSearched >= LMR_MIN_MOVES
+                    && quiet && !inCheck && !isInCheck(successor)) {
+                int reduction = movesSearched >= LMR_DEEP_MOVES && depth >= LMR_DEEP_DEPTH ? 2 : 1;
+                statistics.lmrReductions++;
+
+                score = searchChild(successor, depth - 1 - reduction, alpha, beta, ply + 1, false);
+
+                if(score > alpha) {
+                    statistics.lmrResearches++;
+                    score = searchChild(successor, depth - 1, alpha, beta, ply + 1, false);
+                }
+            } else {
+                score = searchChild(successor, depth - 1, alpha, beta, ply + 1, movesSearched == 0);
+            }
+
+            movesSearched++;
+
+            if(score > bestScore) {
+                bestScore = score;
+                bestMove = move;
+
+                if(score > alpha) {
+                    alpha = score;
+                }
+
+                if(score >= beta) {
+                    ordering.recordCutoff(board, move, ply, depth);
+                    break;
+                }
+            }
+        }
+
+        // no legal moves, checkmate or stalemate
+        if(bestScore == -INFINITY) {
+            return inCheck ? -MATE_SCORE + ply : 0;
+        }
+
+        int bound = bestScore >= beta ? TranspositionTable.LOWER_BOUND
+                : bestScore > originalAlpha ? TranspositionTable.EXACT : TranspositionTable.UPPER_BOUND;
+        table.store(key, bestMove == null ? TranspositionTable.NO_MOVE : MoveOrdering.encode(bestMove),
+                depth, toTableScore(bestScore, ply), bound);
+
+        return bestScore;
+    }
+
+    /**
+     * Converts an endgame table result to a score.  Mates within reach of
+     * the search score as mates found by searching; longer ones score just
+     * below, still ordered by their distance.
+     */
+    private static int getTablebaseScore(TablebaseResult result, int ply) {
+        if(result.isDraw()) {
+            return 0;
+        }
+
+        int score = ply + result.getPlies() < MoveOrdering.MAX_PLY ? MATE_SCORE - ply - result.getPlies()
+                : MATE_SCORE - MoveOrdering.MAX_PLY - 1 - result.getPlies();
+
+        return result.isWin() ? score : -score;
+    }
+
+    /**
+     * Converts a score for storing in the table.  Mate scores count the
+     * moves from the root, the table stores them counted from the position
+     * so they are correct wherever the position is reached again.
+     */
+    private static int toTableScore(int score, int ply) {
+        if(score >= MATE_SCORE - MoveOrdering.MAX_PLY) {
+            return score + ply;
+        } else if(score <= -MATE_SCORE + MoveOrdering.MAX_PLY) {
+            return score - ply;
+        }
+
+        return score;
+    }
+
+    /**
+     * Converts a score read from the table, the reverse of toTableScore(...).
+     */
+    private static int fromTableScore(int score, int ply) {
+        if(score >= MATE_SCORE - MoveOrdering.MAX_PLY) {
+            return score - ply;
+        } else if(score <= -MATE_SCORE + MoveOrdering.MAX_PLY) {
+            return score + ply;
+        }
+
+        return score;
+    }
+
+    /**
+     * Searches the position after a move.  With principal variation search,
+     * only the first move gets the full window; the rest are searched with a
+     * zero window to prove they are no better, and searched again with the
+     * full window only if they are.
+     *
+     * @param successor The position after the move
+     * @param depth The remaining depth
+     * @param alpha The score the mover is already guaranteed
+     * @param beta The score the opponent is already guaranteed
+     * @param ply The distance from the root of the successor
+     * @param firstMove TRUE if this is the first move searched at the node
+     *
+     * @return The score from the point of view of the player making the move
+     */
+    private int searchChild(Game successor, int depth, int alpha, int beta, int ply, boolean firstMove) {
+        if(!config.isPrincipalVariationSearch() || firstMove || beta - alpha == 1) {
+            return -alphaBeta(successor, depth, -beta, -alpha, ply, true);
+        }
+
+        int score = -alphaBeta(successor, depth, -alpha - 1, -alpha, ply, true);
+
+        if(score > alpha && score < beta) {
+            statistics.pvsResearches++;
+            score = -alphaBeta(successor, depth, -beta, -alpha, ply, true);
+        }
+
+        return score;
+    }
+
+    /**
+     * Extends a leaf through captures until the position is quiet, so that
+     * positions are not scored in the middle of an exchange.  The side to
+     * move may stand pat on the static evaluation unless in check, in which
+     * case every move is searched.  Captures that cannot raise the score to
+     * alpha even when winning the captured piece outright (delta pruning),
+     * and captures that lose material by static exchange evaluation, are
+     * skipped.
+     *
+     * @param game The position to search
+     * @param alpha The score the mover is already guaranteed
+     * @param beta The score the opponent is already guaranteed
+     * @param ply The distance from the root
+     *
+     * @return The score from the mover's point of view
+     */
+    private int quiesce(Game game, int alpha, int beta, int ply) {
+        // the move ordering tables end here, even for evasions of checks
+        if(ply >= MoveOrdering.MAX_PLY) {
+            return evaluate(game);
+        }
+
+        boolean inCheck = isInCheck(game);
+        int bestScore = -INFINITY;
+        int standPat = 0;
+
+        if(!inCheck) {
+            standPat = evaluate(game);
+
+            if(standPat >= beta) {
+                return standPat;
+            }
+
+            // even winning a queen would not reach alpha
+            if(standPat + StaticExchange.getValue(PieceType.queen) + DELTA_MARGIN < alpha) {
+                return standPat;
+            }
+
+            bestScore = standPat;
+            alpha = Math.max(alpha, standPat);
+        }
+
+        Board board = game.getBoard();
+        StagedMoveGenerator generator = new StagedMoveGenerator(board, game.getSideToMove(),
+                TranspositionTable.NO_MOVE, ordering, ply, !inCheck);
+        Move move;
+
+        while((move = generator.next()) != null) {
+            if(!inCheck) {
+                PieceType victim = MoveOrdering.getVictim(board, move);
+
+                if(standPat + StaticExchange.getValue(victim) + DELTA_MARGIN <= alpha
+                        || StaticExchange.evaluate(board, move) < 0) {
+                    continue;
+                }
+            }
+
+            Game successor = game.createSuccessor(move);
+
+            if(successor == null) {
+                continue;
+            }
+
+            statistics.nodes++;
+            statistics.quiescenceNodes++;
+            int score = -quiesce(successor, -beta, -alpha, ply + 1);
+
+            if(score > bestScore) {
+                bestScore = score;
+
+                if(score > alpha) {
+                    alpha = score;
+                }
+
+                if(score >= beta) {
+                    break;
+                }
+            }
+        }
+
+        // in check with no legal moves
+        if(bestScore == -INFINITY) {
+            return -MATE_SCORE + ply;
+        }
+
+        return bestScore;
+    }
+
+    /**
+     * @param board The board to check
+     * @param color The side to check
+     * @return TRUE if the side has any piece besides its king and pawns
+     */
+    private static boolean hasPieces(Board board, boolean color) {
+        for(long remaining = board.getOccupancy(color); remaining != 0; remaining &= remaining - 1) {
+            PieceType type = PieceCode.getType(board.getPieceCode(Long.numberOfTrailingZeros(remaining)));
+
+            if(type != PieceType.king && type != PieceType.pawn) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Evaluates a position statically.
+     *
+     * @param game The position to evaluate
+     *
+     * @return The score from the mover's point of view
+     */
+    private int evaluate(Game game) {
+        return game.getBoard().getEvaluation().getScore(game.getSideToMove());
+    }
+
+    /**
+     * @param game The position to check
+     * @return TRUE if the side to move is in check
+     */
+    private static boolean isInCheck(Game game) {
+        Boolean colorInCheck = game.getBoard().getColorInCheck().toBoolean();
+
+        return colorInCheck != null && colorInCheck == game.getSideToMove();
+    }
+}
@@ -0,0 +1,65 @@
+package chess.engine;
+
+import chess.game.Move;
+
+/**
+ * The outcome of a search.
+ *
+ * @author CarrollFD
+ */
+public class SearchResult {
+    private final Move bestMove;
+    private final int score;
+    private final int depth;
+    private final SearchStatistics statistics;
+
+    /**
+     * Constructs a new result
+     *
+     * @param bestMove The best move found, or null if there is no legal move
+     * @param score The score of the best move, from the mover's point of view
+     * @param depth The depth of the last completed iteration
+     * @param statistics The counts collected during the search
+     */
+    public SearchResult(Move bestMove, int score, int depth, SearchStatistics statistics) {
+        this.bestMove = bestMove;
+        this.score = score;
+        this.depth = depth;
+        this.statistics = statistics;
+    }
+
+    /**
+     * @return The best move found, or null if there is no legal move
+     */
+    public Move getBestMove() {
+        return bestMove;
+    }
+
+    /**
+     * @return The score in centipawns, from the mover's point of view
+     */
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * @return The depth of the last completed iteration
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * @return The number of positions visited
+     */
+    public long getNodes() {
+        return statistics.getNodes();
+    }
+
+    /**
+     * @return The counts collected during the search
+     */
+    public SearchStatistics getStatistics() {
+        return statistics;
+    }
+}
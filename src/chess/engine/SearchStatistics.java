@@ -0,0 +1,159 @@
+package chess.engine;
+
+/**
+ * Counts what happened during a search: the positions visited, and how
+ * often each selective search technique triggered.  Used to judge the
+ * techniques when comparing engine configurations.
+ *
+ * @author CarrollFD
+ */
+public class SearchStatistics {
+    // positions visited, including quiescence positions
+    long nodes;
+
+    // quiescence positions visited
+    long quiescenceNodes;
+
+    // positions whose score was taken from the transposition table
+    long tableCutoffs;
+
+    // root searches outside the aspiration window, which were repeated
+    long aspirationFailures;
+
+    // zero window searches that failed high and were repeated in full
+    long pvsResearches;
+
+    // null moves tried, and how many of them caused a cutoff
+    long nullMoveTries;
+    long nullMoveCutoffs;
+
+    // moves searched at reduced depth, and how many were repeated at full
+    // depth because they beat alpha
+    long lmrReductions;
+    long lmrResearches;
+
+    // positions whose score was taken from the endgame tables
+    long tablebaseHits;
+
+    /**
+     * Constructs empty statistics.
+     */
+    public SearchStatistics() {
+    }
+
+    /**
+     * Copy Constructor
+     *
+     * @param toCopy Statistics to copy
+     */
+    public SearchStatistics(SearchStatistics toCopy) {
+        nodes = toCopy.nodes;
+        quiescenceNodes = toCopy.quiescenceNodes;
+        tableCutoffs = toCopy.tableCutoffs;
+        aspirationFailures = toCopy.aspirationFailures;
+        pvsResearches = toCopy.pvsResearches;
+        nullMoveTries = toCopy.nullMoveTries;
+        nullMoveCutoffs = toCopy.nullMoveCutoffs;
+        lmrReductions = toCopy.lmrReductions;
+        lmrResearches = toCopy.lmrResearches;
+        tablebaseHits = toCopy.tablebaseHits;
+    }
+
+    /**
+     * Adds another search's counts to these.
+     *
+     * @param other The statistics to add
+     */
+    public void add(SearchStatistics other) {
+        nodes += other.nodes;
+        quiescenceNodes += other.quiescenceNodes;
+        tableCutoffs += other.tableCutoffs;
+        aspirationFailures += other.aspirationFailures;
+        pvsResearches += other.pvsResearches;
+        nullMoveTries += other.nullMoveTries;
+        nullMoveCutoffs += other.nullMoveCutoffs;
+        lmrReductions += other.lmrReductions;
+        lmrResearches += other.lmrResearches;
+        tablebaseHits += other.tablebaseHits;
+    }
+
+    /**
+     * @return The positions visited, including quiescence positions
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * @return The quiescence positions visited
+     */
+    public long getQuiescenceNodes() {
+        return quiescenceNodes;
+    }
+
+    /**
+     * @return The positions whose score was taken from the transposition
+     *         table
+     */
+    public long getTableCutoffs() {
+        return tableCutoffs;
+    }
+
+    /**
+     * @return The root searches repeated after falling outside the
+     *         aspiration window
+     */
+    public long getAspirationFailures() {
+        return aspirationFailures;
+    }
+
+    /**
+     * @return The zero window searches repeated with the full window
+     */
+    public long getPvsResearches() {
+        return pvsResearches;
+    }
+
+    /**
+     * @return The null moves tried
+     */
+    public long getNullMoveTries() {
+        return nullMoveTries;
+    }
+
+    /**
+     * @return The null moves that caused a cutoff
+     */
+    public long getNullMoveCutoffs() {
+        return nullMoveCutoffs;
+    }
+
+    /**
+     * @return The moves searched at reduced depth
+     */
+    public long getLmrReductions() {
+        return lmrReductions;
+    }
+
+    /**
+     * @return The reduced moves repeated at full depth
+     */
+    public long getLmrResearches() {
+        return lmrResearches;
+    }
+
+    /**
+     * @return The positions whose score was taken from the endgame tables
+     */
+    public long getTablebaseHits() {
+        return tablebaseHits;
+    }
+
+    @Override
+    public String toString() {
+        return "nodes " + nodes + " (quiescence " + quiescenceNodes + "), table cutoffs " + tableCutoffs
+                + ", aspiration failures " + aspirationFailures + ", pvs re-searches " + pvsResearches
+                + ", null move cutoffs " + nullMoveCutoffs + "/" + nullMoveTries
+                + ", lmr re-searches " + lmrResearches + "/" + lmrReductions + ", tablebase hits " + tablebaseHits;
+    }
+}
@@ -0,0 +1,153 @@
+package chess.engine;
+
+/**
+ * A sequential probability ratio test deciding between two hypotheses about
+ * the Elo difference between two engines: H0, the difference is elo0, and
+ * H1, the difference is elo1.
+ *
+ * Games are played in pairs from the same opening with the colors swapped,
+ * and each pair contributes one score between 0 and 2 for the first engine.
+ * Using pair scores cancels most of the bias of the opening and of the
+ * first move.  The log likelihood ratio is calculated with the usual normal
+ * approximation over the observed mean and variance of the pair scores.
+ *
+ * This class is not thread safe.
+ *
+ * @author CarrollFD
+ */
+public class Sprt {
+    /**
+     * The state of the test.
+     */
+    public enum Decision {
+        continueTesting, acceptH0, acceptH1
+    }
+
+    // the expected score per game under each hypothesis
+    private final double score0;
+    private final double score1;
+
+    // the bounds of the log likelihood ratio
+    private final double lowerBound;
+    private final double upperBound;
+
+    // the number of pairs for each pair score: 0, 0.5, 1, 1.5, 2
+    private final long[] pairCounts = new long[5];
+
+    /**
+     * Constructs a new test.
+     *
+     * @param elo0 The Elo difference of the null hypothesis
+     * @param elo1 The Elo difference of the alternative hypothesis
+     * @param alpha The probability of accepting H1 when H0 is true
+     * @param beta The probability of accepting H0 when H1 is true
+     */
+    public Sprt(double elo0, double elo1, double alpha, double beta) {
+        if(elo1 <= elo0) {
+            throw new IllegalArgumentException("elo1 must be greater than elo0.");
+        }
+
+        if(alpha <= 0 || alpha >= 1 || beta <= 0 || beta >= 1) {
+            throw new IllegalArgumentException("alpha and beta must be between 0 and 1.");
+        }
+
+        this.score0 = expectedScore(elo0);
+        this.score1 = expectedScore(elo1);
+        this.lowerBound = Math.log(beta / (1 - alpha));
+        this.upperBound = Math.log((1 - beta) / alpha);
+    }
+
+    /**
+     * Records the result of a game pair.
+     *
+     * @param halfPoints The first engine's score over both games in half
+     *                   points, from 0 for two losses to 4 for two wins
+     */
+    public void addPair(int halfPoints) {
+        if(halfPoints < 0 || halfPoints >= pairCounts.length) {
+            throw new IllegalArgumentException("Invalid pair score: " + halfPoints);
+        }
+
+        pairCounts[halfPoints]++;
+    }
+
+    /**
+     * @return The number of game pairs recorded
+     */
+    public long getPairs() {
+        long pairs = 0;
+
+        for(long count : pairCounts) {
+            pairs += count;
+        }
+
+        return pairs;
+    }
+
+    /**
+     * @return The current log likelihood ratio, 0 until the results vary
+     */
+    public double getLlr() {
+        long pairs = getPairs();
+
+        if(pairs < 2) {
+            return 0;
+        }
+
+        // mean and variance of the per game score
+        double mean = 0;
+        for(int i = 0; i < pairCounts.length; i++) {
+            mean += pairCounts[i] * (i / 4.0);
+        }
+        mean /= pairs;
+
+        double variance = 0;
+        for(int i = 0; i < pairCounts.length; i++) {
+            double deviation = i / 4.0 - mean;
+            variance += pairCounts[i] * deviation * deviation;
+        }
+        variance /= pairs;
+
+        if(variance <= 0) {
+            return 0;
+        }
+
+        return pairs * (score1 - score0) * (2 * mean - score0 - score1) / (2 * variance);
+    }
+
+    /**
+     * @return Whether the test has reached a conclusion
+     */
+    public Decision getDecision() {
+        double llr = getLlr();
+
+        if(llr >= upperBound) {
+            return Decision.acceptH1;
+        } else if(llr <= lowerBound) {
+            return Decision.acceptH0;
+        }
+
+        return Decision.continueTesting;
+    }
+
+    /**
+     * @return The log likelihood ratio at which H0 is accepted
+     */
+    public double getLowerBound() {
+        return lowerBound;
+    }
+
+    /**
+     * @return The log likelihood ratio at which H1 is accepted
+     */
+    public double getUpperBound() {
+        return upperBound;
+    }
+
+    /**
+     * Converts an Elo difference to an expected score.
+     */
+    private static double expectedScore(double elo) {
+        return 1 / (1 + Math.pow(10, -elo / 400));
+    }
+}
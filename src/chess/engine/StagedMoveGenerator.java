@@ -0,0 +1,184 @@
+package chess.engine;
+
+import chess.game.Move;
+import chess.game.board.Board;
+
+import java.util.List;
+
+/**
+ * Hands out the candidate moves of a position in stages, generating each
+ * stage only when the previous one is used up: first the hash move, then
+ * captures by most valuable victim, then the killer moves, then the quiet
+ * moves by history.  Most searches are cut off after the first move or two,
+ * and then the quiet moves, which are most of the work, are never
+ * generated.
+ *
+ * The board has no pawn promotion, so promotions need no stage of their
+ * own.  Moves are pseudo-legal: they may leave the mover in check, which
+ * Game.createSuccessor(...) rejects.
+ *
+ * @author CarrollFD
+ */
+public class StagedMoveGenerator {
+    /**
+     * The stages, in order.
+     */
+    public enum Stage {
+        hashMove, captures, killers, quietMoves, done
+    }
+
+    private final Board board;
+    private final boolean color;
+    private final MoveOrdering ordering;
+    private final int ply;
+    private final int hashMove;
+    private final boolean capturesOnly;
+
+    // the stage of the next move
+    private Stage stage = Stage.hashMove;
+
+    // the stage of the move most recently returned
+    private Stage lastStage;
+
+    // the moves of the current stage
+    private MovePicker picker;
+
+    // the killer slot to try next
+    private int killerSlot;
+
+    // the killers returned, so they are not returned again as quiet moves
+    private int firstKiller = TranspositionTable.NO_MOVE;
+    private int secondKiller = TranspositionTable.NO_MOVE;
+
+    /**
+     * Constructs a generator.
+     *
+     * @param board The board to generate moves on
+     * @param color The color to move
+     * @param hashMove The best move from the transposition table, encoded
+     *                 as MoveOrdering.encode(...), or NO_MOVE
+     * @param ordering The killer moves and history to order by
+     * @param ply The distance from the root of the search
+     * @param capturesOnly TRUE to generate only the hash move and captures
+     */
+    public StagedMoveGenerator(Board board, boolean color, int hashMove, MoveOrdering ordering, int ply,
+            boolean capturesOnly) {
+        this.board = board;
+        this.color = color;
+        this.hashMove = hashMove;
+        this.ordering = ordering;
+        this.ply = ply;
+        this.capturesOnly = capturesOnly;
+    }
+
+    /**
+     * Provides the next move.
+     *
+     * @return The move, or null once every move has been returned
+     */
+    public Move next() {
+        while(true) {
+            switch(stage) {
+                case hashMove:
+                    stage = Stage.captures;
+
+                    if(hashMove != TranspositionTable.NO_MOVE) {
+                        Move move = createMove(hashMove);
+
+                        // a hash move is skipped if it is no longer valid,
+                        // and in a capture search if it is quiet
+                        if(move != null && (!capturesOnly || MoveOrdering.isCapture(board, move))) {
+                            return returnMove(move, Stage.hashMove);
+                        }
+                    }
+                    break;
+
+                case captures:
+                    if(picker == null) {
+                        List<Move> captures = board.getCaptureMoves(color);
+                        picker = new MovePicker(captures, ordering.scoreMoves(board, captures, ply));
+                    }
+
+                    while(picker.hasNext()) {
+                        Move move = picker.next();
+
+                        if(MoveOrdering.encode(move) != hashMove) {
+                            return returnMove(move, Stage.captures);
+                        }
+                    }
+
+                    picker = null;
+                    stage = capturesOnly ? Stage.done : Stage.killers;
+                    break;
+
+                case killers:
+                    while(killerSlot < 2) {
+                        int killer = ordering.getKiller(ply, killerSlot++);
+
+                        if(killer == TranspositionTable.NO_MOVE || killer == hashMove) {
+                            continue;
+                        }
+
+                        // killers come from other positions, so must be checked
+                        Move move = createMove(killer);
+
+                        if(move != null && !MoveOrdering.isCapture(board, move)) {
+                            if(firstKiller == TranspositionTable.NO_MOVE) {
+                                firstKiller = killer;
+                            } else {
+                                secondKiller = killer;
+                            }
+
+                            return returnMove(move, Stage.killers);
+                        }
+                    }
+
+                    stage = Stage.quietMoves;
+                    break;
+
+                case quietMoves:
+                    if(picker == null) {
+                        List<Move> quietMoves = board.getQuietMoves(color);
+                        picker = new MovePicker(quietMoves, ordering.scoreMoves(board, quietMoves, ply));
+                    }
+
+                    while(picker.hasNext()) {
+                        Move move = picker.next();
+                        int encoded = MoveOrdering.encode(move);
+
+                        if(encoded != hashMove && encoded != firstKiller && encoded != secondKiller) {
+                            return returnMove(move, Stage.quietMoves);
+                        }
+                    }
+
+                    picker = null;
+                    stage = Stage.done;
+                    break;
+
+                default:
+                    return null;
+            }
+        }
+    }
+
+    /**
+     * @return The stage of the move most recently returned by next()
+     */
+    public Stage getLastStage() {
+        return lastStage;
+    }
+
+    private Move returnMove(Move move, Stage moveStage) {
+        lastStage = moveStage;
+
+        return move;
+    }
+
+    /**
+     * Creates a move from its encoding if it is a candidate move here.
+     */
+    private Move createMove(int encoded) {
+        return board.getCandidateMove(color, encoded / (Board.BOARD_SIZE_X * Board.BOARD_SIZE_Y),
+                encoded % (Board.BOARD_SIZE_X * Board.BOARD_SIZE_Y));
+    }
+}
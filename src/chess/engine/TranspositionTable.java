@@ -0,0 +1,142 @@
+package chess.engine;
+
+/**
+ * A fixed size hash table of search results keyed by Zobrist key, used to
+ * reuse the work done on positions reached more than once and to find the
+ * best move of a position searched before.
+ *
+ * Entries are kept in parallel primitive arrays so the table allocates
+ * nothing while searching.  Each key maps to a single slot; a new result
+ * replaces the old one unless the old one is for the same position and was
+ * searched more deeply.
+ *
+ * A table belongs to a single search and is not thread safe.
+ *
+ * @author CarrollFD
+ */
+public class TranspositionTable {
+    // the kinds of score stored
+    public static final int EXACT = 0;
+    public static final int LOWER_BOUND = 1;
+    public static final int UPPER_BOUND = 2;
+
+    // returned when no move is stored
+    public static final int NO_MOVE = -1;
+
+    private final long[] keys;
+    private final int[] moves;
+    private final int[] scores;
+    private final byte[] depths;
+    private final byte[] bounds;
+
+    // selects the slot from a key
+    private final int mask;
+
+    /**
+     * Constructs an empty table.
+     *
+     * @param entries The number of entries, rounded down to a power of two
+     */
+    public TranspositionTable(int entries) {
+        if(entries < 1) {
+            throw new IllegalArgumentException("A table needs at least one entry.");
+        }
+
+        int size = Integer.highestOneBit(entries);
+
+        keys = new long[size];
+        moves = new int[size];
+        scores = new int[size];
+        depths = new byte[size];
+        bounds = new byte[size];
+        mask = size - 1;
+
+        clear();
+    }
+
+    /**
+     * Removes every entry.
+     */
+    public void clear() {
+        for(int i = 0; i < keys.length; i++) {
+            keys[i] = 0;
+            moves[i] = NO_MOVE;
+            depths[i] = -1;
+        }
+    }
+
+    /**
+     * Looks up a position.
+     *
+     * @param key The position's Zobrist key
+     *
+     * @return The entry's slot, or -1 if the position is not stored
+     */
+    public int probe(long key) {
+        int slot = (int)key & mask;
+
+        return keys[slot] == key && depths[slot] >= 0 ? slot : -1;
+    }
+
+    /**
+     * Stores a search result.
+     *
+     * @param key The position's Zobrist key
+     * @param move The best move encoded as MoveOrdering.encode(...), or
+     *             NO_MOVE
+     * @param depth The depth searched
+     * @param score The score found
+     * @param bound EXACT, LOWER_BOUND or UPPER_BOUND
+     */
+    public void store(long key, int move, int depth, int score, int bound) {
+        int slot = (int)key & mask;
+
+        // keep a deeper result for the same position
+        if(keys[slot] == key && depths[slot] > depth) {
+            return;
+        }
+
+        // keep the previous best move if this search found none
+        if(move == NO_MOVE && keys[slot] == key) {
+            move = moves[slot];
+        }
+
+        keys[slot] = key;
+        moves[slot] = move;
+        scores[slot] = score;
+        depths[slot] = (byte)Math.min(depth, Byte.MAX_VALUE);
+        bounds[slot] = (byte)bound;
+    }
+
+    /**
+     * @param slot A slot returned by probe(...)
+     * @return The best move, or NO_MOVE
+     */
+    public int getMove(int slot) {
+        return moves[slot];
+    }
+
+    /**
+     * @param slot A slot returned by probe(...)
+     * @return The score
+     */
+    public int getScore(int slot) {
+        return scores[slot];
+    }
+
+    /**
+     * @param slot A slot returned by probe(...)
+     * @return The depth searched
+     */
+    public int getDepth(int slot) {
+        return depths[slot];
+    }
+
+    /**
+     * @param slot A slot returned by probe(...)
+     * @return EXACT, LOWER_BOUND or UPPER_BOUND
+     */
+    public int getBound(int slot) {
+        return bounds[slot];
+    }
+}
@@ -0,0 +1,48 @@
+package chess.engine.book;
+
+import chess.game.Move;
+
+/**
+ * A move found in an opening book, with its weight.
+ *
+ * @author CarrollFD
+ */
+public class BookMove {
+    private final Move move;
+    private final int weight;
+    private final int learn;
+
+    /**
+     * Constructs a new book move.
+     *
+     * @param move The move
+     * @param weight The relative weight of the move, higher is played more
+     * @param learn The learning data stored with the move
+     */
+    public BookMove(Move move, int weight, int learn) {
+        this.move = move;
+        this.weight = weight;
+        this.learn = learn;
+    }
+
+    /**
+     * @return The move
+     */
+    public Move getMove() {
+        return move;
+    }
+
+    /**
+     * @return The relative weight of the move, higher is played more
+     */
+    public int getWeight() {
+        return weight;
+    }
+
+    /**
+     * @return The learning data stored with the move
+     */
+    public int getLearn() {
+        return learn;
+    }
+}
@@ -0,0 +1,37 @@
+package chess.engine.book;
+
+import chess.engine.MoveStrategy;
+import chess.game.Game;
+import chess.game.Move;
+
+import java.util.Random;
+
+/**
+ * Plays moves from an opening book while the game is in the book, and
+ * leaves the rest of the game to another strategy.
+ *
+ * @author CarrollFD
+ */
+public class BookMoveStrategy implements MoveStrategy {
+    private final OpeningBook book;
+    private final MoveStrategy fallback;
+    private final Random random;
+
+    /**
+     * @param book The opening book, which may be shared between strategies
+     * @param fallback The strategy used once the game leaves the book
+     * @param seed The seed for the weighted book move selection
+     */
+    public BookMoveStrategy(OpeningBook book, MoveStrategy fallback, long seed) {
+        this.book = book;
+        this.fallback = fallback;
+        random = new Random(seed);
+    }
+
+    @Override
+    public Move selectMove(Game game) {
+        Move move = book.selectMove(game, random);
+
+        return move != null ? move : fallback.selectMove(game);
+    }
+}
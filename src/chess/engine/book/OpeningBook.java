@@ -0,0 +1,177 @@
+package chess.engine.book;
+
+import chess.game.Game;
+import chess.game.Move;
+import chess.game.board.Board;
+import chess.io.MappedEntryFile;
+import chess.pieces.PieceCode;
+import chess.pieces.PieceType;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * An opening book in the Polyglot format, read through a memory mapping of
+ * the file.  Nothing is copied onto the heap: entries are read straight
+ * from the mapped pages, which the operating system shares between every
+ * process using the same book.
+ *
+ * A Polyglot book is a sequence of 16 byte big endian entries sorted by
+ * key: the 64 bit Zobrist key of the position, a 16 bit move, a 16 bit
+ * weight and 32 bits of learning data.  The entries of a position are
+ * found by binary search.  Keys must come from the same Zobrist keys as
+ * Game.getHashKey(), see Zobrist.
+ *
+ * This class is thread safe once opened.
+ *
+ * @author CarrollFD
+ */
+public class OpeningBook implements Closeable {
+    // the size of an entry in bytes
+    public static final int ENTRY_SIZE = 16;
+
+    // offsets within an entry
+    private static final int MOVE_OFFSET = 8;
+    private static final int WEIGHT_OFFSET = 10;
+    private static final int LEARN_OFFSET = 12;
+
+    private final MappedEntryFile entries;
+
+    /**
+     * Opens and maps a book.
+     *
+     * @param path The book file
+     */
+    public OpeningBook(Path path) throws IOException {
+        entries = new MappedEntryFile(path, ENTRY_SIZE);
+    }
+
+    /**
+     * @return The number of entries in the book
+     */
+    public long size() {
+        return entries.size();
+    }
+
+    /**
+     * Provides the book moves for a game's current position.  Moves that
+     * are not legal in the position, which happens with keys that collide,
+     * are left out.
+     *
+     * @param game The game
+     *
+     * @return The moves, in book order, empty if the position is not in the
+     *         book
+     */
+    public List<BookMove> getMoves(Game game) {
+        long key = game.getHashKey();
+        List<BookMove> moves = new ArrayList<>();
+
+        for(long entry = entries.findFirst(key); entry < entries.size() && entries.getKey(entry) == key; entry++) {
+            Move move = decodeMove(game.getBoard(), game.getSideToMove(), entries.getShort(entry, MOVE_OFFSET));
+
+            if(move != null && game.createSuccessor(move) != null) {
+                moves.add(new BookMove(move, entries.getShort(entry, WEIGHT_OFFSET),
+                        entries.getInt(entry, LEARN_OFFSET)));
+            }
+        }
+
+        return moves.isEmpty() ? Collections.<BookMove>emptyList() : moves;
+    }
+
+    /**
+     * Picks a book move at random, in proportion to the moves' weights.
+     *
+     * @param game The game
+     * @param random The source of randomness
+     *
+     * @return The move, or null if the position is not in the book
+     */
+    public Move selectMove(Game game, Random random) {
+        List<BookMove> moves = getMoves(game);
+        long totalWeight = 0;
+
+        for(BookMove move : moves) {
+            totalWeight += move.getWeight();
+        }
+
+        if(totalWeight == 0) {
+            return null;
+        }
+
+        long pick = (long)(random.nextDouble() * totalWeight);
+
+        for(BookMove move : moves) {
+            pick -= move.getWeight();
+
+            if(pick < 0) {
+                return move.getMove();
+            }
+        }
+
+        return moves.get(moves.size() - 1).getMove();
+    }
+
+    @Override
+    public void close() throws IOException {
+        entries.close();
+    }
+
+    /**
+     * Encodes a move in the Polyglot format.  Castling is encoded as the
+     * king capturing its own rook, as Polyglot requires.
+     *
+     * @param move The move
+     *
+     * @return The 16 bit move
+     */
+    public static int encodeMove(Move move) {
+        int fromX = move.getStartPosition().getX();
+        int toX = move.getEndPosition().getX();
+
+        if(move.getType() == PieceType.king && Math.abs(fromX - toX) == 2) {
+            toX = toX > fromX ? Board.BOARD_SIZE_X - 1 : 0;
+        }
+
+        return toX | row(move.getEndPosition().getY()) << 3 | fromX << 6 | row(move.getStartPosition().getY()) << 9;
+    }
+
+    /**
+     * Decodes a Polyglot move for a position.
+     *
+     * @param board The board the move is made on
+     * @param color The color to move
+     * @param encoded The 16 bit move
+     *
+     * @return The move, or null if it is not a candidate move on the board
+     */
+    public static Move decodeMove(Board board, boolean color, int encoded) {
+        int toX = encoded & 7;
+        int toY = row((encoded >>> 3) & 7);
+        int fromX = (encoded >>> 6) & 7;
+        int fromY = row((encoded >>> 9) & 7);
+        int from = fromY * Board.BOARD_SIZE_X + fromX;
+
+        // castling is stored as the king moving onto its rook
+        int code = board.getPieceCode(from);
+        if(!PieceCode.isEmpty(code) && PieceCode.getType(code) == PieceType.king && fromY == toY
+                && Math.abs(fromX - toX) > 1) {
+            toX = toX > fromX ? fromX + 2 : fromX - 2;
+        }
+
+        return board.getCandidateMove(color, from, toY * Board.BOARD_SIZE_X + toX);
+    }
+
+    /**
+     * Converts between board rows, counted from rank 8, and Polyglot rows,
+     * counted from rank 1.
+     */
+    private static int row(int y) {
+        return Board.BOARD_SIZE_Y - 1 - y;
+    }
+}
@@ -0,0 +1,83 @@
+package chess.engine.book;
+
+import chess.game.Game;
+import chess.game.Move;
+import chess.io.MappedEntryFile;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Statistics of the moves played from each position of a collection of
+ * games, read through a memory mapping of a file built by
+ * OpeningTreeBuilder.
+ *
+ * The file is a sequence of 22 byte big endian entries sorted by key then
+ * move: the 64 bit Zobrist key of the position, the move in the Polyglot
+ * format of OpeningBook, then 32 bit counts of the games that played the
+ * move, of those won by the side that moved, and of those drawn.
+ *
+ * This class is thread safe once opened.
+ *
+ * @author CarrollFD
+ */
+public class OpeningTree implements Closeable {
+    // the size of an entry in bytes
+    public static final int ENTRY_SIZE = 22;
+
+    // offsets within an entry
+    public static final int MOVE_OFFSET = 8;
+    public static final int GAMES_OFFSET = 10;
+    public static final int WINS_OFFSET = 14;
+    public static final int DRAWS_OFFSET = 18;
+
+    private final MappedEntryFile entries;
+
+    /**
+     * Opens and maps a tree.
+     *
+     * @param path The tree file
+     */
+    public OpeningTree(Path path) throws IOException {
+        entries = new MappedEntryFile(path, ENTRY_SIZE);
+    }
+
+    /**
+     * @return The number of entries, one for each move of each position
+     */
+    public long size() {
+        return entries.size();
+    }
+
+    /**
+     * Provides the moves played from a game's current position.
+     *
+     * @param game The game
+     *
+     * @return The moves, empty if the position never occurred
+     */
+    public List<TreeMove> getMoves(Game game) {
+        long key = game.getHashKey();
+        List<TreeMove> moves = new ArrayList<>();
+
+        for(long entry = entries.findFirst(key); entry < entries.size() && entries.getKey(entry) == key; entry++) {
+            Move move = OpeningBook.decodeMove(game.getBoard(), game.getSideToMove(),
+                    entries.getShort(entry, MOVE_OFFSET));
+
+            if(move != null) {
+                moves.add(new TreeMove(move, entries.getInt(entry, GAMES_OFFSET), entries.getInt(entry, WINS_OFFSET),
+                        entries.getInt(entry, DRAWS_OFFSET)));
+            }
+        }
+
+        return moves;
+    }
+
+    @Override
+    public void close() throws IOException {
+        entries.close();
+    }
+}
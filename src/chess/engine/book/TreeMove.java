@@ -0,0 +1,67 @@
+package chess.engine.book;
+
+import chess.game.Move;
+
+/**
+ * A move found in an opening tree, with the results of the games that
+ * played it.  Results are counted for the side that played the move.
+ *
+ * @author CarrollFD
+ */
+public class TreeMove {
+    private final Move move;
+    private final int games;
+    private final int wins;
+    private final int draws;
+
+    /**
+     * Constructs a new tree move.
+     *
+     * @param move The move
+     * @param games The number of games that played the move
+     * @param wins The number of those games won by the side that moved
+     * @param draws The number of those games drawn
+     */
+    public TreeMove(Move move, int games, int wins, int draws) {
+        this.move = move;
+        this.games = games;
+        this.wins = wins;
+        this.draws = draws;
+    }
+
+    /**
+     * @return The move
+     */
+    public Move getMove() {
+        return move;
+    }
+
+    /**
+     * @return The number of games that played the move
+     */
+    public int getGames() {
+        return games;
+    }
+
+    /**
+     * @return The number of games won by the side that moved
+     */
+    public int getWins() {
+        return wins;
+    }
+
+    /**
+     * @return The number of games drawn
+     */
+    public int getDraws() {
+        return draws;
+    }
+
+    /**
+     * @return The number of games lost by the side that moved, and games
+     *         whose result is unknown
+     */
+    public int getLosses() {
+        return games - wins - draws;
+    }
+}
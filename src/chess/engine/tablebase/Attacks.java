@@ -0,0 +1,120 @@
+package chess.engine.tablebase;
+
+import chess.pieces.PieceType;
+
+/**
+ * Move and attack tables for positions of a few pieces, given as squares
+ * and occupancy masks with bit n set for Position.getIndex() n.  White
+ * pawns move towards row 0.
+ *
+ * @author CarrollFD
+ */
+final class Attacks {
+    // squares a king or knight on a square attacks
+    static final long[] KING = new long[64];
+    static final long[] KNIGHT = new long[64];
+
+    // squares a pawn of each color attacks, white first
+    static final long[][] PAWN = new long[2][64];
+
+    // the directions of each slider as {dx, dy} pairs
+    static final int[][] ROOK_DIRECTIONS = { { 1, 0 }, { -1, 0 }, { 0, 1 }, { 0, -1 } };
+    static final int[][] BISHOP_DIRECTIONS = { { 1, 1 }, { 1, -1 }, { -1, 1 }, { -1, -1 } };
+    static final int[][] QUEEN_DIRECTIONS = {
+        { 1, 0 }, { -1, 0 }, { 0, 1 }, { 0, -1 }, { 1, 1 }, { 1, -1 }, { -1, 1 }, { -1, -1 }
+    };
+
+    // the squares strictly between two squares on a line, with LINE set
+    // for squares on a rank or file and DIAGONAL for squares on a diagonal
+    private static final long[][] BETWEEN = new long[64][64];
+    private static final byte[][] ALIGNMENT = new byte[64][64];
+    private static final byte LINE = 1;
+    private static final byte DIAGONAL = 2;
+
+    static {
+        int[][] knightSteps = { { 1, 2 }, { 2, 1 }, { -1, 2 }, { -2, 1 }, { 1, -2 }, { 2, -1 }, { -1, -2 }, { -2, -1 } };
+
+        for(int square = 0; square < 64; square++) {
+            int x = square & 7;
+            int y = square >>> 3;
+
+            for(int[] step : QUEEN_DIRECTIONS) {
+                KING[square] |= bit(x + step[0], y + step[1]);
+            }
+
+            for(int[] step : knightSteps) {
+                KNIGHT[square] |= bit(x + step[0], y + step[1]);
+            }
+
+            PAWN[0][square] = bit(x - 1, y - 1) | bit(x + 1, y - 1);
+            PAWN[1][square] = bit(x - 1, y + 1) | bit(x + 1, y + 1);
+
+            for(int[] direction : QUEEN_DIRECTIONS) {
+                byte alignment = direction[0] == 0 || direction[1] == 0 ? LINE : DIAGONAL;
+                long between = 0;
+
+                for(int tx = x + direction[0], ty = y + direction[1]; onBoard(tx, ty);
+                        tx += direction[0], ty += direction[1]) {
+                    BETWEEN[square][ty * 8 + tx] = between;
+                    ALIGNMENT[square][ty * 8 + tx] = alignment;
+                    between |= bit(tx, ty);
+                }
+            }
+        }
+    }
+
+    private Attacks() {
+    }
+
+    static boolean onBoard(int x, int y) {
+        return x >= 0 && x < 8 && y >= 0 && y < 8;
+    }
+
+    private static long bit(int x, int y) {
+        return onBoard(x, y) ? 1L << (y * 8 + x) : 0;
+    }
+
+    /**
+     * @return The directions a piece slides in, or null if it steps
+     */
+    static int[][] getDirections(PieceType type) {
+        switch(type) {
+            case queen:
+                return QUEEN_DIRECTIONS;
+            case rook:
+                return ROOK_DIRECTIONS;
+            case bishop:
+                return BISHOP_DIRECTIONS;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Determines if a piece attacks a square.
+     *
+     * @param type The type of the piece
+     * @param color The color of the piece
+     * @param from The square of the piece
+     * @param to The square attacked
+     * @param occupied The occupied squares
+     *
+     * @return TRUE if the piece attacks the square
+     */
+    static boolean attacks(PieceType type, boolean color, int from, int to, long occupied) {
+        switch(type) {
+            case king:
+                return (KING[from] >>> to & 1) != 0;
+            case knight:
+                return (KNIGHT[from] >>> to & 1) != 0;
+            case pawn:
+                return (PAWN[color ? 0 : 1][from] >>> to & 1) != 0;
+            case rook:
+                return ALIGNMENT[from][to] == LINE && (BETWEEN[from][to] & occupied) == 0;
+            case bishop:
+                return ALIGNMENT[from][to] == DIAGONAL && (BETWEEN[from][to] & occupied) == 0;
+            default:
+                return ALIGNMENT[from][to] != 0 && (BETWEEN[from][to] & occupied) == 0;
+        }
+    }
+}
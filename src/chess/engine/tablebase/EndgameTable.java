@@ -0,0 +1,189 @@
+package chess.engine.tablebase;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A solved endgame table, read through a memory mapping of its file.
+ *
+ * The file starts with a 64 byte header: a magic number, the format
+ * version, the bits per value, the number of indexes for each side to move
+ * and the material's name.  The values for white to move follow, then the
+ * values for black to move, each side packed into big endian 64 bit words
+ * with no gaps between values.  A value is 0 for a draw, otherwise the
+ * distance to mate in plies plus one, see TablebaseResult.
+ *
+ * This class is thread safe once opened.
+ *
+ * @author CarrollFD
+ */
+public class EndgameTable implements Closeable {
+    // the extension of table files
+    public static final String FILE_EXTENSION = ".tb";
+
+    // identifies table files, "CHTB"
+    private static final int MAGIC = 0x43485442;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+
+    private final Material material;
+    private final int bits;
+    private final int size;
+    private final long sideOffset;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+
+    /**
+     * Opens and maps a table.
+     *
+     * @param path The table file
+     */
+    public EndgameTable(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+
+        try {
+            if(channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Table too large: " + path);
+            }
+
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.BIG_ENDIAN);
+
+            if(buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                throw new IOException("Not a table file: " + path);
+            }
+
+            bits = buffer.getInt(8);
+            size = buffer.getInt(12);
+
+            byte[] name = new byte[buffer.getShort(16)];
+            for(int i = 0; i < name.length; i++) {
+                name[i] = buffer.get(18 + i);
+            }
+            material = Material.parse(new String(name, StandardCharsets.US_ASCII));
+
+            sideOffset = getWords(size, bits) * 8;
+
+            if(material.getIndexSize() != size || channel.size() != HEADER_SIZE + 2 * sideOffset) {
+                throw new IOException("Table file is damaged: " + path);
+            }
+        } catch(IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return The material of the table
+     */
+    public Material getMaterial() {
+        return material;
+    }
+
+    /**
+     * Provides the value of a position.
+     *
+     * @param squares The square of each of the material's slots
+     * @param whiteToMove TRUE if white is to move
+     *
+     * @return The value, 0 for a draw, otherwise the distance to mate in
+     *         plies plus one
+     */
+    public int probe(int[] squares, boolean whiteToMove) {
+        long bit = (long)material.getIndex(squares) * bits;
+        int offset = (int)(HEADER_SIZE + (whiteToMove ? 0 : sideOffset) + (bit >>> 6) * 8);
+        int shift = (int)(bit & 63);
+
+        long value = buffer.getLong(offset) << shift >>> (64 - bits);
+
+        // the value continues in the next word
+        if(shift + bits > 64) {
+            value |= buffer.getLong(offset + 8) >>> (128 - shift - bits);
+        }
+
+        return (int)value;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private static long getWords(int size, int bits) {
+        return ((long)size * bits + 63) / 64;
+    }
+
+    /**
+     * Writes a table file.
+     *
+     * @param path The file to write
+     * @param material The material of the table
+     * @param values The values for white to move, then black to move,
+     *               unsigned, any value over maxValue is written as 0
+     * @param maxValue The largest value to keep
+     */
+    static void write(Path path, Material material, byte[][] values, int maxValue) throws IOException {
+        int bits = Math.max(1, 32 - Integer.numberOfLeadingZeros(maxValue));
+        int size = material.getIndexSize();
+
+        try(OutputStream file = Files.newOutputStream(path);
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16))) {
+            ByteArrayOutputStream header = new ByteArrayOutputStream();
+            DataOutputStream headerOut = new DataOutputStream(header);
+
+            headerOut.writeInt(MAGIC);
+            headerOut.writeInt(VERSION);
+            headerOut.writeInt(bits);
+            headerOut.writeInt(size);
+            headerOut.writeUTF(material.getName());
+
+            out.write(header.toByteArray());
+            out.write(new byte[HEADER_SIZE - header.size()]);
+
+            for(byte[] side : values) {
+                long word = 0;
+                int used = 0;
+
+                for(int index = 0; index < size; index++) {
+                    long value = side[index] & 0xFF;
+
+                    if(value > maxValue) {
+                        value = 0;
+                    }
+
+                    // fill the word from the top, spilling into the next
+                    if(used + bits <= 64) {
+                        word |= value << (64 - used - bits);
+                        used += bits;
+                    } else {
+                        int spill = used + bits - 64;
+                        out.writeLong(word | value >>> spill);
+                        word = value << (64 - spill);
+                        used = spill;
+                    }
+
+                    if(used == 64) {
+                        out.writeLong(word);
+                        word = 0;
+                        used = 0;
+                    }
+                }
+
+                if(used > 0) {
+                    out.writeLong(word);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,399 @@
+package chess.engine.tablebase;
+
+import chess.pieces.PieceCode;
+import chess.pieces.PieceType;
+
+import java.util.Arrays;
+
+/**
+ * The pieces of an endgame table, and the indexing of its positions.
+ *
+ * A material is named by each side's pieces, white first, such as "KQvKR".
+ * Within a table the pieces are kept in slots: the white king, the other
+ * white pieces by value, the black king, then the other black pieces.  A
+ * position is the square of each slot, and its index is made from the
+ * squares as digits, with the white king's square reduced by symmetry.
+ * Without pawns the board may be mirrored and turned, so the white king is
+ * kept to the 10 squares of the a8-a5-d5 triangle; with pawns it may only be
+ * mirrored left to right, and the king is kept to files a to d.
+ *
+ * Tables are only built for the stronger side playing white.  A material
+ * with the sides the other way round is probed through the table of
+ * getCanonical(), with the colors swapped and the board flipped.
+ *
+ * Squares are Position.getIndex() values, 0 for a8 to 63 for h1.
+ *
+ * @author CarrollFD
+ */
+public final class Material {
+    // the most pieces a table may have, indexes must fit in an int
+    public static final int MAX_PIECES = 5;
+
+    // the order of the pieces after each king, and their letters
+    private static final PieceType[] ORDER = {
+        PieceType.queen, PieceType.rook, PieceType.bishop, PieceType.knight, PieceType.pawn
+    };
+    private static final String LETTERS = "QRBNP";
+
+    // rough piece values, deciding which side is the stronger
+    private static final int[] VALUES = { 9, 5, 3, 3, 1 };
+
+    // squares mapped by each of the 8 symmetries of the board: bit 0
+    // mirrors left to right, bit 1 top to bottom, bit 2 swaps files and ranks
+    private static final int[][] TRANSFORMS = new int[8][64];
+
+    // the index of each square the white king may be kept to, or -1
+    private static final int[] PAWNLESS_REGION = new int[64];
+    private static final int[] PAWN_REGION = new int[64];
+
+    // the squares of each region index
+    private static final int[] PAWNLESS_SQUARES = new int[10];
+    private static final int[] PAWN_SQUARES = new int[32];
+
+    static {
+        for(int t = 0; t < TRANSFORMS.length; t++) {
+            for(int square = 0; square < 64; square++) {
+                int x = square & 7;
+                int y = square >>> 3;
+
+                if((t & 4) != 0) {
+                    int swap = x;
+                    x = y;
+                    y = swap;
+                }
+                if((t & 1) != 0) {
+                    x = 7 - x;
+                }
+                if((t & 2) != 0) {
+                    y = 7 - y;
+                }
+
+                TRANSFORMS[t][square] = y * 8 + x;
+            }
+        }
+
+        int pawnless = 0;
+        int pawns = 0;
+        for(int square = 0; square < 64; square++) {
+            int x = square & 7;
+            int y = square >>> 3;
+
+            PAWNLESS_REGION[square] = -1;
+            PAWN_REGION[square] = -1;
+
+            if(x <= y && y < 4) {
+                PAWNLESS_SQUARES[pawnless] = square;
+                PAWNLESS_REGION[square] = pawnless++;
+            }
+
+            if(x < 4) {
+                PAWN_SQUARES[pawns] = square;
+                PAWN_REGION[square] = pawns++;
+            }
+        }
+    }
+
+    // the piece code of each slot
+    private final int[] codes;
+
+    // the slot of the black king
+    private final int blackKing;
+
+    private final boolean pawns;
+    private final String name;
+
+    /**
+     * Constructs a material from piece codes in any order.
+     *
+     * @param pieceCodes The codes of the pieces, with one king of each color
+     */
+    public Material(int[] pieceCodes) {
+        if(pieceCodes.length < 2 || pieceCodes.length > MAX_PIECES) {
+            throw new IllegalArgumentException("Tables have from 2 to " + MAX_PIECES + " pieces.");
+        }
+
+        codes = new int[pieceCodes.length];
+        int slot = 0;
+        StringBuilder builder = new StringBuilder();
+        boolean hasPawns = false;
+
+        for(boolean color : new boolean[] { true, false }) {
+            int kings = 0;
+
+            for(int code : pieceCodes) {
+                if(code == PieceCode.encode(PieceType.king, color)) {
+                    kings++;
+                }
+            }
+
+            if(kings != 1) {
+                throw new IllegalArgumentException("Each side needs exactly one king.");
+            }
+
+            codes[slot++] = PieceCode.encode(PieceType.king, color);
+            builder.append('K');
+
+            for(int i = 0; i < ORDER.length; i++) {
+                for(int code : pieceCodes) {
+                    if(code == PieceCode.encode(ORDER[i], color)) {
+                        codes[slot++] = code;
+                        builder.append(LETTERS.charAt(i));
+                        hasPawns |= ORDER[i] == PieceType.pawn;
+                    }
+                }
+            }
+
+            if(color) {
+                builder.append('v');
+            }
+        }
+
+        blackKing = builder.indexOf("v");
+        pawns = hasPawns;
+        name = builder.toString();
+    }
+
+    /**
+     * Parses a material name such as "KRvK".
+     *
+     * @param name The name
+     *
+     * @return The material
+     */
+    public static Material parse(String name) {
+        int separator = name.indexOf('v');
+
+        if(separator < 0) {
+            throw new IllegalArgumentException("Invalid material: " + name);
+        }
+
+        int[] pieceCodes = new int[name.length() - 1];
+        int slot = 0;
+
+        for(int i = 0; i < name.length(); i++) {
+            char letter = name.charAt(i);
+            boolean color = i < separator;
+
+            if(i == separator) {
+                continue;
+            } else if(letter == 'K') {
+                pieceCodes[slot++] = PieceCode.encode(PieceType.king, color);
+            } else if(LETTERS.indexOf(letter) >= 0) {
+                pieceCodes[slot++] = PieceCode.encode(ORDER[LETTERS.indexOf(letter)], color);
+            } else {
+                throw new IllegalArgumentException("Invalid material: " + name);
+            }
+        }
+
+        return new Material(pieceCodes);
+    }
+
+    /**
+     * @return The name, such as "KQvKR"
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return The number of pieces, kings included
+     */
+    public int getPieceCount() {
+        return codes.length;
+    }
+
+    /**
+     * @param slot The slot
+     * @return The code of the piece in the slot
+     */
+    public int getCode(int slot) {
+        return codes[slot];
+    }
+
+    /**
+     * @param color The color
+     * @return The slot of the king of the color
+     */
+    public int getKingSlot(boolean color) {
+        return color ? 0 : blackKing;
+    }
+
+    /**
+     * @return TRUE if there are pawns, which limits the symmetries used
+     */
+    public boolean hasPawns() {
+        return pawns;
+    }
+
+    /**
+     * @return The material with the colors of the pieces swapped
+     */
+    public Material swapColors() {
+        int[] swapped = new int[codes.length];
+
+        for(int i = 0; i < codes.length; i++) {
+            swapped[i] = PieceCode.encode(PieceCode.getType(codes[i]), !PieceCode.getColor(codes[i]));
+        }
+
+        return new Material(swapped);
+    }
+
+    /**
+     * @return TRUE if this material has a table of its own, rather than
+     *         being probed with the colors swapped
+     */
+    public boolean isCanonical() {
+        int whiteValue = getValue(true);
+        int blackValue = getValue(false);
+
+        if(whiteValue != blackValue) {
+            return whiteValue > blackValue;
+        }
+
+        String white = name.substring(0, blackKing);
+        String black = name.substring(blackKing + 1);
+
+        return white.compareTo(black) >= 0;
+    }
+
+    /**
+     * @return The material whose table holds this material's positions
+     */
+    public Material getCanonical() {
+        return isCanonical() ? this : swapColors();
+    }
+
+    /**
+     * @param slot The slot of the piece to remove, not a king
+     * @return The material left after the piece is captured
+     */
+    public Material remove(int slot) {
+        int[] remaining = new int[codes.length - 1];
+
+        for(int i = 0, j = 0; i < codes.length; i++) {
+            if(i != slot) {
+                remaining[j++] = codes[i];
+            }
+        }
+
+        return new Material(remaining);
+    }
+
+    /**
+     * Maps the slots of this material onto the slots of another with the
+     * same pieces, for probing the other's table with this material's
+     * positions.
+     *
+     * @param target The other material
+     * @param swapColors TRUE if the target has the colors swapped
+     *
+     * @return The target slot of each slot
+     */
+    public int[] mapSlots(Material target, boolean swapColors) {
+        int[] map = new int[codes.length];
+        boolean[] used = new boolean[codes.length];
+
+        for(int slot = 0; slot < codes.length; slot++) {
+            int code = swapColors ? PieceCode.encode(PieceCode.getType(codes[slot]), !PieceCode.getColor(codes[slot]))
+                    : codes[slot];
+            map[slot] = -1;
+
+            for(int targetSlot = 0; targetSlot < codes.length && map[slot] < 0; targetSlot++) {
+                if(!used[targetSlot] && target.codes[targetSlot] == code) {
+                    used[targetSlot] = true;
+                    map[slot] = targetSlot;
+                }
+            }
+
+            if(map[slot] < 0) {
+                throw new IllegalArgumentException(target + " does not have the pieces of " + this);
+            }
+        }
+
+        return map;
+    }
+
+    private int getValue(boolean color) {
+        int value = 0;
+
+        for(int code : codes) {
+            int order = Arrays.asList(ORDER).indexOf(PieceCode.getType(code));
+
+            if(order >= 0 && PieceCode.getColor(code) == color) {
+                value += VALUES[order];
+            }
+        }
+
+        return value;
+    }
+
+    /**
+     * @return The number of indexes for each side to move
+     */
+    public int getIndexSize() {
+        return (pawns ? PAWN_SQUARES.length : PAWNLESS_SQUARES.length) << (6 * (codes.length - 1));
+    }
+
+    /**
+     * Provides the index of a position, the smallest index of any of its
+     * symmetrical positions.
+     *
+     * @param squares The square of each slot
+     *
+     * @return The index
+     */
+    public int getIndex(int[] squares) {
+        int[] region = pawns ? PAWN_REGION : PAWNLESS_REGION;
+        int transforms = pawns ? 2 : TRANSFORMS.length;
+        int best = Integer.MAX_VALUE;
+
+        for(int t = 0; t < transforms; t++) {
+            int[] transform = TRANSFORMS[t];
+            int index = region[transform[squares[0]]];
+
+            if(index < 0) {
+                continue;
+            }
+
+            for(int slot = 1; slot < squares.length; slot++) {
+                index = index << 6 | transform[squares[slot]];
+            }
+
+            best = Math.min(best, index);
+        }
+
+        return best;
+    }
+
+    /**
+     * Provides the position of an index.  Not every index is in use: the
+     * squares of a position may clash, and a position may have a smaller
+     * index by another symmetry, see getIndex(...).
+     *
+     * @param index The index
+     * @param squares Receives the square of each slot
+     */
+    public void getSquares(int index, int[] squares) {
+        for(int slot = squares.length - 1; slot > 0; slot--) {
+            squares[slot] = index & 63;
+            index >>>= 6;
+        }
+
+        squares[0] = pawns ? PAWN_SQUARES[index] : PAWNLESS_SQUARES[index];
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof Material && ((Material)other).name.equals(name);
+    }
+
+    @Override
+    public int hashCode() {
+        return name.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
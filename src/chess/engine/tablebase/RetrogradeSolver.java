@@ -0,0 +1,659 @@
+package chess.engine.tablebase;
+
+import chess.pieces.PieceCode;
+import chess.pieces.PieceType;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Solves an endgame table by retrograde analysis.
+ *
+ * Every position is first scored on its own: checkmates are lost in 0
+ * plies, and captures are scored from the smaller tables they lead to.
+ * Then, one ply at a time, the positions resolved at the previous ply are
+ * taken back a move to find the positions that may now be resolved: a
+ * position is won if a move reaches a lost position, and lost if every move
+ * reaches a won one.  Positions never resolved are draws.  Values are only
+ * ever written once, with their final distance to mate, so the workers of
+ * each pass share the value arrays without locking.
+ *
+ * Each ply is done in two passes over the indexes, split into chunks
+ * between worker threads: the first marks the predecessors of the
+ * positions resolved at the previous ply, the second resolves the marked
+ * positions by looking at all of their moves.
+ *
+ * Memory use is about two bytes per index for each side to move.
+ *
+ * @author CarrollFD
+ */
+public class RetrogradeSolver {
+    // indexes handed to a worker at a time, a multiple of 64 so that chunks
+    // never share a word of the candidate bits
+    private static final int CHUNK_SIZE = 1 << 14;
+
+    // values in the arrays: unresolved, resolved as distance to mate in
+    // plies plus one, and positions that cannot occur
+    private static final int UNRESOLVED = 0;
+    private static final int MAX_VALUE = 254;
+    private static final byte ILLEGAL = (byte)255;
+
+    private final Material material;
+    private final int pieces;
+    private final int size;
+    private final int threads;
+
+    // the type and color of each slot
+    private final PieceType[] types;
+    private final boolean[] colors;
+
+    // values for white to move, then black to move
+    private final byte[][] values = new byte[2][];
+
+    // the distance of the fastest win by a capture, 0 if there is none
+    private final byte[][] captureWins = new byte[2][];
+
+    // positions to look at in the current pass
+    private final AtomicLongArray[] candidates = new AtomicLongArray[2];
+
+    // the tables reached by capturing each slot, null for kings
+    private final CaptureTable[] captureTables;
+
+    // the largest distance found so far
+    private final AtomicInteger longestPlies = new AtomicInteger();
+
+    // the chunk handed out next in the current pass
+    private final AtomicInteger nextChunk = new AtomicInteger();
+
+    /**
+     * Constructs a solver.
+     *
+     * @param material The material to solve, as getCanonical()
+     * @param tablebases The tables of every material reached by a capture
+     * @param threads The number of worker threads
+     */
+    public RetrogradeSolver(Material material, Tablebases tablebases, int threads) {
+        this.material = material;
+        this.pieces = material.getPieceCount();
+        this.size = material.getIndexSize();
+        this.threads = threads;
+
+        types = new PieceType[pieces];
+        colors = new boolean[pieces];
+        captureTables = new CaptureTable[pieces];
+
+        for(int slot = 0; slot < pieces; slot++) {
+            types[slot] = PieceCode.getType(material.getCode(slot));
+            colors[slot] = PieceCode.getColor(material.getCode(slot));
+
+            if(types[slot] != PieceType.king) {
+                captureTables[slot] = new CaptureTable(material, slot, tablebases);
+            }
+        }
+    }
+
+    /**
+     * Solves the table.
+     */
+    public void solve() throws InterruptedException {
+        for(int side = 0; side < 2; side++) {
+            values[side] = new byte[size];
+            captureWins[side] = new byte[size];
+            candidates[side] = new AtomicLongArray((size + 63) / 64);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        try {
+            runPass(executor, Pass.initialize, 0);
+
+            for(int plies = 1; plies <= Math.min(longestPlies.get() + 1, MAX_VALUE); plies++) {
+                runPass(executor, Pass.mark, plies);
+                runPass(executor, Pass.resolve, plies);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        candidates[0] = null;
+        candidates[1] = null;
+        captureWins[0] = null;
+        captureWins[1] = null;
+    }
+
+    /**
+     * Writes the solved table.
+     *
+     * @param path The file to write
+     */
+    public void write(Path path) throws IOException {
+        EndgameTable.write(path, material, values, longestPlies.get() + 1);
+    }
+
+    /**
+     * @return The longest distance to mate in plies
+     */
+    public int getLongestPlies() {
+        return longestPlies.get();
+    }
+
+    /**
+     * Counts the positions by result, after solving.
+     *
+     * @param whiteToMove TRUE to count the positions with white to move
+     *
+     * @return The number of positions won, drawn and lost by the side to
+     *         move
+     */
+    public long[] countResults(boolean whiteToMove) {
+        long[] counts = new long[3];
+
+        for(byte value : values[whiteToMove ? 0 : 1]) {
+            int unsigned = value & 0xFF;
+
+            if(value == ILLEGAL) {
+                continue;
+            } else if(unsigned == UNRESOLVED) {
+                counts[1]++;
+            } else {
+                counts[(unsigned - 1) % 2 == 1 ? 0 : 2]++;
+            }
+        }
+
+        return counts;
+    }
+
+    private enum Pass {
+        initialize, mark, resolve
+    }
+
+    /**
+     * Runs a pass over every index on the worker threads.
+     */
+    private void runPass(ExecutorService executor, Pass pass, int plies) throws InterruptedException {
+        nextChunk.set(0);
+        List<Future<?>> workers = new ArrayList<>();
+
+        for(int i = 0; i < threads; i++) {
+            workers.add(executor.submit(() -> {
+                Worker worker = new Worker();
+
+                for(int chunk = nextChunk.getAndIncrement(); (long)chunk * CHUNK_SIZE < size;
+                        chunk = nextChunk.getAndIncrement()) {
+                    int end = (int)Math.min(size, (long)(chunk + 1) * CHUNK_SIZE);
+
+                    for(int index = chunk * CHUNK_SIZE; index < end; index++) {
+                        for(int side = 0; side < 2; side++) {
+                            switch(pass) {
+                                case initialize:
+                                    worker.initialize(index, side);
+                                    break;
+                                case mark:
+                                    if((values[side][index] & 0xFF) == plies) {
+                                        worker.markPredecessors(index, side);
+                                    }
+                                    break;
+                                default:
+                                    if(values[side][index] == UNRESOLVED
+                                            && (isCandidate(side, index) || captureWins[side][index] == plies)) {
+                                        worker.resolve(index, side, plies);
+                                    }
+                            }
+                        }
+                    }
+
+                    if(pass == Pass.resolve) {
+                        for(int word = chunk * CHUNK_SIZE / 64; word < (end + 63) / 64; word++) {
+                            candidates[0].set(word, 0);
+                            candidates[1].set(word, 0);
+                        }
+                    }
+                }
+
+                return null;
+            }));
+        }
+
+        try {
+            for(Future<?> worker : workers) {
+                worker.get();
+            }
+        } catch(ExecutionException e) {
+            throw new IllegalStateException("Tablebase worker failed.", e.getCause());
+        }
+    }
+
+    private boolean isCandidate(int side, int index) {
+        return (candidates[side].get(index >>> 6) >>> (index & 63) & 1) != 0;
+    }
+
+    /**
+     * Records a resolved value.
+     */
+    private void setValue(int side, int index, int plies) {
+        if(plies + 1 > MAX_VALUE) {
+            throw new IllegalStateException("Distance to mate too long for " + material);
+        }
+
+        values[side][index] = (byte)(plies + 1);
+        longestPlies.accumulateAndGet(plies, Math::max);
+    }
+
+    /**
+     * The scratch state of a worker thread.
+     */
+    private class Worker {
+        private final int[] squares = new int[pieces];
+        private final int[] captureSquares = new int[pieces];
+
+        // the results of the most recent generateMoves(...)
+        private int legalMoves;
+        private int quietMoves;
+        private int fastestWin;
+        private int slowestLoss;
+        private boolean allLost;
+        private int fastestCaptureWin;
+
+        /**
+         * Scores a position on its own, or marks it ILLEGAL.
+         */
+        void initialize(int index, int side) {
+            material.getSquares(index, squares);
+
+            if(!isValid(index)) {
+                values[side][index] = ILLEGAL;
+                return;
+            }
+
+            boolean color = side == 0;
+            long occupied = getOccupied();
+
+            // the side that just moved can't be in check
+            if(isAttacked(squares[material.getKingSlot(!color)], color, occupied, -1)) {
+                values[side][index] = ILLEGAL;
+                return;
+            }
+
+            generateMoves(side, true);
+
+            if(legalMoves == 0) {
+                // checkmate, or stalemate which stays a draw
+                if(isAttacked(squares[material.getKingSlot(color)], !color, occupied, -1)) {
+                    setValue(side, index, 0);
+                }
+            } else if(quietMoves == 0) {
+                // only captures, their values are already known
+                if(fastestWin != Integer.MAX_VALUE) {
+                    setValue(side, index, fastestWin);
+                } else if(allLost) {
+                    setValue(side, index, slowestLoss);
+                }
+            } else if(fastestCaptureWin != Integer.MAX_VALUE) {
+                // a quiet move may still win faster, resolved in its pass
+                captureWins[side][index] = (byte)Math.min(fastestCaptureWin, MAX_VALUE);
+                longestPlies.accumulateAndGet(fastestCaptureWin, Math::max);
+            }
+        }
+
+        /**
+         * Marks the unresolved positions a move before a resolved position.
+         */
+        void markPredecessors(int index, int side) {
+            material.getSquares(index, squares);
+
+            // the side that moved into this position
+            boolean mover = side != 0;
+            int previousSide = 1 - side;
+            long occupied = getOccupied();
+
+            for(int slot = 0; slot < pieces; slot++) {
+                if(colors[slot] != mover) {
+                    continue;
+                }
+
+                int to = squares[slot];
+                long origins = getOrigins(slot, to, occupied);
+
+                for(; origins != 0; origins &= origins - 1) {
+                    int from = Long.numberOfTrailingZeros(origins);
+                    long before = occupied ^ (1L << to) ^ (1L << from);
+                    squares[slot] = from;
+
+                    // the side to move here can't have been left in check
+                    if(!isAttacked(squares[material.getKingSlot(!mover)], mover, before, -1)) {
+                        int previous = material.getIndex(squares);
+
+                        if(values[previousSide][previous] == UNRESOLVED) {
+                            candidates[previousSide].getAndUpdate(previous >>> 6, word -> word | 1L << (previous & 63));
+                        }
+                    }
+                }
+
+                squares[slot] = to;
+            }
+        }
+
+        /**
+         * Resolves a position from the values of its moves, if they are
+         * known well enough.  A win is only final in the pass of its
+         * distance: a longer win by a capture may still be beaten by a
+         * quiet move resolved in a later pass.
+         */
+        void resolve(int index, int side, int plies) {
+            material.getSquares(index, squares);
+            generateMoves(side, false);
+
+            if(fastestWin != Integer.MAX_VALUE) {
+                if(fastestWin == plies) {
+                    setValue(side, index, fastestWin);
+                }
+            } else if(legalMoves > 0 && allLost) {
+                setValue(side, index, slowestLoss);
+            }
+        }
+
+        /**
+         * Tries every legal move, collecting the distances of the wins and
+         * losses they lead to.
+         *
+         * @param side The side to move
+         * @param initial TRUE while the quiet moves' values are not known yet
+         */
+        private void generateMoves(int side, boolean initial) {
+            boolean color = side == 0;
+            long occupied = getOccupied();
+            long own = 0;
+
+            for(int slot = 0; slot < pieces; slot++) {
+                if(colors[slot] == color) {
+                    own |= 1L << squares[slot];
+                }
+            }
+
+            legalMoves = 0;
+            quietMoves = 0;
+            fastestWin = Integer.MAX_VALUE;
+            fastestCaptureWin = Integer.MAX_VALUE;
+            slowestLoss = 0;
+            allLost = true;
+
+            for(int slot = 0; slot < pieces; slot++) {
+                if(colors[slot] != color) {
+                    continue;
+                }
+
+                int from = squares[slot];
+                long targets = getTargets(slot, from, occupied, own);
+
+                for(; targets != 0; targets &= targets - 1) {
+                    int to = Long.numberOfTrailingZeros(targets);
+                    int captured = getSlotAt(to, -1);
+
+                    if(captured >= 0 && types[captured] == PieceType.king) {
+                        continue;
+                    }
+
+                    long after = occupied ^ (1L << from) | (1L << to);
+                    squares[slot] = to;
+
+                    if(!isAttacked(squares[material.getKingSlot(color)], !color, after, captured)) {
+                        legalMoves++;
+                        int value;
+
+                        if(captured < 0) {
+                            quietMoves++;
+                            value = initial ? UNRESOLVED : values[1 - side][material.getIndex(squares)] & 0xFF;
+                        } else {
+                            value = captureTables[captured].probe(squares, !color);
+                        }
+
+                        scoreMove(value, captured >= 0);
+                    }
+
+                    squares[slot] = from;
+                }
+            }
+        }
+
+        /**
+         * Collects the value of the position after a move, from the point
+         * of view of the opponent who is to move there.
+         */
+        private void scoreMove(int value, boolean capture) {
+            if(value == UNRESOLVED) {
+                allLost = false;
+                return;
+            }
+
+            int plies = value - 1;
+
+            if(plies % 2 == 0) {
+                // the opponent is mated
+                fastestWin = Math.min(fastestWin, plies + 1);
+                allLost = false;
+
+                if(capture) {
+                    fastestCaptureWin = Math.min(fastestCaptureWin, plies + 1);
+                }
+            } else {
+                slowestLoss = Math.max(slowestLoss, plies + 1);
+            }
+        }
+
+        /**
+         * @return The squares a piece may move to
+         */
+        private long getTargets(int slot, int from, long occupied, long own) {
+            switch(types[slot]) {
+                case king:
+                    return Attacks.KING[from] & ~own;
+                case knight:
+                    return Attacks.KNIGHT[from] & ~own;
+                case pawn:
+                    return getPawnTargets(colors[slot], from, occupied, own);
+                default:
+                    return getSlides(types[slot], from, occupied) & ~own;
+            }
+        }
+
+        private long getPawnTargets(boolean color, int from, long occupied, long own) {
+            int y = from >>> 3;
+            int step = color ? -8 : 8;
+            long targets = Attacks.PAWN[color ? 0 : 1][from] & occupied & ~own;
+
+            // pawns on the last rank can't move, there is no promotion
+            if(color ? y == 0 : y == 7) {
+                return targets;
+            }
+
+            if((occupied >>> (from + step) & 1) == 0) {
+                targets |= 1L << (from + step);
+
+                if(y == (color ? 6 : 1) && (occupied >>> (from + 2 * step) & 1) == 0) {
+                    targets |= 1L << (from + 2 * step);
+                }
+            }
+
+            return targets;
+        }
+
+        /**
+         * @return The squares a piece may have come from by a move that
+         *         didn't capture
+         */
+        private long getOrigins(int slot, int to, long occupied) {
+            switch(types[slot]) {
+                case king:
+                    return Attacks.KING[to] & ~occupied;
+                case knight:
+                    return Attacks.KNIGHT[to] & ~occupied;
+                case pawn:
+                    return getPawnOrigins(colors[slot], to, occupied);
+                default:
+                    return getSlides(types[slot], to, occupied) & ~occupied;
+            }
+        }
+
+        private long getPawnOrigins(boolean color, int to, long occupied) {
+            int y = to >>> 3;
+            int step = color ? 8 : -8;
+            long origins = 0;
+
+            // a pawn never stands on its own first rank
+            if(color ? y + 1 <= 6 : y - 1 >= 1) {
+                if((occupied >>> (to + step) & 1) == 0) {
+                    origins |= 1L << (to + step);
+
+                    if(y == (color ? 4 : 3) && (occupied >>> (to + 2 * step) & 1) == 0) {
+                        origins |= 1L << (to + 2 * step);
+                    }
+                }
+            }
+
+            return origins;
+        }
+
+        /**
+         * @return The squares a slider reaches, up to and including the
+         *         first occupied square in each direction
+         */
+        private long getSlides(PieceType type, int from, long occupied) {
+            long squaresReached = 0;
+
+            for(int[] direction : Attacks.getDirections(type)) {
+                int x = (from & 7) + direction[0];
+                int y = (from >>> 3) + direction[1];
+
+                for(; Attacks.onBoard(x, y); x += direction[0], y += direction[1]) {
+                    long bit = 1L << (y * 8 + x);
+                    squaresReached |= bit;
+
+                    if((occupied & bit) != 0) {
+                        break;
+                    }
+                }
+            }
+
+            return squaresReached;
+        }
+
+        /**
+         * @return TRUE if the index is in use: the squares don't clash,
+         *         pawns are off their first ranks, and no symmetry gives a
+         *         smaller index
+         */
+        private boolean isValid(int index) {
+            if(Long.bitCount(getOccupied()) != pieces) {
+                return false;
+            }
+
+            for(int slot = 0; slot < pieces; slot++) {
+                if(types[slot] == PieceType.pawn && (squares[slot] >>> 3) == (colors[slot] ? 7 : 0)) {
+                    return false;
+                }
+            }
+
+            return material.getIndex(squares) == index;
+        }
+
+        /**
+         * @return TRUE if a square is attacked by the pieces of a color
+         */
+        private boolean isAttacked(int square, boolean color, long occupied, int capturedSlot) {
+            for(int slot = 0; slot < pieces; slot++) {
+                if(colors[slot] == color && slot != capturedSlot
+                        && Attacks.attacks(types[slot], color, squares[slot], square, occupied)) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        /**
+         * @return The slot of the piece on a square, or -1
+         */
+        private int getSlotAt(int square, int skipSlot) {
+            for(int slot = 0; slot < pieces; slot++) {
+                if(slot != skipSlot && squares[slot] == square) {
+                    return slot;
+                }
+            }
+
+            return -1;
+        }
+
+        private long getOccupied() {
+            long occupied = 0;
+
+            for(int square : squares) {
+                occupied |= 1L << square;
+            }
+
+            return occupied;
+        }
+    }
+
+    /**
+     * The table reached by capturing one slot, with the mapping of the
+     * remaining slots onto that table's slots.
+     */
+    private static class CaptureTable {
+        private final int capturedSlot;
+        private final EndgameTable table;
+        private final boolean swap;
+        private final int[] slotMap;
+
+        CaptureTable(Material material, int capturedSlot, Tablebases tablebases) {
+            Material remaining = material.remove(capturedSlot);
+            Material canonical = remaining.getCanonical();
+
+            this.capturedSlot = capturedSlot;
+            swap = canonical != remaining;
+
+            if(remaining.getPieceCount() == 2) {
+                // bare kings are a draw
+                table = null;
+                slotMap = null;
+            } else {
+                table = tablebases.getTable(canonical);
+                slotMap = remaining.mapSlots(canonical, swap);
+
+                if(table == null) {
+                    throw new IllegalStateException("Missing table " + canonical + " needed by " + material);
+                }
+            }
+        }
+
+        /**
+         * @param squares The squares of the position after the capture, the
+         *                captured slot's square is ignored
+         * @param whiteToMove TRUE if white is to move after the capture
+         *
+         * @return The value of the position
+         */
+        int probe(int[] squares, boolean whiteToMove) {
+            if(table == null) {
+                return UNRESOLVED;
+            }
+
+            int[] mapped = new int[slotMap.length];
+
+            for(int slot = 0, remaining = 0; slot < squares.length; slot++) {
+                if(slot != capturedSlot) {
+                    mapped[slotMap[remaining++]] = swap ? squares[slot] ^ 56 : squares[slot];
+                }
+            }
+
+            return table.probe(mapped, whiteToMove != swap);
+        }
+    }
+}
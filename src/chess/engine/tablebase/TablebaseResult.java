@@ -0,0 +1,77 @@
+package chess.engine.tablebase;
+
+/**
+ * The value of a position from an endgame table, for the side to move:
+ * won, drawn or lost, and the distance to mate with perfect play.
+ *
+ * @author CarrollFD
+ */
+public class TablebaseResult {
+    public static final TablebaseResult DRAW = new TablebaseResult(0);
+
+    // the value as stored in a table: 0 for a draw, otherwise the distance
+    // to mate in plies plus one, odd distances won and even distances lost
+    private final int value;
+
+    /**
+     * @param value The value as stored in a table
+     */
+    TablebaseResult(int value) {
+        this.value = value;
+    }
+
+    /**
+     * @param value The value as stored in a table
+     * @return The result
+     */
+    static TablebaseResult fromValue(int value) {
+        return value == 0 ? DRAW : new TablebaseResult(value);
+    }
+
+    /**
+     * @return TRUE if the side to move mates with perfect play
+     */
+    public boolean isWin() {
+        return value != 0 && getPlies() % 2 == 1;
+    }
+
+    /**
+     * @return TRUE if the side to move is mated with perfect play
+     */
+    public boolean isLoss() {
+        return value != 0 && getPlies() % 2 == 0;
+    }
+
+    /**
+     * @return TRUE if neither side can force mate
+     */
+    public boolean isDraw() {
+        return value == 0;
+    }
+
+    /**
+     * @return The number of plies until mate, 0 for a draw or a position
+     *         that is already checkmate
+     */
+    public int getPlies() {
+        return value == 0 ? 0 : value - 1;
+    }
+
+    /**
+     * @return The number of moves of the side to move until mate
+     */
+    public int getMoves() {
+        return (getPlies() + 1) / 2;
+    }
+
+    @Override
+    public String toString() {
+        if(isDraw()) {
+            return "draw";
+        } else if(getPlies() == 0) {
+            return "checkmated";
+        }
+
+        return (isWin() ? "mate in " : "mated in ") + getMoves();
+    }
+}
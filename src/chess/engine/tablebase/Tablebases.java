@@ -0,0 +1,244 @@
+package chess.engine.tablebase;
+
+import chess.game.Game;
+import chess.game.Move;
+import chess.game.board.Board;
+import chess.pieces.PieceCode;
+import chess.pieces.PieceType;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The endgame tables in a directory, probed by game position.
+ *
+ * Tables do not record castling rights or en passant captures, so positions
+ * where either is possible are not probed.  The board has no pawn
+ * promotion, and the tables are solved under the same rules.
+ *
+ * This class is thread safe.
+ *
+ * @author CarrollFD
+ */
+public class Tablebases implements Closeable {
+    // directories already opened by open(...)
+    private static final Map<Path, Tablebases> OPEN = new ConcurrentHashMap<>();
+
+    // the tables by material name
+    private final Map<String, EndgameTable> tables = new ConcurrentHashMap<>();
+
+    // the most pieces of any table
+    private volatile int maxPieces;
+
+    /**
+     * Opens every table in a directory.
+     *
+     * @param directory The directory holding the table files
+     */
+    public Tablebases(Path directory) throws IOException {
+        try(DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + EndgameTable.FILE_EXTENSION)) {
+            for(Path file : files) {
+                add(new EndgameTable(file));
+            }
+        }
+    }
+
+    /**
+     * Provides the tables in a directory, shared with every other caller
+     * naming the same directory.  Shared tables stay open.
+     *
+     * @param directory The directory holding the table files
+     *
+     * @return The tables
+     */
+    public static Tablebases open(Path directory) {
+        return OPEN.computeIfAbsent(directory.toAbsolutePath().normalize(), path -> {
+            try {
+                return new Tablebases(path);
+            } catch(IOException e) {
+                throw new UncheckedIOException("Unable to open tablebases in " + path, e);
+            }
+        });
+    }
+
+    /**
+     * Adds a table, replacing any table of the same material.
+     *
+     * @param table The table
+     */
+    public void add(EndgameTable table) {
+        tables.put(table.getMaterial().getName(), table);
+        maxPieces = Math.max(maxPieces, table.getMaterial().getPieceCount());
+    }
+
+    /**
+     * @param material The material
+     * @return The table for the material, or null if there is none
+     */
+    public EndgameTable getTable(Material material) {
+        return tables.get(material.getCanonical().getName());
+    }
+
+    /**
+     * @return The most pieces of any table
+     */
+    public int getMaxPieces() {
+        return maxPieces;
+    }
+
+    /**
+     * Provides the value of a game's position.
+     *
+     * @param game The game
+     *
+     * @return The value for the side to move, or null if the position is
+     *         not covered by the tables
+     */
+    public TablebaseResult probe(Game game) {
+        Board board = game.getBoard();
+        long occupied = board.getOccupancy(true) | board.getOccupancy(false);
+        int count = Long.bitCount(occupied);
+
+        if(count > maxPieces && count > 2) {
+            return null;
+        }
+
+        if(board.getCastlingRights() != 0 || isEnPassantPossible(game)) {
+            return null;
+        }
+
+        int[] codes = new int[count];
+        int[] squares = new int[count];
+
+        for(int i = 0; occupied != 0; i++, occupied &= occupied - 1) {
+            squares[i] = Long.numberOfTrailingZeros(occupied);
+            codes[i] = board.getPieceCode(squares[i]);
+        }
+
+        int value = probe(codes, squares, game.getSideToMove());
+
+        return value < 0 ? null : TablebaseResult.fromValue(value);
+    }
+
+    /**
+     * Provides the value of a position given as a list of pieces.
+     *
+     * @param codes The code of each piece
+     * @param squares The square of each piece
+     * @param whiteToMove TRUE if white is to move
+     *
+     * @return The value as stored in a table, or -1 if there is no table
+     */
+    int probe(int[] codes, int[] squares, boolean whiteToMove) {
+        if(codes.length == 2) {
+            return 0;
+        }
+
+        Material material;
+
+        try {
+            material = new Material(codes);
+        } catch(IllegalArgumentException e) {
+            // not a position with one king a side
+            return -1;
+        }
+
+        Material canonical = material.getCanonical();
+        EndgameTable table = tables.get(canonical.getName());
+
+        if(table == null) {
+            return -1;
+        }
+
+        // the table is for the other side, flip the board and the colors
+        boolean swap = canonical != material;
+        int[] slots = new int[codes.length];
+        boolean[] used = new boolean[codes.length];
+
+        for(int i = 0; i < codes.length; i++) {
+            int code = swap ? PieceCode.encode(PieceCode.getType(codes[i]), !PieceCode.getColor(codes[i])) : codes[i];
+
+            for(int slot = 0; slot < codes.length; slot++) {
+                if(!used[slot] && canonical.getCode(slot) == code) {
+                    used[slot] = true;
+                    slots[slot] = swap ? squares[i] ^ 56 : squares[i];
+                    break;
+                }
+            }
+        }
+
+        return table.probe(slots, swap != whiteToMove);
+    }
+
+    /**
+     * Picks the move with the best value: the fastest mate when winning,
+     * a drawing move when drawn, and the slowest mate when losing.
+     *
+     * @param game The game
+     *
+     * @return The move, or null if the position or a position after one of
+     *         the moves is not covered by the tables, or there are no moves
+     */
+    public Move selectMove(Game game) {
+        List<Move> moves = game.getBoard().getLegalMoves(game.getSideToMove());
+        Move bestMove = null;
+        int bestRank = Integer.MIN_VALUE;
+
+        for(Move move : moves) {
+            Game successor = game.createSuccessor(move);
+            TablebaseResult result = successor == null ? null : probe(successor);
+
+            if(result == null) {
+                return null;
+            }
+
+            int rank = getRank(result);
+
+            if(rank > bestRank) {
+                bestRank = rank;
+                bestMove = move;
+            }
+        }
+
+        return bestMove;
+    }
+
+    /**
+     * Ranks the position after a move for the player making it, higher is
+     * better.
+     */
+    private static int getRank(TablebaseResult successor) {
+        if(successor.isLoss()) {
+            return Integer.MAX_VALUE - successor.getPlies();
+        } else if(successor.isWin()) {
+            return Integer.MIN_VALUE + 1 + successor.getPlies();
+        }
+
+        return 0;
+    }
+
+    /**
+     * The tables ignore en passant, so positions where the last move was a
+     * pawn advancing two squares are not probed.
+     */
+    private static boolean isEnPassantPossible(Game game) {
+        Move previous = game.getPreviousMove();
+
+        return previous != null && previous.getType() == PieceType.pawn
+                && Math.abs(previous.getStartPosition().getY() - previous.getEndPosition().getY()) == 2;
+    }
+
+    @Override
+    public void close() throws IOException {
+        for(EndgameTable table : tables.values()) {
+            table.close();
+        }
+    }
+}
@@ -0,0 +1,352 @@
+package chess.engine.training;
+
+import chess.game.archive.PositionCodec;
+import chess.game.board.Board;
+import chess.game.evaluation.EvaluationParameters;
+import chess.pieces.PieceCode;
+import chess.pieces.PieceType;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Fits the material values and piece-square tables of the evaluation to
+ * game outcomes, in the manner of Texel's tuning method.
+ *
+ * The static evaluation of a position, from white's point of view, is
+ * mapped to an expected score for white by the logistic function
+ * 1 / (1 + 10^(-K * eval / 400)), and the parameters are moved to
+ * minimize the logistic loss of that prediction against the outcome of the
+ * game the position was played in.  K is fitted first with the starting
+ * parameters, so the tuned values stay in centipawns.
+ *
+ * The evaluation is linear in the parameters for a given game phase, so
+ * the gradient is summed exactly from each position's pieces.  Each pass
+ * over the data splits it into chunks summed in parallel on a fork-join
+ * pool, reading the records from the mapped files rather than the heap.
+ * Updates follow the Adam method, which copes with parameters whose
+ * gradients differ by orders of magnitude, such as the value of a queen
+ * and the bonus for a rare square.
+ *
+ * The tuner works on its own copy of the starting parameters.
+ *
+ * @author CarrollFD
+ */
+public class TexelTuner {
+    // the default records summed by one fork-join task
+    public static final int DEFAULT_CHUNK_RECORDS = 1 << 14;
+
+    // the default step size, in centipawns
+    public static final double DEFAULT_LEARNING_RATE = 1.0;
+
+    // Adam's decay rates and guard against division by zero
+    private static final double BETA1 = 0.9;
+    private static final double BETA2 = 0.999;
+    private static final double EPSILON = 1e-8;
+
+    // the range searched for K, and the precision it is fitted to
+    private static final double MIN_SCALE = 0.01;
+    private static final double MAX_SCALE = 5.0;
+    private static final double SCALE_TOLERANCE = 1e-3;
+
+    // keeps the log of a prediction finite
+    private static final double MIN_PROBABILITY = 1e-12;
+
+    private static final PieceType[] TYPES = PieceType.values();
+    private static final int SQUARES = Board.BOARD_SIZE_X * Board.BOARD_SIZE_Y;
+    private static final int STAGES = 2;
+
+    // the weights are laid out as material values, by stage then type,
+    // followed by piece-square tables, by stage then type then square
+    private static final int PIECE_SQUARE_BASE = STAGES * TYPES.length;
+    private static final int WEIGHT_COUNT = PIECE_SQUARE_BASE + STAGES * TYPES.length * SQUARES;
+
+    private final List<ByteBuffer> chunks = new ArrayList<>();
+    private final long recordCount;
+    private final ForkJoinPool pool;
+    private final double learningRate;
+
+    // the parameters being tuned, only changed between passes
+    private final double[] weights = new double[WEIGHT_COUNT];
+    private double scale = 1.0;
+
+    // Adam's moment estimates
+    private final double[] firstMoment = new double[WEIGHT_COUNT];
+    private final double[] secondMoment = new double[WEIGHT_COUNT];
+    private int iterations;
+
+    /**
+     * Constructs a tuner.
+     *
+     * @param data The positions to fit
+     * @param start The starting parameters, which are copied
+     * @param pool The pool the passes over the data run on
+     * @param learningRate The step size, in centipawns
+     * @param chunkRecords The records summed by one task
+     */
+    public TexelTuner(TrainingDataSet data, EvaluationParameters start, ForkJoinPool pool, double learningRate,
+            int chunkRecords) {
+        this.pool = pool;
+        this.learningRate = learningRate;
+        this.recordCount = data.size();
+
+        if(recordCount == 0) {
+            throw new IllegalArgumentException("No positions to tune on.");
+        }
+
+        int chunkSize = chunkRecords * TrainingData.RECORD_SIZE;
+        for(ByteBuffer segment : data.getSegments()) {
+            for(int offset = 0; offset < segment.limit(); offset += chunkSize) {
+                ByteBuffer chunk = segment.duplicate();
+                chunk.position(offset).limit(Math.min(segment.limit(), offset + chunkSize));
+                chunks.add(chunk.slice());
+            }
+        }
+
+        // copy the starting parameters
+        for(int stage = EvaluationParameters.MIDDLEGAME; stage <= EvaluationParameters.ENDGAME; stage++) {
+            for(PieceType type : TYPES) {
+                weights[getMaterialIndex(stage, type.ordinal())] = start.getMaterial(stage, type);
+
+                for(int index = 0; index < SQUARES; index++) {
+                    weights[getPieceSquareIndex(stage, type.ordinal(), index)] = start.getPieceSquare(stage, type, index);
+                }
+            }
+        }
+    }
+
+    private static int getMaterialIndex(int stage, int type) {
+        return stage * TYPES.length + type;
+    }
+
+    private static int getPieceSquareIndex(int stage, int type, int index) {
+        return PIECE_SQUARE_BASE + (stage * TYPES.length + type) * SQUARES + index;
+    }
+
+    /**
+     * Fits K to the current parameters by golden section search.
+     *
+     * @return K
+     */
+    public double fitScale() {
+        double ratio = (Math.sqrt(5) - 1) / 2;
+        double low = MIN_SCALE;
+        double high = MAX_SCALE;
+        double a = high - ratio * (high - low);
+        double b = low + ratio * (high - low);
+        double lossA = getLoss(a);
+        double lossB = getLoss(b);
+
+        while(high - low > SCALE_TOLERANCE) {
+            if(lossA < lossB) {
+                high = b;
+                b = a;
+                lossB = lossA;
+                a = high - ratio * (high - low);
+                lossA = getLoss(a);
+            } else {
+                low = a;
+                a = b;
+                lossA = lossB;
+                b = low + ratio * (high - low);
+                lossB = getLoss(b);
+            }
+        }
+
+        scale = (low + high) / 2;
+
+        return scale;
+    }
+
+    /**
+     * @return K, the scale of the evaluation in the logistic function
+     */
+    public double getScale() {
+        return scale;
+    }
+
+    /**
+     * @param scale K, the scale of the evaluation in the logistic function
+     */
+    public void setScale(double scale) {
+        this.scale = scale;
+    }
+
+    /**
+     * @return The mean loss over the data with the current parameters
+     */
+    public double getLoss() {
+        return getLoss(scale);
+    }
+
+    private double getLoss(double scale) {
+        double[] sums = pool.invoke(new PassTask(0, chunks.size(), scale, false));
+
+        return sums[WEIGHT_COUNT] / recordCount;
+    }
+
+    /**
+     * Makes one pass over the data and updates every parameter.
+     *
+     * @return The mean loss before the update
+     */
+    public double step() {
+        double[] sums = pool.invoke(new PassTask(0, chunks.size(), scale, true));
+
+        iterations++;
+        double correction1 = 1 - Math.pow(BETA1, iterations);
+        double correction2 = 1 - Math.pow(BETA2, iterations);
+
+        for(int i = 0; i < WEIGHT_COUNT; i++) {
+            double gradient = sums[i] / recordCount;
+
+            firstMoment[i] = BETA1 * firstMoment[i] + (1 - BETA1) * gradient;
+            secondMoment[i] = BETA2 * secondMoment[i] + (1 - BETA2) * gradient * gradient;
+            weights[i] -= learningRate * (firstMoment[i] / correction1)
+                    / (Math.sqrt(secondMoment[i] / correction2) + EPSILON);
+        }
+
+        return sums[WEIGHT_COUNT] / recordCount;
+    }
+
+    /**
+     * @return A new copy of the parameters as tuned so far, rounded to
+     *         whole centipawns
+     */
+    public EvaluationParameters getParameters() {
+        EvaluationParameters parameters = new EvaluationParameters();
+
+        for(int stage = EvaluationParameters.MIDDLEGAME; stage <= EvaluationParameters.ENDGAME; stage++) {
+            for(PieceType type : TYPES) {
+                parameters.setMaterial(stage, type, (int)Math.round(weights[getMaterialIndex(stage, type.ordinal())]));
+
+                for(int index = 0; index < SQUARES; index++) {
+                    parameters.setPieceSquare(stage, type, index,
+                            (int)Math.round(weights[getPieceSquareIndex(stage, type.ordinal(), index)]));
+                }
+            }
+        }
+
+        return parameters;
+    }
+
+    /**
+     * Sums the loss, and optionally its gradient, over a range of chunks.
+     * The result holds the gradient sums followed by the loss sum.
+     */
+    private class PassTask extends RecursiveTask<double[]> {
+        private static final long serialVersionUID = 1L;
+
+        private final int first;
+        private final int end;
+        private final double scale;
+        private final boolean gradient;
+
+        PassTask(int first, int end, double scale, boolean gradient) {
+            this.first = first;
+            this.end = end;
+            this.scale = scale;
+            this.gradient = gradient;
+        }
+
+        @Override
+        protected double[] compute() {
+            if(end - first == 1) {
+                return sumChunk(chunks.get(first));
+            }
+
+            int middle = (first + end) >>> 1;
+            PassTask left = new PassTask(first, middle, scale, gradient);
+            left.fork();
+
+            double[] sums = new PassTask(middle, end, scale, gradient).compute();
+            double[] leftSums = left.join();
+
+            for(int i = 0; i < sums.length; i++) {
+                sums[i] += leftSums[i];
+            }
+
+            return sums;
+        }
+
+        private double[] sumChunk(ByteBuffer chunk) {
+            double[] sums = new double[WEIGHT_COUNT + 1];
+            int[] codes = new int[SQUARES];
+
+            // the pieces of the current position, as weight indexes of the
+            // middlegame terms and the sign of their contribution
+            int[] materialIndexes = new int[PositionCodec.MAX_PIECES];
+            int[] pieceSquareIndexes = new int[PositionCodec.MAX_PIECES];
+            int[] signs = new int[PositionCodec.MAX_PIECES];
+
+            // the derivative of the logistic function's exponent
+            double slope = scale * Math.log(10) / 400;
+            int endgameOffset = TYPES.length;
+            int endgameSquareOffset = TYPES.length * SQUARES;
+
+            for(int offset = 0; offset < chunk.limit(); offset += TrainingData.RECORD_SIZE) {
+                PositionCodec.decodePieces(chunk, offset, codes);
+
+                int pieces = 0;
+                int phase = 0;
+                double middlegame = 0;
+                double endgame = 0;
+
+                for(int index = 0; index < SQUARES; index++) {
+                    int code = codes[index];
+
+                    if(PieceCode.isEmpty(code)) {
+                        continue;
+                    }
+
+                    PieceType type = PieceCode.getType(code);
+                    boolean color = PieceCode.getColor(code);
+                    int square = color ? index : EvaluationParameters.mirror(index);
+                    int sign = color ? 1 : -1;
+                    int materialIndex = getMaterialIndex(EvaluationParameters.MIDDLEGAME, type.ordinal());
+                    int pieceSquareIndex = getPieceSquareIndex(EvaluationParameters.MIDDLEGAME, type.ordinal(), square);
+
+                    middlegame += sign * (weights[materialIndex] + weights[pieceSquareIndex]);
+                    endgame += sign * (weights[materialIndex + endgameOffset]
+                            + weights[pieceSquareIndex + endgameSquareOffset]);
+                    phase += EvaluationParameters.getPhaseWeight(type);
+
+                    materialIndexes[pieces] = materialIndex;
+                    pieceSquareIndexes[pieces] = pieceSquareIndex;
+                    signs[pieces] = sign;
+                    pieces++;
+                }
+
+                double middlegameShare = (double)Math.min(phase, EvaluationParameters.MAX_PHASE)
+                        / EvaluationParameters.MAX_PHASE;
+                double evaluation = middlegameShare * middlegame + (1 - middlegameShare) * endgame;
+                double result = TrainingData.getOutcome(chunk, offset) / 2.0;
+                double prediction = 1 / (1 + Math.exp(-slope * evaluation));
+                double clamped = Math.min(Math.max(prediction, MIN_PROBABILITY), 1 - MIN_PROBABILITY);
+
+                sums[WEIGHT_COUNT] -= result * Math.log(clamped) + (1 - result) * Math.log(1 - clamped);
+
+                if(gradient) {
+                    // the derivative of the loss with respect to the evaluation
+                    double delta = (prediction - result) * slope;
+                    double middlegameDelta = delta * middlegameShare;
+                    double endgameDelta = delta - middlegameDelta;
+
+                    for(int piece = 0; piece < pieces; piece++) {
+                        int sign = signs[piece];
+
+                        sums[materialIndexes[piece]] += sign * middlegameDelta;
+                        sums[pieceSquareIndexes[piece]] += sign * middlegameDelta;
+                        sums[materialIndexes[piece] + endgameOffset] += sign * endgameDelta;
+                        sums[pieceSquareIndexes[piece] + endgameSquareOffset] += sign * endgameDelta;
+                    }
+                }
+            }
+
+            return sums;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package chess.engine.training;
+
+import chess.game.Game;
+import chess.game.GameResult;
+import chess.game.archive.PositionCodec;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The record format of training data files: a position with the score the
+ * search gave it and the outcome of the game it was played in, in
+ * RECORD_SIZE bytes.  A record holds:
+ *
+ *   0  the position, as written by PositionCodec, so the PositionCodec
+ *      accessors read it at the record's own offset
+ *  32  the search score in centipawns from white's point of view, four
+ *      bytes
+ *  36  the outcome for white: BLACK_WIN, DRAW or WHITE_WIN
+ *  37  zero
+ *
+ * Files are nothing but records back to back, see TrainingDataWriter.
+ *
+ * @author CarrollFD
+ */
+public final class TrainingData {
+    public static final int RECORD_SIZE = 40;
+
+    // the extension of training data files
+    public static final String FILE_EXTENSION = ".train";
+
+    // outcomes, in half points for white
+    public static final int BLACK_WIN = 0;
+    public static final int DRAW = 1;
+    public static final int WHITE_WIN = 2;
+
+    // field offsets
+    private static final int SCORE = PositionCodec.RECORD_SIZE;
+    private static final int OUTCOME = SCORE + 4;
+    private static final int RESERVED = OUTCOME + 1;
+
+    private TrainingData() {
+    }
+
+    /**
+     * Writes a record for the current position of a game, with the outcome
+     * left as a draw until the game is over, see setOutcome(...).
+     *
+     * @param game The game
+     * @param score The search score, from white's point of view
+     * @param buffer The buffer
+     * @param offset The position of the record in the buffer
+     */
+    public static void encode(Game game, int score, ByteBuffer buffer, int offset) {
+        PositionCodec.encode(game, buffer, offset);
+        buffer.putInt(offset + SCORE, score);
+        buffer.put(offset + OUTCOME, (byte)DRAW);
+
+        for(int i = RESERVED; i < RECORD_SIZE; i++) {
+            buffer.put(offset + i, (byte)0);
+        }
+    }
+
+    /**
+     * @param buffer The buffer
+     * @param offset The position of the record in the buffer
+     * @param outcome The outcome for white
+     */
+    public static void setOutcome(ByteBuffer buffer, int offset, int outcome) {
+        buffer.put(offset + OUTCOME, (byte)outcome);
+    }
+
+    /**
+     * @return The search score of the record at the offset, from white's
+     *         point of view
+     */
+    public static int getScore(ByteBuffer buffer, int offset) {
+        return buffer.getInt(offset + SCORE);
+    }
+
+    /**
+     * @return The outcome for white of the record at the offset
+     */
+    public static int getOutcome(ByteBuffer buffer, int offset) {
+        return buffer.get(offset + OUTCOME);
+    }
+
+    /**
+     * @param result The result of a game
+     * @return The outcome for white, a game without a winner is a draw
+     */
+    public static int getOutcome(GameResult result) {
+        switch(result) {
+            case whiteWins:
+                return WHITE_WIN;
+            case blackWins:
+                return BLACK_WIN;
+            default:
+                return DRAW;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package chess.engine.training;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A read only memory mapping of training data files, see TrainingData.
+ * Records are read straight from the mapped pages, so a data set far
+ * larger than the heap can be scanned repeatedly at the speed of the page
+ * cache.  Files over 1 GB are mapped in several segments.
+ *
+ * This class is thread safe once opened, each reader should use its own
+ * duplicate of a segment's buffer if it changes the buffer's position.
+ *
+ * @author CarrollFD
+ */
+public class TrainingDataSet implements Closeable {
+    // the most bytes mapped in one segment, a whole number of records
+    private static final int MAX_SEGMENT_SIZE = TrainingData.RECORD_SIZE * ((1 << 30) / TrainingData.RECORD_SIZE);
+
+    private final List<FileChannel> channels = new ArrayList<>();
+    private final List<ByteBuffer> segments = new ArrayList<>();
+    private long recordCount;
+
+    /**
+     * Opens and maps training data files.
+     *
+     * @param paths The files, or directories whose training data files are
+     *              all opened
+     */
+    public TrainingDataSet(List<Path> paths) throws IOException {
+        try {
+            for(Path path : paths) {
+                if(Files.isDirectory(path)) {
+                    List<Path> files = new ArrayList<>();
+
+                    try(DirectoryStream<Path> listing = Files.newDirectoryStream(path, "*" + TrainingData.FILE_EXTENSION)) {
+                        for(Path file : listing) {
+                            files.add(file);
+                        }
+                    }
+
+                    // a stable order, so runs over the same data agree
+                    Collections.sort(files);
+
+                    for(Path file : files) {
+                        map(file);
+                    }
+                } else {
+                    map(path);
+                }
+            }
+        } catch(IOException | RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    private void map(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        channels.add(channel);
+
+        long size = channel.size();
+
+        if(size % TrainingData.RECORD_SIZE != 0) {
+            throw new IOException("File size is not a multiple of " + TrainingData.RECORD_SIZE + " bytes: " + file);
+        }
+
+        for(long start = 0; start < size; start += MAX_SEGMENT_SIZE) {
+            ByteBuffer segment = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(MAX_SEGMENT_SIZE, size - start));
+            segment.order(ByteOrder.BIG_ENDIAN);
+            segments.add(segment);
+        }
+
+        recordCount += size / TrainingData.RECORD_SIZE;
+    }
+
+    /**
+     * @return The number of records in the data set
+     */
+    public long size() {
+        return recordCount;
+    }
+
+    /**
+     * @return The mapped segments, each holding whole records from offset 0
+     */
+    public List<ByteBuffer> getSegments() {
+        return Collections.unmodifiableList(segments);
+    }
+
+    /**
+     * Closes the files.  The mappings stay valid until they are garbage
+     * collected.
+     */
+    @Override
+    public void close() throws IOException {
+        IOException failure = null;
+
+        for(FileChannel channel : channels) {
+            try {
+                channel.close();
+            } catch(IOException e) {
+                failure = e;
+            }
+        }
+
+        if(failure != null) {
+            throw failure;
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package chess.engine.training;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes training data records to a directory from any number of threads.
+ * Producers hand over batches of records through a bounded queue, and a
+ * single writer thread gathers them into a large buffer written to the
+ * current file in one sequential write.  Producers only wait when the
+ * queue is full, so the disk never holds up a search unless it falls
+ * behind.
+ *
+ * Files are numbered and hold at most the given number of records.  Each
+ * is written under a temporary name and renamed once full or when the
+ * writer is closed, so readers never see a partial file.
+ *
+ * @author CarrollFD
+ */
+public class TrainingDataWriter implements Closeable {
+    // the records in a file before the next is started
+    public static final int DEFAULT_FILE_RECORDS = 1 << 20;
+
+    // the batches waiting for the writer thread
+    public static final int DEFAULT_QUEUE_CAPACITY = 256;
+
+    // the size of the writer's buffer, and so of each write
+    private static final int WRITE_BUFFER_SIZE = TrainingData.RECORD_SIZE * (1 << 17);
+
+    // how long a producer waits on a full queue before checking the writer
+    private static final long OFFER_TIMEOUT_MILLIS = 100;
+
+    // queued by close() after the last batch
+    private static final ByteBuffer END = ByteBuffer.allocate(0);
+
+    private final Path directory;
+    private final int fileRecords;
+    private final BlockingQueue<ByteBuffer> queue;
+    private final Thread writer;
+
+    // the failure that stopped the writer thread, or null
+    private volatile IOException failure;
+
+    // the writer thread's state
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE);
+    private FileChannel channel;
+    private int fileNumber;
+    private long recordsInFile;
+    private volatile long recordsWritten;
+    private volatile int filesWritten;
+
+    // guarded by this
+    private boolean closed;
+
+    /**
+     * Opens a directory for writing, creating it if needed.  Numbering
+     * continues after any files already there.
+     *
+     * @param directory The directory
+     * @param fileRecords The most records written to a file
+     * @param queueCapacity The most batches waiting to be written
+     */
+    public TrainingDataWriter(Path directory, int fileRecords, int queueCapacity) throws IOException {
+        if(fileRecords <= 0) {
+            throw new IllegalArgumentException("Files must hold at least one record: " + fileRecords);
+        }
+
+        this.directory = directory;
+        this.fileRecords = fileRecords;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+
+        Files.createDirectories(directory);
+
+        try(DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + TrainingData.FILE_EXTENSION)) {
+            for(Path file : files) {
+                String name = file.getFileName().toString();
+
+                try {
+                    int number = Integer.parseInt(name.substring(0, name.length() - TrainingData.FILE_EXTENSION.length()));
+                    fileNumber = Math.max(fileNumber, number + 1);
+                } catch(NumberFormatException e) {
+                    // not written by this class
+                }
+            }
+        }
+
+        writer = new Thread(this::writeLoop, "Training data writer");
+        writer.start();
+    }
+
+    /**
+     * Queues records to be written, waiting while the queue is full.  The
+     * buffer must not be changed afterwards.
+     *
+     * @param records The records from the buffer's position to its limit
+     *
+     * @throws IOException If the writer has failed
+     */
+    public void write(ByteBuffer records) throws IOException, InterruptedException {
+        if(records.remaining() % TrainingData.RECORD_SIZE != 0) {
+            throw new IllegalArgumentException("Partial record: " + records.remaining() + " bytes");
+        }
+
+        while(!queue.offer(records, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+            checkFailure();
+        }
+
+        checkFailure();
+    }
+
+    /**
+     * @return The number of records written to disk so far
+     */
+    public long getRecordsWritten() {
+        return recordsWritten;
+    }
+
+    /**
+     * @return The number of files completed so far
+     */
+    public int getFilesWritten() {
+        return filesWritten;
+    }
+
+    /**
+     * Writes the records still queued, completes the current file and
+     * stops the writer thread.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if(closed) {
+            return;
+        }
+
+        closed = true;
+
+        try {
+            while(failure == null && !queue.offer(END, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                // wait for room
+            }
+
+            writer.join();
+        } catch(InterruptedException e) {
+            writer.interrupt();
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while closing the training data writer.", e);
+        }
+
+        checkFailure();
+    }
+
+    private void checkFailure() throws IOException {
+        if(failure != null) {
+            throw new IOException("Training data writer failed.", failure);
+        }
+    }
+
+    private void writeLoop() {
+        try {
+            while(true) {
+                ByteBuffer records = queue.take();
+
+                if(records == END) {
+                    break;
+                }
+
+                while(records.hasRemaining()) {
+                    if(channel == null) {
+                        channel = FileChannel.open(getTempPath(fileNumber),
+                                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+                    }
+
+                    // copy as many records as fit the buffer and the file
+                    long count = Math.min(records.remaining() / TrainingData.RECORD_SIZE,
+                            Math.min(buffer.remaining() / TrainingData.RECORD_SIZE, fileRecords - recordsInFile));
+                    ByteBuffer slice = records.duplicate();
+                    slice.limit(slice.position() + (int)count * TrainingData.RECORD_SIZE);
+
+                    buffer.put(slice);
+                    records.position(slice.limit());
+                    recordsInFile += count;
+
+                    if(recordsInFile == fileRecords) {
+                        completeFile();
+                    } else if(buffer.remaining() < TrainingData.RECORD_SIZE) {
+                        flush();
+                    }
+                }
+            }
+
+            if(channel != null) {
+                completeFile();
+            }
+        } catch(IOException e) {
+            failure = e;
+        } catch(InterruptedException e) {
+            failure = new IOException("Training data writer interrupted.", e);
+        } finally {
+            // producers waiting for room notice the failure on their next
+            // attempt
+            try {
+                if(channel != null) {
+                    channel.close();
+                }
+            } catch(IOException e) {
+                // already failed
+            }
+        }
+    }
+
+    // writer thread only
+    private void flush() throws IOException {
+        int records = buffer.position() / TrainingData.RECORD_SIZE;
+
+        buffer.flip();
+
+        while(buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+
+        buffer.clear();
+        recordsWritten += records;
+    }
+
+    // writer thread only
+    private void completeFile() throws IOException {
+        flush();
+        channel.close();
+        channel = null;
+
+        Files.move(getTempPath(fileNumber), getPath(fileNumber), StandardCopyOption.ATOMIC_MOVE);
+
+        fileNumber++;
+        recordsInFile = 0;
+        filesWritten++;
+    }
+
+    private Path getPath(int number) {
+        return directory.resolve(String.format("%08d%s", number, TrainingData.FILE_EXTENSION));
+    }
+
+    private Path getTempPath(int number) {
+        Path path = getPath(number);
+
+        return path.resolveSibling(path.getFileName() + ".tmp");
+    }
+}
@@ -0,0 +1,114 @@
+package chess.game;
+
+import chess.game.board.Board;
+import chess.game.board.Position;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Converts between board positions and coordinate notation, where a square
+ * is written as its file and rank ("e2") and a move as its start and end
+ * squares ("e2e4").
+ *
+ * Ranks are numbered from white's side of the board, so rank 1 is row 7 of
+ * the board.
+ *
+ * @author CarrollFD
+ */
+public final class CoordinateNotation {
+    private CoordinateNotation() {
+    }
+
+    /**
+     * Parses a square.
+     *
+     * @param square The square, such as "e2"
+     *
+     * @return The position of the square
+     *
+     * @throws IllegalArgumentException If the square is not on the board
+     */
+    public static Position parseSquare(String square) {
+        if(square.length() != 2) {
+            throw new IllegalArgumentException("Invalid square: " + square);
+        }
+
+        Position position = new Position(square.charAt(0) - 'a', Board.BOARD_SIZE_Y - (square.charAt(1) - '0'));
+
+        if(!GameInfoWrapper.isOnBoard(position)) {
+            throw new IllegalArgumentException("Invalid square: " + square);
+        }
+
+        return position;
+    }
+
+    /**
+     * Parses a move.
+     *
+     * @param move The move, such as "e2e4"
+     *
+     * @return The start and end positions of the move
+     *
+     * @throws IllegalArgumentException If the move is malformed
+     */
+    public static Position[] parseMove(String move) {
+        if(move.length() != 4) {
+            throw new IllegalArgumentException("Invalid move: " + move);
+        }
+
+        return new Position[] { parseSquare(move.substring(0, 2)), parseSquare(move.substring(2)) };
+    }
+
+    /**
+     * Parses a space separated list of moves.
+     *
+     * @param moves The moves, such as "e2e4 e7e5"
+     *
+     * @return The start and end positions of each move
+     */
+    public static List<Position[]> parseMoves(String moves) {
+        List<Position[]> parsed = new ArrayList<>();
+
+        for(String move : moves.trim().split("\\s+")) {
+            if(!move.isEmpty()) {
+                parsed.add(parseMove(move));
+            }
+        }
+
+        return parsed;
+    }
+
+    /**
+     * @param position The position to format
+     * @return The square, such as "e2"
+     */
+    public static String formatSquare(Position position) {
+        return "" + (char)('a' + position.getX()) + (Board.BOARD_SIZE_Y - position.getY());
+    }
+
+    /**
+     * @param move The move to format
+     * @return The move, such as "e2e4"
+     */
+    public static String formatMove(Move move) {
+        return formatSquare(move.getStartPosition()) + formatSquare(move.getEndPosition());
+    }
+
+    /**
+     * Plays a list of moves through Game.requestMove(...).
+     *
+     * @param game The game to play the moves in
+     * @param moves The moves, such as "e2e4 e7e5"
+     *
+     * @throws IllegalArgumentException If a move is malformed or refused
+     */
+    public static void playMoves(Game game, String moves) {
+        for(Position[] move : parseMoves(moves)) {
+            if(!game.requestMove(move[0], move[1])) {
+                throw new IllegalArgumentException("Move " + formatSquare(move[0]) + formatSquare(move[1])
+                        + " refused: " + game.getBoard().getMoveError());
+            }
+        }
+    }
+}
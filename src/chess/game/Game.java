@@ -2,14 +2,33 @@ package chess.game;
 
 
 import chess.game.board.Board;
+import chess.game.board.BoardSnapshot;
 import chess.game.board.Position;
+import chess.game.board.Zobrist;
+import chess.game.events.BoardChangeAdapter;
+import chess.game.events.BoardChangeListener;
+import chess.game.events.GameOverEvent;
+import chess.game.events.PieceCapturedEvent;
+import chess.game.events.PieceMovedEvent;
+import chess.pieces.Piece;
+import chess.pieces.PieceCode;
+import chess.pieces.PieceType;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
 
 /**
  * Represents a game of chess.
  *
+ * A game may be shared between threads with a single writer and any number
+ * of readers.  Moves must be made through requestMove(...), which
+ * serializes writers.  Readers use getSnapshot(), which returns the
+ * immutable position published after the most recent move and never waits
+ * on the move in progress.  The board itself must only be accessed by the
+ * writing thread.
+ *
  * @author CarrollFD
  */
 public class Game {
@@ -19,12 +38,50 @@ public class Game {
     // the list of moves executed during this game
     private List<Move> moveList = new ArrayList<>();
 
+    // the outcome of the game
+    private volatile GameResult result = GameResult.inProgress;
+
+    // the color whose turn it is
+    private boolean sideToMove = Piece.WHITE;
+
+    // the position published for readers after every move
+    private volatile BoardSnapshot snapshot;
+
+    // the plies since the last capture or pawn move
+    private int halfmoveClock = 0;
+
+    // the plies played before the move list began, for a set up position
+    private int startPly = 0;
+
+    // the pawn advance that allows an en passant capture in a set up
+    // position, standing in for the previous move until one is made
+    private Move setupMove;
+
+    // TRUE if the game started from a set up position
+    private boolean setUp = false;
+
+    // TRUE if the turn was passed without moving since the last move, so
+    // the last move no longer allows an en passant capture
+    private boolean nullMove = false;
+
+    // TRUE if the move being recorded captured a piece
+    private boolean captured = false;
+
+    // serializes threads making moves, readers never take this lock
+    private final ReentrantLock moveLock = new ReentrantLock();
+
     /**
      * Constructs a new game.
      */
     public Game() {
         GameInfoWrapper wrapper = new GameInfoWrapper(this);
         board = new Board(wrapper);
+
+        // the recorder is registered first so that the move list is current
+        // before any other listener is notified
+        board.addChangeListener(new MoveRecorder());
+
+        snapshot = board.createSnapshot();
     }
 
     /**
@@ -43,6 +100,17 @@ public class Game {
         for(Move move : toCopy.getMoveList()) {
             moveList.add(new Move(move));
         }
+
+        result = toCopy.result;
+        sideToMove = toCopy.sideToMove;
+        snapshot = toCopy.snapshot;
+        halfmoveClock = toCopy.halfmoveClock;
+        startPly = toCopy.startPly;
+        setupMove = toCopy.setupMove;
+        setUp = toCopy.setUp;
+        nullMove = toCopy.nullMove;
+
+        board.addChangeListener(new MoveRecorder());
     }
 
     /**
@@ -59,6 +127,306 @@ public class Game {
         return moveList;
     }
 
+    /**
+     * Replaces the game with one starting from the given position.  The
+     * move list is cleared and listeners are not notified.
+     *
+     * @param codes The code of the piece on each square, indexed by
+     *              Position.getIndex()
+     * @param sideToMove The color to move
+     * @param castlingRights The castling rights, as by
+     *                       Board.getCastlingRights()
+     * @param enPassantFile The file of a pawn that just advanced two
+     *                      squares, or -1
+     * @param halfmoveClock The plies since the last capture or pawn move
+     * @param fullmoveNumber The number of the move about to be played,
+     *                       starting at 1
+     *
+     * @throws IllegalArgumentException If the position is not valid, in
+     *         which case the game is unchanged
+     */
+    public void setPosition(int[] codes, boolean sideToMove, int castlingRights, int enPassantFile,
+            int halfmoveClock, int fullmoveNumber) {
+        moveLock.lock();
+        try {
+            // everything is checked before the board or game is changed
+            Boolean colorInCheck = Board.findColorInCheck(codes).toBoolean();
+            if(colorInCheck != null && colorInCheck != sideToMove) {
+                throw new IllegalArgumentException("Invalid position: the side not to move is in check.");
+            }
+
+            Move enPassantMove = null;
+            if(enPassantFile >= 0) {
+                // the pawn of the other color that just advanced two squares
+                boolean color = !sideToMove;
+                int startY = color ? StartingPositions.WHITE_PAWN_Y : StartingPositions.BLACK_PAWN_Y;
+                int endY = color ? startY - 2 : startY + 2;
+                Position end = new Position(enPassantFile, endY);
+
+                if(enPassantFile >= Board.BOARD_SIZE_X
+                        || codes[end.getIndex()] != PieceCode.encode(PieceType.pawn, color)) {
+                    throw new IllegalArgumentException("Invalid position: no pawn to take en passant on file "
+                            + enPassantFile + ".");
+                }
+
+                enPassantMove = new Move(color, PieceType.pawn, new Position(enPassantFile, startY), end);
+            }
+
+            board.setPosition(codes, castlingRights);
+
+            setupMove = enPassantMove;
+            moveList.clear();
+            nullMove = false;
+            this.sideToMove = sideToMove;
+            this.halfmoveClock = halfmoveClock;
+            startPly = 2 * (Math.max(fullmoveNumber, 1) - 1) + (sideToMove == Piece.WHITE ? 0 : 1);
+            setUp = true;
+            result = GameResult.inProgress;
+
+            if(!board.hasLegalMove(sideToMove)) {
+                if(colorInCheck != null) {
+                    result = sideToMove ? GameResult.blackWins : GameResult.whiteWins;
+                } else {
+                    result = GameResult.stalemate;
+                }
+            }
+
+            snapshot = board.createSnapshot();
+        } finally {
+            moveLock.unlock();
+        }
+    }
+
+    /**
+     * @return TRUE if the game started from a position set up by
+     *         setPosition(...) rather than the starting position
+     */
+    public boolean isSetUp() {
+        return setUp;
+    }
+
+    /**
+     * Provides the most recent move.  In a set up position with an en
+     * passant file and no move made since, this is the pawn advance that
+     * allows the capture.  After a null move there is none until the next
+     * move.
+     *
+     * @return The move, or null if there is none
+     */
+    public Move getPreviousMove() {
+        if(nullMove) {
+            return null;
+        }
+
+        if(moveList.isEmpty()) {
+            return setupMove;
+        }
+
+        return moveList.get(moveList.size() - 1);
+    }
+
+    /**
+     * @return the plies since the last capture or pawn move
+     */
+    public int getHalfmoveClock() {
+        return halfmoveClock;
+    }
+
+    /**
+     * @return the number of the move about to be played, starting at 1 and
+     *         increasing after each black move
+     */
+    public int getFullmoveNumber() {
+        return (startPly + moveList.size()) / 2 + 1;
+    }
+
+    /**
+     * Validates a move, and performs it if its OK.  Safe to call from
+     * multiple threads, moves are applied one at a time.
+     *
+     * @param startPosition The starting position
+     * @param endPosition The ending position
+     *
+     * @return TRUE if the move was performed, FALSE if there were any problems
+     */
+    public boolean requestMove(Position startPosition, Position endPosition) {
+        return board.requestMove(startPosition, endPosition);
+    }
+
+    /**
+     * Applies a change while holding the move lock, for the board.
+     */
+    <T> T whileMoving(Supplier<T> change) {
+        moveLock.lock();
+        try {
+            return change.get();
+        } finally {
+            moveLock.unlock();
+        }
+    }
+
+    /**
+     * Creates a copy of this game with the given move played, for searching
+     * ahead.  The move is validated like requestMove(...), but this game is
+     * not changed and no listeners are notified.
+     *
+     * @param move The move to play
+     *
+     * @return The resulting game, or null if the move is not legal
+     */
+    public Game createSuccessor(Move move) {
+        Piece piece = board.getPieceAt(move.getStartPosition());
+
+        // make sure there is a piece to move, and that the move is valid
+        if(piece == null || !piece.validateMove(move.getEndPosition())) {
+            return null;
+        }
+
+        boolean resetsClock = piece.getType() == PieceType.pawn
+                || board.getPieceAt(move.getEndPosition()) != null;
+
+        Game successor = new Game(this);
+        try {
+            successor.board.forceMove(move.getStartPosition(), move.getEndPosition());
+        } catch(IllegalArgumentException | IllegalStateException e) {
+            // the move results in an invalid board state
+            return null;
+        }
+
+        // make sure the moving piece isn't placing its king in check
+        Boolean colorInCheck = successor.board.getColorInCheck().toBoolean();
+        if(colorInCheck != null && colorInCheck == piece.getColor()) {
+            return null;
+        }
+
+        successor.moveList.add(new Move(piece.getColor(), piece.getType(),
+                new Position(move.getStartPosition()), new Position(move.getEndPosition())));
+        successor.sideToMove = !piece.getColor();
+        successor.nullMove = false;
+        successor.halfmoveClock = resetsClock ? 0 : halfmoveClock + 1;
+        successor.snapshot = successor.board.createSnapshot();
+
+        return successor;
+    }
+
+    /**
+     * Creates a copy of this game with the turn passed to the opponent
+     * without moving, for null move pruning.  The move list is unchanged,
+     * but the last move no longer counts as the previous move, so it
+     * allows no en passant capture and does not change the hash key.
+     *
+     * @return The resulting game
+     */
+    public Game createNullSuccessor() {
+        Game successor = new Game(this);
+        successor.sideToMove = !sideToMove;
+        successor.nullMove = true;
+
+        return successor;
+    }
+
+    /**
+     * Provides the Zobrist key of the position: the pieces, side to move,
+     * castling rights and, when the side to move has a pawn able to take
+     * it, the file of a pawn that just advanced two squares.
+     *
+     * @return The key
+     */
+    public long getHashKey() {
+        long key = board.getPieceKey();
+
+        int castlingRights = board.getCastlingRights();
+        for(int right = Zobrist.WHITE_KINGSIDE; right <= Zobrist.BLACK_QUEENSIDE; right++) {
+            if((castlingRights & (1 << right)) != 0) {
+                key ^= Zobrist.getCastlingKey(right);
+            }
+        }
+
+        int enPassantFile = getEnPassantFile();
+        if(enPassantFile >= 0) {
+            key ^= Zobrist.getEnPassantKey(enPassantFile);
+        }
+
+        if(sideToMove == Piece.WHITE) {
+            key ^= Zobrist.getTurnKey();
+        }
+
+        return key;
+    }
+
+    /**
+     * Determines whether the side to move may capture en passant.
+     *
+     * @return The file of the pawn that may be captured, or -1
+     */
+    public int getEnPassantFile() {
+        Move previousMove = getPreviousMove();
+
+        if(previousMove == null) {
+            return -1;
+        }
+
+        Position end = previousMove.getEndPosition();
+
+        if(previousMove.getType() != PieceType.pawn
+                || Math.abs(previousMove.getStartPosition().getY() - end.getY()) != 2) {
+            return -1;
+        }
+
+        // a pawn of the side to move must stand beside the advanced pawn
+        int pawn = PieceCode.encode(PieceType.pawn, sideToMove);
+        for(int x = end.getX() - 1; x <= end.getX() + 1; x += 2) {
+            if(x >= 0 && x < Board.BOARD_SIZE_X && board.getPieceCode(end.getY() * Board.BOARD_SIZE_X + x) == pawn) {
+                return end.getX();
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Provides the position after the most recent move.  This may be called
+     * from any thread, and never blocks.
+     *
+     * @return an immutable snapshot of the board
+     */
+    public BoardSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Provides the color whose turn it is.  Turns are not enforced by the
+     * board, this is the color opposite to the last piece moved.
+     *
+     * @return the color to move
+     */
+    public boolean getSideToMove() {
+        return sideToMove;
+    }
+
+    /**
+     * @return the outcome of the game
+     */
+    public GameResult getResult() {
+        return result;
+    }
+
+    /**
+     * Registers a listener to be notified of moves made in this game.
+     *
+     * @param listener The listener to add
+     */
+    public void addChangeListener(BoardChangeListener listener) {
+        board.addChangeListener(listener);
+    }
+
+    /**
+     * @param listener The listener to remove
+     */
+    public void removeChangeListener(BoardChangeListener listener) {
+        board.removeChangeListener(listener);
+    }
+
     /**
      * Forces the given move.  This should only be used when testing to see
      * if the given move produces an invalid game state.
@@ -68,6 +436,35 @@ public class Game {
      */
     protected void forceMove(Position startPosition, Position endPosition) {
         board.forceMove(startPosition, endPosition);
+        snapshot = board.createSnapshot();
     }
 
+    /**
+     * Keeps the move list and result up to date with the board.
+     */
+    private class MoveRecorder extends BoardChangeAdapter {
+        @Override
+        public void pieceCaptured(PieceCapturedEvent event) {
+            // published before the capturing move
+            captured = true;
+        }
+
+        @Override
+        public void pieceMoved(PieceMovedEvent event) {
+            moveList.add(new Move(event.getColor(), event.getType(),
+                    event.getStartPosition(), event.getEndPosition()));
+            sideToMove = !event.getColor();
+            nullMove = false;
+            halfmoveClock = captured || event.getType() == PieceType.pawn ? 0 : halfmoveClock + 1;
+            captured = false;
+
+            // the board is fully updated before any change is published
+            snapshot = board.createSnapshot();
+        }
+
+        @Override
+        public void gameOver(GameOverEvent event) {
+            result = event.getResult();
+        }
+    }
 }
@@ -3,10 +3,13 @@ package chess.game;
 import chess.pieces.Piece;
 import chess.pieces.PieceType;
 import chess.game.board.Board;
+import chess.game.board.BoardSnapshot;
 import chess.game.board.Position;
+import chess.game.events.BoardChangeListener;
 import chess.pieces.ImmutablePiece;
+import chess.pieces.PieceCode;
 
-import java.util.List;
+import java.util.function.Supplier;
 
 /**
  * Wrapper for the Game object to be provided to pieces so that they can access info about the game
@@ -43,13 +46,14 @@ public class GameInfoWrapper {
      * @return most recent move
      */
     public Move getPreviousMove() {
-        List<Move> moveList = game.getMoveList();
-
-        if(moveList.size() > 0) {
-            return moveList.get(moveList.size() - 1);
-        }
+        return game.getPreviousMove();
+    }
 
-        return null;
+    /**
+     * @return the number of moves made in the game so far
+     */
+    public int getMoveCount() {
+        return game.getMoveList().size();
     }
 
     /**
@@ -77,8 +81,8 @@ public class GameInfoWrapper {
     public boolean validateRookForCastle(Position position) {
         Piece rook = game.getBoard().getPieceAt(position);
 
-        // verrify the peice is a rook, and that it has not moved
-        return (rook.getType() == PieceType.rook) && !rook.isMoved();
+        // verrify there is a peice, that it is a rook, and that it has not moved
+        return rook != null && (rook.getType() == PieceType.rook) && !rook.isMoved();
     }
 
     /**
@@ -93,9 +97,9 @@ public class GameInfoWrapper {
      *         there is no piece there.
      */
     public boolean isCapturable(boolean color, Position position) {
-        Piece piece = game.getBoard().getPieceAt(position);
+        int code = game.getBoard().getPieceCode(position.getIndex());
 
-        return piece == null || piece.getColor() != color;
+        return PieceCode.isEmpty(code) || PieceCode.getColor(code) != color;
     }
 
     /**
@@ -147,4 +151,87 @@ public class GameInfoWrapper {
         
         return new ImmutablePiece(pieceAtPosition);
     }
+
+    /**
+     * Provides the code of the piece at the given position without
+     * allocating.  Decode the result with PieceCode.
+     *
+     * @param index The index of the square, see Position.getIndex()
+     *
+     * @return The piece code, or PieceCode.EMPTY if there is no piece.
+     */
+    public int getPieceCode(int index) {
+        return game.getBoard().getPieceCode(index);
+    }
+
+    /**
+     * Provides the code of the piece at the given position without
+     * allocating.  Decode the result with PieceCode.
+     *
+     * @param x The x position of the square
+     * @param y The y position of the square
+     *
+     * @return The piece code, or PieceCode.EMPTY if there is no piece.
+     */
+    public int getPieceCode(int x, int y) {
+        return game.getBoard().getPieceCode(y * Board.BOARD_SIZE_X + x);
+    }
+
+    /**
+     * Provides a mask of the squares occupied by a color.  Bit n is set
+     * if the square with index n holds a piece of the color.
+     *
+     * @param color The color to check
+     *
+     * @return The occupancy mask
+     */
+    public long getOccupancy(boolean color) {
+        return game.getBoard().getOccupancy(color);
+    }
+
+    /**
+     * @return A mask of the squares occupied by either color
+     */
+    public long getOccupancy() {
+        return game.getBoard().getOccupancy(Piece.WHITE) | game.getBoard().getOccupancy(Piece.BLACK);
+    }
+
+    /**
+     * Provides the position after the most recent move.  Unlike the other
+     * queries, this may be called from any thread.
+     *
+     * @return an immutable snapshot of the board
+     */
+    public BoardSnapshot getSnapshot() {
+        return game.getSnapshot();
+    }
+
+    /**
+     * Applies a change to the board while holding the game's move lock, so
+     * that moves are made one at a time however they reach the board.
+     *
+     * @param change The change
+     *
+     * @return The change's result
+     */
+    public <T> T whileMoving(Supplier<T> change) {
+        return game.whileMoving(change);
+    }
+
+    /**
+     * Registers a listener to be notified of changes to the game board, so
+     * that renderers can update only the affected squares.
+     *
+     * @param listener The listener to add
+     */
+    public void addChangeListener(BoardChangeListener listener) {
+        game.addChangeListener(listener);
+    }
+
+    /**
+     * @param listener The listener to remove
+     */
+    public void removeChangeListener(BoardChangeListener listener) {
+        game.removeChangeListener(listener);
+    }
 }
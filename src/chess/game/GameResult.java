@@ -0,0 +1,13 @@
+package chess.game;
+
+/**
+ * Enum representing the state of a game's outcome.
+ *
+ * @author CarrollFD
+ */
+public enum GameResult {
+    inProgress,
+    whiteWins,
+    blackWins,
+    stalemate
+}
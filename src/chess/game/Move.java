@@ -28,6 +28,11 @@ public class Move {
         this.endPosition = endPosition;
     }
 
+    public Move(boolean moveColor, PieceType type, Position startPosition, Position endPosition) {
+        this(type, startPosition, endPosition);
+        this.moveColor = moveColor;
+    }
+
     public Move(PieceType type, Position startPosition, Position endPosition, PieceType typeTwo, Position startPositionTwo, Position endPositionTwo) {
         this.type = type;
         this.startPosition = startPosition;
@@ -49,8 +54,15 @@ public class Move {
         startPosition = new Position(toCopy.startPosition);
         endPosition = new Position(toCopy.endPosition);
         typeTwo = toCopy.typeTwo;
-        startPositionTwo = new Position(toCopy.startPositionTwo);
-        endPositionTwo = new Position(toCopy.endPositionTwo);
+
+        // the second piece is only present for some moves
+        if(toCopy.startPositionTwo != null) {
+            startPositionTwo = new Position(toCopy.startPositionTwo);
+        }
+
+        if(toCopy.endPositionTwo != null) {
+            endPositionTwo = new Position(toCopy.endPositionTwo);
+        }
     }
 
     /**
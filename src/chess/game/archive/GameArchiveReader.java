@@ -0,0 +1,193 @@
+package chess.game.archive;
+
+import chess.game.Game;
+import chess.game.GameResult;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Streams the games of an archive file, written by GameArchiveWriter,
+ * through a memory mapping.  Each game is replayed through Board as it is
+ * read.
+ *
+ * The file starts with a 32 byte header: a magic number, the format
+ * version, the number of games and the offset where the last game ends.
+ * The games follow one after another, each a 4 byte header, the number of
+ * moves as 16 bits, the GameResult ordinal and a reserved byte, then one
+ * byte for each move as encoded by MoveCodec.  All values are big endian.
+ *
+ * The games present when the reader is opened are read; games appended
+ * later are not.  Game ids are positions in the file, starting at 0.
+ *
+ * @author CarrollFD
+ */
+public class GameArchiveReader implements Closeable, Iterator<Game> {
+    // identifies archive files, "CHGA"
+    static final int MAGIC = 0x43484741;
+    static final int VERSION = 1;
+
+    // the layout of the file header
+    static final int HEADER_SIZE = 32;
+    static final int MAGIC_OFFSET = 0;
+    static final int VERSION_OFFSET = 4;
+    static final int COUNT_OFFSET = 8;
+    static final int END_OFFSET = 16;
+
+    // the size of the header of each game
+    static final int GAME_HEADER_SIZE = 4;
+
+    // the most moves a game may have
+    static final int MAX_PLIES = 0xFFFF;
+
+    // the bytes mapped at a time
+    private static final int WINDOW_SIZE = 1 << 26;
+
+    private static final GameResult[] RESULTS = GameResult.values();
+
+    private final FileChannel channel;
+    private final int gameCount;
+    private final long end;
+    private MappedByteBuffer window;
+    private long windowStart;
+    private long offset = HEADER_SIZE;
+    private int gameId = -1;
+    private GameResult result;
+
+    /**
+     * Opens an archive.
+     *
+     * @param path The archive file
+     */
+    public GameArchiveReader(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+
+        try {
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            header.order(ByteOrder.BIG_ENDIAN);
+
+            if(header.getInt(MAGIC_OFFSET) != MAGIC || header.getInt(VERSION_OFFSET) != VERSION) {
+                throw new IOException("Not a game archive: " + path);
+            }
+
+            gameCount = header.getInt(COUNT_OFFSET);
+            end = header.getLong(END_OFFSET);
+
+            if(end < HEADER_SIZE || end > channel.size()) {
+                throw new IOException("Game archive is damaged: " + path);
+            }
+
+            map(HEADER_SIZE);
+        } catch(IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return The number of games in the archive
+     */
+    public int getGameCount() {
+        return gameCount;
+    }
+
+    /**
+     * @return The id of the game last read, -1 before the first
+     */
+    public int getGameId() {
+        return gameId;
+    }
+
+    /**
+     * @return The result recorded for the game last read
+     */
+    public GameResult getResult() {
+        return result;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return offset < end;
+    }
+
+    /**
+     * Reads the next game.
+     *
+     * @return The game, replayed through Board
+     *
+     * @throws IllegalStateException If the game's moves are not valid
+     */
+    @Override
+    public Game next() {
+        int count = readHeader();
+        int moves = (int)(offset + GAME_HEADER_SIZE - windowStart);
+
+        try {
+            Game game = MoveCodec.decode(window, moves, count);
+            offset += GAME_HEADER_SIZE + count;
+            return game;
+        } catch(IllegalArgumentException e) {
+            throw new IllegalStateException("Game " + gameId + " of the archive is damaged.", e);
+        }
+    }
+
+    /**
+     * Skips the next game without replaying it.
+     */
+    public void skip() {
+        offset += GAME_HEADER_SIZE + readHeader();
+    }
+
+    /**
+     * Reads the header of the next game, mapping the game in full.
+     *
+     * @return The number of moves of the game
+     */
+    private int readHeader() {
+        if(!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        try {
+            if(offset + GAME_HEADER_SIZE > windowStart + window.capacity()) {
+                map(offset);
+            }
+
+            int count = window.getShort((int)(offset - windowStart)) & 0xFFFF;
+
+            if(offset + GAME_HEADER_SIZE + count > windowStart + window.capacity()) {
+                map(offset);
+            }
+
+            int ordinal = window.get((int)(offset - windowStart) + 2);
+
+            if(ordinal < 0 || ordinal >= RESULTS.length) {
+                throw new IllegalStateException("Game " + (gameId + 1) + " of the archive is damaged.");
+            }
+
+            gameId++;
+            result = RESULTS[ordinal];
+            return count;
+        } catch(IOException e) {
+            throw new IllegalStateException("Unable to read the archive.", e);
+        }
+    }
+
+    private void map(long start) throws IOException {
+        window = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(WINDOW_SIZE, end - start));
+        window.order(ByteOrder.BIG_ENDIAN);
+        windowStart = start;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
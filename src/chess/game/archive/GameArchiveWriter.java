@@ -0,0 +1,175 @@
+package chess.game.archive;
+
+import chess.game.Game;
+import chess.game.GameResult;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Appends games to an archive file, read by GameArchiveReader, through a
+ * memory mapping of the end of the file.  The file is mapped a region at a
+ * time, ahead of the games written.
+ *
+ * The file header records the number of games and where the last one
+ * ends, and is only updated once a game is written in full, so a reader,
+ * or a writer reopening the file after a crash, never sees part of a game.
+ * flush() forces both to storage.
+ *
+ * This class is thread safe.
+ *
+ * @author CarrollFD
+ */
+public class GameArchiveWriter implements Closeable {
+    // the bytes mapped ahead of the games written
+    private static final int REGION_SIZE = 1 << 24;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer header;
+    private MappedByteBuffer region;
+    private long regionStart;
+    private long end;
+    private int gameCount;
+
+    /**
+     * Opens an archive for appending, creating it if needed.
+     *
+     * @param path The archive file
+     */
+    public GameArchiveWriter(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+
+        try {
+            boolean created = channel.size() == 0;
+
+            header = channel.map(FileChannel.MapMode.READ_WRITE, 0, GameArchiveReader.HEADER_SIZE);
+            header.order(ByteOrder.BIG_ENDIAN);
+
+            if(created) {
+                header.putInt(GameArchiveReader.MAGIC_OFFSET, GameArchiveReader.MAGIC);
+                header.putInt(GameArchiveReader.VERSION_OFFSET, GameArchiveReader.VERSION);
+                header.putInt(GameArchiveReader.COUNT_OFFSET, 0);
+                header.putLong(GameArchiveReader.END_OFFSET, GameArchiveReader.HEADER_SIZE);
+            } else if(header.getInt(GameArchiveReader.MAGIC_OFFSET) != GameArchiveReader.MAGIC
+                    || header.getInt(GameArchiveReader.VERSION_OFFSET) != GameArchiveReader.VERSION) {
+                throw new IOException("Not a game archive: " + path);
+            }
+
+            gameCount = header.getInt(GameArchiveReader.COUNT_OFFSET);
+            end = header.getLong(GameArchiveReader.END_OFFSET);
+            map(end, REGION_SIZE);
+        } catch(IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return The number of games in the archive
+     */
+    public synchronized int getGameCount() {
+        return gameCount;
+    }
+
+    /**
+     * Appends a game with the result shown on its board.
+     *
+     * @param game The game
+     *
+     * @return The id of the game, its position in the archive
+     */
+    public int append(Game game) {
+        return append(game, game.getResult());
+    }
+
+    /**
+     * Appends a game.
+     *
+     * @param game The game
+     * @param result The result to record, such as one agreed without
+     *               reaching the end of the game
+     *
+     * @return The id of the game, its position in the archive
+     *
+     * @throws IllegalArgumentException If the game is too long, or was set
+     *         up from a position
+     */
+    public int append(Game game, GameResult result) {
+        if(game.isSetUp()) {
+            throw new IllegalArgumentException("Game was set up from a position.");
+        } else if(game.getMoveList().size() > GameArchiveReader.MAX_PLIES) {
+            throw new IllegalArgumentException("Game too long: " + game.getMoveList().size() + " plies");
+        }
+
+        // encode outside the lock, so several threads can append at once
+        byte[] moves = MoveCodec.encode(game.getMoveList());
+        int size = GameArchiveReader.GAME_HEADER_SIZE + moves.length;
+
+        synchronized(this) {
+            try {
+                if(end + size > regionStart + region.capacity()) {
+                    map(end, Math.max(REGION_SIZE, size));
+                }
+            } catch(IOException e) {
+                throw new IllegalStateException("Unable to extend the archive.", e);
+            }
+
+            int offset = (int)(end - regionStart);
+
+            region.putShort(offset, (short)moves.length);
+            region.put(offset + 2, (byte)result.ordinal());
+            region.put(offset + 3, (byte)0);
+
+            for(int i = 0; i < moves.length; i++) {
+                region.put(offset + GameArchiveReader.GAME_HEADER_SIZE + i, moves[i]);
+            }
+
+            // the header is updated last, publishing the game
+            end += size;
+            header.putLong(GameArchiveReader.END_OFFSET, end);
+            header.putInt(GameArchiveReader.COUNT_OFFSET, gameCount + 1);
+
+            return gameCount++;
+        }
+    }
+
+    /**
+     * Forces the games appended so far to storage.
+     */
+    public synchronized void flush() {
+        region.force();
+        header.force();
+    }
+
+    /**
+     * Maps a region of the file, growing the file as needed.
+     */
+    private void map(long start, int size) throws IOException {
+        if(region != null) {
+            region.force();
+        }
+
+        region = channel.map(FileChannel.MapMode.READ_WRITE, start, size);
+        region.order(ByteOrder.BIG_ENDIAN);
+        regionStart = start;
+    }
+
+    /**
+     * Flushes, then trims the space mapped ahead from the file.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            flush();
+            channel.truncate(end);
+        } finally {
+            channel.close();
+        }
+    }
+}
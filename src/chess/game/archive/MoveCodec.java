@@ -0,0 +1,142 @@
+package chess.game.archive;
+
+import chess.game.Game;
+import chess.game.Move;
+import chess.game.board.Position;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * Encodes moves as their index in the list of moves of the position they
+ * are played from, so a move fits in one byte.  The list is the candidate
+ * moves of Board.getCandidateMoves(...), ordered by the index of their
+ * starting square, then of their ending square, which depends only on the
+ * position.  Candidates are used rather than legal moves as they are much
+ * cheaper to list, and fewer than 256 without promotion.
+ *
+ * Decoding replays the moves through Game.requestMove(...), so a decoded
+ * game is built and checked exactly like a game played move by move.
+ *
+ * @author CarrollFD
+ */
+public final class MoveCodec {
+    // the most moves a position may have for its index to fit a byte
+    public static final int MAX_MOVES = 256;
+
+    private MoveCodec() {
+    }
+
+    /**
+     * @param game The game
+     * @return The candidate moves of the side to move, in index order
+     */
+    public static List<Move> getMoves(Game game) {
+        List<Move> moves = game.getBoard().getCandidateMoves(game.getSideToMove());
+
+        moves.sort((a, b) -> Integer.compare(getKey(a), getKey(b)));
+
+        return moves;
+    }
+
+    private static int getKey(Move move) {
+        return move.getStartPosition().getIndex() << 6 | move.getEndPosition().getIndex();
+    }
+
+    /**
+     * Provides the index of a move.
+     *
+     * @param game The game, the move is played from its current position
+     * @param start The starting square of the move
+     * @param end The ending square of the move
+     *
+     * @return The index, or -1 if the move is not a candidate
+     */
+    public static int encode(Game game, Position start, Position end) {
+        List<Move> moves = getMoves(game);
+        int key = start.getIndex() << 6 | end.getIndex();
+
+        for(int i = 0; i < moves.size(); i++) {
+            if(getKey(moves.get(i)) == key) {
+                if(i >= MAX_MOVES) {
+                    throw new IllegalStateException("Too many moves to encode: " + moves.size());
+                }
+
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Encodes the moves of a game, replaying them from the starting
+     * position.
+     *
+     * @param moves The moves
+     *
+     * @return One byte for each move
+     *
+     * @throws IllegalArgumentException If a move is not legal
+     */
+    public static byte[] encode(List<Move> moves) {
+        byte[] encoded = new byte[moves.size()];
+        Game game = new Game();
+
+        for(int ply = 0; ply < moves.size(); ply++) {
+            Move move = moves.get(ply);
+            int index = encode(game, move.getStartPosition(), move.getEndPosition());
+
+            if(index < 0 || !game.requestMove(move.getStartPosition(), move.getEndPosition())) {
+                throw new IllegalArgumentException("Move " + (ply + 1) + " is not legal.");
+            }
+
+            encoded[ply] = (byte)index;
+        }
+
+        return encoded;
+    }
+
+    /**
+     * Plays the move with an index.
+     *
+     * @param game The game
+     * @param index The index of the move
+     *
+     * @throws IllegalArgumentException If there is no such move
+     */
+    public static void play(Game game, int index) {
+        List<Move> moves = getMoves(game);
+
+        if(index >= moves.size()) {
+            throw new IllegalArgumentException("No move " + index + " of " + moves.size() + ".");
+        }
+
+        Move move = moves.get(index);
+
+        if(!game.requestMove(move.getStartPosition(), move.getEndPosition())) {
+            throw new IllegalArgumentException("Move refused: " + game.getBoard().getMoveError());
+        }
+    }
+
+    /**
+     * Replays encoded moves from the starting position.
+     *
+     * @param buffer The buffer holding the moves
+     * @param offset The position of the first move in the buffer
+     * @param count The number of moves
+     *
+     * @return The game
+     *
+     * @throws IllegalArgumentException If the moves are not valid
+     */
+    public static Game decode(ByteBuffer buffer, int offset, int count) {
+        Game game = new Game();
+
+        for(int ply = 0; ply < count; ply++) {
+            play(game, buffer.get(offset + ply) & 0xFF);
+        }
+
+        return game;
+    }
+}
@@ -0,0 +1,240 @@
+package chess.game.archive;
+
+import chess.game.Game;
+import chess.game.board.Board;
+import chess.pieces.Piece;
+import chess.pieces.PieceCode;
+import chess.pieces.PieceType;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Packs a position into a fixed record of RECORD_SIZE bytes, so positions
+ * can be stored back to back and reached by index.  A record holds:
+ *
+ *   0  the occupancy, bit n set if the square with index n holds a piece
+ *   8  the code of each piece in order of its square, four bits each, high
+ *      bits first, 32 pieces at most
+ *  24  the side to move in the top bit, the castling rights in the low four
+ *  25  the file of a pawn that may be taken en passant, or 0xFF
+ *  26  the halfmove clock, at most 255
+ *  27  the fullmove number, two bytes
+ *  29  zero
+ *
+ * Multi-byte fields are read and written in the buffer's byte order, which
+ * should be left as the big endian default.
+ *
+ * Encoding and the field accessors use absolute positions and do not
+ * allocate, so a buffer or a mapped file of records may be filled or
+ * scanned in bulk.  Decoding into a Game sets up its Board directly with
+ * Game.setPosition(...).
+ *
+ * @author CarrollFD
+ */
+public final class PositionCodec {
+    public static final int RECORD_SIZE = 32;
+
+    // the most pieces a record holds
+    public static final int MAX_PIECES = 32;
+
+    // field offsets
+    private static final int OCCUPANCY = 0;
+    private static final int PIECES = 8;
+    private static final int FLAGS = 24;
+    private static final int EN_PASSANT = 25;
+    private static final int HALFMOVE_CLOCK = 26;
+    private static final int FULLMOVE_NUMBER = 27;
+    private static final int RESERVED = 29;
+
+    private static final int WHITE_TO_MOVE = 0x80;
+    private static final int CASTLING_MASK = 0x0F;
+    private static final int NO_EN_PASSANT = 0xFF;
+
+    // the bits of a piece code holding its type
+    private static final int TYPE_MASK = 7;
+
+    private PositionCodec() {
+    }
+
+    /**
+     * Writes the current position of a game at the buffer's position, and
+     * advances it by RECORD_SIZE.
+     *
+     * @param game The game
+     * @param buffer The buffer
+     */
+    public static void encode(Game game, ByteBuffer buffer) {
+        encode(game, buffer, buffer.position());
+        buffer.position(buffer.position() + RECORD_SIZE);
+    }
+
+    /**
+     * Writes the current position of a game.
+     *
+     * @param game The game
+     * @param buffer The buffer
+     * @param offset The position of the record in the buffer
+     *
+     * @throws IllegalArgumentException If the board has more than
+     *         MAX_PIECES pieces
+     */
+    public static void encode(Game game, ByteBuffer buffer, int offset) {
+        Board board = game.getBoard();
+        long occupancy = board.getOccupancy(Piece.WHITE) | board.getOccupancy(Piece.BLACK);
+
+        if(Long.bitCount(occupancy) > MAX_PIECES) {
+            throw new IllegalArgumentException("Too many pieces to encode: " + Long.bitCount(occupancy));
+        }
+
+        buffer.putLong(offset + OCCUPANCY, occupancy);
+
+        // pack two codes a byte, a missing last code is left as zero
+        int nibble = 0;
+        int packed = 0;
+        for(long squares = occupancy; squares != 0; squares &= squares - 1) {
+            packed = packed << 4 | board.getPieceCode(Long.numberOfTrailingZeros(squares));
+
+            if((++nibble & 1) == 0) {
+                buffer.put(offset + PIECES + nibble / 2 - 1, (byte)packed);
+                packed = 0;
+            }
+        }
+        if((nibble & 1) != 0) {
+            buffer.put(offset + PIECES + nibble / 2, (byte)(packed << 4));
+            nibble++;
+        }
+        for(int i = PIECES + nibble / 2; i < FLAGS; i++) {
+            buffer.put(offset + i, (byte)0);
+        }
+
+        int enPassantFile = game.getEnPassantFile();
+
+        buffer.put(offset + FLAGS, (byte)((game.getSideToMove() == Piece.WHITE ? WHITE_TO_MOVE : 0)
+                | board.getCastlingRights() & CASTLING_MASK));
+        buffer.put(offset + EN_PASSANT, (byte)(enPassantFile < 0 ? NO_EN_PASSANT : enPassantFile));
+        buffer.put(offset + HALFMOVE_CLOCK, (byte)Math.min(game.getHalfmoveClock(), 0xFF));
+        buffer.putShort(offset + FULLMOVE_NUMBER, (short)Math.min(game.getFullmoveNumber(), 0xFFFF));
+
+        for(int i = RESERVED; i < RECORD_SIZE; i++) {
+            buffer.put(offset + i, (byte)0);
+        }
+    }
+
+    /**
+     * Sets up a game with the position of a record, see
+     * Game.setPosition(...).
+     *
+     * @param buffer The buffer
+     * @param offset The position of the record in the buffer
+     * @param game The game to set up
+     *
+     * @throws IllegalArgumentException If the record is not a valid position
+     */
+    public static void decode(ByteBuffer buffer, int offset, Game game) {
+        int[] codes = new int[Board.BOARD_SIZE_X * Board.BOARD_SIZE_Y];
+
+        decodePieces(buffer, offset, codes);
+        game.setPosition(codes, isWhiteToMove(buffer, offset), getCastlingRights(buffer, offset),
+                getEnPassantFile(buffer, offset), getHalfmoveClock(buffer, offset),
+                getFullmoveNumber(buffer, offset));
+    }
+
+    /**
+     * Reads the position of a record into a new game.
+     *
+     * @param buffer The buffer
+     * @param offset The position of the record in the buffer
+     *
+     * @return The game
+     *
+     * @throws IllegalArgumentException If the record is not a valid position
+     */
+    public static Game decode(ByteBuffer buffer, int offset) {
+        Game game = new Game();
+        decode(buffer, offset, game);
+
+        return game;
+    }
+
+    /**
+     * Reads the pieces of a record without allocating.
+     *
+     * @param buffer The buffer
+     * @param offset The position of the record in the buffer
+     * @param codes Receives the code of the piece on each square, indexed
+     *              by Position.getIndex(), PieceCode.EMPTY if there is none
+     *
+     * @throws IllegalArgumentException If the record has an invalid piece
+     *         code or too many pieces
+     */
+    public static void decodePieces(ByteBuffer buffer, int offset, int[] codes) {
+        long occupancy = buffer.getLong(offset + OCCUPANCY);
+
+        if(Long.bitCount(occupancy) > MAX_PIECES) {
+            throw new IllegalArgumentException("Too many pieces in record: " + Long.bitCount(occupancy));
+        }
+
+        for(int i = 0; i < codes.length; i++) {
+            codes[i] = PieceCode.EMPTY;
+        }
+
+        int nibble = 0;
+        for(long squares = occupancy; squares != 0; squares &= squares - 1, nibble++) {
+            int packed = buffer.get(offset + PIECES + nibble / 2);
+            int code = (nibble & 1) == 0 ? packed >> 4 & 0x0F : packed & 0x0F;
+
+            if(!isValid(code)) {
+                throw new IllegalArgumentException("Invalid piece code in record: " + code);
+            }
+
+            codes[Long.numberOfTrailingZeros(squares)] = code;
+        }
+    }
+
+    private static boolean isValid(int code) {
+        // the low three bits hold the type, from king, 1, to pawn, 6
+        int type = code & TYPE_MASK;
+
+        return type >= PieceCode.encode(PieceType.king, Piece.WHITE)
+                && type <= PieceCode.encode(PieceType.pawn, Piece.WHITE);
+    }
+
+    /**
+     * @return TRUE if white is to move in the record at the offset
+     */
+    public static boolean isWhiteToMove(ByteBuffer buffer, int offset) {
+        return (buffer.get(offset + FLAGS) & WHITE_TO_MOVE) != 0;
+    }
+
+    /**
+     * @return The castling rights of the record at the offset, as by
+     *         Board.getCastlingRights()
+     */
+    public static int getCastlingRights(ByteBuffer buffer, int offset) {
+        return buffer.get(offset + FLAGS) & CASTLING_MASK;
+    }
+
+    /**
+     * @return The file of the pawn that may be taken en passant in the
+     *         record at the offset, or -1
+     */
+    public static int getEnPassantFile(ByteBuffer buffer, int offset) {
+        int file = buffer.get(offset + EN_PASSANT) & 0xFF;
+
+        return file == NO_EN_PASSANT ? -1 : file;
+    }
+
+    /**
+     * @return The halfmove clock of the record at the offset
+     */
+    public static int getHalfmoveClock(ByteBuffer buffer, int offset) {
+        return buffer.get(offset + HALFMOVE_CLOCK) & 0xFF;
+    }
+
+    /**
+     * @return The fullmove number of the record at the offset
+     */
+    public static int getFullmoveNumber(ByteBuffer buffer, int offset) {
+        return buffer.getShort(offset + FULLMOVE_NUMBER) & 0xFFFF;
+    }
+}
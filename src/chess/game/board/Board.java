@@ -2,11 +2,23 @@ package chess.game.board;
 
 import chess.game.Game;
 import chess.game.GameInfoWrapper;
+import chess.game.GameResult;
+import chess.game.Move;
 import chess.game.StartingPositions;
+import chess.game.evaluation.EvaluationParameters;
+import chess.game.evaluation.IncrementalEvaluation;
+import chess.game.evaluation.StaticExchange;
+import chess.game.events.BoardChangeEvent;
+import chess.game.events.BoardChangeListener;
+import chess.game.events.CheckStateChangedEvent;
+import chess.game.events.GameOverEvent;
+import chess.game.events.PieceCapturedEvent;
+import chess.game.events.PieceMovedEvent;
 import chess.pieces.*;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Represents the game board.
@@ -21,6 +33,21 @@ public class Board {
     // The 2D array representing the board's squares
     private List<List<Square>> boardGrid = new ArrayList<>();
 
+    // the code of the piece on each square, indexed by Position.getIndex(),
+    // kept in step with boardGrid for allocation free queries
+    private byte[] pieceCodes = new byte[BOARD_SIZE_X * BOARD_SIZE_Y];
+
+    // bit masks of the squares occupied by each color, indexed by
+    // Position.getIndex()
+    private long whiteOccupancy = 0;
+    private long blackOccupancy = 0;
+
+    // the exclusive or of the Zobrist keys of every piece on its square
+    private long pieceKey = 0;
+
+    // the static evaluation, kept in step with boardGrid
+    private IncrementalEvaluation evaluation = new IncrementalEvaluation(EvaluationParameters.getDefault());
+
     // Game info wrapper
     private GameInfoWrapper gameInfo;
 
@@ -32,6 +59,9 @@ public class Board {
 
     private boolean protectedSquaresInitialized = false;
 
+    // listeners notified of changes made by requestMove(...)
+    private final List<BoardChangeListener> changeListeners = new CopyOnWriteArrayList<>();
+
     /**
      * Constructs and initializes the board.
      *
@@ -59,6 +89,9 @@ public class Board {
      *                still point at the original game parent.
      */
     public Board(Board toCopy, GameInfoWrapper wrapper) {
+        // set the wrapper
+        this.gameInfo = wrapper;
+
         // copy primitive members
         this.colorInCheck = toCopy.colorInCheck;
         this.moveError = toCopy.moveError;
@@ -81,6 +114,13 @@ public class Board {
             }
         }
 
+        // copy the piece codes and occupancy
+        pieceCodes = toCopy.pieceCodes.clone();
+        whiteOccupancy = toCopy.whiteOccupancy;
+        blackOccupancy = toCopy.blackOccupancy;
+        pieceKey = toCopy.pieceKey;
+        evaluation = new IncrementalEvaluation(toCopy.evaluation);
+
         // we would like to invoke determineProtectedSquares() here, but
         // if this is part of the initilization of the game referenced in
         // the gameInfoWrapper, we will create a loop that can not
@@ -89,7 +129,8 @@ public class Board {
     }
 
     /**
-     * Validates a move, and performs it if its OK.
+     * Validates a move, and performs it if its OK.  Holds the game's move
+     * lock like Game.requestMove(...), which should be preferred.
      *
      * @param piecePosition Starting position
      * @param targetPosition Ending position
@@ -97,22 +138,403 @@ public class Board {
      * @return TRUE if the move was performed, FALSE if there were any problems
      */
     public boolean requestMove(Position piecePosition, Position targetPosition) {
+        return gameInfo.whileMoving(() -> applyMove(piecePosition, targetPosition));
+    }
+
+    // guarded by the game's move lock
+    private boolean applyMove(Position piecePosition, Position targetPosition) {
+        // validate the move, recording the reason if it is rejected
+        String error = checkMove(piecePosition, targetPosition);
+
+        if(error != null) {
+            moveError = error;
+            return false;
+        }
+
+        moveError = "";
+
+        // we can now safely move the piece
+        Piece pieceToMove = getPieceAt(piecePosition);
+        ColorInCheck previousColorInCheck = colorInCheck;
+        int ply = gameInfo.getMoveCount();
+
+        Piece capturedPiece = movePiece(piecePosition, targetPosition);
+
+        // update the game state
+        determineProtectedSquares();
+        verifyCheck();
+
+        // publish the changes, capture first so that the destination square
+        // is cleared before the moving piece arrives
+        if(capturedPiece != null) {
+            fireChange(new PieceCapturedEvent(ply, capturedPiece.getType(),
+                    capturedPiece.getColor(), capturedPiece.getPosition()));
+        }
+
+        fireChange(new PieceMovedEvent(ply, pieceToMove.getType(), pieceToMove.getColor(),
+                piecePosition, targetPosition));
+
+        if(colorInCheck != previousColorInCheck) {
+            fireChange(new CheckStateChangedEvent(ply, previousColorInCheck, colorInCheck,
+                    getKingPositions(previousColorInCheck, colorInCheck)));
+        }
+
+        // the game is over if the opponent is left without a legal move
+        boolean opponent = !pieceToMove.getColor();
+        if(!hasLegalMove(opponent)) {
+            GameResult result;
+
+            if(colorInCheck.toBoolean() != null && colorInCheck.toBoolean() == opponent) {
+                result = opponent ? GameResult.blackWins : GameResult.whiteWins;
+            } else {
+                result = GameResult.stalemate;
+            }
+
+            fireChange(new GameOverEvent(ply, result));
+        }
+
+        return true;
+    }
+
+    /**
+     * Determines if a move would be accepted by requestMove(...), without
+     * performing it.
+     *
+     * @param piecePosition Starting position
+     * @param targetPosition Ending position
+     *
+     * @return TRUE if the move is legal
+     */
+    public boolean isLegalMove(Position piecePosition, Position targetPosition) {
+        return checkMove(piecePosition, targetPosition) == null;
+    }
+
+    /**
+     * Determines if the given color has any legal move.
+     *
+     * @param color The color to check
+     *
+     * @return TRUE if at least one legal move exists
+     */
+    public boolean hasLegalMove(boolean color) {
+        // make sure the protected squares have been initialized
+        initialize();
+
+        // candidates are made and unmade on one copy of the piece codes,
+        // rather than each on a copy of the game as isLegalMove(...) does
+        byte[] codes = pieceCodes.clone();
+        int king = findKing(color);
+
+        // loop through the board's rows and columns
+        for(int y = 0; y < Board.BOARD_SIZE_Y; y++) {
+            for(int x = 0; x < Board.BOARD_SIZE_X; x++) {
+                Piece piece = boardGrid.get(y).get(x).getPieceOnSquare();
+
+                // skip empty squares and the opponent's pieces
+                if(piece == null || piece.isCaptured() || piece.getColor() != color) {
+                    continue;
+                }
+
+                // stop at the first candidate that passes the piece's own
+                // validation and leaves the king safe
+                for(Position target : piece.getValidMoves()) {
+                    boolean legal = king < 0 ? isLegalMove(piece.getPosition(), target)
+                            : piece.validateMove(target)
+                            && isKingSafeAfter(codes, piece.getPosition().getIndex(), target.getIndex(), king, color);
+
+                    if(legal) {
+                        return true;
+                    }
+                }
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * @return The index of the square of a color's king, or -1 if it has
+     *         none
+     */
+    private int findKing(boolean color) {
+        int king = PieceCode.encode(PieceType.king, color);
+
+        for(int index = 0; index < pieceCodes.length; index++) {
+            if(pieceCodes[index] == king) {
+                return index;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Makes a move on a copy of the piece codes, checks whether the mover's
+     * king is attacked, and unmakes it.  Moves the same squares as
+     * movePiece(...), the rook stays put when castling.
+     *
+     * @param codes A copy of the piece codes, restored before returning
+     * @param from The index of the starting square
+     * @param to The index of the ending square
+     * @param king The index of the mover's king before the move
+     * @param color The color moving
+     *
+     * @return TRUE if the move does not leave the mover in check
+     */
+    private boolean isKingSafeAfter(byte[] codes, int from, int to, int king, boolean color) {
+        byte moving = codes[from];
+        byte captured = codes[to];
+
+        // a capture onto a piece of the mover's color or a king is refused
+        if(!PieceCode.isEmpty(captured)
+                && (PieceCode.getColor(captured) == color || PieceCode.getType(captured) == PieceType.king)) {
+            return false;
+        }
+
+        // the pawn taken en passant is beside the starting square
+        int passed = -1;
+        if(PieceCode.isEmpty(captured) && PieceCode.getType(moving) == PieceType.pawn
+                && from % BOARD_SIZE_X != to % BOARD_SIZE_X) {
+            int index = from - from % BOARD_SIZE_X + to % BOARD_SIZE_X;
+
+            if(codes[index] == PieceCode.encode(PieceType.pawn, !color)) {
+                passed = index;
+            }
+        }
+
+        long occupied = (whiteOccupancy | blackOccupancy) & ~(1L << from) | 1L << to;
+        codes[from] = PieceCode.EMPTY;
+        codes[to] = moving;
+
+        if(passed >= 0) {
+            occupied &= ~(1L << passed);
+            codes[passed] = PieceCode.EMPTY;
+        }
+
+        long attackers = StaticExchange.getAttackers(codes, occupied, from == king ? to : king);
+        boolean safe = true;
+
+        for(; attackers != 0; attackers &= attackers - 1) {
+            if(PieceCode.getColor(codes[Long.numberOfTrailingZeros(attackers)]) != color) {
+                safe = false;
+                break;
+            }
+        }
+
+        codes[from] = moving;
+        codes[to] = captured;
+
+        if(passed >= 0) {
+            codes[passed] = (byte)PieceCode.encode(PieceType.pawn, !color);
+        }
+
+        return safe;
+    }
+
+    /**
+     * Provides the moves for the given color that pass each piece's own
+     * validation.  These moves may still leave the mover in check, see
+     * isLegalMove(...) and Game.createSuccessor(...).  The order is the same
+     * as getLegalMoves(...).
+     *
+     * @param color The color to move
+     *
+     * @return The candidate moves
+     */
+    public List<Move> getCandidateMoves(boolean color) {
+        List<Move> candidateMoves = new ArrayList<>();
+
+        // loop through the board's rows and columns
+        for(int y = 0; y < Board.BOARD_SIZE_Y; y++) {
+            for(int x = 0; x < Board.BOARD_SIZE_X; x++) {
+                Piece piece = boardGrid.get(y).get(x).getPieceOnSquare();
+
+                // skip empty squares and the opponent's pieces
+                if(piece == null || piece.isCaptured() || piece.getColor() != color) {
+                    continue;
+                }
+
+                for(Position target : piece.getValidMoves()) {
+                    if(piece.validateMove(target)) {
+                        candidateMoves.add(new Move(color, piece.getType(), new Position(piece.getPosition()), target));
+                    }
+                }
+            }
+        }
+
+        return candidateMoves;
+    }
+
+    /**
+     * Provides the candidate moves for the given color that capture a
+     * piece, including en passant.  Only the pieces attacking each enemy
+     * piece are considered, so this is much cheaper than filtering
+     * getCandidateMoves(...).
+     *
+     * @param color The color to move
+     *
+     * @return The capturing candidate moves
+     */
+    public List<Move> getCaptureMoves(boolean color) {
+        List<Move> captureMoves = new ArrayList<>();
+        long occupied = whiteOccupancy | blackOccupancy;
+        long own = getOccupancy(color);
+
+        for(long targets = getOccupancy(!color); targets != 0; targets &= targets - 1) {
+            int target = Long.numberOfTrailingZeros(targets);
+            long attackers = StaticExchange.getAttackers(pieceCodes, occupied, target) & own;
+
+            for(; attackers != 0; attackers &= attackers - 1) {
+                addCandidateMove(captureMoves, color, Long.numberOfTrailingZeros(attackers), target);
+            }
+        }
+
+        // a pawn that just advanced two squares may be taken en passant by
+        // a pawn beside it
+        Move previousMove = gameInfo.getPreviousMove();
+        if(previousMove != null && previousMove.getType() == PieceType.pawn
+                && Math.abs(previousMove.getStartPosition().getY() - previousMove.getEndPosition().getY()) == 2) {
+            Position passed = previousMove.getEndPosition();
+            int target = (passed.getY() + previousMove.getStartPosition().getY()) / 2 * BOARD_SIZE_X + passed.getX();
+            int pawn = PieceCode.encode(PieceType.pawn, color);
+
+            for(int x = passed.getX() - 1; x <= passed.getX() + 1; x += 2) {
+                int from = passed.getY() * BOARD_SIZE_X + x;
+
+                if(x >= 0 && x < BOARD_SIZE_X && pieceCodes[from] == pawn) {
+                    addCandidateMove(captureMoves, color, from, target);
+                }
+            }
+        }
+
+        return captureMoves;
+    }
+
+    /**
+     * Provides the candidate moves for the given color that do not capture,
+     * the complement of getCaptureMoves(...).
+     *
+     * @param color The color to move
+     *
+     * @return The quiet candidate moves
+     */
+    public List<Move> getQuietMoves(boolean color) {
+        List<Move> quietMoves = new ArrayList<>();
+
+        for(long own = getOccupancy(color); own != 0; own &= own - 1) {
+            int index = Long.numberOfTrailingZeros(own);
+            Piece piece = boardGrid.get(index / BOARD_SIZE_X).get(index % BOARD_SIZE_X).getPieceOnSquare();
+
+            for(Position target : piece.getValidMoves()) {
+                // skip captures, and pawns moving diagonally which capture
+                // en passant
+                if(pieceCodes[target.getIndex()] != PieceCode.EMPTY
+                        || (piece.getType() == PieceType.pawn && target.getX() != piece.getPosition().getX())) {
+                    continue;
+                }
+
+                if(piece.validateMove(target)) {
+                    quietMoves.add(new Move(color, piece.getType(), new Position(piece.getPosition()), target));
+                }
+            }
+        }
+
+        return quietMoves;
+    }
+
+    /**
+     * Provides a candidate move between two squares, for checking moves
+     * remembered from other positions.
+     *
+     * @param color The color to move
+     * @param from The index of the start square
+     * @param to The index of the end square
+     *
+     * @return The move, or null if the color has no piece on the start
+     *         square able to move to the end square
+     */
+    public Move getCandidateMove(boolean color, int from, int to) {
+        List<Move> moves = new ArrayList<>(1);
+
+        addCandidateMove(moves, color, from, to);
+
+        return moves.isEmpty() ? null : moves.get(0);
+    }
+
+    /**
+     * Adds the move between two squares to a list if the piece on the start
+     * square belongs to the color and validates the move.
+     */
+    private void addCandidateMove(List<Move> moves, boolean color, int from, int to) {
+        int code = pieceCodes[from];
+
+        if(PieceCode.isEmpty(code) || PieceCode.getColor(code) != color) {
+            return;
+        }
+
+        Piece piece = boardGrid.get(from / BOARD_SIZE_X).get(from % BOARD_SIZE_X).getPieceOnSquare();
+        Position target = new Position(to % BOARD_SIZE_X, to / BOARD_SIZE_X);
+
+        if(piece.validateMove(target)) {
+            moves.add(new Move(color, piece.getType(), new Position(piece.getPosition()), target));
+        }
+    }
+
+    /**
+     * Provides every legal move for the given color.  Moves are listed in
+     * board order of the moving piece, then in the order the piece provides
+     * its valid moves, so the list is the same each time for a position.
+     *
+     * @param color The color to move
+     *
+     * @return The legal moves
+     */
+    public List<Move> getLegalMoves(boolean color) {
+        List<Move> legalMoves = new ArrayList<>();
+
+        // loop through the board's rows and columns
+        for(int y = 0; y < Board.BOARD_SIZE_Y; y++) {
+            for(int x = 0; x < Board.BOARD_SIZE_X; x++) {
+                Piece piece = boardGrid.get(y).get(x).getPieceOnSquare();
+
+                // skip empty squares and the opponent's pieces
+                if(piece == null || piece.isCaptured() || piece.getColor() != color) {
+                    continue;
+                }
+
+                for(Position target : piece.getValidMoves()) {
+                    if(isLegalMove(piece.getPosition(), target)) {
+                        legalMoves.add(new Move(color, piece.getType(), new Position(piece.getPosition()), target));
+                    }
+                }
+            }
+        }
+
+        return legalMoves;
+    }
+
+    /**
+     * Validates a move.
+     *
+     * @param piecePosition Starting position
+     * @param targetPosition Ending position
+     *
+     * @return The reason the move is invalid, or null if it is legal
+     */
+    private String checkMove(Position piecePosition, Position targetPosition) {
         // make sure the protected squares have been initialized
         initialize();
 
         Piece pieceToMove = getPieceAt(piecePosition);
-        moveError = "";
 
         // make sure there is a piece to move
         if(pieceToMove == null) {
-            moveError = "No piece at given position.";
-            return false;
+            return "No piece at given position.";
         }
 
         // make sure the move is valid
         if(!pieceToMove.validateMove(targetPosition)) {
-            moveError = "Invalid move.";
-            return false;
+            return "Invalid move.";
         }
 
         // create a test game to verify that it doesn't cause the moving color
@@ -123,38 +545,63 @@ public class Board {
         } catch(IllegalArgumentException | IllegalStateException e) {
             // if an exception is thrown when attempting to force the move
             // we know that an illegal game state has been created.
-            moveError = "Move results in invalid board state.";
-            return false;
+            return "Move results in invalid board state.";
         }
 
         // make sure the moving piece isn't placing its king in check.
         if(testGame.getBoard().getColorInCheck().toBoolean() != null &&
                 pieceToMove.getColor() == testGame.getBoard().getColorInCheck().toBoolean()) {
-            moveError = "Move places player in check";
-            return false;
+            return "Move places player in check";
         }
 
-        // we can now safely move the piece
-        // get the piece to capture, and capture it if there is one
-        Piece pieceToCapture = getPieceAt(targetPosition);
+        return null;
+    }
+
+    /**
+     * Moves a piece on the board grid, capturing any piece it lands on, or
+     * the pawn passed by an en passant.  No validation is performed.
+     *
+     * @param startPosition The starting position
+     * @param endPosition The ending position
+     *
+     * @return The captured piece, or null if there was no capture
+     */
+    private Piece movePiece(Position startPosition, Position endPosition) {
+        Piece pieceToMove = getPieceAt(startPosition);
+        Piece pieceToCapture = getPieceAt(endPosition);
+
+        // a pawn moving diagonally onto an empty square is an en passant,
+        // the captured pawn is beside the starting position
+        if(pieceToCapture == null && pieceToMove.getType() == PieceType.pawn &&
+                startPosition.getX() != endPosition.getX()) {
+            Position passedPosition = new Position(endPosition.getX(), startPosition.getY());
+            pieceToCapture = getPieceAt(passedPosition);
+
+            if(pieceToCapture != null && (pieceToCapture.getType() != PieceType.pawn ||
+                    pieceToCapture.getColor() == pieceToMove.getColor())) {
+                pieceToCapture = null;
+            }
+
+            if(pieceToCapture != null) {
+                setPiece(passedPosition, null);
+            }
+        }
+
+        // capture the piece if there is one
         if(pieceToCapture != null) {
             pieceToCapture.capture();
         }
 
         // remove the piece from it's starting position
-        boardGrid.get(piecePosition.getY()).get(piecePosition.getX()).setPieceOnSquare(null);
+        setPiece(startPosition, null);
 
         // place the piece on it's ending position
-        boardGrid.get(targetPosition.getY()).get(targetPosition.getX()).setPieceOnSquare(pieceToMove);
+        setPiece(endPosition, pieceToMove);
 
         // update the piece itself
-        pieceToMove.move(targetPosition);
-
-        // update the game state
-        determineProtectedSquares();
-        verifyCheck();
+        pieceToMove.move(endPosition);
 
-        return true;
+        return pieceToCapture;
     }
 
     /**
@@ -169,81 +616,247 @@ public class Board {
 
         // Initialize black non-pawn pieces
         positionToSet = new Position(StartingPositions.ROOK_1, StartingPositions.BLACK_NON_PAWN_Y);
-        boardGrid.get(positionToSet.getY()).get(positionToSet.getX()).setPieceOnSquare(new Rook(positionToSet, Piece.BLACK, gameInfo));
+        setPiece(positionToSet, new Rook(positionToSet, Piece.BLACK, gameInfo));
         positionToSet = new Position(StartingPositions.ROOK_2, StartingPositions.BLACK_NON_PAWN_Y);
-        boardGrid.get(positionToSet.getY()).get(positionToSet.getX()).setPieceOnSquare(new Rook(positionToSet, Piece.BLACK, gameInfo));
+        setPiece(positionToSet, new Rook(positionToSet, Piece.BLACK, gameInfo));
 
         positionToSet = new Position(StartingPositions.BISHOP_1, StartingPositions.BLACK_NON_PAWN_Y);
-        boardGrid.get(positionToSet.getY()).get(positionToSet.getX()).setPieceOnSquare(new Bishop(positionToSet, Piece.BLACK, gameInfo));
+        setPiece(positionToSet, new Bishop(positionToSet, Piece.BLACK, gameInfo));
         positionToSet = new Position(StartingPositions.BISHOP_2, StartingPositions.BLACK_NON_PAWN_Y);
-        boardGrid.get(positionToSet.getY()).get(positionToSet.getX()).setPieceOnSquare(new Bishop(positionToSet, Piece.BLACK, gameInfo));
+        setPiece(positionToSet, new Bishop(positionToSet, Piece.BLACK, gameInfo));
 
         positionToSet = new Position(StartingPositions.KNIGHT_1, StartingPositions.BLACK_NON_PAWN_Y);
-        boardGrid.get(positionToSet.getY()).get(positionToSet.getX()).setPieceOnSquare(new Knight(positionToSet, Piece.BLACK, gameInfo));
+        setPiece(positionToSet, new Knight(positionToSet, Piece.BLACK, gameInfo));
         positionToSet = new Position(StartingPositions.KNIGHT_2, StartingPositions.BLACK_NON_PAWN_Y);
-        boardGrid.get(positionToSet.getY()).get(positionToSet.getX()).setPieceOnSquare(new Knight(positionToSet, Piece.BLACK, gameInfo));
+        setPiece(positionToSet, new Knight(positionToSet, Piece.BLACK, gameInfo));
 
         positionToSet = new Position(StartingPositions.BLACK_KING_X, StartingPositions.BLACK_NON_PAWN_Y);
-        boardGrid.get(positionToSet.getY()).get(positionToSet.getX()).setPieceOnSquare(new King(positionToSet, Piece.BLACK, gameInfo));
+        setPiece(positionToSet, new King(positionToSet, Piece.BLACK, gameInfo));
         positionToSet = new Position(StartingPositions.BLACK_QUEEN_X, StartingPositions.BLACK_NON_PAWN_Y);
-        boardGrid.get(positionToSet.getY()).get(positionToSet.getX()).setPieceOnSquare(new Queen(positionToSet, Piece.BLACK, gameInfo));
+        setPiece(positionToSet, new Queen(positionToSet, Piece.BLACK, gameInfo));
 
         // initialize black pawns
         positionToSet = new Position(0, StartingPositions.BLACK_PAWN_Y);
-        boardGrid.get(positionToSet.getY()).get(positionToSet.getX()).setPieceOnSquare(new Pawn(positionToSet, Piece.BLACK, gameInfo));
+        setPiece(positionToSet, new Pawn(positionToSet, Piece.BLACK, gameInfo));
         positionToSet = new Position(1, StartingPositions.BLACK_PAWN_Y);
-        boardGrid.get(positionToSet.getY()).get(positionToSet.getX()).setPieceOnSquare(new Pawn(positionToSet, Piece.BLACK, gameInfo));
+        setPiece(positionToSet, new Pawn(positionToSet, Piece.BLACK, gameInfo));
         positionToSet = new Position(2, StartingPositions.BLACK_PAWN_Y);
-        boardGrid.get(positionToSet.getY()).get(positionToSet.getX()).setPieceOnSquare(new Pawn(positionToSet, Piece.BLACK, gameInfo));
+        setPiece(positionToSet, new Pawn(positionToSet, Piece.BLACK, gameInfo));
         positionToSet = new Position(3, StartingPositions.BLACK_PAWN_Y);
-        boardGrid.get(positionToSet.getY()).get(positionToSet.getX()).setPieceOnSquare(new Pawn(positionToSet, Piece.BLACK, gameInfo));
+        setPiece(positionToSet, new Pawn(positionToSet, Piece.BLACK, gameInfo));
         positionToSet = new Position(4, StartingPositions.BLACK_PAWN_Y);
-        boardGrid.get(positionToSet.getY()).get(positionToSet.getX()).setPieceOnSquare(new Pawn(positionToSet, Piece.BLACK, gameInfo));
+        setPiece(positionToSet, new Pawn(positionToSet, Piece.BLACK, gameInfo));
         positionToSet = new Position(5, StartingPositions.BLACK_PAWN_Y);
-        boardGrid.get(positionToSet.getY()).get(positionToSet.getX()).setPieceOnSquare(new Pawn(positionToSet, Piece.BLACK, gameInfo));
+        setPiece(positionToSet, new Pawn(positionToSet, Piece.BLACK, gameInfo));
         positionToSet = new Position(6, StartingPositions.BLACK_PAWN_Y);
-        boardGrid.get(positionToSet.getY()).get(positionToSet.getX()).setPieceOnSquare(new Pawn(positionToSet, Piece.BLACK, gameInfo));
+        setPiece(positionToSet, new Pawn(positionToSet, Piece.BLACK, gameInfo));
         positionToSet = new Position(7, StartingPositions.BLACK_PAWN_Y);
-        boardGrid.get(positionToSet.getY()).get(positionToSet.getX()).setPieceOnSquare(new Pawn(positionToSet, Piece.BLACK, gameInfo));
+        setPiece(positionToSet, new Pawn(positionToSet, Piece.BLACK, gameInfo));
 
         // Initialize white non-pawn pieces
         positionToSet = new Position(StartingPositions.ROOK_1, StartingPositions.WHITE_NON_PAWN_Y);
-        boardGrid.get(positionToSet.getY()).get(positionToSet.getX()).setPieceOnSquare(new Rook(positionToSet, Piece.WHITE, gameInfo));
+        setPiece(positionToSet, new Rook(positionToSet, Piece.WHITE, gameInfo));
         positionToSet = new Position(StartingPositions.ROOK_2, StartingPositions.WHITE_NON_PAWN_Y);
-        boardGrid.get(positionToSet.getY()).get(positionToSet.getX()).setPieceOnSquare(new Rook(positionToSet, Piece.WHITE, gameInfo));
+        setPiece(positionToSet, new Rook(positionToSet, Piece.WHITE, gameInfo));
 
         positionToSet = new Position(StartingPositions.BISHOP_1, StartingPositions.WHITE_NON_PAWN_Y);
-        boardGrid.get(positionToSet.getY()).get(positionToSet.getX()).setPieceOnSquare(new Bishop(positionToSet, Piece.WHITE, gameInfo));
+        setPiece(positionToSet, new Bishop(positionToSet, Piece.WHITE, gameInfo));
         positionToSet = new Position(StartingPositions.BISHOP_2, StartingPositions.WHITE_NON_PAWN_Y);
-        boardGrid.get(positionToSet.getY()).get(positionToSet.getX()).setPieceOnSquare(new Bishop(positionToSet, Piece.WHITE, gameInfo));
+        setPiece(positionToSet, new Bishop(positionToSet, Piece.WHITE, gameInfo));
 
         positionToSet = new Position(StartingPositions.KNIGHT_1, StartingPositions.WHITE_NON_PAWN_Y);
-        boardGrid.get(positionToSet.getY()).get(positionToSet.getX()).setPieceOnSquare(new Knight(positionToSet, Piece.WHITE, gameInfo));
+        setPiece(positionToSet, new Knight(positionToSet, Piece.WHITE, gameInfo));
         positionToSet = new Position(StartingPositions.KNIGHT_2, StartingPositions.WHITE_NON_PAWN_Y);
-        boardGrid.get(positionToSet.getY()).get(positionToSet.getX()).setPieceOnSquare(new Knight(positionToSet, Piece.WHITE, gameInfo));
+        setPiece(positionToSet, new Knight(positionToSet, Piece.WHITE, gameInfo));
 
         positionToSet = new Position(StartingPositions.WHITE_KING_X, StartingPositions.WHITE_NON_PAWN_Y);
-        boardGrid.get(positionToSet.getY()).get(positionToSet.getX()).setPieceOnSquare(new King(positionToSet, Piece.WHITE, gameInfo));
+        setPiece(positionToSet, new King(positionToSet, Piece.WHITE, gameInfo));
         positionToSet = new Position(StartingPositions.WHITE_QUEEN_X, StartingPositions.WHITE_NON_PAWN_Y);
-        boardGrid.get(positionToSet.getY()).get(positionToSet.getX()).setPieceOnSquare(new Queen(positionToSet, Piece.WHITE, gameInfo));
+        setPiece(positionToSet, new Queen(positionToSet, Piece.WHITE, gameInfo));
 
         // initialize white pawns
         positionToSet = new Position(0, StartingPositions.WHITE_PAWN_Y);
-        boardGrid.get(positionToSet.getY()).get(positionToSet.getX()).setPieceOnSquare(new Pawn(positionToSet, Piece.WHITE, gameInfo));
+        setPiece(positionToSet, new Pawn(positionToSet, Piece.WHITE, gameInfo));
         positionToSet = new Position(1, StartingPositions.WHITE_PAWN_Y);
-        boardGrid.get(positionToSet.getY()).get(positionToSet.getX()).setPieceOnSquare(new Pawn(positionToSet, Piece.WHITE, gameInfo));
+        setPiece(positionToSet, new Pawn(positionToSet, Piece.WHITE, gameInfo));
         positionToSet = new Position(2, StartingPositions.WHITE_PAWN_Y);
-        boardGrid.get(positionToSet.getY()).get(positionToSet.getX()).setPieceOnSquare(new Pawn(positionToSet, Piece.WHITE, gameInfo));
+        setPiece(positionToSet, new Pawn(positionToSet, Piece.WHITE, gameInfo));
         positionToSet = new Position(3, StartingPositions.WHITE_PAWN_Y);
-        boardGrid.get(positionToSet.getY()).get(positionToSet.getX()).setPieceOnSquare(new Pawn(positionToSet, Piece.WHITE, gameInfo));
+        setPiece(positionToSet, new Pawn(positionToSet, Piece.WHITE, gameInfo));
         positionToSet = new Position(4, StartingPositions.WHITE_PAWN_Y);
-        boardGrid.get(positionToSet.getY()).get(positionToSet.getX()).setPieceOnSquare(new Pawn(positionToSet, Piece.WHITE, gameInfo));
+        setPiece(positionToSet, new Pawn(positionToSet, Piece.WHITE, gameInfo));
         positionToSet = new Position(5, StartingPositions.WHITE_PAWN_Y);
-        boardGrid.get(positionToSet.getY()).get(positionToSet.getX()).setPieceOnSquare(new Pawn(positionToSet, Piece.WHITE, gameInfo));
+        setPiece(positionToSet, new Pawn(positionToSet, Piece.WHITE, gameInfo));
         positionToSet = new Position(6, StartingPositions.WHITE_PAWN_Y);
-        boardGrid.get(positionToSet.getY()).get(positionToSet.getX()).setPieceOnSquare(new Pawn(positionToSet, Piece.WHITE, gameInfo));
+        setPiece(positionToSet, new Pawn(positionToSet, Piece.WHITE, gameInfo));
         positionToSet = new Position(7, StartingPositions.WHITE_PAWN_Y);
-        boardGrid.get(positionToSet.getY()).get(positionToSet.getX()).setPieceOnSquare(new Pawn(positionToSet, Piece.WHITE, gameInfo));
+        setPiece(positionToSet, new Pawn(positionToSet, Piece.WHITE, gameInfo));
+    }
+
+    /**
+     * Sets up the board with the given pieces, replacing any already
+     * placed.  Kings and rooks on their starting squares may castle if the
+     * castling rights allow, and pawns on their starting row may advance
+     * two squares.  Listeners are not notified.
+     *
+     * @param codes The code of the piece on each square, indexed by
+     *              Position.getIndex()
+     * @param castlingRights The castling rights, as by getCastlingRights()
+     *
+     * @throws IllegalArgumentException If the position is not valid, as by
+     *         findColorInCheck(...), in which case the board is unchanged
+     */
+    public void setPosition(int[] codes, int castlingRights) {
+        ColorInCheck inCheck = findColorInCheck(codes);
+
+        populateSquares();
+
+        for(int index = 0; index < codes.length; index++) {
+            int code = codes[index];
+
+            if(PieceCode.isEmpty(code)) {
+                continue;
+            }
+
+            PieceType type = PieceCode.getType(code);
+            boolean color = PieceCode.getColor(code);
+            Position position = new Position(index % BOARD_SIZE_X, index / BOARD_SIZE_X);
+            Piece piece = createPiece(type, color, position);
+
+            piece.setMoved(!isStartingSquare(type, color, position, castlingRights));
+            setPiece(position, piece);
+        }
+
+        moveError = "";
+        colorInCheck = inCheck;
+        determineProtectedSquares();
+        protectedSquaresInitialized = true;
+    }
+
+    /**
+     * Finds the color in check in a position given as piece codes, without
+     * setting it up.
+     *
+     * @param codes The code of the piece on each square, indexed by
+     *              Position.getIndex()
+     *
+     * @return The color in check
+     *
+     * @throws IllegalArgumentException If the position has an invalid code,
+     *         does not have one king of each color, or has both kings in
+     *         check
+     */
+    public static ColorInCheck findColorInCheck(int[] codes) {
+        if(codes.length != BOARD_SIZE_X * BOARD_SIZE_Y) {
+            throw new IllegalArgumentException("Invalid position: " + codes.length + " squares.");
+        }
+
+        byte[] bytes = new byte[codes.length];
+        long white = 0;
+        long black = 0;
+        int whiteKing = -1;
+        int blackKing = -1;
+        int whiteKings = 0;
+        int blackKings = 0;
+
+        for(int index = 0; index < codes.length; index++) {
+            int code = codes[index];
+
+            if(PieceCode.isEmpty(code)) {
+                continue;
+            }
+
+            if(!isValidCode(code)) {
+                throw new IllegalArgumentException("Invalid position: piece code " + code + ".");
+            }
+
+            bytes[index] = (byte)code;
+            if(PieceCode.getColor(code)) {
+                white |= 1L << index;
+            } else {
+                black |= 1L << index;
+            }
+
+            if(code == PieceCode.encode(PieceType.king, Piece.WHITE)) {
+                whiteKing = index;
+                whiteKings++;
+            } else if(code == PieceCode.encode(PieceType.king, Piece.BLACK)) {
+                blackKing = index;
+                blackKings++;
+            }
+        }
+
+        if(whiteKings != 1 || blackKings != 1) {
+            throw new IllegalArgumentException("Invalid position: " + whiteKings + " white and "
+                    + blackKings + " black kings.");
+        }
+
+        boolean whiteInCheck = (StaticExchange.getAttackers(bytes, white | black, whiteKing) & black) != 0;
+        boolean blackInCheck = (StaticExchange.getAttackers(bytes, white | black, blackKing) & white) != 0;
+
+        if(whiteInCheck && blackInCheck) {
+            throw new IllegalArgumentException("Invalid position: Both kings in check");
+        }
+
+        return whiteInCheck ? ColorInCheck.white : blackInCheck ? ColorInCheck.black : ColorInCheck.none;
+    }
+
+    /**
+     * @return TRUE if a code is the code of some piece
+     */
+    private static boolean isValidCode(int code) {
+        for(PieceType type : PieceType.values()) {
+            if(code == PieceCode.encode(type, Piece.WHITE) || code == PieceCode.encode(type, Piece.BLACK)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * @return A new piece of the given type
+     */
+    private Piece createPiece(PieceType type, boolean color, Position position) {
+        switch(type) {
+            case king:
+                return new King(position, color, gameInfo);
+            case queen:
+                return new Queen(position, color, gameInfo);
+            case bishop:
+                return new Bishop(position, color, gameInfo);
+            case knight:
+                return new Knight(position, color, gameInfo);
+            case rook:
+                return new Rook(position, color, gameInfo);
+            default:
+                return new Pawn(position, color, gameInfo);
+        }
+    }
+
+    /**
+     * @return TRUE if a piece set up on a square counts as unmoved: a pawn
+     *         on its starting row, or a king or rook with a castling right
+     *         that needs it
+     */
+    private static boolean isStartingSquare(PieceType type, boolean color, Position position, int castlingRights) {
+        int homeY = color ? StartingPositions.WHITE_NON_PAWN_Y : StartingPositions.BLACK_NON_PAWN_Y;
+        int kingside = 1 << (color ? Zobrist.WHITE_KINGSIDE : Zobrist.BLACK_KINGSIDE);
+        int queenside = 1 << (color ? Zobrist.WHITE_QUEENSIDE : Zobrist.BLACK_QUEENSIDE);
+
+        switch(type) {
+            case pawn:
+                return position.getY() == (color ? StartingPositions.WHITE_PAWN_Y : StartingPositions.BLACK_PAWN_Y);
+            case king:
+                return position.getY() == homeY && position.getX() == StartingPositions.WHITE_KING_X
+                        && (castlingRights & (kingside | queenside)) != 0;
+            case rook:
+                return position.getY() == homeY
+                        && (position.getX() == StartingPositions.ROOK_2 && (castlingRights & kingside) != 0
+                        || position.getX() == StartingPositions.ROOK_1 && (castlingRights & queenside) != 0);
+            default:
+                return false;
+        }
     }
 
     /**
@@ -252,6 +865,11 @@ public class Board {
     private void populateSquares() {
         // re-set the board
         boardGrid = new ArrayList<>();
+        pieceCodes = new byte[BOARD_SIZE_X * BOARD_SIZE_Y];
+        whiteOccupancy = 0;
+        blackOccupancy = 0;
+        pieceKey = 0;
+        evaluation = new IncrementalEvaluation(evaluation.getParameters());
 
         // loop through rows
         for(int y = 0; y < Board.BOARD_SIZE_Y; y++) {
@@ -267,12 +885,44 @@ public class Board {
     }
 
     /**
-     * Populates the threatened squares lists.
+     * Places a piece on a square, keeping the piece codes, occupancy masks,
+     * hash key and evaluation up to date.
+     *
+     * @param position The position of the square
+     * @param piece The piece to place, or null to empty the square
+     */
+    private void setPiece(Position position, Piece piece) {
+        int index = position.getIndex();
+        long bit = 1L << index;
+
+        int code = PieceCode.encode(piece);
+
+        boardGrid.get(position.getY()).get(position.getX()).setPieceOnSquare(piece);
+        evaluation.removePiece(pieceCodes[index], index);
+        evaluation.addPiece(code, index);
+        pieceKey ^= Zobrist.getPieceKey(pieceCodes[index], index) ^ Zobrist.getPieceKey(code, index);
+        pieceCodes[index] = (byte)code;
+
+        // clear the square from both masks, then mark the new occupant
+        whiteOccupancy &= ~bit;
+        blackOccupancy &= ~bit;
+
+        if(piece != null) {
+            if(piece.getColor()) {
+                whiteOccupancy |= bit;
+            } else {
+                blackOccupancy |= bit;
+            }
+        }
+    }
+
+    /**
+     * Populates the threatened squares flags.
      */
     private void determineProtectedSquares() {
-        // clear the protected lists
-        List<Position> protectedByBlack = new ArrayList<>();
-        List<Position> protectedByWhite = new ArrayList<>();
+        // masks of the squares protected by each color
+        long protectedByBlack = 0;
+        long protectedByWhite = 0;
 
         // loop through the board's rows and columns
         for(int y = 0; y < Board.BOARD_SIZE_Y; y++) {
@@ -285,49 +935,29 @@ public class Board {
                     continue;
                 }
 
-                // extract the positions protected by this piece
-                List<Position> protectedPositions = piece.getThreatenedPositions();
+                // mark the positions protected by this piece
+                long protectedPositions = 0;
+                for(Position position : piece.getThreatenedPositions()) {
+                    protectedPositions |= 1L << position.getIndex();
+                }
 
                 if(piece.getColor()) {
-                    // if its white, update the white protected list
-                    for(Position position : protectedPositions) {
-                        if(!protectedByWhite.contains(position)) {
-                            protectedByWhite.add(position);
-                        }
-                    }
+                    protectedByWhite |= protectedPositions;
                 } else {
-                    // if its black, update the black protected list
-                    for(Position position : protectedPositions) {
-                        if(!protectedByBlack.contains(position)) {
-                            protectedByBlack.add(position);
-                        }
-                    }
+                    protectedByBlack |= protectedPositions;
                 }
             }
         }
 
-        // loop through the rows and columns of the board and update each as necessary
+        // loop through the rows and columns of the board and update each square,
+        // clearing any protection left over from previous moves
         for(int y = 0; y < Board.BOARD_SIZE_Y; y++) {
             for(int x = 0; x < Board.BOARD_SIZE_X; x++) {
-                Position position = new Position(x, y);
-
-                // check if either white or black protects the square
-                if(protectedByBlack.contains(position) || protectedByWhite.contains(position)) {
-                    // if black protects the square, update its flag
-                    if(protectedByBlack.contains(position)) {
-                        boardGrid.get(y).get(x).setProtectedByBlack(true);
-                    }
-
-                    // if white protects the square, update its flag
-                    if(protectedByWhite.contains(position)) {
-                        boardGrid.get(y).get(x).setProtectedByWhite(true);
-                    }
-                } else {
-                    // if neither protect the square, update it correctly
-                    boardGrid.get(y).get(x).setProtectedByBlack(false);
-                    boardGrid.get(y).get(x).setProtectedByWhite(false);
-                }
+                long bit = 1L << (y * BOARD_SIZE_X + x);
+                Square square = boardGrid.get(y).get(x);
 
+                square.setProtectedByBlack((protectedByBlack & bit) != 0);
+                square.setProtectedByWhite((protectedByWhite & bit) != 0);
             }
         }
     }
@@ -346,7 +976,7 @@ public class Board {
 
         Square square = boardGrid.get(position.getY()).get(position.getX());
 
-        return (square.isProtectedByBlack() && color) || (square.isProtectedByWhite() && color);
+        return color ? square.isProtectedByWhite() : square.isProtectedByBlack();
     }
 
     /**
@@ -414,12 +1044,12 @@ public class Board {
         int y = position1.getY() + changeInY;
 
         while(!(position2.getX() == x && position2.getY() == y)) {
-            if(!gameInfo.isOnBoard(new Position(x, y))) {
+            if(x < 0 || x >= BOARD_SIZE_X || y < 0 || y >= BOARD_SIZE_Y) {
                 return false;
             }
 
             // check if there is a piece at the current spot
-            if(boardGrid.get(y).get(x).getPieceOnSquare() != null) {
+            if(pieceCodes[y * BOARD_SIZE_X + x] != PieceCode.EMPTY) {
                 return true;
             }
 
@@ -444,6 +1074,92 @@ public class Board {
         return boardGrid.get(position.getY()).get(position.getX()).getPieceOnSquare();
     }
 
+    /**
+     * Provides the code of the piece on a square without allocating.
+     *
+     * @param index The index of the square, see Position.getIndex()
+     *
+     * @return The piece code, or PieceCode.EMPTY if there is no piece.
+     */
+    public int getPieceCode(int index) {
+        return pieceCodes[index];
+    }
+
+    /**
+     * Provides a mask of the squares occupied by a color.  Bit n is set
+     * if the square with index n holds a piece of the color.
+     *
+     * @param color The color to check
+     *
+     * @return The occupancy mask
+     */
+    public long getOccupancy(boolean color) {
+        return color ? whiteOccupancy : blackOccupancy;
+    }
+
+    /**
+     * Provides the Zobrist key of the pieces on the board, excluding the
+     * side to move, castling and en passant, see Game.getHashKey().
+     *
+     * @return The key
+     */
+    public long getPieceKey() {
+        return pieceKey;
+    }
+
+    /**
+     * Provides the castling rights, as a mask with bit n set for the
+     * castling right constant n of Zobrist.  A right remains while the king
+     * and the rook involved have not moved, whether or not castling is
+     * currently possible.
+     *
+     * @return The castling rights mask
+     */
+    public int getCastlingRights() {
+        int rights = 0;
+
+        if(isUnmoved(PieceType.king, Piece.WHITE, 4, 7)) {
+            if(isUnmoved(PieceType.rook, Piece.WHITE, 7, 7)) {
+                rights |= 1 << Zobrist.WHITE_KINGSIDE;
+            }
+            if(isUnmoved(PieceType.rook, Piece.WHITE, 0, 7)) {
+                rights |= 1 << Zobrist.WHITE_QUEENSIDE;
+            }
+        }
+
+        if(isUnmoved(PieceType.king, Piece.BLACK, 4, 0)) {
+            if(isUnmoved(PieceType.rook, Piece.BLACK, 7, 0)) {
+                rights |= 1 << Zobrist.BLACK_KINGSIDE;
+            }
+            if(isUnmoved(PieceType.rook, Piece.BLACK, 0, 0)) {
+                rights |= 1 << Zobrist.BLACK_QUEENSIDE;
+            }
+        }
+
+        return rights;
+    }
+
+    /**
+     * @return TRUE if the given piece stands unmoved on x, y
+     */
+    private boolean isUnmoved(PieceType type, boolean color, int x, int y) {
+        if(pieceCodes[y * BOARD_SIZE_X + x] != PieceCode.encode(type, color)) {
+            return false;
+        }
+
+        return !boardGrid.get(y).get(x).getPieceOnSquare().isMoved();
+    }
+
+    /**
+     * Provides the static evaluation of the board, which is updated as
+     * pieces move so reading it does not scan the board.
+     *
+     * @return The evaluation, which must not be modified
+     */
+    public IncrementalEvaluation getEvaluation() {
+        return evaluation;
+    }
+
     /**
      * Determines all threatened positions for the given color.
      *
@@ -566,17 +1282,7 @@ public class Board {
 
         // if its OK, move the piece
         if(validMove) {
-            // capture the end piece if it's there
-            if(endPiece != null) {
-                endPiece.capture();
-            }
-
-            // update the board grid
-            boardGrid.get(startPosition.getY()).get(startPosition.getX()).setPieceOnSquare(null);
-            boardGrid.get(endPosition.getY()).get(endPosition.getX()).setPieceOnSquare(startPiece);
-
-            // update the piece
-            startPiece.move(endPosition);
+            movePiece(startPosition, endPosition);
         } else {
             throw new IllegalArgumentException("Can not capture a piece "
                     + "of the same color.");
@@ -603,6 +1309,69 @@ public class Board {
         return colorInCheck;
     }
 
+    /**
+     * Creates an immutable copy of the pieces on the board.
+     *
+     * @return A snapshot of the current position
+     */
+    public BoardSnapshot createSnapshot() {
+        return new BoardSnapshot(pieceCodes, colorInCheck, gameInfo.getMoveCount());
+    }
+
+    /**
+     * Registers a listener to be notified of changes made by requestMove(...).
+     * Moves forced on test boards are not published.
+     *
+     * @param listener The listener to add
+     */
+    public void addChangeListener(BoardChangeListener listener) {
+        changeListeners.add(listener);
+    }
+
+    /**
+     * @param listener The listener to remove
+     */
+    public void removeChangeListener(BoardChangeListener listener) {
+        changeListeners.remove(listener);
+    }
+
+    /**
+     * Notifies the listeners of a change, in the order they were added.
+     *
+     * @param event The change to publish
+     */
+    private void fireChange(BoardChangeEvent event) {
+        for(BoardChangeListener listener : changeListeners) {
+            event.dispatch(listener);
+        }
+    }
+
+    /**
+     * Provides the positions of the kings of the given check states.
+     *
+     * @param first The first check state
+     * @param second The second check state
+     *
+     * @return The positions of the kings in either state
+     */
+    private List<Position> getKingPositions(ColorInCheck first, ColorInCheck second) {
+        List<Position> positions = new ArrayList<>();
+
+        for(List<Square> row : boardGrid) {
+            for(Square square : row) {
+                Piece piece = square.getPieceOnSquare();
+
+                if(piece != null && piece.getType() == PieceType.king &&
+                        (first.toBoolean() != null && piece.getColor() == first.toBoolean() ||
+                         second.toBoolean() != null && piece.getColor() == second.toBoolean())) {
+                    positions.add(piece.getPosition());
+                }
+            }
+        }
+
+        return positions;
+    }
+
     /**
      * Initializes the protected squares.  This is necessary because
      * this this task requires the game referenced in the GameInfoWrapper
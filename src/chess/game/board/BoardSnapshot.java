@@ -0,0 +1,77 @@
+package chess.game.board;
+
+import chess.pieces.PieceCode;
+
+/**
+ * An immutable copy of the pieces on a board at a point in the game.  Unlike
+ * the board itself, a snapshot may be shared freely between threads.
+ *
+ * Squares are indexed as y * BOARD_SIZE_X + x.
+ *
+ * @author CarrollFD
+ */
+public class BoardSnapshot {
+    // the piece code on each square
+    private final byte[] pieceCodes;
+
+    // the color in check when the snapshot was taken
+    private final ColorInCheck colorInCheck;
+
+    // the number of moves made before the snapshot was taken
+    private final int ply;
+
+    /**
+     * Constructs a new snapshot.  The piece codes are copied.
+     *
+     * @param pieceCodes The piece code on each square
+     * @param colorInCheck The color in check
+     * @param ply The number of moves made so far
+     */
+    public BoardSnapshot(byte[] pieceCodes, ColorInCheck colorInCheck, int ply) {
+        if(pieceCodes.length != Board.BOARD_SIZE_X * Board.BOARD_SIZE_Y) {
+            throw new IllegalArgumentException("Snapshot requires a code for every square.");
+        }
+
+        this.pieceCodes = pieceCodes.clone();
+        this.colorInCheck = colorInCheck;
+        this.ply = ply;
+    }
+
+    /**
+     * @param index The index of the square
+     * @return The code of the piece on the square, or PieceCode.EMPTY
+     */
+    public int getPieceCode(int index) {
+        return pieceCodes[index];
+    }
+
+    /**
+     * @param x The x position of the square
+     * @param y The y position of the square
+     * @return The code of the piece on the square, or PieceCode.EMPTY
+     */
+    public int getPieceCode(int x, int y) {
+        return pieceCodes[y * Board.BOARD_SIZE_X + x];
+    }
+
+    /**
+     * @return TRUE if the given square has no piece on it
+     */
+    public boolean isEmpty(int x, int y) {
+        return PieceCode.isEmpty(getPieceCode(x, y));
+    }
+
+    /**
+     * @return The color in check when the snapshot was taken
+     */
+    public ColorInCheck getColorInCheck() {
+        return colorInCheck;
+    }
+
+    /**
+     * @return The number of moves made before the snapshot was taken
+     */
+    public int getPly() {
+        return ply;
+    }
+}
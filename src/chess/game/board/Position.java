@@ -45,6 +45,13 @@ public class Position {
         return y;
     }
 
+    /**
+     * @return the index of the position, y * Board.BOARD_SIZE_X + x
+     */
+    public int getIndex() {
+        return y * Board.BOARD_SIZE_X + x;
+    }
+
     @Override
     public boolean equals(Object o) {
         if(o instanceof Position) {
@@ -0,0 +1,141 @@
+package chess.game.board;
+
+import chess.pieces.PieceCode;
+import chess.pieces.PieceType;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Zobrist hashing of positions.  A position's key is the exclusive or of a
+ * random 64 bit key for every piece on its square, for each castling right,
+ * for the file of a capturable en passant pawn and for white to move.
+ *
+ * The keys follow the layout of the Polyglot opening book format: 768
+ * piece-square keys ordered by piece kind (black pawn, white pawn, black
+ * knight, ... white king) then by square from a1 to h8, followed by 4
+ * castling keys, 8 en passant keys and the side to move key.
+ *
+ * By default the keys are generated from a fixed seed, so books and other
+ * files keyed by position are only valid with keys from the same source.
+ * To read books made by other Polyglot tools, the standard Polyglot keys
+ * can be supplied in a file named by the chess.zobrist.keys system
+ * property, holding the 781 keys as big endian 64 bit values.
+ *
+ * @author CarrollFD
+ */
+public final class Zobrist {
+    // the number of keys in the Polyglot layout
+    public static final int KEY_COUNT = 781;
+
+    // offsets of the key groups
+    private static final int CASTLING_OFFSET = 768;
+    private static final int EN_PASSANT_OFFSET = 772;
+    private static final int TURN_OFFSET = 780;
+
+    // castling rights, as used by getCastlingKey(...)
+    public static final int WHITE_KINGSIDE = 0;
+    public static final int WHITE_QUEENSIDE = 1;
+    public static final int BLACK_KINGSIDE = 2;
+    public static final int BLACK_QUEENSIDE = 3;
+
+    // the system property naming a file to read the keys from
+    public static final String KEY_FILE_PROPERTY = "chess.zobrist.keys";
+
+    // the seed of the generated keys
+    private static final long SEED = 0x3243F6A8885A308DL;
+
+    // Polyglot piece kinds divided by two, indexed by piece type ordinal:
+    // king, queen, bishop, knight, rook, pawn
+    private static final int[] KINDS = { 5, 4, 2, 1, 3, 0 };
+
+    private static final long[] KEYS = new long[KEY_COUNT];
+
+    // piece-square keys indexed by piece code then Position.getIndex()
+    private static final long[][] PIECE_KEYS = new long[16][Board.BOARD_SIZE_X * Board.BOARD_SIZE_Y];
+
+    static {
+        String keyFile = System.getProperty(KEY_FILE_PROPERTY);
+
+        if(keyFile != null) {
+            loadKeys(Paths.get(keyFile));
+        } else {
+            // splitmix64, so the keys are the same on every run
+            long state = SEED;
+            for(int i = 0; i < KEY_COUNT; i++) {
+                state += 0x9E3779B97F4A7C15L;
+                long z = state;
+                z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+                z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+                KEYS[i] = z ^ (z >>> 31);
+            }
+        }
+
+        for(PieceType type : PieceType.values()) {
+            for(int color = 0; color < 2; color++) {
+                int code = PieceCode.encode(type, color == 1);
+                int kind = KINDS[type.ordinal()] * 2 + color;
+
+                for(int index = 0; index < Board.BOARD_SIZE_X * Board.BOARD_SIZE_Y; index++) {
+                    // Polyglot numbers squares from a1, the board from a8
+                    int x = index % Board.BOARD_SIZE_X;
+                    int row = Board.BOARD_SIZE_Y - 1 - index / Board.BOARD_SIZE_X;
+
+                    PIECE_KEYS[code][index] = KEYS[kind * 64 + row * Board.BOARD_SIZE_X + x];
+                }
+            }
+        }
+    }
+
+    private Zobrist() {
+    }
+
+    /**
+     * Reads the keys from a file of KEY_COUNT big endian 64 bit values.
+     */
+    private static void loadKeys(Path path) {
+        try(DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            for(int i = 0; i < KEY_COUNT; i++) {
+                KEYS[i] = in.readLong();
+            }
+        } catch(IOException e) {
+            throw new IllegalStateException("Unable to read Zobrist keys from " + path, e);
+        }
+    }
+
+    /**
+     * @param code A piece code, EMPTY gives 0
+     * @param index The square, as Position.getIndex()
+     * @return The key of the piece on the square
+     */
+    public static long getPieceKey(int code, int index) {
+        return PIECE_KEYS[code][index];
+    }
+
+    /**
+     * @param right One of the castling right constants
+     * @return The key of the castling right
+     */
+    public static long getCastlingKey(int right) {
+        return KEYS[CASTLING_OFFSET + right];
+    }
+
+    /**
+     * @param file The file of the en passant pawn, 0 for a
+     * @return The key of the en passant file
+     */
+    public static long getEnPassantKey(int file) {
+        return KEYS[EN_PASSANT_OFFSET + file];
+    }
+
+    /**
+     * @return The key included when white is to move
+     */
+    public static long getTurnKey() {
+        return KEYS[TURN_OFFSET];
+    }
+}
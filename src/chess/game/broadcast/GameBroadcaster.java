@@ -0,0 +1,341 @@
+package chess.game.broadcast;
+
+import chess.game.Game;
+import chess.game.board.BoardSnapshot;
+import chess.game.events.BoardChangeEvent;
+import chess.game.events.BoardChangeListener;
+import chess.game.events.CheckStateChangedEvent;
+import chess.game.events.GameOverEvent;
+import chess.game.events.PieceCapturedEvent;
+import chess.game.events.PieceMovedEvent;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Streams the changes made to a game to any number of spectators.
+ *
+ * Each spectator has a bounded buffer.  Publishing never blocks the thread
+ * making the move: when a spectator's buffer is full, its pending messages
+ * are discarded and replaced by a single resync message carrying the
+ * current position.  A slow spectator therefore skips ahead instead of
+ * holding up the game or consuming unbounded memory.
+ *
+ * Every spectator first receives a resync message with the position at the
+ * time it subscribed.  The stream completes after the game over change,
+ * which is never coalesced away.
+ *
+ * @author CarrollFD
+ */
+public class GameBroadcaster implements Flow.Publisher<SpectatorMessage> {
+    // the default number of messages buffered per spectator
+    public static final int DEFAULT_BUFFER_SIZE = 64;
+
+    // the game being broadcast
+    private final Game game;
+
+    // the executor delivering messages to the spectators
+    private final Executor executor;
+
+    // the number of messages buffered per spectator
+    private final int bufferSize;
+
+    // the current spectators
+    private final List<SpectatorSubscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    // follows the game's board
+    private final GameFollower follower = new GameFollower();
+
+    // set once the game is over or the broadcaster is closed
+    private volatile boolean closed = false;
+
+    /**
+     * Constructs a broadcaster delivering on the common pool.
+     *
+     * @param game The game to broadcast
+     */
+    public GameBroadcaster(Game game) {
+        this(game, ForkJoinPool.commonPool(), DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Constructs a broadcaster.
+     *
+     * @param game The game to broadcast
+     * @param executor The executor delivering messages to the spectators
+     * @param bufferSize The number of messages buffered per spectator, at
+     *                   least 2 so a resync can be followed by a game over
+     */
+    public GameBroadcaster(Game game, Executor executor, int bufferSize) {
+        if(bufferSize < 2) {
+            throw new IllegalArgumentException("Buffer size must be at least 2.");
+        }
+
+        this.game = game;
+        this.executor = executor;
+        this.bufferSize = bufferSize;
+
+        game.addChangeListener(follower);
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super SpectatorMessage> subscriber) {
+        if(subscriber == null) {
+            throw new NullPointerException("Subscriber must not be null.");
+        }
+
+        SpectatorSubscription subscription = new SpectatorSubscription(subscriber);
+
+        // register before reading the snapshot, so that no change falls
+        // between the two.  Changes already in the snapshot are dropped.
+        subscriptions.add(subscription);
+        subscription.resync(game.getSnapshot());
+
+        if(closed) {
+            subscription.complete();
+        }
+
+        subscription.schedule();
+    }
+
+    /**
+     * @return The number of current spectators
+     */
+    public int getSubscriberCount() {
+        return subscriptions.size();
+    }
+
+    /**
+     * Stops following the game and completes every spectator's stream once
+     * its buffered messages are delivered.
+     */
+    public void close() {
+        closed = true;
+        game.removeChangeListener(follower);
+
+        for(SpectatorSubscription subscription : subscriptions) {
+            subscription.complete();
+            subscription.schedule();
+        }
+    }
+
+    /**
+     * Offers a change to every spectator, resynchronizing those that can
+     * not keep up.
+     *
+     * @param event The change to publish
+     */
+    private void publish(BoardChangeEvent event) {
+        SpectatorMessage message = SpectatorMessage.change(event);
+
+        for(SpectatorSubscription subscription : subscriptions) {
+            if(!subscription.offer(message)) {
+                // the published snapshot is shared by every spectator falling
+                // behind, changes not yet in it are offered again below
+                subscription.resync(game.getSnapshot());
+                subscription.offer(message);
+            }
+
+            subscription.schedule();
+        }
+    }
+
+    /**
+     * A single spectator's buffer and demand.  Delivery is serialized by
+     * running at most one drain at a time on the executor.
+     */
+    private class SpectatorSubscription implements Flow.Subscription, Runnable {
+        private final Flow.Subscriber<? super SpectatorMessage> subscriber;
+
+        // guarded by this
+        private final ArrayDeque<SpectatorMessage> buffer = new ArrayDeque<>();
+        private long demand = 0;
+        private int resyncPly = 0;
+        private boolean completed = false;
+        private boolean cancelled = false;
+        private Throwable error;
+
+        // only accessed by the draining thread
+        private boolean subscribed = false;
+
+        // counts the drain requests made while a drain is running
+        private final AtomicInteger pendingDrains = new AtomicInteger();
+
+        SpectatorSubscription(Flow.Subscriber<? super SpectatorMessage> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        /**
+         * Buffers a change.
+         *
+         * @param message The change message
+         * @return FALSE if the buffer is full and the spectator must resync
+         */
+        synchronized boolean offer(SpectatorMessage message) {
+            if(cancelled || completed) {
+                return true;
+            }
+
+            // changes older than the last resync are already in its snapshot,
+            // except for the end of the game which a snapshot does not show
+            if(message.getEvent().getPly() < resyncPly && !(message.getEvent() instanceof GameOverEvent)) {
+                return true;
+            }
+
+            if(buffer.size() >= bufferSize) {
+                return false;
+            }
+
+            buffer.add(message);
+            return true;
+        }
+
+        /**
+         * Replaces everything buffered with a resync to the given position.
+         *
+         * @param snapshot The current position
+         */
+        synchronized void resync(BoardSnapshot snapshot) {
+            buffer.clear();
+            buffer.add(SpectatorMessage.resync(snapshot));
+            resyncPly = snapshot.getPly();
+        }
+
+        /**
+         * Marks the stream as complete once the buffer is drained.
+         */
+        synchronized void complete() {
+            completed = true;
+        }
+
+        /**
+         * Requests a drain on the executor, unless one is already running.
+         */
+        void schedule() {
+            if(pendingDrains.getAndIncrement() == 0) {
+                executor.execute(this);
+            }
+        }
+
+        @Override
+        public void request(long n) {
+            synchronized(this) {
+                if(n <= 0) {
+                    error = new IllegalArgumentException("Requested messages must be positive.");
+                } else {
+                    demand += n;
+
+                    // saturate rather than overflow
+                    if(demand < 0) {
+                        demand = Long.MAX_VALUE;
+                    }
+                }
+            }
+
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            synchronized(this) {
+                cancelled = true;
+                buffer.clear();
+            }
+
+            subscriptions.remove(this);
+        }
+
+        @Override
+        public void run() {
+            int missed = 1;
+
+            do {
+                if(!subscribed) {
+                    subscribed = true;
+                    subscriber.onSubscribe(this);
+                }
+
+                while(true) {
+                    SpectatorMessage message = null;
+                    Throwable failure;
+                    boolean finished;
+
+                    synchronized(this) {
+                        if(cancelled) {
+                            return;
+                        }
+
+                        failure = error;
+                        finished = failure == null && completed && buffer.isEmpty();
+
+                        if(failure == null && !finished && demand > 0) {
+                            message = buffer.poll();
+
+                            if(message != null) {
+                                demand--;
+                            }
+                        }
+                    }
+
+                    if(failure != null || finished) {
+                        cancel();
+
+                        if(failure != null) {
+                            subscriber.onError(failure);
+                        } else {
+                            subscriber.onComplete();
+                        }
+
+                        return;
+                    }
+
+                    if(message == null) {
+                        break;
+                    }
+
+                    try {
+                        subscriber.onNext(message);
+                    } catch(RuntimeException e) {
+                        // a failing spectator is dropped without affecting the others
+                        cancel();
+                        return;
+                    }
+                }
+
+                missed = pendingDrains.addAndGet(-missed);
+            } while(missed != 0);
+        }
+    }
+
+    /**
+     * Publishes the game's changes, and completes the stream when the game
+     * ends.
+     */
+    private class GameFollower implements BoardChangeListener {
+        @Override
+        public void pieceMoved(PieceMovedEvent event) {
+            publish(event);
+        }
+
+        @Override
+        public void pieceCaptured(PieceCapturedEvent event) {
+            publish(event);
+        }
+
+        @Override
+        public void checkStateChanged(CheckStateChangedEvent event) {
+            publish(event);
+        }
+
+        @Override
+        public void gameOver(GameOverEvent event) {
+            publish(event);
+            close();
+        }
+    }
+}
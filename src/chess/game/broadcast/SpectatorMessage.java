@@ -0,0 +1,76 @@
+package chess.game.broadcast;
+
+import chess.game.board.BoardSnapshot;
+import chess.game.events.BoardChangeEvent;
+
+/**
+ * A message streamed to the spectators of a game.  A message either carries
+ * a single board change, or a snapshot of the whole position that replaces
+ * everything the spectator has received so far.
+ *
+ * Changes whose ply is below the ply of the last snapshot received are
+ * already reflected in that snapshot.
+ *
+ * @author CarrollFD
+ */
+public class SpectatorMessage {
+    /**
+     * The kinds of spectator message.
+     */
+    public enum Kind {
+        change,
+        resync
+    }
+
+    private final Kind kind;
+    private final BoardChangeEvent event;
+    private final BoardSnapshot snapshot;
+
+    private SpectatorMessage(Kind kind, BoardChangeEvent event, BoardSnapshot snapshot) {
+        this.kind = kind;
+        this.event = event;
+        this.snapshot = snapshot;
+    }
+
+    /**
+     * Creates a message carrying a single change.
+     *
+     * @param event The change
+     * @return The message
+     */
+    public static SpectatorMessage change(BoardChangeEvent event) {
+        return new SpectatorMessage(Kind.change, event, null);
+    }
+
+    /**
+     * Creates a message asking the spectator to resynchronize to the given
+     * position.
+     *
+     * @param snapshot The current position
+     * @return The message
+     */
+    public static SpectatorMessage resync(BoardSnapshot snapshot) {
+        return new SpectatorMessage(Kind.resync, null, snapshot);
+    }
+
+    /**
+     * @return The kind of message
+     */
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * @return The change carried by the message, or null for a resync
+     */
+    public BoardChangeEvent getEvent() {
+        return event;
+    }
+
+    /**
+     * @return The position carried by the message, or null for a change
+     */
+    public BoardSnapshot getSnapshot() {
+        return snapshot;
+    }
+}
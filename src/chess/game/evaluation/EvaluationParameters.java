@@ -0,0 +1,344 @@
+package chess.game.evaluation;
+
+import chess.pieces.PieceType;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * The weights used by the static evaluation: material values and
+ * piece-square tables, each with a middlegame and an endgame value.
+ *
+ * Piece-square tables are given from white's point of view and indexed
+ * like Position.getIndex(), so index 0 is a8 and index 63 is h1.  Black
+ * pieces use the vertically mirrored square.
+ *
+ * Parameters are mutable so that they can be tuned.  The shared default
+ * instance is used by every Board and must not be modified, tuning code
+ * should work on a copy.  Tuned parameters are kept in text files, see
+ * save(...).
+ *
+ * @author CarrollFD
+ */
+public class EvaluationParameters {
+    // the stages the evaluation is tapered between
+    public static final int MIDDLEGAME = 0;
+    public static final int ENDGAME = 1;
+
+    // the phase of a board with all non-pawn pieces present
+    public static final int MAX_PHASE = 24;
+
+    // phase weights indexed by piece type ordinal: king, queen, bishop,
+    // knight, rook, pawn
+    private static final int[] PHASE_WEIGHTS = { 0, 4, 1, 1, 2, 0 };
+
+    private static final int SQUARES = 64;
+
+    // the names of the stages in parameter files
+    private static final String[] STAGE_NAMES = { "middlegame", "endgame" };
+
+    // the default weights, by stage then piece type ordinal
+    private static final int[][] DEFAULT_MATERIAL = {
+        { 0, 1025, 365, 337, 477, 82 },
+        { 0, 936, 297, 281, 512, 94 }
+    };
+
+    private static final int[] KING_MIDDLEGAME = {
+        -30, -40, -40, -50, -50, -40, -40, -30,
+        -30, -40, -40, -50, -50, -40, -40, -30,
+        -30, -40, -40, -50, -50, -40, -40, -30,
+        -30, -40, -40, -50, -50, -40, -40, -30,
+        -20, -30, -30, -40, -40, -30, -30, -20,
+        -10, -20, -20, -20, -20, -20, -20, -10,
+         20,  20,   0,   0,   0,   0,  20,  20,
+         20,  30,  10,   0,   0,  10,  30,  20
+    };
+
+    private static final int[] KING_ENDGAME = {
+        -50, -40, -30, -20, -20, -30, -40, -50,
+        -30, -20, -10,   0,   0, -10, -20, -30,
+        -30, -10,  20,  30,  30,  20, -10, -30,
+        -30, -10,  30,  40,  40,  30, -10, -30,
+        -30, -10,  30,  40,  40,  30, -10, -30,
+        -30, -10,  20,  30,  30,  20, -10, -30,
+        -30, -30,   0,   0,   0,   0, -30, -30,
+        -50, -30, -30, -30, -30, -30, -30, -50
+    };
+
+    private static final int[] QUEEN = {
+        -20, -10, -10,  -5,  -5, -10, -10, -20,
+        -10,   0,   0,   0,   0,   0,   0, -10,
+        -10,   0,   5,   5,   5,   5,   0, -10,
+         -5,   0,   5,   5,   5,   5,   0,  -5,
+          0,   0,   5,   5,   5,   5,   0,  -5,
+        -10,   5,   5,   5,   5,   5,   0, -10,
+        -10,   0,   5,   0,   0,   0,   0, -10,
+        -20, -10, -10,  -5,  -5, -10, -10, -20
+    };
+
+    private static final int[] BISHOP = {
+        -20, -10, -10, -10, -10, -10, -10, -20,
+        -10,   0,   0,   0,   0,   0,   0, -10,
+        -10,   0,   5,  10,  10,   5,   0, -10,
+        -10,   5,   5,  10,  10,   5,   5, -10,
+        -10,   0,  10,  10,  10,  10,   0, -10,
+        -10,  10,  10,  10,  10,  10,  10, -10,
+        -10,   5,   0,   0,   0,   0,   5, -10,
+        -20, -10, -10, -10, -10, -10, -10, -20
+    };
+
+    private static final int[] KNIGHT = {
+        -50, -40, -30, -30, -30, -30, -40, -50,
+        -40, -20,   0,   0,   0,   0, -20, -40,
+        -30,   0,  10,  15,  15,  10,   0, -30,
+        -30,   5,  15,  20,  20,  15,   5, -30,
+        -30,   0,  15,  20,  20,  15,   0, -30,
+        -30,   5,  10,  15,  15,  10,   5, -30,
+        -40, -20,   0,   5,   5,   0, -20, -40,
+        -50, -40, -30, -30, -30, -30, -40, -50
+    };
+
+    private static final int[] ROOK = {
+          0,   0,   0,   0,   0,   0,   0,   0,
+          5,  10,  10,  10,  10,  10,  10,   5,
+         -5,   0,   0,   0,   0,   0,   0,  -5,
+         -5,   0,   0,   0,   0,   0,   0,  -5,
+         -5,   0,   0,   0,   0,   0,   0,  -5,
+         -5,   0,   0,   0,   0,   0,   0,  -5,
+         -5,   0,   0,   0,   0,   0,   0,  -5,
+          0,   0,   0,   5,   5,   0,   0,   0
+    };
+
+    private static final int[] PAWN_MIDDLEGAME = {
+          0,   0,   0,   0,   0,   0,   0,   0,
+         50,  50,  50,  50,  50,  50,  50,  50,
+         10,  10,  20,  30,  30,  20,  10,  10,
+          5,   5,  10,  25,  25,  10,   5,   5,
+          0,   0,   0,  20,  20,   0,   0,   0,
+          5,  -5, -10,   0,   0, -10,  -5,   5,
+          5,  10,  10, -20, -20,  10,  10,   5,
+          0,   0,   0,   0,   0,   0,   0,   0
+    };
+
+    private static final int[] PAWN_ENDGAME = {
+          0,   0,   0,   0,   0,   0,   0,   0,
+         80,  80,  80,  80,  80,  80,  80,  80,
+         50,  50,  50,  50,  50,  50,  50,  50,
+         30,  30,  30,  30,  30,  30,  30,  30,
+         20,  20,  20,  20,  20,  20,  20,  20,
+         10,  10,  10,  10,  10,  10,  10,  10,
+         10,  10,  10,  10,  10,  10,  10,  10,
+          0,   0,   0,   0,   0,   0,   0,   0
+    };
+
+    // the default piece-square tables, by stage then piece type ordinal
+    private static final int[][][] DEFAULT_PIECE_SQUARE = {
+        { KING_MIDDLEGAME, QUEEN, BISHOP, KNIGHT, ROOK, PAWN_MIDDLEGAME },
+        { KING_ENDGAME, QUEEN, BISHOP, KNIGHT, ROOK, PAWN_ENDGAME }
+    };
+
+    private static final EvaluationParameters DEFAULT = new EvaluationParameters();
+
+    // material values, by stage then piece type ordinal
+    private final int[][] material = new int[2][];
+
+    // piece-square tables, by stage then piece type ordinal then square
+    private final int[][][] pieceSquare = new int[2][PieceType.values().length][];
+
+    /**
+     * Constructs parameters holding the default weights.
+     */
+    public EvaluationParameters() {
+        for(int stage = MIDDLEGAME; stage <= ENDGAME; stage++) {
+            material[stage] = DEFAULT_MATERIAL[stage].clone();
+
+            for(int type = 0; type < pieceSquare[stage].length; type++) {
+                pieceSquare[stage][type] = DEFAULT_PIECE_SQUARE[stage][type].clone();
+            }
+        }
+    }
+
+    /**
+     * Copy Constructor
+     *
+     * @param toCopy Parameters to copy
+     */
+    public EvaluationParameters(EvaluationParameters toCopy) {
+        for(int stage = MIDDLEGAME; stage <= ENDGAME; stage++) {
+            material[stage] = toCopy.material[stage].clone();
+
+            for(int type = 0; type < pieceSquare[stage].length; type++) {
+                pieceSquare[stage][type] = toCopy.pieceSquare[stage][type].clone();
+            }
+        }
+    }
+
+    /**
+     * @return The shared default parameters, which must not be modified
+     */
+    public static EvaluationParameters getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * @param stage MIDDLEGAME or ENDGAME
+     * @param type The piece type
+     * @return The value of the piece in centipawns
+     */
+    public int getMaterial(int stage, PieceType type) {
+        return material[stage][type.ordinal()];
+    }
+
+    /**
+     * @param stage MIDDLEGAME or ENDGAME
+     * @param type The piece type
+     * @param value The value of the piece in centipawns
+     */
+    public void setMaterial(int stage, PieceType type, int value) {
+        material[stage][type.ordinal()] = value;
+    }
+
+    /**
+     * @param stage MIDDLEGAME or ENDGAME
+     * @param type The piece type
+     * @param index The square, from white's point of view
+     * @return The bonus for a piece on the square in centipawns
+     */
+    public int getPieceSquare(int stage, PieceType type, int index) {
+        return pieceSquare[stage][type.ordinal()][index];
+    }
+
+    /**
+     * @param stage MIDDLEGAME or ENDGAME
+     * @param type The piece type
+     * @param index The square, from white's point of view
+     * @param value The bonus for a piece on the square in centipawns
+     */
+    public void setPieceSquare(int stage, PieceType type, int index, int value) {
+        pieceSquare[stage][type.ordinal()][index] = value;
+    }
+
+    /**
+     * Provides the piece-square bonus for a piece of either color.
+     *
+     * @param stage MIDDLEGAME or ENDGAME
+     * @param type The piece type
+     * @param color The color of the piece
+     * @param index The square, as Position.getIndex()
+     *
+     * @return The bonus for the piece in centipawns, from its own side's
+     *         point of view
+     */
+    public int getPieceSquare(int stage, PieceType type, boolean color, int index) {
+        return pieceSquare[stage][type.ordinal()][color ? index : mirror(index)];
+    }
+
+    /**
+     * Writes the parameters as text, one line for each value or table:
+     * "material stage type value" and "pst stage type" followed by the 64
+     * values of the table.
+     *
+     * @param path The file to write
+     */
+    public void save(Path path) throws IOException {
+        try(BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            for(int stage = MIDDLEGAME; stage <= ENDGAME; stage++) {
+                for(PieceType type : PieceType.values()) {
+                    writer.write("material " + STAGE_NAMES[stage] + " " + type + " " + getMaterial(stage, type));
+                    writer.newLine();
+                }
+            }
+
+            for(int stage = MIDDLEGAME; stage <= ENDGAME; stage++) {
+                for(PieceType type : PieceType.values()) {
+                    StringBuilder line = new StringBuilder("pst " + STAGE_NAMES[stage] + " " + type);
+
+                    for(int index = 0; index < SQUARES; index++) {
+                        line.append(' ').append(getPieceSquare(stage, type, index));
+                    }
+
+                    writer.write(line.toString());
+                    writer.newLine();
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads parameters written by save(...).  Values missing from the file
+     * keep their defaults.  Blank lines and lines starting with '#' are
+     * ignored.
+     *
+     * @param path The file to read
+     *
+     * @return The parameters
+     *
+     * @throws IllegalArgumentException If a line is not recognized
+     */
+    public static EvaluationParameters load(Path path) throws IOException {
+        EvaluationParameters parameters = new EvaluationParameters();
+
+        for(String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+            line = line.trim();
+
+            if(line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+
+            String[] fields = line.split("\\s+");
+
+            try {
+                int stage = parseStage(fields[1]);
+                PieceType type = PieceType.valueOf(fields[2]);
+
+                if(fields[0].equals("material") && fields.length == 4) {
+                    parameters.setMaterial(stage, type, Integer.parseInt(fields[3]));
+                } else if(fields[0].equals("pst") && fields.length == 3 + SQUARES) {
+                    for(int index = 0; index < SQUARES; index++) {
+                        parameters.setPieceSquare(stage, type, index, Integer.parseInt(fields[3 + index]));
+                    }
+                } else {
+                    throw new IllegalArgumentException("Invalid parameter line: " + line);
+                }
+            } catch(ArrayIndexOutOfBoundsException e) {
+                // NumberFormatException and unknown names are already
+                // IllegalArgumentExceptions
+                throw new IllegalArgumentException("Invalid parameter line: " + line, e);
+            }
+        }
+
+        return parameters;
+    }
+
+    private static int parseStage(String name) {
+        for(int stage = MIDDLEGAME; stage <= ENDGAME; stage++) {
+            if(STAGE_NAMES[stage].equals(name)) {
+                return stage;
+            }
+        }
+
+        throw new IllegalArgumentException("Unknown stage: " + name);
+    }
+
+    /**
+     * @param type The piece type
+     * @return The piece's contribution to the game phase
+     */
+    public static int getPhaseWeight(PieceType type) {
+        return PHASE_WEIGHTS[type.ordinal()];
+    }
+
+    /**
+     * Mirrors a square vertically, mapping a8 to a1 and so on.
+     *
+     * @param index The square, as Position.getIndex()
+     *
+     * @return The mirrored square
+     */
+    public static int mirror(int index) {
+        return index ^ (SQUARES - 8);
+    }
+}
@@ -0,0 +1,196 @@
+package chess.game.evaluation;
+
+import chess.pieces.PieceCode;
+import chess.pieces.PieceType;
+
+/**
+ * A static evaluation of material and piece placement that is kept up to
+ * date as pieces are placed and removed, so that reading the score costs
+ * the same no matter how many pieces are on the board.
+ *
+ * Each term is summed separately for the middlegame and the endgame, and
+ * the final score is interpolated between the two by the game phase, which
+ * falls from MAX_PHASE towards 0 as pieces are traded.  All sums are from
+ * white's point of view.
+ *
+ * @author CarrollFD
+ */
+public class IncrementalEvaluation {
+    // the weights being summed
+    private final EvaluationParameters parameters;
+
+    // the material balance, by stage
+    private final int[] material = new int[2];
+
+    // the piece-square balance, by stage
+    private final int[] pieceSquare = new int[2];
+
+    // the sum of the phase weights of the pieces on the board
+    private int phase;
+
+    /**
+     * Constructs an evaluation of an empty board.
+     *
+     * @param parameters The weights to use
+     */
+    public IncrementalEvaluation(EvaluationParameters parameters) {
+        this.parameters = parameters;
+    }
+
+    /**
+     * Copy Constructor
+     *
+     * @param toCopy Evaluation to copy
+     */
+    public IncrementalEvaluation(IncrementalEvaluation toCopy) {
+        this.parameters = toCopy.parameters;
+        this.material[EvaluationParameters.MIDDLEGAME] = toCopy.material[EvaluationParameters.MIDDLEGAME];
+        this.material[EvaluationParameters.ENDGAME] = toCopy.material[EvaluationParameters.ENDGAME];
+        this.pieceSquare[EvaluationParameters.MIDDLEGAME] = toCopy.pieceSquare[EvaluationParameters.MIDDLEGAME];
+        this.pieceSquare[EvaluationParameters.ENDGAME] = toCopy.pieceSquare[EvaluationParameters.ENDGAME];
+        this.phase = toCopy.phase;
+    }
+
+    /**
+     * Evaluates a complete board from scratch.
+     *
+     * @param pieceCodes The code of the piece on each square, indexed like
+     *                   Position.getIndex()
+     * @param parameters The weights to use
+     *
+     * @return The evaluation
+     */
+    public static IncrementalEvaluation evaluate(byte[] pieceCodes, EvaluationParameters parameters) {
+        IncrementalEvaluation evaluation = new IncrementalEvaluation(parameters);
+
+        for(int index = 0; index < pieceCodes.length; index++) {
+            evaluation.addPiece(pieceCodes[index], index);
+        }
+
+        return evaluation;
+    }
+
+    /**
+     * Accounts for a piece placed on a square.
+     *
+     * @param code The piece's code, EMPTY is ignored
+     * @param index The square, as Position.getIndex()
+     */
+    public void addPiece(int code, int index) {
+        update(code, index, 1);
+    }
+
+    /**
+     * Accounts for a piece removed from a square.
+     *
+     * @param code The piece's code, EMPTY is ignored
+     * @param index The square, as Position.getIndex()
+     */
+    public void removePiece(int code, int index) {
+        update(code, index, -1);
+    }
+
+    /**
+     * Adds or subtracts a piece's contribution to each term.
+     */
+    private void update(int code, int index, int sign) {
+        if(PieceCode.isEmpty(code)) {
+            return;
+        }
+
+        PieceType type = PieceCode.getType(code);
+        boolean color = PieceCode.getColor(code);
+
+        // black pieces count against white
+        int colorSign = color ? sign : -sign;
+
+        for(int stage = EvaluationParameters.MIDDLEGAME; stage <= EvaluationParameters.ENDGAME; stage++) {
+            material[stage] += colorSign * parameters.getMaterial(stage, type);
+            pieceSquare[stage] += colorSign * parameters.getPieceSquare(stage, type, color, index);
+        }
+
+        phase += sign * EvaluationParameters.getPhaseWeight(type);
+    }
+
+    /**
+     * @return The tapered score in centipawns from white's point of view
+     */
+    public int getScore() {
+        return taper(material[EvaluationParameters.MIDDLEGAME] + pieceSquare[EvaluationParameters.MIDDLEGAME],
+                material[EvaluationParameters.ENDGAME] + pieceSquare[EvaluationParameters.ENDGAME]);
+    }
+
+    /**
+     * @param color The side to score for
+     * @return The tapered score in centipawns from the given side's point of
+     *         view
+     */
+    public int getScore(boolean color) {
+        int score = getScore();
+
+        return color ? score : -score;
+    }
+
+    /**
+     * @return The tapered material balance from white's point of view
+     */
+    public int getMaterialScore() {
+        return taper(material[EvaluationParameters.MIDDLEGAME], material[EvaluationParameters.ENDGAME]);
+    }
+
+    /**
+     * @return The tapered piece-square balance from white's point of view
+     */
+    public int getPieceSquareScore() {
+        return taper(pieceSquare[EvaluationParameters.MIDDLEGAME], pieceSquare[EvaluationParameters.ENDGAME]);
+    }
+
+    /**
+     * @param stage MIDDLEGAME or ENDGAME
+     * @return The untapered material balance from white's point of view
+     */
+    public int getMaterial(int stage) {
+        return material[stage];
+    }
+
+    /**
+     * @param stage MIDDLEGAME or ENDGAME
+     * @return The untapered piece-square balance from white's point of view
+     */
+    public int getPieceSquare(int stage) {
+        return pieceSquare[stage];
+    }
+
+    /**
+     * @return The game phase, from MAX_PHASE at the start to 0 with only
+     *         kings and pawns left
+     */
+    public int getPhase() {
+        return Math.min(phase, EvaluationParameters.MAX_PHASE);
+    }
+
+    /**
+     * @return The weights being summed
+     */
+    public EvaluationParameters getParameters() {
+        return parameters;
+    }
+
+    /**
+     * Interpolates between a middlegame and an endgame value.
+     */
+    private int taper(int middlegame, int endgame) {
+        int currentPhase = getPhase();
+
+        return (middlegame * currentPhase + endgame * (EvaluationParameters.MAX_PHASE - currentPhase))
+                / EvaluationParameters.MAX_PHASE;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("material %d (mg %d, eg %d), piece-square %d (mg %d, eg %d), phase %d/%d, total %d",
+                getMaterialScore(), material[EvaluationParameters.MIDDLEGAME], material[EvaluationParameters.ENDGAME],
+                getPieceSquareScore(), pieceSquare[EvaluationParameters.MIDDLEGAME],
+                pieceSquare[EvaluationParameters.ENDGAME], getPhase(), EvaluationParameters.MAX_PHASE, getScore());
+    }
+}
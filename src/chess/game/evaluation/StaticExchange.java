@@ -0,0 +1,359 @@
+package chess.game.evaluation;
+
+import chess.game.Move;
+import chess.game.board.Board;
+import chess.game.board.BoardSnapshot;
+import chess.game.board.Position;
+import chess.pieces.PieceCode;
+import chess.pieces.PieceType;
+
+/**
+ * Static exchange evaluation: the material outcome of a sequence of
+ * captures on a single square, assuming each side always recaptures with
+ * its least valuable piece and may stop whenever continuing would lose.
+ *
+ * The evaluation works on piece codes and square masks only, so it is
+ * cheap enough for the search and can equally be run on a BoardSnapshot
+ * from the GUI.  Attacker sets are recalculated after each capture, so
+ * pieces lined up behind each other on a line (x-rays) join in as the
+ * pieces in front of them are exchanged.  Pins are not considered.
+ *
+ * This class is thread safe.
+ *
+ * @author CarrollFD
+ */
+public final class StaticExchange {
+    // exchange values indexed by piece type ordinal: king, queen, bishop,
+    // knight, rook, pawn
+    private static final int[] VALUES = { 20000, 900, 330, 320, 500, 100 };
+
+    // the piece types in order of value, least valuable first
+    private static final PieceType[] CAPTURE_ORDER = {
+        PieceType.pawn, PieceType.knight, PieceType.bishop, PieceType.rook, PieceType.queen, PieceType.king
+    };
+
+    // the longest possible exchange on one square
+    private static final int MAX_EXCHANGE = 32;
+
+    private static final int SQUARES = Board.BOARD_SIZE_X * Board.BOARD_SIZE_Y;
+
+    // masks of the squares a knight or king on each square attacks
+    private static final long[] KNIGHT_ATTACKS = new long[SQUARES];
+    private static final long[] KING_ATTACKS = new long[SQUARES];
+
+    // line directions as x, y steps
+    private static final int[][] STRAIGHT_DIRECTIONS = { { 1, 0 }, { -1, 0 }, { 0, 1 }, { 0, -1 } };
+    private static final int[][] DIAGONAL_DIRECTIONS = { { 1, 1 }, { 1, -1 }, { -1, 1 }, { -1, -1 } };
+
+    static {
+        int[][] knightSteps = { { 1, 2 }, { 2, 1 }, { 2, -1 }, { 1, -2 }, { -1, -2 }, { -2, -1 }, { -2, 1 }, { -1, 2 } };
+        int[][] kingSteps = { { 1, 0 }, { 1, 1 }, { 0, 1 }, { -1, 1 }, { -1, 0 }, { -1, -1 }, { 0, -1 }, { 1, -1 } };
+
+        for(int index = 0; index < SQUARES; index++) {
+            KNIGHT_ATTACKS[index] = stepMask(index, knightSteps);
+            KING_ATTACKS[index] = stepMask(index, kingSteps);
+        }
+    }
+
+    private StaticExchange() {
+    }
+
+    /**
+     * Evaluates the exchange started by a move.
+     *
+     * @param board The board the move is made on
+     * @param move The move, normally a capture
+     *
+     * @return The expected material gain for the mover in centipawns,
+     *         negative if the exchange loses material
+     */
+    public static int evaluate(Board board, Move move) {
+        byte[] codes = new byte[SQUARES];
+
+        for(int index = 0; index < SQUARES; index++) {
+            codes[index] = (byte)board.getPieceCode(index);
+        }
+
+        return evaluate(codes, move.getStartPosition().getIndex(), move.getEndPosition().getIndex());
+    }
+
+    /**
+     * Evaluates the exchange started by moving the piece on one square to
+     * another.
+     *
+     * @param snapshot The position
+     * @param from The square of the first capturing piece
+     * @param to The square being fought over
+     *
+     * @return The expected material gain for the first capturer in
+     *         centipawns, negative if the exchange loses material
+     */
+    public static int evaluate(BoardSnapshot snapshot, Position from, Position to) {
+        byte[] codes = new byte[SQUARES];
+
+        for(int index = 0; index < SQUARES; index++) {
+            codes[index] = (byte)snapshot.getPieceCode(index);
+        }
+
+        return evaluate(codes, from.getIndex(), to.getIndex());
+    }
+
+    /**
+     * Evaluates an exchange.
+     *
+     * @param codes The piece code on each square, indexed like
+     *              Position.getIndex(), which is not modified
+     * @param from The square of the first capturing piece
+     * @param to The square being fought over
+     *
+     * @return The expected material gain for the first capturer in
+     *         centipawns, negative if the exchange loses material
+     */
+    public static int evaluate(byte[] codes, int from, int to) {
+        int attackerCode = codes[from];
+
+        if(PieceCode.isEmpty(attackerCode)) {
+            throw new IllegalArgumentException("There is no piece to capture with.");
+        }
+
+        boolean side = PieceCode.getColor(attackerCode);
+        PieceType attacker = PieceCode.getType(attackerCode);
+        int[] gains = new int[MAX_EXCHANGE];
+
+        // a pawn moving diagonally onto an empty square captures en passant,
+        // the captured pawn is beside the target and never recaptures
+        int victimCode = codes[to];
+        long occupied = getOccupied(codes);
+        if(PieceCode.isEmpty(victimCode)) {
+            if(attacker == PieceType.pawn && from % Board.BOARD_SIZE_X != to % Board.BOARD_SIZE_X) {
+                gains[0] = VALUES[PieceType.pawn.ordinal()];
+                occupied &= ~(1L << (from - from % Board.BOARD_SIZE_X + to % Board.BOARD_SIZE_X));
+            }
+        } else {
+            gains[0] = VALUES[PieceCode.getType(victimCode).ordinal()];
+        }
+
+        int depth = 0;
+        long fromBit = 1L << from;
+
+        while(true) {
+            // the attacker leaves its square and now stands on the target
+            occupied &= ~fromBit;
+            side = !side;
+
+            long attackers = getAttackers(codes, occupied, to) & occupied;
+            fromBit = leastValuableAttacker(codes, attackers, side);
+
+            if(fromBit == 0 || depth + 1 >= MAX_EXCHANGE) {
+                break;
+            }
+
+            // a king may not capture into a defended square
+            if(attacker == PieceType.king) {
+                break;
+            }
+
+            depth++;
+            gains[depth] = VALUES[attacker.ordinal()] - gains[depth - 1];
+            attacker = PieceCode.getType(codes[Long.numberOfTrailingZeros(fromBit)]);
+
+            // a king capturing into a square still attacked is illegal
+            if(attacker == PieceType.king) {
+                long remaining = getAttackers(codes, occupied & ~fromBit, to) & occupied & ~fromBit;
+
+                if(leastValuableAttacker(codes, remaining, !side) != 0) {
+                    depth--;
+                    break;
+                }
+            }
+        }
+
+        // each side may decline to continue the exchange
+        while(depth > 0) {
+            gains[depth - 1] = -Math.max(-gains[depth - 1], gains[depth]);
+            depth--;
+        }
+
+        return gains[0];
+    }
+
+    /**
+     * Provides every piece, of either color, attacking a square.
+     *
+     * @param codes The piece code on each square, indexed like
+     *              Position.getIndex()
+     * @param occupied The mask of squares to treat as occupied, pieces not
+     *                 in the mask neither attack nor block
+     * @param square The square being attacked
+     *
+     * @return The mask of the attacking pieces' squares
+     */
+    public static long getAttackers(byte[] codes, long occupied, int square) {
+        long attackers = 0;
+
+        attackers |= KNIGHT_ATTACKS[square] & typeMask(codes, occupied, PieceType.knight);
+        attackers |= KING_ATTACKS[square] & typeMask(codes, occupied, PieceType.king);
+
+        // pawns attack diagonally forwards, white towards row 0
+        int x = square % Board.BOARD_SIZE_X;
+        int y = square / Board.BOARD_SIZE_X;
+        for(int dx = -1; dx <= 1; dx += 2) {
+            attackers |= pawnAttacker(codes, occupied, x + dx, y + 1, true);
+            attackers |= pawnAttacker(codes, occupied, x + dx, y - 1, false);
+        }
+
+        attackers |= slidingAttackers(codes, occupied, square, STRAIGHT_DIRECTIONS, PieceType.rook);
+        attackers |= slidingAttackers(codes, occupied, square, DIAGONAL_DIRECTIONS, PieceType.bishop);
+
+        return attackers;
+    }
+
+    /**
+     * Provides every piece of one color attacking a square on a board.
+     *
+     * @param board The board
+     * @param square The square being attacked
+     * @param color The color of the attackers
+     *
+     * @return The mask of the attacking pieces' squares
+     */
+    public static long getAttackers(Board board, Position square, boolean color) {
+        byte[] codes = new byte[SQUARES];
+
+        for(int index = 0; index < SQUARES; index++) {
+            codes[index] = (byte)board.getPieceCode(index);
+        }
+
+        return getAttackers(codes, board.getOccupancy(true) | board.getOccupancy(false), square.getIndex())
+                & board.getOccupancy(color);
+    }
+
+    /**
+     * @param type A piece type
+     * @return The value of the piece used in exchanges
+     */
+    public static int getValue(PieceType type) {
+        return VALUES[type.ordinal()];
+    }
+
+    /**
+     * Finds the least valuable of a set of attackers of one color.
+     *
+     * @return The attacker's square as a single bit mask, or 0 if there is
+     *         none
+     */
+    private static long leastValuableAttacker(byte[] codes, long attackers, boolean color) {
+        for(PieceType type : CAPTURE_ORDER) {
+            int code = PieceCode.encode(type, color);
+
+            for(long remaining = attackers; remaining != 0; remaining &= remaining - 1) {
+                int index = Long.numberOfTrailingZeros(remaining);
+
+                if(codes[index] == code) {
+                    return 1L << index;
+                }
+            }
+        }
+
+        return 0;
+    }
+
+    /**
+     * Provides the squares of the occupied pieces of a type, of either color.
+     */
+    private static long typeMask(byte[] codes, long occupied, PieceType type) {
+        long mask = 0;
+
+        for(long remaining = occupied; remaining != 0; remaining &= remaining - 1) {
+            int index = Long.numberOfTrailingZeros(remaining);
+
+            if(!PieceCode.isEmpty(codes[index]) && PieceCode.getType(codes[index]) == type) {
+                mask |= 1L << index;
+            }
+        }
+
+        return mask;
+    }
+
+    /**
+     * Provides the square of a pawn of the given color, if one stands on x, y.
+     */
+    private static long pawnAttacker(byte[] codes, long occupied, int x, int y, boolean color) {
+        if(x < 0 || x >= Board.BOARD_SIZE_X || y < 0 || y >= Board.BOARD_SIZE_Y) {
+            return 0;
+        }
+
+        int index = y * Board.BOARD_SIZE_X + x;
+
+        if((occupied & (1L << index)) != 0 && codes[index] == PieceCode.encode(PieceType.pawn, color)) {
+            return 1L << index;
+        }
+
+        return 0;
+    }
+
+    /**
+     * Walks each direction from a square to the first occupied square and
+     * includes the piece there if it moves along that kind of line.
+     */
+    private static long slidingAttackers(byte[] codes, long occupied, int square, int[][] directions,
+            PieceType lineType) {
+        long attackers = 0;
+
+        for(int[] direction : directions) {
+            int x = square % Board.BOARD_SIZE_X + direction[0];
+            int y = square / Board.BOARD_SIZE_X + direction[1];
+
+            while(x >= 0 && x < Board.BOARD_SIZE_X && y >= 0 && y < Board.BOARD_SIZE_Y) {
+                int index = y * Board.BOARD_SIZE_X + x;
+
+                if((occupied & (1L << index)) != 0) {
+                    PieceType type = PieceCode.getType(codes[index]);
+
+                    if(type == lineType || type == PieceType.queen) {
+                        attackers |= 1L << index;
+                    }
+                    break;
+                }
+
+                x += direction[0];
+                y += direction[1];
+            }
+        }
+
+        return attackers;
+    }
+
+    /**
+     * Builds the mask of squares reached by single steps from a square.
+     */
+    private static long stepMask(int index, int[][] steps) {
+        long mask = 0;
+
+        for(int[] step : steps) {
+            int x = index % Board.BOARD_SIZE_X + step[0];
+            int y = index / Board.BOARD_SIZE_X + step[1];
+
+            if(x >= 0 && x < Board.BOARD_SIZE_X && y >= 0 && y < Board.BOARD_SIZE_Y) {
+                mask |= 1L << (y * Board.BOARD_SIZE_X + x);
+            }
+        }
+
+        return mask;
+    }
+
+    /**
+     * Builds the mask of occupied squares from the piece codes.
+     */
+    private static long getOccupied(byte[] codes) {
+        long occupied = 0;
+
+        for(int index = 0; index < codes.length; index++) {
+            if(!PieceCode.isEmpty(codes[index])) {
+                occupied |= 1L << index;
+            }
+        }
+
+        return occupied;
+    }
+}
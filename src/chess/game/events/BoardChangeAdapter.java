@@ -0,0 +1,25 @@
+package chess.game.events;
+
+/**
+ * An empty implementation of BoardChangeListener, so that listeners only
+ * interested in some of the events need not implement every method.
+ *
+ * @author CarrollFD
+ */
+public abstract class BoardChangeAdapter implements BoardChangeListener {
+    @Override
+    public void pieceMoved(PieceMovedEvent event) {
+    }
+
+    @Override
+    public void pieceCaptured(PieceCapturedEvent event) {
+    }
+
+    @Override
+    public void checkStateChanged(CheckStateChangedEvent event) {
+    }
+
+    @Override
+    public void gameOver(GameOverEvent event) {
+    }
+}
@@ -0,0 +1,45 @@
+package chess.game.events;
+
+import chess.game.board.Position;
+
+import java.util.List;
+
+/**
+ * Base class for the change events published by the board.  Events are
+ * immutable, and carry only the squares affected by the change so that
+ * listeners can update incrementally instead of re-reading the whole board.
+ *
+ * @author CarrollFD
+ */
+public abstract class BoardChangeEvent {
+    // the index of the move that caused this change, starting at 0
+    private final int ply;
+
+    /**
+     * Constructs a new event
+     *
+     * @param ply The index of the move that caused the change
+     */
+    protected BoardChangeEvent(int ply) {
+        this.ply = ply;
+    }
+
+    /**
+     * @return The index of the move that caused this change, starting at 0
+     */
+    public int getPly() {
+        return ply;
+    }
+
+    /**
+     * @return The squares whose contents or state changed
+     */
+    public abstract List<Position> getAffectedPositions();
+
+    /**
+     * Dispatches this event to the matching listener method.
+     *
+     * @param listener The listener to notify
+     */
+    public abstract void dispatch(BoardChangeListener listener);
+}
@@ -0,0 +1,38 @@
+package chess.game.events;
+
+/**
+ * Receives the changes made to a board.  Listeners are notified on the
+ * thread that performed the move, after the board has been updated.
+ *
+ * @author CarrollFD
+ */
+public interface BoardChangeListener {
+    /**
+     * Informs the listener that a piece has moved.
+     *
+     * @param event The move event
+     */
+    public void pieceMoved(PieceMovedEvent event);
+
+    /**
+     * Informs the listener that a piece has been captured.  This is sent
+     * before the capturing piece's move event.
+     *
+     * @param event The capture event
+     */
+    public void pieceCaptured(PieceCapturedEvent event);
+
+    /**
+     * Informs the listener that the color in check has changed.
+     *
+     * @param event The check event
+     */
+    public void checkStateChanged(CheckStateChangedEvent event);
+
+    /**
+     * Informs the listener that the game has ended.
+     *
+     * @param event The game over event
+     */
+    public void gameOver(GameOverEvent event);
+}
@@ -0,0 +1,65 @@
+package chess.game.events;
+
+import chess.game.board.ColorInCheck;
+import chess.game.board.Position;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Published when the color in check changes.  The affected positions are
+ * the squares of the kings entering or leaving check.
+ *
+ * @author CarrollFD
+ */
+public class CheckStateChangedEvent extends BoardChangeEvent {
+    private final ColorInCheck previousColorInCheck;
+    private final ColorInCheck colorInCheck;
+    private final List<Position> kingPositions;
+
+    /**
+     * Constructs a new check event
+     *
+     * @param ply The index of the move
+     * @param previousColorInCheck The color in check before the move
+     * @param colorInCheck The color in check after the move
+     * @param kingPositions The positions of the kings whose state changed
+     */
+    public CheckStateChangedEvent(int ply, ColorInCheck previousColorInCheck, ColorInCheck colorInCheck,
+            List<Position> kingPositions) {
+        super(ply);
+        this.previousColorInCheck = previousColorInCheck;
+        this.colorInCheck = colorInCheck;
+
+        List<Position> positions = new ArrayList<>();
+        for(Position position : kingPositions) {
+            positions.add(new Position(position));
+        }
+        this.kingPositions = Collections.unmodifiableList(positions);
+    }
+
+    /**
+     * @return The color in check before the move
+     */
+    public ColorInCheck getPreviousColorInCheck() {
+        return previousColorInCheck;
+    }
+
+    /**
+     * @return The color in check after the move
+     */
+    public ColorInCheck getColorInCheck() {
+        return colorInCheck;
+    }
+
+    @Override
+    public List<Position> getAffectedPositions() {
+        return kingPositions;
+    }
+
+    @Override
+    public void dispatch(BoardChangeListener listener) {
+        listener.checkStateChanged(this);
+    }
+}
@@ -0,0 +1,44 @@
+package chess.game.events;
+
+import chess.game.GameResult;
+import chess.game.board.Position;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Published when the player to move has no legal moves left.
+ *
+ * @author CarrollFD
+ */
+public class GameOverEvent extends BoardChangeEvent {
+    private final GameResult result;
+
+    /**
+     * Constructs a new game over event
+     *
+     * @param ply The index of the final move
+     * @param result The result of the game
+     */
+    public GameOverEvent(int ply, GameResult result) {
+        super(ply);
+        this.result = result;
+    }
+
+    /**
+     * @return The result of the game
+     */
+    public GameResult getResult() {
+        return result;
+    }
+
+    @Override
+    public List<Position> getAffectedPositions() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public void dispatch(BoardChangeListener listener) {
+        listener.gameOver(this);
+    }
+}
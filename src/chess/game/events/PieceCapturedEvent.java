@@ -0,0 +1,66 @@
+package chess.game.events;
+
+import chess.game.board.Position;
+import chess.pieces.PieceType;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Published when a piece is captured.  The position is the square the
+ * captured piece stood on, which differs from the capturing piece's
+ * destination for an en passant.
+ *
+ * @author CarrollFD
+ */
+public class PieceCapturedEvent extends BoardChangeEvent {
+    private final PieceType type;
+    private final boolean color;
+    private final Position position;
+
+    /**
+     * Constructs a new capture event
+     *
+     * @param ply The index of the move
+     * @param type The type of the captured piece
+     * @param color The color of the captured piece
+     * @param position The position of the captured piece
+     */
+    public PieceCapturedEvent(int ply, PieceType type, boolean color, Position position) {
+        super(ply);
+        this.type = type;
+        this.color = color;
+        this.position = new Position(position);
+    }
+
+    /**
+     * @return The type of the captured piece
+     */
+    public PieceType getType() {
+        return type;
+    }
+
+    /**
+     * @return The color of the captured piece
+     */
+    public boolean getColor() {
+        return color;
+    }
+
+    /**
+     * @return The position the captured piece stood on
+     */
+    public Position getPosition() {
+        return position;
+    }
+
+    @Override
+    public List<Position> getAffectedPositions() {
+        return Collections.singletonList(position);
+    }
+
+    @Override
+    public void dispatch(BoardChangeListener listener) {
+        listener.pieceCaptured(this);
+    }
+}
@@ -0,0 +1,75 @@
+package chess.game.events;
+
+import chess.game.board.Position;
+import chess.pieces.PieceType;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Published when a piece moves from one square to another.
+ *
+ * @author CarrollFD
+ */
+public class PieceMovedEvent extends BoardChangeEvent {
+    private final PieceType type;
+    private final boolean color;
+    private final Position startPosition;
+    private final Position endPosition;
+
+    /**
+     * Constructs a new move event
+     *
+     * @param ply The index of the move
+     * @param type The type of the piece that moved
+     * @param color The color of the piece that moved
+     * @param startPosition The starting position of the piece
+     * @param endPosition The ending position of the piece
+     */
+    public PieceMovedEvent(int ply, PieceType type, boolean color, Position startPosition, Position endPosition) {
+        super(ply);
+        this.type = type;
+        this.color = color;
+        this.startPosition = new Position(startPosition);
+        this.endPosition = new Position(endPosition);
+    }
+
+    /**
+     * @return The type of the piece that moved
+     */
+    public PieceType getType() {
+        return type;
+    }
+
+    /**
+     * @return The color of the piece that moved
+     */
+    public boolean getColor() {
+        return color;
+    }
+
+    /**
+     * @return The starting position of the piece
+     */
+    public Position getStartPosition() {
+        return startPosition;
+    }
+
+    /**
+     * @return The ending position of the piece
+     */
+    public Position getEndPosition() {
+        return endPosition;
+    }
+
+    @Override
+    public List<Position> getAffectedPositions() {
+        return Collections.unmodifiableList(Arrays.asList(startPosition, endPosition));
+    }
+
+    @Override
+    public void dispatch(BoardChangeListener listener) {
+        listener.pieceMoved(this);
+    }
+}
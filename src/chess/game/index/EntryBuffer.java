@@ -0,0 +1,84 @@
+package chess.game.index;
+
+import chess.io.IndexedSort;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Index entries collected in memory: a key, and a game id and ply packed as
+ * gameId << 16 | ply.
+ *
+ * @author CarrollFD
+ */
+class EntryBuffer implements IndexedSort.Sortable {
+    private long[] keys;
+    private long[] values;
+    private int size;
+
+    EntryBuffer(int capacity) {
+        keys = new long[Math.max(16, capacity)];
+        values = new long[keys.length];
+    }
+
+    int size() {
+        return size;
+    }
+
+    void add(long key, int gameId, int ply) {
+        if(size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            values = Arrays.copyOf(values, keys.length);
+        }
+
+        keys[size] = key;
+        values[size++] = (long)gameId << 16 | ply;
+    }
+
+    void addAll(EntryBuffer other) {
+        for(int i = 0; i < other.size; i++) {
+            add(other.keys[i], (int)(other.values[i] >>> 16), (int)other.values[i] & 0xFFFF);
+        }
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    /**
+     * Writes the entries in the layout of PositionIndex.
+     */
+    void write(DataOutputStream out) throws IOException {
+        for(int i = 0; i < size; i++) {
+            out.writeLong(keys[i]);
+            out.writeInt((int)(values[i] >>> 16));
+            out.writeShort((int)values[i]);
+        }
+    }
+
+    /**
+     * Sorts by unsigned key, then by game id and ply.
+     */
+    void sort() {
+        IndexedSort.sort(this, size);
+    }
+
+    @Override
+    public int compare(int a, int b) {
+        int result = Long.compareUnsigned(keys[a], keys[b]);
+
+        return result != 0 ? result : Long.compare(values[a], values[b]);
+    }
+
+    @Override
+    public void swap(int a, int b) {
+        long key = keys[a];
+        keys[a] = keys[b];
+        keys[b] = key;
+
+        long value = values[a];
+        values[a] = values[b];
+        values[b] = value;
+    }
+}
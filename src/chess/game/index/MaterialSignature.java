@@ -0,0 +1,114 @@
+package chess.game.index;
+
+import chess.game.board.Board;
+import chess.pieces.PieceCode;
+import chess.pieces.PieceType;
+
+/**
+ * The material on a board packed into a long: four bits holding the count
+ * of each piece code, at bit PieceCode * 4.  Positions with the same
+ * pieces, wherever they stand, have the same signature.
+ *
+ * Signatures are named by each side's pieces, white first, such as
+ * "KRPvKR".
+ *
+ * @author CarrollFD
+ */
+public final class MaterialSignature {
+    // the order of the pieces in a name, and their letters
+    private static final PieceType[] ORDER = {
+        PieceType.king, PieceType.queen, PieceType.rook, PieceType.bishop, PieceType.knight, PieceType.pawn
+    };
+    private static final String LETTERS = "KQRBNP";
+
+    // the most pieces of one code a signature can count
+    private static final int MAX_COUNT = 15;
+
+    private MaterialSignature() {
+    }
+
+    /**
+     * @param board The board
+     * @return The signature of the pieces on the board
+     */
+    public static long of(Board board) {
+        long occupied = board.getOccupancy(true) | board.getOccupancy(false);
+        long signature = 0;
+
+        for(; occupied != 0; occupied &= occupied - 1) {
+            signature += 1L << (board.getPieceCode(Long.numberOfTrailingZeros(occupied)) << 2);
+        }
+
+        return signature;
+    }
+
+    /**
+     * @param signature A signature
+     * @return The signature with the colors of the pieces swapped
+     */
+    public static long swapColors(long signature) {
+        // black codes are white codes plus 8, so 32 bits further up
+        return signature >>> 32 | signature << 32;
+    }
+
+    /**
+     * Provides the signature of a name.
+     *
+     * @param name The name, such as "KRPvKR"
+     *
+     * @return The signature
+     */
+    public static long parse(String name) {
+        int separator = name.indexOf('v');
+
+        if(separator < 0 || name.indexOf('v', separator + 1) >= 0) {
+            throw new IllegalArgumentException("Invalid material: " + name);
+        }
+
+        long signature = 0;
+
+        for(int i = 0; i < name.length(); i++) {
+            int letter = LETTERS.indexOf(name.charAt(i));
+
+            if(i == separator) {
+                continue;
+            } else if(letter < 0) {
+                throw new IllegalArgumentException("Invalid material: " + name);
+            }
+
+            int shift = PieceCode.encode(ORDER[letter], i < separator) << 2;
+
+            if((signature >>> shift & 15) == MAX_COUNT) {
+                throw new IllegalArgumentException("Too many pieces: " + name);
+            }
+
+            signature += 1L << shift;
+        }
+
+        return signature;
+    }
+
+    /**
+     * @param signature A signature
+     * @return The signature's name, such as "KRPvKR"
+     */
+    public static String format(long signature) {
+        StringBuilder name = new StringBuilder();
+
+        for(boolean color : new boolean[] { true, false }) {
+            if(!color) {
+                name.append('v');
+            }
+
+            for(int i = 0; i < ORDER.length; i++) {
+                long count = signature >>> (PieceCode.encode(ORDER[i], color) << 2) & 15;
+
+                for(long j = 0; j < count; j++) {
+                    name.append(LETTERS.charAt(i));
+                }
+            }
+        }
+
+        return name.toString();
+    }
+}
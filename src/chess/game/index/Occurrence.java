@@ -0,0 +1,54 @@
+package chess.game.index;
+
+/**
+ * A place in a stored game: the game's id, and the number of moves played
+ * before the position, 0 for the starting position.
+ *
+ * @author CarrollFD
+ */
+public class Occurrence implements Comparable<Occurrence> {
+    private final int gameId;
+    private final int ply;
+
+    public Occurrence(int gameId, int ply) {
+        this.gameId = gameId;
+        this.ply = ply;
+    }
+
+    /**
+     * @return The id of the game
+     */
+    public int getGameId() {
+        return gameId;
+    }
+
+    /**
+     * @return The number of moves played before the position
+     */
+    public int getPly() {
+        return ply;
+    }
+
+    @Override
+    public int compareTo(Occurrence other) {
+        int result = Integer.compare(gameId, other.gameId);
+
+        return result != 0 ? result : Integer.compare(ply, other.ply);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof Occurrence && ((Occurrence)other).gameId == gameId
+                && ((Occurrence)other).ply == ply;
+    }
+
+    @Override
+    public int hashCode() {
+        return gameId * 31 + ply;
+    }
+
+    @Override
+    public String toString() {
+        return gameId + ":" + ply;
+    }
+}
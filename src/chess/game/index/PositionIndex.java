@@ -0,0 +1,195 @@
+package chess.game.index;
+
+import chess.game.Game;
+import chess.io.MappedEntryFile;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An index of the positions of stored games, read through memory mappings
+ * of its segment files.  Finds the games that reached a position, by its
+ * Game.getHashKey(), and the games that reached a material balance, by its
+ * MaterialSignature.
+ *
+ * The index is a directory of segments, each written by
+ * PositionIndexWriter from one batch of games.  A segment is a pair of
+ * files of 14 byte big endian entries sorted by key: a 64 bit key, a 32 bit
+ * game id and a 16 bit ply.  The ".pos" file is keyed by position and holds
+ * every position of every game.  The ".mat" file is keyed by material
+ * signature and holds the ply at which each game reached each of its
+ * material balances.
+ *
+ * This class is thread safe.
+ *
+ * @author CarrollFD
+ */
+public class PositionIndex implements Closeable {
+    // the layout of an entry
+    public static final int ENTRY_SIZE = 14;
+    public static final int KEY_OFFSET = 0;
+    public static final int GAME_OFFSET = 8;
+    public static final int PLY_OFFSET = 12;
+
+    // the extensions of the segment files
+    public static final String POSITION_EXTENSION = ".pos";
+    public static final String MATERIAL_EXTENSION = ".mat";
+
+    private final Path directory;
+
+    // the open segment files by path, replaced as a whole by refresh()
+    private volatile Map<Path, MappedEntryFile> positionSegments = Collections.emptyMap();
+    private volatile Map<Path, MappedEntryFile> materialSegments = Collections.emptyMap();
+
+    /**
+     * Opens the segments in a directory.
+     *
+     * @param directory The index directory
+     */
+    public PositionIndex(Path directory) throws IOException {
+        this.directory = directory;
+        refresh();
+    }
+
+    /**
+     * Opens segments written since the index was opened, and closes those
+     * removed by compaction.
+     */
+    public synchronized void refresh() throws IOException {
+        positionSegments = refresh(positionSegments, POSITION_EXTENSION);
+        materialSegments = refresh(materialSegments, MATERIAL_EXTENSION);
+    }
+
+    private Map<Path, MappedEntryFile> refresh(Map<Path, MappedEntryFile> segments, String extension)
+            throws IOException {
+        Map<Path, MappedEntryFile> refreshed = new HashMap<>();
+
+        try(DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + extension)) {
+            for(Path file : files) {
+                MappedEntryFile segment = segments.get(file);
+                refreshed.put(file, segment != null ? segment : new MappedEntryFile(file, ENTRY_SIZE));
+            }
+        }
+
+        // the mappings stay valid for queries still reading them
+        for(Map.Entry<Path, MappedEntryFile> entry : segments.entrySet()) {
+            if(!refreshed.containsKey(entry.getKey())) {
+                entry.getValue().close();
+            }
+        }
+
+        return Collections.unmodifiableMap(refreshed);
+    }
+
+    /**
+     * @return The number of segments
+     */
+    public int getSegmentCount() {
+        return positionSegments.size();
+    }
+
+    /**
+     * @return The number of positions indexed
+     */
+    public long getPositionCount() {
+        long count = 0;
+
+        for(MappedEntryFile segment : positionSegments.values()) {
+            count += segment.size();
+        }
+
+        return count;
+    }
+
+    /**
+     * Finds the stored games that reached a game's current position.
+     *
+     * @param game The game
+     *
+     * @return Each place the position occurs, by game id then ply
+     */
+    public List<Occurrence> findPositions(Game game) {
+        return findPositions(game.getHashKey());
+    }
+
+    /**
+     * Finds the stored games that reached a position.
+     *
+     * @param hashKey The position's Game.getHashKey()
+     *
+     * @return Each place the position occurs, by game id then ply
+     */
+    public List<Occurrence> findPositions(long hashKey) {
+        return find(positionSegments, hashKey);
+    }
+
+    /**
+     * Finds the stored games that reached a material balance.
+     *
+     * @param name The material's name, such as "KRPvKR"
+     *
+     * @return The first ply of each stretch of each game with the
+     *         material, by game id then ply
+     */
+    public List<Occurrence> findMaterial(String name) {
+        return findMaterial(MaterialSignature.parse(name));
+    }
+
+    /**
+     * Finds the stored games that reached a material balance.
+     *
+     * @param signature The material's signature
+     *
+     * @return The first ply of each stretch of each game with the
+     *         material, by game id then ply
+     */
+    public List<Occurrence> findMaterial(long signature) {
+        return find(materialSegments, signature);
+    }
+
+    private static List<Occurrence> find(Map<Path, MappedEntryFile> segments, long key) {
+        List<Occurrence> occurrences = new ArrayList<>();
+
+        for(MappedEntryFile segment : segments.values()) {
+            for(long entry = segment.findFirst(key); entry < segment.size() && segment.getKey(entry) == key;
+                    entry++) {
+                occurrences.add(new Occurrence(segment.getInt(entry, GAME_OFFSET),
+                        segment.getShort(entry, PLY_OFFSET)));
+            }
+        }
+
+        Collections.sort(occurrences);
+
+        // a segment and its compacted copy may both be open for a moment
+        int size = 0;
+        for(int i = 0; i < occurrences.size(); i++) {
+            if(size == 0 || !occurrences.get(i).equals(occurrences.get(size - 1))) {
+                occurrences.set(size++, occurrences.get(i));
+            }
+        }
+
+        return occurrences.subList(0, size);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        for(MappedEntryFile segment : positionSegments.values()) {
+            segment.close();
+        }
+
+        for(MappedEntryFile segment : materialSegments.values()) {
+            segment.close();
+        }
+
+        positionSegments = Collections.emptyMap();
+        materialSegments = Collections.emptyMap();
+    }
+}
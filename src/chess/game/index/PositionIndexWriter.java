@@ -0,0 +1,317 @@
+package chess.game.index;
+
+import chess.game.Game;
+import chess.game.Move;
+import chess.io.MappedEntryFile;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Adds games to a PositionIndex.  Each game is replayed through Board, and
+ * its entries are collected in memory until a batch is full, when the
+ * batch is sorted and written as a new segment.  Segments are written
+ * under a temporary name and renamed when complete, so readers never see a
+ * partial segment.  compact() merges the segments into one, keeping
+ * queries to a single binary search per kind.
+ *
+ * Games may be added from several threads.  Only one writer should add to
+ * a directory at a time.
+ *
+ * @author CarrollFD
+ */
+public class PositionIndexWriter implements Closeable {
+    // the entries collected before a segment is written
+    public static final int DEFAULT_BATCH_SIZE = 1 << 20;
+
+    // the longest game the ply field holds
+    private static final int MAX_PLY = 0xFFFF;
+
+    private final Path directory;
+    private final int batchSize;
+    private final EntryBuffer positions;
+    private final EntryBuffer materials;
+    private int nextSegment;
+
+    /**
+     * Opens an index directory for adding games, creating it if needed.
+     *
+     * @param directory The index directory
+     * @param batchSize The position entries collected before a segment is
+     *                  written
+     */
+    public PositionIndexWriter(Path directory, int batchSize) throws IOException {
+        this.directory = directory;
+        this.batchSize = batchSize;
+        positions = new EntryBuffer(batchSize);
+        materials = new EntryBuffer(batchSize / 16);
+
+        Files.createDirectories(directory);
+
+        for(Path segment : listSegments(PositionIndex.POSITION_EXTENSION)) {
+            nextSegment = Math.max(nextSegment, getSegmentNumber(segment) + 1);
+        }
+        for(Path segment : listSegments(PositionIndex.MATERIAL_EXTENSION)) {
+            nextSegment = Math.max(nextSegment, getSegmentNumber(segment) + 1);
+        }
+    }
+
+    /**
+     * Adds a game, replaying its move list from the starting position.
+     *
+     * @param gameId The id of the game, not negative
+     * @param game The game
+     *
+     * @throws IllegalArgumentException If a move is refused, or the game
+     *         was set up from another position
+     */
+    public void add(int gameId, Game game) throws IOException {
+        if(game.isSetUp()) {
+            throw new IllegalArgumentException("Game " + gameId + " was set up from a position.");
+        }
+
+        add(gameId, game.getMoveList());
+    }
+
+    /**
+     * Adds a game, replaying its moves from the starting position.  Only
+     * the squares of each move are used.  If a move is refused, the
+     * positions before it are still added.
+     *
+     * @param gameId The id of the game, not negative
+     * @param moves The moves of the game
+     *
+     * @throws IllegalArgumentException If a move is refused
+     */
+    public void add(int gameId, List<Move> moves) throws IOException {
+        if(gameId < 0) {
+            throw new IllegalArgumentException("Negative game id: " + gameId);
+        } else if(moves.size() > MAX_PLY) {
+            throw new IllegalArgumentException("Game too long: " + moves.size() + " plies");
+        }
+
+        // replay outside the lock, so several threads can add at once
+        EntryBuffer gamePositions = new EntryBuffer(moves.size() + 1);
+        EntryBuffer gameMaterials = new EntryBuffer(8);
+        Game game = new Game();
+        long material = 0;
+        String refusal = null;
+
+        for(int ply = 0; ; ply++) {
+            long signature = MaterialSignature.of(game.getBoard());
+
+            gamePositions.add(game.getHashKey(), gameId, ply);
+
+            // only the first ply of each material balance is kept
+            if(signature != material) {
+                gameMaterials.add(signature, gameId, ply);
+                material = signature;
+            }
+
+            if(ply == moves.size()) {
+                break;
+            }
+
+            Move move = moves.get(ply);
+
+            if(!game.requestMove(move.getStartPosition(), move.getEndPosition())) {
+                refusal = "Move " + (ply + 1) + " of game " + gameId + " refused: " + game.getBoard().getMoveError();
+                break;
+            }
+        }
+
+        synchronized(this) {
+            positions.addAll(gamePositions);
+            materials.addAll(gameMaterials);
+
+            if(positions.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        if(refusal != null) {
+            throw new IllegalArgumentException(refusal);
+        }
+    }
+
+    /**
+     * Writes the games added since the last segment as a new segment.
+     */
+    public synchronized void flush() throws IOException {
+        if(positions.size() == 0) {
+            return;
+        }
+
+        int segment = nextSegment++;
+
+        positions.sort();
+        materials.sort();
+
+        writeSegment(materials, getSegmentPath(segment, PositionIndex.MATERIAL_EXTENSION));
+        writeSegment(positions, getSegmentPath(segment, PositionIndex.POSITION_EXTENSION));
+
+        positions.clear();
+        materials.clear();
+    }
+
+    /**
+     * Flushes, then merges every segment into a single segment.  Readers
+     * pick up the merged segment on PositionIndex.refresh().
+     */
+    public synchronized void compact() throws IOException {
+        flush();
+
+        List<Path> positionFiles = listSegments(PositionIndex.POSITION_EXTENSION);
+        List<Path> materialFiles = listSegments(PositionIndex.MATERIAL_EXTENSION);
+
+        if(positionFiles.size() <= 1 && materialFiles.size() <= 1) {
+            return;
+        }
+
+        int segment = nextSegment++;
+
+        mergeSegments(materialFiles, getSegmentPath(segment, PositionIndex.MATERIAL_EXTENSION));
+        mergeSegments(positionFiles, getSegmentPath(segment, PositionIndex.POSITION_EXTENSION));
+
+        for(Path file : positionFiles) {
+            Files.delete(file);
+        }
+        for(Path file : materialFiles) {
+            Files.delete(file);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+    }
+
+    private List<Path> listSegments(String extension) throws IOException {
+        List<Path> segments = new ArrayList<>();
+
+        try(DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + extension)) {
+            for(Path file : files) {
+                segments.add(file);
+            }
+        }
+
+        return segments;
+    }
+
+    private Path getSegmentPath(int segment, String extension) {
+        return directory.resolve(String.format("%08d%s", segment, extension));
+    }
+
+    private static int getSegmentNumber(Path segment) {
+        String name = segment.getFileName().toString();
+
+        try {
+            return Integer.parseInt(name.substring(0, name.indexOf('.')));
+        } catch(NumberFormatException e) {
+            // not written by this class
+            return -1;
+        }
+    }
+
+    private static void writeSegment(EntryBuffer entries, Path path) throws IOException {
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+
+        try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp),
+                1 << 16))) {
+            entries.write(out);
+        }
+
+        Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Merges sorted segment files into one, dropping duplicate entries.
+     */
+    private static void mergeSegments(List<Path> inputs, Path path) throws IOException {
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        PriorityQueue<SegmentCursor> cursors = new PriorityQueue<>();
+        List<MappedEntryFile> files = new ArrayList<>();
+
+        try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp),
+                1 << 16))) {
+            for(Path input : inputs) {
+                MappedEntryFile file = new MappedEntryFile(input, PositionIndex.ENTRY_SIZE);
+                files.add(file);
+
+                SegmentCursor cursor = new SegmentCursor(file);
+                if(cursor.next()) {
+                    cursors.add(cursor);
+                }
+            }
+
+            boolean written = false;
+            long key = 0;
+            long value = 0;
+
+            while(!cursors.isEmpty()) {
+                SegmentCursor cursor = cursors.poll();
+
+                if(!written || cursor.key != key || cursor.value != value) {
+                    written = true;
+                    key = cursor.key;
+                    value = cursor.value;
+
+                    out.writeLong(key);
+                    out.writeInt((int)(value >>> 16));
+                    out.writeShort((int)value);
+                }
+
+                if(cursor.next()) {
+                    cursors.add(cursor);
+                }
+            }
+        } finally {
+            for(MappedEntryFile file : files) {
+                file.close();
+            }
+        }
+
+        Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads the entries of a segment in order, for merging.
+     */
+    private static class SegmentCursor implements Comparable<SegmentCursor> {
+        private final MappedEntryFile file;
+        private long entry = -1;
+        long key;
+        long value;
+
+        SegmentCursor(MappedEntryFile file) {
+            this.file = file;
+        }
+
+        boolean next() {
+            if(++entry >= file.size()) {
+                return false;
+            }
+
+            key = file.getKey(entry);
+            value = (long)file.getInt(entry, PositionIndex.GAME_OFFSET) << 16
+                    | file.getShort(entry, PositionIndex.PLY_OFFSET);
+            return true;
+        }
+
+        @Override
+        public int compareTo(SegmentCursor other) {
+            int result = Long.compareUnsigned(key, other.key);
+
+            return result != 0 ? result : Long.compare(value, other.value);
+        }
+    }
+}
@@ -0,0 +1,828 @@
+package chess.game.journal;
+
+import chess.game.Game;
+import chess.game.Move;
+import chess.game.board.Position;
+import chess.game.events.BoardChangeAdapter;
+import chess.game.events.PieceMovedEvent;
+import chess.game.store.GameStoreListener;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * A write ahead journal of the moves of live games, so the games survive
+ * the process ending.
+ *
+ * Registered games are followed through their change listeners, and each
+ * move accepted by Board is appended to an in memory buffer, so making a
+ * move never waits for the disk.  A committer thread writes whatever has
+ * been buffered as one frame and forces it to storage, so a single fsync
+ * covers every move made by every game while the previous one ran.
+ * sync() waits until the moves made so far are durable.
+ *
+ * The journal is a directory of log segments and snapshots.  Every so many
+ * moves the committer writes a snapshot of every live game's moves, starts
+ * a new segment and deletes the segments the snapshot covers, so recovery
+ * reads one snapshot and the moves since.  Opening a journal recovers the
+ * moves of every game without replaying them; games are rebuilt through
+ * Board when first asked for by getGame(...), or all at once by
+ * recoverGames(...).
+ *
+ * A log segment is a series of frames: a 32 bit length, the CRC32 of the
+ * records, then the records.  A frame cut short by a crash fails its
+ * check, and it and anything after it are ignored.  Each move record holds
+ * its ply, so a move in both a snapshot and a segment is applied once.
+ *
+ * Once the committer fails to write, the journal stops buffering: moves
+ * are no longer recorded, and every later registration, removal, snapshot
+ * or sync throws the failure, so a move is never reported durable when it
+ * can not be.
+ *
+ * Games kept in a GameStore are rebuilt as new Games after hibernation.
+ * Registering the journal as a listener of the store, with the same ids,
+ * lets it follow each game across hibernation.
+ *
+ * This class is thread safe.
+ *
+ * @author CarrollFD
+ */
+public class MoveJournal implements Closeable, GameStoreListener {
+    // the moves between snapshots
+    public static final int DEFAULT_SNAPSHOT_MOVES = 1 << 20;
+
+    // the names of the files in the directory, followed by the number of
+    // their segment
+    private static final String LOG_PREFIX = "journal-";
+    private static final String LOG_EXTENSION = ".log";
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_EXTENSION = ".snap";
+
+    // identifies snapshot files, "CHJS"
+    private static final int SNAPSHOT_MAGIC = 0x43484a53;
+    private static final int SNAPSHOT_VERSION = 1;
+
+    // the record types: a game registered, a move and a game removed
+    private static final int START = 1;
+    private static final int MOVE = 2;
+    private static final int END = 3;
+
+    private final Path directory;
+    private final int snapshotMoves;
+
+    // the live games by id, guarded by this
+    private final Map<Long, GameLog> games = new HashMap<>();
+
+    // records not yet written, guarded by this
+    private final ByteArrayOutputStream pending = new ByteArrayOutputStream(1 << 16);
+    private final DataOutputStream pendingOut = new DataOutputStream(pending);
+    private long appended;
+    private long movesSinceSnapshot;
+    private IOException failure;
+    private boolean closed;
+
+    // the records known to be on storage, guarded by this
+    private long durable;
+
+    // the open segment, guarded by writeLock
+    private final Object writeLock = new Object();
+    private FileChannel log;
+    private int segment;
+
+    private final Thread committer;
+
+    /**
+     * Opens a journal, recovering the moves of the games it holds, or
+     * creates an empty one.
+     *
+     * @param directory The journal directory
+     * @param snapshotMoves The moves between snapshots
+     */
+    public MoveJournal(Path directory, int snapshotMoves) throws IOException {
+        this.directory = directory;
+        this.snapshotMoves = snapshotMoves;
+
+        Files.createDirectories(directory);
+
+        TreeMap<Integer, Path> snapshots = listFiles(SNAPSHOT_PREFIX, SNAPSHOT_EXTENSION);
+        TreeMap<Integer, Path> logs = listFiles(LOG_PREFIX, LOG_EXTENSION);
+        int first = 0;
+
+        // the newest complete snapshot, a crash may leave a later one damaged
+        for(Map.Entry<Integer, Path> snapshot : snapshots.descendingMap().entrySet()) {
+            if(readSnapshot(snapshot.getValue())) {
+                first = snapshot.getKey();
+                break;
+            }
+        }
+
+        for(Map.Entry<Integer, Path> segment : logs.tailMap(first).entrySet()) {
+            readLog(segment.getValue());
+        }
+
+        // never append to a segment that may end in a damaged frame
+        segment = Math.max(first, logs.isEmpty() ? 0 : logs.lastKey() + 1);
+        log = openLog(segment);
+
+        committer = new Thread(this::commitLoop, "Move journal committer");
+        committer.setDaemon(true);
+        committer.start();
+    }
+
+    /**
+     * Starts journaling a game.  Moves already made are journaled at once.
+     * The game should not be moved until this returns.
+     *
+     * @param gameId The id of the game
+     * @param game The game
+     *
+     * @throws IllegalArgumentException If a game with the id is registered,
+     *         or the game was set up from a position, as games are
+     *         recovered by replaying from the starting position
+     * @throws UncheckedIOException If the journal failed to write
+     */
+    public void register(long gameId, Game game) {
+        if(game.isSetUp()) {
+            throw new IllegalArgumentException("Game " + gameId + " was set up from a position.");
+        }
+
+        synchronized(this) {
+            checkFailure();
+
+            if(games.containsKey(gameId)) {
+                throw new IllegalArgumentException("Game " + gameId + " is already journaled.");
+            }
+
+            GameLog gameLog = new GameLog();
+            games.put(gameId, gameLog);
+            appendRecord(START, gameId);
+
+            appendMoves(gameId, gameLog, game);
+            attach(gameId, gameLog, game);
+        }
+    }
+
+    /**
+     * Stops following a hibernated game, so the journal does not keep it
+     * in memory.  The game stays journaled.
+     */
+    @Override
+    public synchronized void gameHibernated(long gameId, Game game) {
+        GameLog gameLog = games.get(gameId);
+
+        if(gameLog != null && gameLog.game == game) {
+            detach(gameLog);
+        }
+    }
+
+    /**
+     * Follows a rebuilt game in place of the one hibernated.  Moves the
+     * game has beyond those journaled are journaled at once.
+     *
+     * @throws IllegalStateException If the game has fewer moves than were
+     *         journaled
+     */
+    @Override
+    public synchronized void gameRehydrated(long gameId, Game game) {
+        GameLog gameLog = games.get(gameId);
+
+        if(gameLog == null || closed) {
+            return;
+        }
+
+        if(game.getMoveList().size() < gameLog.plies) {
+            throw new IllegalStateException("Game " + gameId + " has " + game.getMoveList().size() + " moves, "
+                    + gameLog.plies + " are journaled.");
+        }
+
+        if(gameLog.game != null) {
+            detach(gameLog);
+        }
+
+        appendMoves(gameId, gameLog, game);
+        attach(gameId, gameLog, game);
+    }
+
+    /**
+     * Stops journaling a game and forgets it, such as when it is over.
+     *
+     * @param gameId The id of the game
+     */
+    public synchronized void remove(long gameId) {
+        checkFailure();
+
+        GameLog gameLog = games.remove(gameId);
+
+        if(gameLog != null) {
+            if(gameLog.game != null) {
+                detach(gameLog);
+            }
+
+            appendRecord(END, gameId);
+        }
+    }
+
+    /**
+     * @return The ids of the journaled games
+     */
+    public synchronized List<Long> getGameIds() {
+        return new ArrayList<>(games.keySet());
+    }
+
+    /**
+     * Provides a journaled game, rebuilding it through Board from its moves
+     * if it was recovered and not yet asked for.
+     *
+     * @param gameId The id of the game
+     *
+     * @return The game, or null if there is no game with the id
+     *
+     * @throws IllegalStateException If the journaled moves are refused
+     */
+    public Game getGame(long gameId) {
+        GameLog gameLog;
+
+        synchronized(this) {
+            gameLog = games.get(gameId);
+        }
+
+        if(gameLog == null) {
+            return null;
+        }
+
+        // the moves of a game without a Game can not change, so it is
+        // replayed outside the journal's lock
+        synchronized(gameLog) {
+            if(gameLog.game == null) {
+                Game game = new Game();
+
+                for(int ply = 0; ply < gameLog.plies; ply++) {
+                    Position start = toPosition(gameLog.moves[2 * ply]);
+                    Position end = toPosition(gameLog.moves[2 * ply + 1]);
+
+                    if(!game.requestMove(start, end)) {
+                        throw new IllegalStateException("Move " + (ply + 1) + " of journaled game " + gameId
+                                + " refused: " + game.getBoard().getMoveError());
+                    }
+                }
+
+                synchronized(this) {
+                    attach(gameId, gameLog, game);
+                }
+            }
+
+            return gameLog.game;
+        }
+    }
+
+    /**
+     * Rebuilds every journaled game.
+     *
+     * @param threads The number of threads replaying games
+     *
+     * @return The games by id
+     */
+    public Map<Long, Game> recoverGames(int threads) throws InterruptedException {
+        List<Long> ids = getGameIds();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> workers = new ArrayList<>();
+        Map<Long, Game> recovered = new HashMap<>();
+
+        try {
+            for(int i = 0; i < threads; i++) {
+                final int first = i;
+                workers.add(executor.submit(() -> {
+                    for(int index = first; index < ids.size(); index += threads) {
+                        getGame(ids.get(index));
+                    }
+                }));
+            }
+
+            for(Future<?> worker : workers) {
+                worker.get();
+            }
+        } catch(ExecutionException e) {
+            throw new IllegalStateException("Game recovery failed.", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        for(Long id : ids) {
+            Game game = getGame(id);
+
+            if(game != null) {
+                recovered.put(id, game);
+            }
+        }
+
+        return recovered;
+    }
+
+    /**
+     * Waits until every move journaled so far is on storage.
+     */
+    public void sync() throws IOException, InterruptedException {
+        synchronized(this) {
+            long target = appended;
+
+            while(durable < target && failure == null) {
+                wait();
+            }
+
+            if(failure != null) {
+                throw failure;
+            }
+        }
+    }
+
+    /**
+     * Writes a snapshot of every game, starts a new segment and deletes the
+     * segments and snapshots it replaces.
+     */
+    public void snapshot() throws IOException {
+        Map<Long, byte[]> state = new HashMap<>();
+        int snapshotSegment;
+
+        synchronized(writeLock) {
+            byte[] batch;
+            long sequence;
+
+            synchronized(this) {
+                if(failure != null) {
+                    throw failure;
+                }
+
+                batch = takePending();
+                sequence = appended;
+
+                for(Map.Entry<Long, GameLog> entry : games.entrySet()) {
+                    GameLog gameLog = entry.getValue();
+                    state.put(entry.getKey(), Arrays.copyOf(gameLog.moves, 2 * gameLog.plies));
+                }
+
+                movesSinceSnapshot = 0;
+            }
+
+            // every move in the snapshot is now in a segment before the new
+            // one, so the snapshot replaces them all
+            writeFrame(batch);
+            log.force(false);
+            log.close();
+
+            synchronized(this) {
+                durable = Math.max(durable, sequence);
+                notifyAll();
+            }
+
+            snapshotSegment = ++segment;
+            log = openLog(snapshotSegment);
+        }
+
+        Path path = directory.resolve(SNAPSHOT_PREFIX + snapshotSegment + SNAPSHOT_EXTENSION);
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+
+        try(OutputStream file = Files.newOutputStream(temp)) {
+            CRC32 crc = new CRC32();
+            DataOutputStream out = new DataOutputStream(new CheckedOutputStream(new BufferedOutputStream(file,
+                    1 << 16), crc));
+
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(SNAPSHOT_VERSION);
+            out.writeInt(state.size());
+
+            for(Map.Entry<Long, byte[]> entry : state.entrySet()) {
+                out.writeLong(entry.getKey());
+                out.writeInt(entry.getValue().length / 2);
+                out.write(entry.getValue());
+            }
+
+            out.flush();
+            new DataOutputStream(file).writeInt((int)crc.getValue());
+        }
+
+        try(FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+
+        Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE);
+
+        for(Path old : listFiles(LOG_PREFIX, LOG_EXTENSION).headMap(snapshotSegment).values()) {
+            Files.delete(old);
+        }
+        for(Path old : listFiles(SNAPSHOT_PREFIX, SNAPSHOT_EXTENSION).headMap(snapshotSegment).values()) {
+            Files.delete(old);
+        }
+    }
+
+    /**
+     * Writes what is buffered and stops the committer.  Games are no
+     * longer journaled.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized(this) {
+            closed = true;
+
+            for(GameLog gameLog : games.values()) {
+                if(gameLog.game != null) {
+                    gameLog.game.removeChangeListener(gameLog.listener);
+                }
+            }
+
+            notifyAll();
+        }
+
+        try {
+            committer.join();
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        synchronized(writeLock) {
+            log.close();
+        }
+
+        synchronized(this) {
+            if(failure != null) {
+                throw failure;
+            }
+        }
+    }
+
+    /**
+     * Writes buffered records until closed, snapshotting when due.
+     */
+    private void commitLoop() {
+        while(true) {
+            byte[] batch;
+            long sequence;
+            boolean snapshotDue;
+
+            synchronized(this) {
+                while(pending.size() == 0 && !closed) {
+                    try {
+                        wait();
+                    } catch(InterruptedException e) {
+                        return;
+                    }
+                }
+
+                if(pending.size() == 0) {
+                    return;
+                }
+
+                batch = takePending();
+                sequence = appended;
+                snapshotDue = movesSinceSnapshot >= snapshotMoves && !closed;
+            }
+
+            try {
+                synchronized(writeLock) {
+                    writeFrame(batch);
+                    log.force(false);
+                }
+
+                if(snapshotDue) {
+                    snapshot();
+                }
+            } catch(IOException e) {
+                synchronized(this) {
+                    // nothing more will be written, so stop holding records
+                    failure = e;
+                    pending.reset();
+                    notifyAll();
+                }
+                return;
+            }
+
+            synchronized(this) {
+                durable = Math.max(durable, sequence);
+                notifyAll();
+            }
+        }
+    }
+
+    // guarded by this
+    private byte[] takePending() {
+        byte[] batch = pending.toByteArray();
+        pending.reset();
+        return batch;
+    }
+
+    // guarded by writeLock
+    private void writeFrame(byte[] batch) throws IOException {
+        if(batch.length == 0) {
+            return;
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(batch);
+
+        ByteBuffer frame = ByteBuffer.allocate(8 + batch.length);
+        frame.putInt(batch.length).putInt((int)crc.getValue()).put(batch).flip();
+
+        while(frame.hasRemaining()) {
+            log.write(frame);
+        }
+    }
+
+    // guarded by this
+    private void attach(long gameId, GameLog gameLog, Game game) {
+        gameLog.game = game;
+        gameLog.listener = new MoveFollower(gameId, game);
+        game.addChangeListener(gameLog.listener);
+    }
+
+    // guarded by this
+    private void detach(GameLog gameLog) {
+        gameLog.game.removeChangeListener(gameLog.listener);
+        gameLog.game = null;
+        gameLog.listener = null;
+    }
+
+    /**
+     * Journals the moves of a game after those already journaled.
+     */
+    // guarded by this
+    private void appendMoves(long gameId, GameLog gameLog, Game game) {
+        List<Move> moves = game.getMoveList();
+
+        for(int ply = gameLog.plies; ply < moves.size(); ply++) {
+            Move move = moves.get(ply);
+            appendMove(gameId, gameLog, ply, move.getStartPosition().getIndex(),
+                    move.getEndPosition().getIndex());
+        }
+    }
+
+    /**
+     * Throws the committer's failure, if it has failed.
+     */
+    // guarded by this
+    private void checkFailure() {
+        if(failure != null) {
+            throw new UncheckedIOException("Move journal failed.", failure);
+        }
+    }
+
+    // guarded by this
+    private void appendRecord(int type, long gameId) {
+        checkFailure();
+
+        try {
+            pendingOut.writeByte(type);
+            pendingOut.writeLong(gameId);
+        } catch(IOException e) {
+            // not thrown by a byte array
+            throw new IllegalStateException(e);
+        }
+
+        appended++;
+        notifyAll();
+    }
+
+    // guarded by this
+    private void appendMove(long gameId, GameLog gameLog, int ply, int from, int to) {
+        checkFailure();
+        gameLog.add(from, to);
+
+        try {
+            pendingOut.writeByte(MOVE);
+            pendingOut.writeLong(gameId);
+            pendingOut.writeShort(ply);
+            pendingOut.writeByte(from);
+            pendingOut.writeByte(to);
+        } catch(IOException e) {
+            // not thrown by a byte array
+            throw new IllegalStateException(e);
+        }
+
+        appended++;
+        movesSinceSnapshot++;
+        notifyAll();
+    }
+
+    private FileChannel openLog(int number) throws IOException {
+        return FileChannel.open(directory.resolve(LOG_PREFIX + number + LOG_EXTENSION), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    /**
+     * @return The files with a prefix and extension, by segment number
+     */
+    private TreeMap<Integer, Path> listFiles(String prefix, String extension) throws IOException {
+        TreeMap<Integer, Path> files = new TreeMap<>();
+
+        try(DirectoryStream<Path> paths = Files.newDirectoryStream(directory, prefix + "*" + extension)) {
+            for(Path path : paths) {
+                String name = path.getFileName().toString();
+
+                try {
+                    files.put(Integer.parseInt(name.substring(prefix.length(), name.length() - extension.length())),
+                            path);
+                } catch(NumberFormatException e) {
+                    // not written by this class
+                }
+            }
+        }
+
+        return files;
+    }
+
+    /**
+     * Loads the games of a snapshot.
+     *
+     * @return FALSE if the snapshot is damaged, nothing is loaded
+     */
+    private boolean readSnapshot(Path path) throws IOException {
+        Map<Long, GameLog> loaded = new HashMap<>();
+
+        try(InputStream file = new BufferedInputStream(Files.newInputStream(path), 1 << 16)) {
+            CRC32 crc = new CRC32();
+            DataInputStream in = new DataInputStream(new CheckedInputStream(file, crc));
+
+            if(in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+                return false;
+            }
+
+            int count = in.readInt();
+
+            for(int i = 0; i < count; i++) {
+                long gameId = in.readLong();
+                GameLog gameLog = new GameLog();
+
+                gameLog.plies = in.readInt();
+                gameLog.moves = new byte[Math.max(2 * gameLog.plies, 16)];
+                in.readFully(gameLog.moves, 0, 2 * gameLog.plies);
+                loaded.put(gameId, gameLog);
+            }
+
+            if(new DataInputStream(file).readInt() != (int)crc.getValue()) {
+                return false;
+            }
+        } catch(EOFException e) {
+            return false;
+        }
+
+        games.putAll(loaded);
+        return true;
+    }
+
+    /**
+     * Applies the records of a segment, up to any damaged frame.
+     */
+    private void readLog(Path path) throws IOException {
+        long remaining = Files.size(path);
+
+        try(DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 1 << 16))) {
+            while(true) {
+                byte[] batch;
+
+                try {
+                    int length = in.readInt();
+                    int check = in.readInt();
+
+                    // a damaged length may claim more than the file holds
+                    remaining -= 8 + (long)length;
+                    if(length <= 0 || remaining < 0) {
+                        return;
+                    }
+
+                    batch = new byte[length];
+                    in.readFully(batch);
+
+                    CRC32 crc = new CRC32();
+                    crc.update(batch);
+
+                    if((int)crc.getValue() != check) {
+                        return;
+                    }
+                } catch(EOFException e) {
+                    return;
+                }
+
+                applyRecords(ByteBuffer.wrap(batch), path);
+            }
+        }
+    }
+
+    private void applyRecords(ByteBuffer records, Path path) throws IOException {
+        while(records.hasRemaining()) {
+            int type = records.get();
+            long gameId = records.getLong();
+
+            switch(type) {
+                case START:
+                    games.put(gameId, new GameLog());
+                    break;
+                case END:
+                    games.remove(gameId);
+                    break;
+                case MOVE:
+                    int ply = records.getShort() & 0xFFFF;
+                    int from = records.get();
+                    int to = records.get();
+                    GameLog gameLog = games.get(gameId);
+
+                    // moves of removed games, or already in the snapshot
+                    if(gameLog == null || ply < gameLog.plies) {
+                        break;
+                    } else if(ply > gameLog.plies) {
+                        throw new IOException("Journal " + path + " is missing moves of game " + gameId + ".");
+                    }
+
+                    gameLog.add(from, to);
+                    break;
+                default:
+                    throw new IOException("Journal " + path + " is damaged.");
+            }
+        }
+    }
+
+    private static Position toPosition(int index) {
+        return new Position(index % 8, index / 8);
+    }
+
+    /**
+     * The moves of a journaled game, as start and end square pairs, and the
+     * game once it exists.
+     */
+    private static class GameLog {
+        byte[] moves = new byte[16];
+        int plies;
+        Game game;
+        MoveFollower listener;
+
+        void add(int from, int to) {
+            if(2 * plies + 2 > moves.length) {
+                moves = Arrays.copyOf(moves, moves.length * 2);
+            }
+
+            moves[2 * plies] = (byte)from;
+            moves[2 * plies + 1] = (byte)to;
+            plies++;
+        }
+    }
+
+    /**
+     * Journals the moves of a game.
+     */
+    private class MoveFollower extends BoardChangeAdapter {
+        private final long gameId;
+        private final Game game;
+
+        MoveFollower(long gameId, Game game) {
+            this.gameId = gameId;
+            this.game = game;
+        }
+
+        @Override
+        public void pieceMoved(PieceMovedEvent event) {
+            synchronized(MoveJournal.this) {
+                GameLog gameLog = games.get(gameId);
+
+                // the game was removed, or replaced under the same id
+                if(gameLog == null || gameLog.game != game || closed) {
+                    return;
+                }
+
+                // throwing would cut the board's events short, the failure
+                // is thrown by the next sync(...) or registration instead
+                if(failure != null) {
+                    return;
+                }
+
+                appendMove(gameId, gameLog, event.getPly(), event.getStartPosition().getIndex(),
+                        event.getEndPosition().getIndex());
+            }
+        }
+    }
+}
@@ -0,0 +1,500 @@
+package chess.game.store;
+
+import chess.game.Game;
+import chess.game.Move;
+import chess.game.board.Position;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+
+/**
+ * Holds any number of games while keeping only the most recently used in
+ * memory.  When more than the resident limit are in use, the least
+ * recently used game is hibernated: its moves are kept as start and end
+ * square pairs, two bytes a move, either on the heap or in a file of its
+ * own, and the Game with its board is dropped.  The next request for the
+ * game rebuilds it by replaying the moves through Board.
+ *
+ * Games should be moved through requestMove(...) or apply(...), which hold
+ * the game in memory while they run.  A Game from getGame(...) may be
+ * hibernated at any later call, after which moves made on it are lost.
+ *
+ * A rebuilt game is a new Game, and change listeners registered on the
+ * one hibernated are not carried over.  A GameStoreListener is told of
+ * every hibernation and rebuild so it can attach to the new Game.
+ *
+ * With a directory, the store also survives a restart: close() hibernates
+ * every game, and a store opened on the directory finds them again.
+ *
+ * This class is thread safe.
+ *
+ * @author CarrollFD
+ */
+public class GameStore implements Closeable {
+    // the extension of hibernated game files
+    private static final String FILE_EXTENSION = ".game";
+
+    private final int maxResident;
+    private final Path directory;
+
+    // every game by id, guarded by this
+    private final Map<Long, StoredGame> games = new HashMap<>();
+
+    // the games in memory, least recently used first, guarded by this
+    private final LinkedHashMap<Long, StoredGame> resident = new LinkedHashMap<>(16, 0.75f, true);
+
+    // counters, guarded by this
+    private long hibernations;
+    private long rehydrations;
+
+    // listeners notified of hibernations and rebuilds
+    private final List<GameStoreListener> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Constructs a store keeping hibernated games on the heap.
+     *
+     * @param maxResident The most games kept in memory
+     */
+    public GameStore(int maxResident) {
+        this.maxResident = maxResident;
+        this.directory = null;
+    }
+
+    /**
+     * Constructs a store keeping hibernated games in a directory, adopting
+     * any games hibernated there before.
+     *
+     * @param maxResident The most games kept in memory
+     * @param directory The directory for hibernated games
+     */
+    public GameStore(int maxResident, Path directory) throws IOException {
+        this.maxResident = maxResident;
+        this.directory = directory;
+
+        Files.createDirectories(directory);
+
+        try(DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + FILE_EXTENSION)) {
+            for(Path file : files) {
+                String name = file.getFileName().toString();
+
+                try {
+                    long id = Long.parseLong(name.substring(0, name.length() - FILE_EXTENSION.length()));
+                    games.put(id, new StoredGame(id));
+                } catch(NumberFormatException e) {
+                    // not written by this class
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds a game, in memory.
+     *
+     * @param id The id of the game
+     * @param game The game
+     *
+     * @throws IllegalArgumentException If a game with the id is stored, or
+     *         the game was set up from a position, as hibernated games are
+     *         rebuilt from the starting position
+     */
+    public void add(long id, Game game) {
+        if(game.isSetUp()) {
+            throw new IllegalArgumentException("Game " + id + " was set up from a position.");
+        }
+
+        StoredGame stored = new StoredGame(id);
+        stored.game = game;
+
+        List<StoredGame> evicted;
+
+        synchronized(this) {
+            if(games.containsKey(id)) {
+                throw new IllegalArgumentException("Game " + id + " is already stored.");
+            }
+
+            games.put(id, stored);
+            resident.put(id, stored);
+            evicted = evict();
+        }
+
+        hibernate(evicted);
+    }
+
+    /**
+     * Removes a game, wherever it is.
+     *
+     * @param id The id of the game
+     */
+    public void remove(long id) {
+        StoredGame stored;
+
+        synchronized(this) {
+            stored = games.remove(id);
+            resident.remove(id);
+        }
+
+        if(stored != null) {
+            synchronized(stored) {
+                stored.game = null;
+                stored.moves = null;
+                stored.removed = true;
+
+                if(directory != null) {
+                    try {
+                        Files.deleteIfExists(getPath(id));
+                    } catch(IOException e) {
+                        throw new UncheckedIOException("Unable to delete game " + id + ".", e);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Makes a move in a game, rebuilding the game first if it is
+     * hibernated.
+     *
+     * @param id The id of the game
+     * @param startPosition The starting position
+     * @param endPosition The ending position
+     *
+     * @return TRUE if the move was performed, FALSE if it was refused or
+     *         there is no game with the id
+     */
+    public boolean requestMove(long id, Position startPosition, Position endPosition) {
+        Boolean moved = apply(id, game -> game.requestMove(startPosition, endPosition));
+
+        return moved != null && moved;
+    }
+
+    /**
+     * Runs an action on a game, rebuilding the game first if it is
+     * hibernated.  The game stays in memory while the action runs.
+     *
+     * @param id The id of the game
+     * @param action The action
+     *
+     * @return The action's result, or null if there is no game with the id
+     */
+    public <T> T apply(long id, Function<Game, T> action) {
+        StoredGame stored;
+        List<StoredGame> evicted;
+
+        synchronized(this) {
+            stored = games.get(id);
+
+            if(stored == null) {
+                return null;
+            }
+
+            resident.put(id, stored);
+            evicted = evict();
+        }
+
+        hibernate(evicted);
+
+        T result;
+
+        synchronized(stored) {
+            if(stored.removed) {
+                return null;
+            }
+
+            if(stored.game == null) {
+                rehydrate(stored);
+            }
+
+            // another thread may have evicted the game since it was made
+            // resident above, and hibernated it before the rebuild, so it is
+            // made resident again while its lock keeps hibernation out
+            synchronized(this) {
+                if(resident.containsKey(id)) {
+                    evicted = new ArrayList<>();
+                } else {
+                    resident.put(id, stored);
+                    evicted = evict();
+                }
+            }
+
+            result = action.apply(stored.game);
+        }
+
+        // hibernated outside this game's lock, which is never held while
+        // waiting for another game's
+        hibernate(evicted);
+
+        return result;
+    }
+
+    /**
+     * Provides a game, rebuilding it if it is hibernated.  The game may be
+     * hibernated again by any later call to the store, see apply(...).
+     *
+     * @param id The id of the game
+     *
+     * @return The game, or null if there is no game with the id
+     */
+    public Game getGame(long id) {
+        return apply(id, game -> game);
+    }
+
+    /**
+     * Registers a listener to be notified of hibernations and rebuilds.
+     *
+     * @param listener The listener to add
+     */
+    public void addListener(GameStoreListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * @param listener The listener to remove
+     */
+    public void removeListener(GameStoreListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * @return The number of games stored
+     */
+    public synchronized int getGameCount() {
+        return games.size();
+    }
+
+    /**
+     * @return The number of games in memory
+     */
+    public synchronized int getResidentCount() {
+        return resident.size();
+    }
+
+    /**
+     * @return The number of times a game was hibernated
+     */
+    public synchronized long getHibernations() {
+        return hibernations;
+    }
+
+    /**
+     * @return The number of times a hibernated game was rebuilt
+     */
+    public synchronized long getRehydrations() {
+        return rehydrations;
+    }
+
+    /**
+     * Hibernates every game.  With a directory, every game is then on disk
+     * for the next store opened on it.
+     */
+    @Override
+    public void close() throws IOException {
+        List<StoredGame> evicted;
+
+        synchronized(this) {
+            evicted = new ArrayList<>(resident.values());
+            resident.clear();
+        }
+
+        try {
+            hibernate(evicted);
+        } catch(UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Takes the least recently used games over the limit out of the
+     * resident list.  They are hibernated outside the store's lock.
+     */
+    // guarded by this
+    private List<StoredGame> evict() {
+        List<StoredGame> evicted = new ArrayList<>();
+        Iterator<StoredGame> eldest = resident.values().iterator();
+
+        while(resident.size() - evicted.size() > maxResident && eldest.hasNext()) {
+            evicted.add(eldest.next());
+            eldest.remove();
+        }
+
+        return evicted;
+    }
+
+    /**
+     * Hibernates evicted games.  A game that can not be written stays in
+     * memory and is made resident again, and the first failure is thrown
+     * once every other game has been hibernated.
+     */
+    private void hibernate(List<StoredGame> evicted) {
+        UncheckedIOException failure = null;
+
+        for(StoredGame stored : evicted) {
+            try {
+                hibernate(stored);
+            } catch(UncheckedIOException e) {
+                synchronized(this) {
+                    if(!stored.removed && !resident.containsKey(stored.id)) {
+                        resident.put(stored.id, stored);
+                    }
+                }
+
+                if(failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+
+        if(failure != null) {
+            throw failure;
+        }
+    }
+
+    private void hibernate(StoredGame stored) {
+        synchronized(stored) {
+            synchronized(this) {
+                // used again since it was evicted
+                if(resident.containsKey(stored.id) || stored.removed) {
+                    return;
+                }
+            }
+
+            if(stored.game == null) {
+                return;
+            }
+
+            byte[] moves = encode(stored.game);
+
+            if(directory == null) {
+                stored.moves = moves;
+            } else {
+                try {
+                    Path path = getPath(stored.id);
+                    Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+
+                    Files.write(temp, moves);
+                    Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE);
+                } catch(IOException e) {
+                    // the game stays in memory rather than being lost
+                    throw new UncheckedIOException("Unable to hibernate game " + stored.id + ".", e);
+                }
+            }
+
+            for(GameStoreListener listener : listeners) {
+                listener.gameHibernated(stored.id, stored.game);
+            }
+
+            stored.game = null;
+
+            synchronized(this) {
+                hibernations++;
+            }
+        }
+    }
+
+    // guarded by stored
+    private void rehydrate(StoredGame stored) {
+        byte[] moves = stored.moves;
+
+        if(directory != null) {
+            try {
+                moves = Files.readAllBytes(getPath(stored.id));
+            } catch(IOException e) {
+                throw new UncheckedIOException("Unable to read game " + stored.id + ".", e);
+            }
+        }
+
+        stored.game = decode(stored.id, moves);
+        stored.moves = null;
+
+        for(GameStoreListener listener : listeners) {
+            listener.gameRehydrated(stored.id, stored.game);
+        }
+
+        synchronized(this) {
+            rehydrations++;
+        }
+    }
+
+    private Path getPath(long id) {
+        return directory.resolve(id + FILE_EXTENSION);
+    }
+
+    /**
+     * @return The moves of a game, a count then start and end square pairs
+     */
+    private static byte[] encode(Game game) {
+        List<Move> moveList = game.getMoveList();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(4 + 2 * moveList.size());
+
+        try(DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(moveList.size());
+
+            for(Move move : moveList) {
+                out.writeByte(move.getStartPosition().getIndex());
+                out.writeByte(move.getEndPosition().getIndex());
+            }
+        } catch(IOException e) {
+            // not thrown by a byte array
+            throw new IllegalStateException(e);
+        }
+
+        return bytes.toByteArray();
+    }
+
+    private static Game decode(long id, byte[] moves) {
+        Game game = new Game();
+
+        try(DataInputStream in = new DataInputStream(new ByteArrayInputStream(moves))) {
+            int count = in.readInt();
+
+            for(int ply = 0; ply < count; ply++) {
+                int start = in.readUnsignedByte();
+                int end = in.readUnsignedByte();
+
+                if(!game.requestMove(new Position(start % 8, start / 8), new Position(end % 8, end / 8))) {
+                    throw new IllegalStateException("Move " + (ply + 1) + " of stored game " + id + " refused: "
+                            + game.getBoard().getMoveError());
+                }
+            }
+        } catch(IOException e) {
+            throw new IllegalStateException("Stored game " + id + " is damaged.", e);
+        }
+
+        return game;
+    }
+
+    /**
+     * A stored game: the Game while in memory, otherwise its moves on the
+     * heap or on disk.
+     */
+    private static class StoredGame {
+        final long id;
+
+        // guarded by this
+        Game game;
+        byte[] moves;
+        boolean removed;
+
+        StoredGame(long id) {
+            this.id = id;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package chess.game.store;
+
+import chess.game.Game;
+
+/**
+ * Receives the hibernation and rebuilding of the games of a GameStore.  A
+ * rebuilt game is a new Game, so anything following a stored game through
+ * its change listeners must attach again when it is rebuilt.
+ *
+ * Listeners are notified on the thread hibernating or rebuilding the game,
+ * while the game can not be moved.
+ *
+ * @author CarrollFD
+ */
+public interface GameStoreListener {
+    /**
+     * Informs the listener that a game was hibernated.  The Game is
+     * dropped by the store and should be let go.
+     *
+     * @param id The id of the game
+     * @param game The game as it was hibernated
+     */
+    public void gameHibernated(long id, Game game);
+
+    /**
+     * Informs the listener that a hibernated game was rebuilt.
+     *
+     * @param id The id of the game
+     * @param game The new Game, with the same moves as the one hibernated
+     */
+    public void gameRehydrated(long id, Game game);
+}
@@ -0,0 +1,76 @@
+package chess.io;
+
+/**
+ * Sorts data held in parallel arrays, such as the keys and values of
+ * entries collected before they are written to an entry file, without
+ * boxing the entries or building an array of indexes.
+ *
+ * @author CarrollFD
+ */
+public final class IndexedSort {
+    /**
+     * Data sorted in place by index.
+     */
+    public interface Sortable {
+        /**
+         * @return A negative number, zero or a positive number as the entry
+         *         at a is less than, equal to or greater than the entry at b
+         */
+        int compare(int a, int b);
+
+        /**
+         * Exchanges the entries at a and b.
+         */
+        void swap(int a, int b);
+    }
+
+    private IndexedSort() {
+    }
+
+    /**
+     * Sorts the entries from 0 to size - 1 with a quicksort.  The sort is
+     * not stable.
+     *
+     * @param data The data
+     * @param size The number of entries
+     */
+    public static void sort(Sortable data, int size) {
+        sort(data, 0, size - 1);
+    }
+
+    private static void sort(Sortable data, int low, int high) {
+        while(low < high) {
+            int pivot = (low + high) >>> 1;
+            int i = low;
+            int j = high;
+
+            while(i <= j) {
+                while(data.compare(i, pivot) < 0) {
+                    i++;
+                }
+                while(data.compare(j, pivot) > 0) {
+                    j--;
+                }
+                if(i <= j) {
+                    // the pivot entry follows its swap
+                    if(pivot == i) {
+                        pivot = j;
+                    } else if(pivot == j) {
+                        pivot = i;
+                    }
+
+                    data.swap(i++, j--);
+                }
+            }
+
+            // recurse into the smaller part to bound the stack
+            if(j - low < high - i) {
+                sort(data, low, j);
+                low = i;
+            } else {
+                sort(data, i, high);
+                high = j;
+            }
+        }
+    }
+}
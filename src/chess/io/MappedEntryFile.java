@@ -0,0 +1,152 @@
+package chess.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A read only memory mapping of a file of fixed size big endian entries,
+ * each starting with a 64 bit key, sorted by key as unsigned values.
+ * Entries are read straight from the mapped pages, nothing is copied onto
+ * the heap.  Files over 2 GB are mapped in several segments.
+ *
+ * This class is thread safe once opened.
+ *
+ * @author CarrollFD
+ */
+public class MappedEntryFile implements Closeable {
+    // the most bytes mapped in one segment
+    private static final int MAX_SEGMENT_SIZE = 1 << 30;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer[] segments;
+    private final int entrySize;
+    private final int segmentEntries;
+    private final long entryCount;
+
+    /**
+     * Opens and maps a file.
+     *
+     * @param path The file
+     * @param entrySize The size of an entry in bytes
+     */
+    public MappedEntryFile(Path path, int entrySize) throws IOException {
+        this.entrySize = entrySize;
+        segmentEntries = MAX_SEGMENT_SIZE / entrySize;
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+
+        try {
+            long size = channel.size();
+
+            if(size % entrySize != 0) {
+                throw new IOException("File size is not a multiple of " + entrySize + " bytes: " + path);
+            }
+
+            entryCount = size / entrySize;
+            segments = new MappedByteBuffer[(int)((entryCount + segmentEntries - 1) / segmentEntries)];
+
+            for(int i = 0; i < segments.length; i++) {
+                long start = (long)i * segmentEntries * entrySize;
+                long length = Math.min((long)segmentEntries * entrySize, size - start);
+
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+                segments[i].order(ByteOrder.BIG_ENDIAN);
+            }
+        } catch(IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return The number of entries in the file
+     */
+    public long size() {
+        return entryCount;
+    }
+
+    /**
+     * Finds the first entry with a key not less than the given key.
+     *
+     * @param key The key
+     *
+     * @return The entry's index, or size() if every key is less
+     */
+    public long findFirst(long key) {
+        long low = 0;
+        long high = entryCount;
+
+        while(low < high) {
+            long middle = (low + high) >>> 1;
+
+            if(Long.compareUnsigned(getKey(middle), key) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        return low;
+    }
+
+    /**
+     * @param entry The index of the entry
+     * @return The entry's key
+     */
+    public long getKey(long entry) {
+        return getLong(entry, 0);
+    }
+
+    /**
+     * @param entry The index of the entry
+     * @param field The offset of the field within the entry
+     * @return The 64 bit field
+     */
+    public long getLong(long entry, int field) {
+        return segment(entry).getLong(offset(entry) + field);
+    }
+
+    /**
+     * @param entry The index of the entry
+     * @param field The offset of the field within the entry
+     * @return The 32 bit field
+     */
+    public int getInt(long entry, int field) {
+        return segment(entry).getInt(offset(entry) + field);
+    }
+
+    /**
+     * @param entry The index of the entry
+     * @param field The offset of the field within the entry
+     * @return The unsigned 16 bit field
+     */
+    public int getShort(long entry, int field) {
+        return segment(entry).getShort(offset(entry) + field) & 0xFFFF;
+    }
+
+    /**
+     * @param entry The index of the entry
+     * @param field The offset of the field within the entry
+     * @return The unsigned 8 bit field
+     */
+    public int getByte(long entry, int field) {
+        return segment(entry).get(offset(entry) + field) & 0xFF;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private MappedByteBuffer segment(long entry) {
+        return segments[(int)(entry / segmentEntries)];
+    }
+
+    private int offset(long entry) {
+        return (int)(entry % segmentEntries) * entrySize;
+    }
+}
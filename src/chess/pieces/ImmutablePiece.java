@@ -26,6 +26,20 @@ public class ImmutablePiece {
         return new Position(piece.getPosition());
     }
     
+    /**
+     * @return the pieces x position, without copying the position object
+     */
+    public int getX() {
+        return piece.getPosition().getX();
+    }
+    
+    /**
+     * @return the pieces y position, without copying the position object
+     */
+    public int getY() {
+        return piece.getPosition().getY();
+    }
+    
     /**
      * @return the pieces color
      */
@@ -0,0 +1,71 @@
+package chess.pieces;
+
+/**
+ * Compact integer codes identifying a piece's type and color, for use where
+ * allocating piece objects is undesirable.  A code of EMPTY represents a
+ * square without a piece.
+ *
+ * @author CarrollFD
+ */
+public final class PieceCode {
+    public static final int EMPTY = 0;
+
+    // set on the codes of black pieces
+    private static final int BLACK_FLAG = 8;
+
+    // mask extracting the type from a code
+    private static final int TYPE_MASK = 7;
+
+    // cached copy of the piece types, indexed by ordinal
+    private static final PieceType[] TYPES = PieceType.values();
+
+    private PieceCode() {
+    }
+
+    /**
+     * Provides the code for a piece.
+     *
+     * @param type The type of the piece
+     * @param color The color of the piece
+     *
+     * @return The piece's code
+     */
+    public static int encode(PieceType type, boolean color) {
+        return (type.ordinal() + 1) | (color ? 0 : BLACK_FLAG);
+    }
+
+    /**
+     * Provides the code for a piece.
+     *
+     * @param piece The piece, may be null
+     *
+     * @return The piece's code, or EMPTY for null
+     */
+    public static int encode(Piece piece) {
+        return piece == null ? EMPTY : encode(piece.getType(), piece.getColor());
+    }
+
+    /**
+     * @param code A piece code
+     * @return TRUE if the code represents an empty square
+     */
+    public static boolean isEmpty(int code) {
+        return code == EMPTY;
+    }
+
+    /**
+     * @param code A piece code, must not be EMPTY
+     * @return The type of the piece
+     */
+    public static PieceType getType(int code) {
+        return TYPES[(code & TYPE_MASK) - 1];
+    }
+
+    /**
+     * @param code A piece code, must not be EMPTY
+     * @return The color of the piece
+     */
+    public static boolean getColor(int code) {
+        return (code & BLACK_FLAG) == 0;
+    }
+}
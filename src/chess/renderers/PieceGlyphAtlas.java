@@ -0,0 +1,167 @@
+package chess.renderers;
+
+import chess.pieces.PieceType;
+import chess.renderers.renderStyles.RendererStyle;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A cache of prerendered piece glyphs.  Every glyph for a given cell size
+ * is rasterized once onto a single transparent sheet, and the individual
+ * glyphs are handed out as sub-images of that sheet so that drawing a piece
+ * is a single image blit.
+ *
+ * Sheets are keyed by cell size.  Only the most recently used sizes are
+ * kept so that repeatedly resizing a window does not grow the cache.
+ *
+ * This class is thread safe.
+ *
+ * @author CarrollFD
+ */
+public class PieceGlyphAtlas {
+    // the number of cell sizes kept in the cache
+    private static final int MAX_CACHED_SIZES = 4;
+
+    // the glyph font size relative to the cell size
+    private static final double GLYPH_SCALE = 0.8;
+
+    // glyph variants: piece type x color x selected
+    private static final int VARIANTS_PER_TYPE = 4;
+    private static final int GLYPH_COUNT = PieceType.values().length * VARIANTS_PER_TYPE;
+
+    // the style providing the piece colors
+    private final RendererStyle style;
+
+    // rasterized glyphs indexed by cell size, in least recently used order
+    private final Map<Integer, BufferedImage[]> glyphsBySize =
+            new LinkedHashMap<Integer, BufferedImage[]>(MAX_CACHED_SIZES, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Integer, BufferedImage[]> eldest) {
+                    return size() > MAX_CACHED_SIZES;
+                }
+            };
+
+    /**
+     * Constructs a new atlas for the given style.
+     *
+     * @param style The style providing the piece colors
+     */
+    public PieceGlyphAtlas(RendererStyle style) {
+        this.style = style;
+    }
+
+    /**
+     * Provides the prerendered glyph for a piece.  The image is exactly
+     * cellSize pixels square, with a transparent background.
+     *
+     * @param type The type of the piece
+     * @param color The color of the piece
+     * @param selected TRUE if the piece is on the selected square
+     * @param cellSize The size of a board square in pixels
+     *
+     * @return The glyph image
+     */
+    public BufferedImage getGlyph(PieceType type, boolean color, boolean selected, int cellSize) {
+        return getGlyphs(cellSize)[glyphIndex(type, color, selected)];
+    }
+
+    /**
+     * @return The style used by this atlas
+     */
+    public RendererStyle getStyle() {
+        return style;
+    }
+
+    /**
+     * Provides the glyph set for the given size, rasterizing it if necessary.
+     *
+     * @param cellSize The size of a board square in pixels
+     *
+     * @return All glyphs for the size
+     */
+    private synchronized BufferedImage[] getGlyphs(int cellSize) {
+        if(cellSize < 1) {
+            throw new IllegalArgumentException("Cell size must be positive.");
+        }
+
+        BufferedImage[] glyphs = glyphsBySize.get(cellSize);
+
+        if(glyphs == null) {
+            glyphs = rasterize(cellSize);
+            glyphsBySize.put(cellSize, glyphs);
+        }
+
+        return glyphs;
+    }
+
+    /**
+     * Draws every glyph onto a single sheet for the given size.
+     *
+     * @param cellSize The size of a board square in pixels
+     *
+     * @return Sub-images of the sheet, one per glyph
+     */
+    private BufferedImage[] rasterize(int cellSize) {
+        BufferedImage sheet = new BufferedImage(cellSize * GLYPH_COUNT, cellSize, BufferedImage.TYPE_INT_ARGB);
+        BufferedImage[] glyphs = new BufferedImage[GLYPH_COUNT];
+
+        Graphics2D graphics = sheet.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            graphics.setFont(new Font(Font.SANS_SERIF, Font.PLAIN, Math.max(1, (int)(cellSize * GLYPH_SCALE))));
+            FontMetrics metrics = graphics.getFontMetrics();
+
+            for(PieceType type : PieceType.values()) {
+                for(int variant = 0; variant < VARIANTS_PER_TYPE; variant++) {
+                    boolean color = (variant & 1) != 0;
+                    boolean selected = (variant & 2) != 0;
+                    int index = glyphIndex(type, color, selected);
+                    String text = TextChessPieces.getGlyph(type, color);
+
+                    // center the glyph within its cell
+                    int x = index * cellSize + (cellSize - metrics.stringWidth(text)) / 2;
+                    int y = (cellSize - metrics.getHeight()) / 2 + metrics.getAscent();
+
+                    graphics.setColor(getPieceColor(color, selected));
+                    graphics.drawString(text, x, y);
+
+                    glyphs[index] = sheet.getSubimage(index * cellSize, 0, cellSize, cellSize);
+                }
+            }
+        } finally {
+            graphics.dispose();
+        }
+
+        return glyphs;
+    }
+
+    /**
+     * Provides the style color for a piece.
+     *
+     * @param color The color of the piece
+     * @param selected TRUE if the piece is on the selected square
+     *
+     * @return The color to draw the glyph with
+     */
+    private Color getPieceColor(boolean color, boolean selected) {
+        if(selected) {
+            return color ? style.getSelectedWhitePieceColor() : style.getSelectedBlackPieceColor();
+        }
+
+        return color ? style.getWhitePieceColor() : style.getBlackPieceColor();
+    }
+
+    /**
+     * Calculates the index of a glyph on the sheet.
+     */
+    private static int glyphIndex(PieceType type, boolean color, boolean selected) {
+        return type.ordinal() * VARIANTS_PER_TYPE + (color ? 1 : 0) + (selected ? 2 : 0);
+    }
+}
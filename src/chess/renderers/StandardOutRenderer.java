@@ -1,11 +1,12 @@
 package chess.renderers;
 
+import chess.game.GameInfoWrapper;
 import chess.game.board.Board;
-import chess.game.board.Position;
-import chess.pieces.Piece;
+import chess.game.board.BoardSnapshot;
+import chess.pieces.PieceCode;
 import chess.renderers.renderStyles.RendererStyle;
 
-import java.util.List;
+import java.io.PrintStream;
 
 /**
  * Board Style:
@@ -27,6 +28,12 @@ import java.util.List;
  * | WR | WN | WB | WQ | WK | WB | WN | WR |
  * |---------------------------------------|
  *
+ * Frames are drawn from the game's snapshot, so rendering never reads the
+ * board while a move is being made.  Each frame is assembled in a reusable
+ * buffer and written to the stream in a single write.  In ANSI mode, only
+ * the first frame is drawn in full; later frames move the cursor to and
+ * redraw only the squares that changed.
+ *
  * Created by fraca_000 on 12/12/2015.
  */
 public class StandardOutRenderer implements BoardRenderer {
@@ -37,83 +44,234 @@ public class StandardOutRenderer implements BoardRenderer {
     public static final String QUEEN_TEXT = "Q";
     public static final String PAWN_TEXT = " ";
 
+    // board drawing elements
+    private static final String ROW_SEPARATOR = "|---------------------------------------|";
+    private static final String LINE_END = "\n";
+
+    // ANSI escape sequences
+    private static final String ANSI_ESCAPE = "\u001B[";
+    private static final String ANSI_CLEAR_SCREEN = ANSI_ESCAPE + "2J" + ANSI_ESCAPE + "H";
+
+    // the screen line and column of the top left square, and the distance
+    // between squares, when drawn from the top of the screen
+    private static final int FIRST_SQUARE_LINE = 2;
+    private static final int FIRST_SQUARE_COLUMN = 3;
+    private static final int LINES_PER_SQUARE = 2;
+    private static final int COLUMNS_PER_SQUARE = 5;
+
+    // the screen line below the board
+    private static final int LINE_BELOW_BOARD = Board.BOARD_SIZE_Y * LINES_PER_SQUARE + 2;
+
     private RendererStyle style;
-    private Board board;
+    private final GameInfoWrapper gameInfo;
+
+    // the stream the frames are written to
+    private final PrintStream out;
+
+    // reusable buffers holding the frame being assembled
+    private final StringBuilder frame = new StringBuilder(1024);
+    private byte[] frameBytes = new byte[1024];
 
-    public StandardOutRenderer(Board board) {
-        this.board = board;
+    // when set, frames after the first only redraw changed squares
+    private boolean ansiMode = false;
+
+    // the piece codes drawn in the previous ANSI frame, null if the next
+    // frame must be drawn in full
+    private byte[] previousCodes;
+
+    public StandardOutRenderer(GameInfoWrapper gameInfo) {
+        this(gameInfo, System.out);
+    }
+
+    /**
+     * Constructs a renderer writing to the given stream.
+     *
+     * @param gameInfo The game info wrapper of the game to render
+     * @param out The stream to write frames to
+     */
+    public StandardOutRenderer(GameInfoWrapper gameInfo, PrintStream out) {
+        this.gameInfo = gameInfo;
+        this.out = out;
     }
 
     @Override
     public void render() {
-        if(board == null) {
-            throw new IllegalStateException("Renderer.render() invoked for null board.");
+        if(gameInfo == null) {
+            throw new IllegalStateException("Renderer.render() invoked without a game.");
         }
 
+        BoardSnapshot snapshot = gameInfo.getSnapshot();
+        frame.setLength(0);
 
+        if(ansiMode && previousCodes != null) {
+            appendChangedSquares(snapshot);
+        } else {
+            appendFullFrame(snapshot);
+        }
+
+        writeFrame();
+    }
+
+    /**
+     * Assembles the whole board.
+     *
+     * @param snapshot The position to draw
+     */
+    private void appendFullFrame(BoardSnapshot snapshot) {
+        // in ANSI mode, draw from the top of a cleared screen so the squares
+        // can be addressed by position in later frames
+        if(ansiMode) {
+            frame.append(ANSI_CLEAR_SCREEN);
+            previousCodes = new byte[Board.BOARD_SIZE_X * Board.BOARD_SIZE_Y];
+        }
 
         // Loop over the rows
         for(int y = 0; y < Board.BOARD_SIZE_Y; y++) {
-            System.out.println("|---------------------------------------|");
-            System.out.print("| ");
+            frame.append(ROW_SEPARATOR).append(LINE_END);
+            frame.append("| ");
 
             // Loop over the columns
             for(int x = 0; x < Board.BOARD_SIZE_X; x++) {
-                // obtain he piece at the current position
-                Piece piece = board.getPieceAt(new Position(x,y));
-
-                // if there's no piece, print 2 spaces
-                if(piece == null) {
-                    System.out.print("  ");
-                } else {
-                    // otherwise print the piece
-                    // print color
-                    if(piece.getColor()) {
-                        System.out.print("W");
-                    } else {
-                        System.out.print("B");
-                    }
-
-                    // print piece
-                    switch(piece.getType()) {
-                        case pawn:
-                            System.out.print(PAWN_TEXT);
-                            break;
-                        case rook:
-                            System.out.print(ROOK_TEXT);
-                            break;
-                        case knight:
-                            System.out.print(KNIGHT_TEXT);
-                            break;
-                        case bishop:
-                            System.out.print(BISHOP_TEXT);
-                            break;
-                        case queen:
-                            System.out.print(QUEEN_TEXT);
-                            break;
-                        case king:
-                            System.out.print(KING_TEXT);
-                            break;
-                    }
-                }
+                int index = y * Board.BOARD_SIZE_X + x;
+                int code = snapshot.getPieceCode(index);
 
+                appendSquare(code);
 
+                if(previousCodes != null) {
+                    previousCodes[index] = (byte)code;
+                }
 
                 // if its the last square in the row, print the wall, and end the line
-                if(x == 7) {
-                    System.out.println(" |");
+                if(x == Board.BOARD_SIZE_X - 1) {
+                    frame.append(" |").append(LINE_END);
                 } else {
                     // print the space after the piece
-                    System.out.print(" | ");
+                    frame.append(" | ");
                 }
             }
+        }
+
+        // print the bottom of the board
+        frame.append(ROW_SEPARATOR).append(LINE_END);
+    }
+
+    /**
+     * Assembles cursor movements and redraws for the squares that changed
+     * since the previous frame.
+     *
+     * @param snapshot The position to draw
+     */
+    private void appendChangedSquares(BoardSnapshot snapshot) {
+        boolean changed = false;
+
+        for(int index = 0; index < previousCodes.length; index++) {
+            int code = snapshot.getPieceCode(index);
 
-            // if its the last row, print the bottom of the board
-            if(y == 7) {
-                System.out.println("|---------------------------------------|");
+            if(code == previousCodes[index]) {
+                continue;
             }
+
+            int line = FIRST_SQUARE_LINE + (index / Board.BOARD_SIZE_X) * LINES_PER_SQUARE;
+            int column = FIRST_SQUARE_COLUMN + (index % Board.BOARD_SIZE_X) * COLUMNS_PER_SQUARE;
+
+            appendCursorPosition(line, column);
+            appendSquare(code);
+
+            previousCodes[index] = (byte)code;
+            changed = true;
+        }
+
+        // leave the cursor below the board
+        if(changed) {
+            appendCursorPosition(LINE_BELOW_BOARD, 1);
+        }
+    }
+
+    /**
+     * Appends the two character text for a square.
+     *
+     * @param code The code of the piece on the square
+     */
+    private void appendSquare(int code) {
+        // if there's no piece, print 2 spaces
+        if(PieceCode.isEmpty(code)) {
+            frame.append("  ");
+            return;
+        }
+
+        // otherwise print the piece
+        // print color
+        if(PieceCode.getColor(code)) {
+            frame.append('W');
+        } else {
+            frame.append('B');
+        }
+
+        // print piece
+        switch(PieceCode.getType(code)) {
+            case pawn:
+                frame.append(PAWN_TEXT);
+                break;
+            case rook:
+                frame.append(ROOK_TEXT);
+                break;
+            case knight:
+                frame.append(KNIGHT_TEXT);
+                break;
+            case bishop:
+                frame.append(BISHOP_TEXT);
+                break;
+            case queen:
+                frame.append(QUEEN_TEXT);
+                break;
+            case king:
+                frame.append(KING_TEXT);
+                break;
         }
+    }
+
+    /**
+     * Appends an ANSI sequence moving the cursor.
+     *
+     * @param line The 1 based screen line
+     * @param column The 1 based screen column
+     */
+    private void appendCursorPosition(int line, int column) {
+        frame.append(ANSI_ESCAPE).append(line).append(';').append(column).append('H');
+    }
+
+    /**
+     * Writes the assembled frame to the stream in a single write.  The frame
+     * only contains ASCII, so it is copied into the byte buffer directly.
+     */
+    private void writeFrame() {
+        int length = frame.length();
+
+        if(length == 0) {
+            return;
+        }
+
+        if(frameBytes.length < length) {
+            frameBytes = new byte[Math.max(length, frameBytes.length * 2)];
+        }
+
+        for(int i = 0; i < length; i++) {
+            frameBytes[i] = (byte)frame.charAt(i);
+        }
+
+        out.write(frameBytes, 0, length);
+        out.flush();
+    }
 
+    /**
+     * Enables or disables redrawing only the changed squares.  The next
+     * frame is always drawn in full.
+     *
+     * @param ansiMode TRUE to use ANSI cursor movement
+     */
+    public void setAnsiMode(boolean ansiMode) {
+        this.ansiMode = ansiMode;
+        this.previousCodes = null;
     }
 
     @Override
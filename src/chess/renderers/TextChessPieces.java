@@ -5,6 +5,8 @@
  */
 package chess.renderers;
 
+import chess.pieces.PieceType;
+
 /**
  *
  * @author CarrollFD
@@ -25,4 +27,29 @@ public class TextChessPieces {
     public static final String BLACK_PAWN = "\u265F";
     
     public static final String BLANK = "";    
+
+    /**
+     * Provides the glyph for the given piece type and color.
+     *
+     * @param type The type of the piece
+     * @param color The color of the piece
+     *
+     * @return The glyph representing the piece
+     */
+    public static String getGlyph(PieceType type, boolean color) {
+        switch(type) {
+            case king:
+                return color ? WHITE_KING : BLACK_KING;
+            case queen:
+                return color ? WHITE_QUEEN : BLACK_QUEEN;
+            case rook:
+                return color ? WHITE_ROOK : BLACK_ROOK;
+            case bishop:
+                return color ? WHITE_BISHOP : BLACK_BISHOP;
+            case knight:
+                return color ? WHITE_KNIGHT : BLACK_KNIGHT;
+            default:
+                return color ? WHITE_PAWN : BLACK_PAWN;
+        }
+    }
 }
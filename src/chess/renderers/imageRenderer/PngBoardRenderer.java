@@ -0,0 +1,201 @@
+package chess.renderers.imageRenderer;
+
+import chess.game.GameInfoWrapper;
+import chess.game.board.Board;
+import chess.game.board.BoardSnapshot;
+import chess.pieces.PieceCode;
+import chess.renderers.BoardRenderer;
+import chess.renderers.MoveRequestAction;
+import chess.renderers.PieceGlyphAtlas;
+import chess.renderers.renderStyles.DefaultSwingRendererStyle;
+import chess.renderers.renderStyles.RendererStyle;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import javax.imageio.ImageIO;
+
+/**
+ * Renders the game board to PNG images without a display, for use on
+ * servers generating position thumbnails.  Run with -Djava.awt.headless=true
+ * where no display is available.
+ *
+ * The piece sprites are rasterized once per size and shared by every
+ * thread.  Each thread reuses its own image and output buffer, so a single
+ * renderer may be shared by any number of worker threads rendering
+ * snapshots with renderPng(...).
+ *
+ * @author CarrollFD
+ */
+public class PngBoardRenderer implements BoardRenderer {
+    // the default size of a single square in pixels
+    public static final int DEFAULT_CELL_SIZE = 32;
+
+    // the border around the board
+    private static final int BORDER_SIZE = 1;
+
+    // the game info wrapper, may be null when only rendering snapshots
+    private final GameInfoWrapper gameInfo;
+
+    // the size of a single square in pixels
+    private final int cellSize;
+
+    // the style, and the sprites rasterized for it
+    private volatile RendererStyle style = new DefaultSwingRendererStyle();
+    private volatile PieceGlyphAtlas atlas = new PieceGlyphAtlas(style);
+
+    // the image and output buffer reused by each thread
+    private final ThreadLocal<BufferedImage> images = new ThreadLocal<>();
+    private final ThreadLocal<ByteArrayOutputStream> outputs = new ThreadLocal<>();
+
+    // the image produced by the most recent render()
+    private volatile byte[] pngBytes;
+
+    /**
+     * Constructs a renderer for snapshots only, see renderPng(...).
+     *
+     * @param cellSize The size of a single square in pixels
+     */
+    public PngBoardRenderer(int cellSize) {
+        this(null, cellSize);
+    }
+
+    /**
+     * Constructs a renderer following a game.
+     *
+     * @param gameInfo the game info wrapper
+     * @param cellSize The size of a single square in pixels
+     */
+    public PngBoardRenderer(GameInfoWrapper gameInfo, int cellSize) {
+        if(cellSize < 1) {
+            throw new IllegalArgumentException("Cell size must be positive.");
+        }
+
+        this.gameInfo = gameInfo;
+        this.cellSize = cellSize;
+    }
+
+    @Override
+    public void render() {
+        if(gameInfo == null) {
+            throw new IllegalStateException("Renderer.render() invoked without a game.");
+        }
+
+        pngBytes = renderPng(gameInfo.getSnapshot());
+    }
+
+    /**
+     * @return The PNG produced by the most recent render(), or null
+     */
+    public byte[] getPngBytes() {
+        return pngBytes;
+    }
+
+    /**
+     * Renders a position to a PNG image.  This may be called from any
+     * thread.
+     *
+     * @param snapshot The position to render
+     *
+     * @return The encoded PNG
+     */
+    public byte[] renderPng(BoardSnapshot snapshot) {
+        BufferedImage image = getImage();
+        RendererStyle currentStyle = style;
+        PieceGlyphAtlas currentAtlas = atlas;
+
+        Graphics2D graphics = image.createGraphics();
+        try {
+            // paint the border
+            graphics.setColor(currentStyle.getExteriorBorderColor());
+            graphics.fillRect(0, 0, image.getWidth(), image.getHeight());
+
+            for(int y = 0; y < Board.BOARD_SIZE_Y; y++) {
+                for(int x = 0; x < Board.BOARD_SIZE_X; x++) {
+                    int left = BORDER_SIZE + x * cellSize;
+                    int top = BORDER_SIZE + y * cellSize;
+
+                    // fill the square
+                    if((x + y) % 2 == 0) {
+                        graphics.setColor(currentStyle.getWhiteSquareColor());
+                    } else {
+                        graphics.setColor(currentStyle.getBlackSquareColor());
+                    }
+                    graphics.fillRect(left, top, cellSize, cellSize);
+
+                    // draw the piece, if there is one
+                    int piece = snapshot.getPieceCode(x, y);
+                    if(!PieceCode.isEmpty(piece)) {
+                        graphics.drawImage(currentAtlas.getGlyph(PieceCode.getType(piece),
+                                PieceCode.getColor(piece), false, cellSize), left, top, null);
+                    }
+                }
+            }
+        } finally {
+            graphics.dispose();
+        }
+
+        return encode(image);
+    }
+
+    /**
+     * Provides this thread's image, creating it on first use.
+     *
+     * @return The image to draw on
+     */
+    private BufferedImage getImage() {
+        BufferedImage image = images.get();
+
+        if(image == null) {
+            int width = cellSize * Board.BOARD_SIZE_X + BORDER_SIZE * 2;
+            int height = cellSize * Board.BOARD_SIZE_Y + BORDER_SIZE * 2;
+
+            image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            images.set(image);
+        }
+
+        return image;
+    }
+
+    /**
+     * Encodes an image as PNG using this thread's output buffer.
+     *
+     * @param image The image to encode
+     *
+     * @return The encoded PNG
+     */
+    private byte[] encode(BufferedImage image) {
+        ByteArrayOutputStream output = outputs.get();
+
+        if(output == null) {
+            output = new ByteArrayOutputStream();
+            outputs.set(output);
+        }
+
+        output.reset();
+
+        try {
+            if(!ImageIO.write(image, "png", output)) {
+                throw new IllegalStateException("No PNG writer available.");
+            }
+        } catch(IOException e) {
+            // writing to memory does not fail in practice
+            throw new UncheckedIOException(e);
+        }
+
+        return output.toByteArray();
+    }
+
+    @Override
+    public void setRendererStyle(RendererStyle style) {
+        this.atlas = new PieceGlyphAtlas(style);
+        this.style = style;
+    }
+
+    @Override
+    public void setMoveRequestAction(MoveRequestAction action) {
+        // no move request action is provided for this implementation
+    }
+}
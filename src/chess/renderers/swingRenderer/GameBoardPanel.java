@@ -2,8 +2,13 @@ package chess.renderers.swingRenderer;
 
 import chess.game.GameInfoWrapper;
 import chess.game.board.Board;
+import chess.game.board.BoardSnapshot;
 import chess.game.board.Position;
-import chess.pieces.ImmutablePiece;
+import chess.game.events.BoardChangeAdapter;
+import chess.game.events.BoardChangeEvent;
+import chess.game.events.PieceCapturedEvent;
+import chess.game.events.PieceMovedEvent;
+import chess.pieces.PieceCode;
 import chess.renderers.BoardRenderer;
 import chess.renderers.MoveRequestAction;
 import chess.renderers.TextChessPieces;
@@ -16,9 +21,8 @@ import java.awt.GridLayout;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import javax.swing.BorderFactory;
-import javax.swing.JLabel;
 import javax.swing.JPanel;
-import javax.swing.SwingConstants;
+import javax.swing.SwingUtilities;
 
 
 /**
@@ -40,6 +44,12 @@ public class GameBoardPanel extends JPanel implements BoardRenderer {
     // the MoveRequestAction
     private Position startPosition;
     
+    // the buttons representing each square, indexed by y then x
+    private final PieceButton[][] buttons = new PieceButton[Board.BOARD_SIZE_Y][Board.BOARD_SIZE_X];
+    
+    // the font used to display the pieces
+    private final Font font = new Font(Font.SANS_SERIF, Font.PLAIN, 75);
+    
     /**
      * Constructs a new game panel
      * 
@@ -50,138 +60,106 @@ public class GameBoardPanel extends JPanel implements BoardRenderer {
         
         // set-up layout and borders
         setUpPanel();
+        
+        // follow the game so that only changed squares are redrawn
+        gameInfo.addChangeListener(new BoardUpdateListener());
     }
     
     @Override
     public void render() {
-        // clear the board
-        this.removeAll();
+        // refresh every square from a single consistent snapshot
+        BoardSnapshot snapshot = gameInfo.getSnapshot();
+        for(int y = 0; y < Board.BOARD_SIZE_Y; y++) {
+            for(int x = 0; x < Board.BOARD_SIZE_X; x++) {
+                updateSquare(snapshot, x, y);
+            }
+        }
         
-        // iniitalize background color flag
-        // and color objects
-        boolean bgColorFlag = true;
+        updateDisplay();
+    }
+
+    /**
+     * Updates the button representing a single square to match the board.
+     * 
+     * @param snapshot The position to display
+     * @param x The x position of the square
+     * @param y The y position of the square
+     */
+    private void updateSquare(BoardSnapshot snapshot, int x, int y) {
+        int piece = snapshot.getPieceCode(x, y);
+        boolean selected = startPosition != null &&
+                startPosition.getX() == x && startPosition.getY() == y;
         Color bgColor;
         Color fgColor;
         
-        for(int y = 0; y < Board.BOARD_SIZE_Y; y++) {
-            for(int x = 0; x < Board.BOARD_SIZE_X; x++) {
-                Position position = new Position(x, y);
-                ImmutablePiece piece = gameInfo.getPieceAt(position);
-                
-                if(piece != null && piece.getColor()) {
-                    fgColor = style.getWhitePieceColor();
-                } else {
-                    fgColor = style.getBlackPieceColor();
-                }
-                
-                // set the background color for this cell
-                if(startPosition != null && startPosition.equals(position)) {
-                    // if its the selected cell
-                    bgColor = style.getSelectedSquareColor();
-                    
-                    if(piece != null && piece.getColor()) {
-                        fgColor = style.getSelectedWhitePieceColor();
-                    } else {
-                        fgColor = style.getSelectedBlackPieceColor();
-                    }
-                }else if(bgColorFlag) {
-                    // if its a white cell
-                    bgColor = style.getWhiteSquareColor();
-                } else {
-                    // if its a black cell
-                    bgColor = style.getBlackSquareColor();
-                }
-                
-                // check if the piece is null, if so make a blank cell
-                // otherwise check what kind of piece it is, then its color
-                if(piece == null) {
-                    addPiece(TextChessPieces.BLANK, bgColor, fgColor, new Position(x, y));
-                } else {
-                    switch(piece.getPieceType()) {
-                        case king:
-                            if(piece.getColor()) {
-                                addPiece(TextChessPieces.WHITE_KING, bgColor, fgColor, position);
-                            } else {
-                                addPiece(TextChessPieces.BLACK_KING, bgColor, fgColor, position);
-                            }
-                            break;
-                        case queen:
-                            if(piece.getColor()) {
-                                addPiece(TextChessPieces.WHITE_QUEEN, bgColor, fgColor, position);
-                            } else {
-                                addPiece(TextChessPieces.BLACK_QUEEN, bgColor, fgColor, position);
-                            }
-                            break;
-                        case rook:
-                            if(piece.getColor()) {
-                                addPiece(TextChessPieces.WHITE_ROOK, bgColor, fgColor, position);
-                            } else {
-                                addPiece(TextChessPieces.BLACK_ROOK, bgColor, fgColor, position);
-                            }
-                            break;
-                        case bishop:
-                            if(piece.getColor()) {
-                                addPiece(TextChessPieces.WHITE_BISHOP, bgColor, fgColor, position);
-                            } else {
-                                addPiece(TextChessPieces.BLACK_BISHOP, bgColor, fgColor, position);
-                            }
-                            break;
-                        case knight:
-                            if(piece.getColor()) {
-                                addPiece(TextChessPieces.WHITE_KNIGHT, bgColor, fgColor, position);
-                            } else {
-                                addPiece(TextChessPieces.BLACK_KNIGHT, bgColor, fgColor, position);
-                            }
-                            break;
-                        case pawn:
-                            if(piece.getColor()) {
-                                addPiece(TextChessPieces.WHITE_PAWN, bgColor, fgColor, position);
-                            } else {
-                                addPiece(TextChessPieces.BLACK_PAWN, bgColor, fgColor, position);
-                            }
-                            break;
-                    }
-                }
-                
-                // alternate the color unless its the end of a row.
-                if(x != 7) {
-                    bgColorFlag = !bgColorFlag;
-                }
+        if(!PieceCode.isEmpty(piece) && PieceCode.getColor(piece)) {
+            fgColor = style.getWhitePieceColor();
+        } else {
+            fgColor = style.getBlackPieceColor();
+        }
+        
+        // set the background color for this cell
+        if(selected) {
+            // if its the selected cell
+            bgColor = style.getSelectedSquareColor();
+            
+            if(!PieceCode.isEmpty(piece) && PieceCode.getColor(piece)) {
+                fgColor = style.getSelectedWhitePieceColor();
+            } else {
+                fgColor = style.getSelectedBlackPieceColor();
             }
+        } else if((x + y) % 2 == 0) {
+            // if its a white cell
+            bgColor = style.getWhiteSquareColor();
+        } else {
+            // if its a black cell
+            bgColor = style.getBlackSquareColor();
         }
         
-        updateDisplay();
+        // check if the piece is null, if so make a blank cell
+        // otherwise display the piece's glyph
+        PieceButton button = buttons[y][x];
+        if(PieceCode.isEmpty(piece)) {
+            button.setText(TextChessPieces.BLANK);
+        } else {
+            button.setText(TextChessPieces.getGlyph(PieceCode.getType(piece), PieceCode.getColor(piece)));
+        }
+        button.setBackground(bgColor);
+        button.setForeground(fgColor);
     }
 
     /**
      * Creates the button that will represent the square on the board
      * and adds it to the panel.
      * 
-     * @param piece The string representing the piece
-     * @param bgColor The background color of the cell
      * @param position The position object
      */
-    private void addPiece(String piece, Color bgColor, Color fgColor, Position position) {
-        Font font = new Font(Font.SANS_SERIF, Font.PLAIN, 75);
-        PieceButton button = new PieceButton(piece, bgColor, position);
+    private void addSquare(Position position) {
+        PieceButton button = new PieceButton(TextChessPieces.BLANK, style.getWhiteSquareColor(), position);
         button.setFont(font);
         button.setBorder(BorderFactory.createEmptyBorder());
-        button.setForeground(fgColor);
         button.addActionListener(new ButtonPressListener());
+        buttons[position.getY()][position.getX()] = button;
         add(button);
     }
 
     /**
-     * Sets-up the layout and border of the panel
+     * Sets-up the layout and border of the panel, and creates the squares
      */
     private void setUpPanel() {
         GridLayout layout = new GridLayout(8, 8);
         setLayout(layout);
         setBorder(BorderFactory.createEmptyBorder(2, 2, 2, 2));
+        
+        for(int y = 0; y < Board.BOARD_SIZE_Y; y++) {
+            for(int x = 0; x < Board.BOARD_SIZE_X; x++) {
+                addSquare(new Position(x, y));
+            }
+        }
     }
 
     private void updateDisplay() {
-        revalidate();
+        repaint();
     }
     
     @Override
@@ -208,6 +186,9 @@ public class GameBoardPanel extends JPanel implements BoardRenderer {
             // convert the source to a PieceButton
             PieceButton buttonSource = (PieceButton)source;
             
+            // remember the previous selection so it can be cleared
+            Position previousStartPosition = startPosition;
+            
             // check if we're clicking the start or end position
             if(startPosition != null && startPosition.equals(buttonSource.getPosition())) {
                 // if the start position was clicked a second time, clear it
@@ -235,7 +216,52 @@ public class GameBoardPanel extends JPanel implements BoardRenderer {
                 startPosition = null;
             }
             
-            render();
+            // only the previous and current selections need to be redrawn
+            updateSelection(previousStartPosition);
+            updateSelection(startPosition);
+            updateDisplay();
         }        
     }
+    
+    /**
+     * Redraws a square whose selection state may have changed.
+     * 
+     * @param position The position of the square, may be null
+     */
+    private void updateSelection(Position position) {
+        if(position != null) {
+            updateSquare(gameInfo.getSnapshot(), position.getX(), position.getY());
+        }
+    }
+    
+    /**
+     * Redraws the squares affected by each change to the board.  Changes may
+     * be published from any thread, so the update is handed to the event
+     * dispatch thread.
+     */
+    private class BoardUpdateListener extends BoardChangeAdapter {
+        @Override
+        public void pieceMoved(PieceMovedEvent event) {
+            updatePositions(event);
+        }
+
+        @Override
+        public void pieceCaptured(PieceCapturedEvent event) {
+            updatePositions(event);
+        }
+        
+        private void updatePositions(BoardChangeEvent event) {
+            SwingUtilities.invokeLater(new Runnable() {
+                @Override
+                public void run() {
+                    BoardSnapshot snapshot = gameInfo.getSnapshot();
+                    for(Position position : event.getAffectedPositions()) {
+                        updateSquare(snapshot, position.getX(), position.getY());
+                    }
+                    
+                    updateDisplay();
+                }
+            });
+        }
+    }
 }
@@ -0,0 +1,247 @@
+package chess.renderers.swingRenderer;
+
+import chess.game.GameInfoWrapper;
+import chess.game.board.Board;
+import chess.game.board.BoardSnapshot;
+import chess.game.board.Position;
+import chess.game.events.BoardChangeAdapter;
+import chess.game.events.BoardChangeEvent;
+import chess.game.events.PieceCapturedEvent;
+import chess.game.events.PieceMovedEvent;
+import chess.pieces.PieceCode;
+import chess.renderers.BoardRenderer;
+import chess.renderers.MoveRequestAction;
+import chess.renderers.PieceGlyphAtlas;
+import chess.renderers.renderStyles.DefaultSwingRendererStyle;
+import chess.renderers.renderStyles.RendererStyle;
+
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Rectangle;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import javax.swing.JComponent;
+
+/**
+ * Renders the game board as a single custom painted component.  Unlike
+ * GameBoardPanel, no child components are created: the squares are filled
+ * directly and each piece is drawn from a prerendered glyph atlas, so a
+ * repaint costs one blit per piece and resizing requires no layout pass.
+ *
+ * @author CarrollFD
+ */
+public class PaintedBoardPanel extends JComponent implements BoardRenderer {
+    private static final long serialVersionUID = 1L;
+
+    // the preferred size of a single square
+    private static final int DEFAULT_CELL_SIZE = 90;
+
+    // the border around the board
+    private static final int BORDER_SIZE = 2;
+
+    // the style object
+    private RendererStyle style = new DefaultSwingRendererStyle();
+
+    // the prerendered piece glyphs for the current style
+    private PieceGlyphAtlas atlas = new PieceGlyphAtlas(style);
+
+    // the game info wrapper
+    private final GameInfoWrapper gameInfo;
+
+    // the move request action
+    private MoveRequestAction moveRequestAction;
+
+    // the currently selected start position
+    private Position startPosition;
+
+    /**
+     * Constructs a new painted board
+     *
+     * @param gameInfo the game info wrapper
+     */
+    public PaintedBoardPanel(GameInfoWrapper gameInfo) {
+        this.gameInfo = gameInfo;
+
+        setOpaque(true);
+        setPreferredSize(new Dimension(DEFAULT_CELL_SIZE * Board.BOARD_SIZE_X + BORDER_SIZE * 2,
+                DEFAULT_CELL_SIZE * Board.BOARD_SIZE_Y + BORDER_SIZE * 2));
+        addMouseListener(new SquarePressListener());
+
+        // follow the game so that only changed squares are repainted
+        gameInfo.addChangeListener(new BoardUpdateListener());
+    }
+
+    @Override
+    public void render() {
+        repaint();
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        int cellSize = getCellSize();
+        Rectangle clip = g.getClipBounds();
+
+        // paint the border
+        g.setColor(style.getExteriorBorderColor());
+        g.fillRect(0, 0, getWidth(), getHeight());
+
+        if(cellSize < 1) {
+            return;
+        }
+
+        // paint from a single consistent snapshot, moves may be made on
+        // other threads while painting
+        BoardSnapshot snapshot = gameInfo.getSnapshot();
+
+        for(int y = 0; y < Board.BOARD_SIZE_Y; y++) {
+            for(int x = 0; x < Board.BOARD_SIZE_X; x++) {
+                int left = BORDER_SIZE + x * cellSize;
+                int top = BORDER_SIZE + y * cellSize;
+
+                // skip squares outside of the area being repainted
+                if(clip != null && !clip.intersects(left, top, cellSize, cellSize)) {
+                    continue;
+                }
+
+                boolean selected = startPosition != null &&
+                        startPosition.getX() == x && startPosition.getY() == y;
+
+                // fill the square
+                if(selected) {
+                    g.setColor(style.getSelectedSquareColor());
+                } else if((x + y) % 2 == 0) {
+                    g.setColor(style.getWhiteSquareColor());
+                } else {
+                    g.setColor(style.getBlackSquareColor());
+                }
+                g.fillRect(left, top, cellSize, cellSize);
+
+                // draw the piece, if there is one
+                int piece = snapshot.getPieceCode(x, y);
+                if(!PieceCode.isEmpty(piece)) {
+                    g.drawImage(atlas.getGlyph(PieceCode.getType(piece), PieceCode.getColor(piece), selected, cellSize),
+                            left, top, null);
+                }
+            }
+        }
+    }
+
+    /**
+     * Maps a point on the component to a board position.
+     *
+     * @param pointX x coordinate in pixels
+     * @param pointY y coordinate in pixels
+     *
+     * @return The position under the point, or null if it is off the board.
+     */
+    public Position positionAt(int pointX, int pointY) {
+        int cellSize = getCellSize();
+
+        if(cellSize < 1 || pointX < BORDER_SIZE || pointY < BORDER_SIZE) {
+            return null;
+        }
+
+        Position position = new Position((pointX - BORDER_SIZE) / cellSize, (pointY - BORDER_SIZE) / cellSize);
+
+        return GameInfoWrapper.isOnBoard(position) ? position : null;
+    }
+
+    /**
+     * Schedules a repaint of a single square.
+     *
+     * @param position The position of the square, may be null
+     */
+    private void repaintSquare(Position position) {
+        int cellSize = getCellSize();
+
+        if(position != null && cellSize > 0) {
+            repaint(BORDER_SIZE + position.getX() * cellSize, BORDER_SIZE + position.getY() * cellSize,
+                    cellSize, cellSize);
+        }
+    }
+
+    /**
+     * @return The size of a single square for the current component size
+     */
+    private int getCellSize() {
+        int width = (getWidth() - BORDER_SIZE * 2) / Board.BOARD_SIZE_X;
+        int height = (getHeight() - BORDER_SIZE * 2) / Board.BOARD_SIZE_Y;
+
+        return Math.min(width, height);
+    }
+
+    @Override
+    public void setRendererStyle(RendererStyle style) {
+        this.style = style;
+        this.atlas = new PieceGlyphAtlas(style);
+        repaint();
+    }
+
+    @Override
+    public void setMoveRequestAction(MoveRequestAction action) {
+        this.moveRequestAction = action;
+    }
+
+    private class SquarePressListener extends MouseAdapter {
+        @Override
+        public void mousePressed(MouseEvent e) {
+            Position position = positionAt(e.getX(), e.getY());
+
+            // clicks on the border are ignored
+            if(position == null) {
+                return;
+            }
+
+            // remember the previous selection so it can be cleared
+            Position previousStartPosition = startPosition;
+
+            // check if we're clicking the start or end position
+            if(startPosition != null && startPosition.equals(position)) {
+                // if the start position was clicked a second time, clear it
+                startPosition = null;
+            } else if(startPosition == null) {
+                // if the start position was just now clicked, set it
+                startPosition = position;
+            } else {
+                // otherwise must be the end position clicked, make sure
+                // we have a moveRequestAction object avaliable
+                if(moveRequestAction == null) {
+                    throw new IllegalStateException("MoveRequestAction not "
+                            + "set.");
+                }
+
+                moveRequestAction.moveRequest(startPosition, position);
+
+                // reset the start position
+                startPosition = null;
+            }
+
+            // only the previous and current selections need to be repainted
+            repaintSquare(previousStartPosition);
+            repaintSquare(startPosition);
+        }
+    }
+
+    /**
+     * Repaints the squares affected by each change to the board.  Repaint
+     * requests are thread safe, so no hand-off to the event dispatch thread
+     * is needed.
+     */
+    private class BoardUpdateListener extends BoardChangeAdapter {
+        @Override
+        public void pieceMoved(PieceMovedEvent event) {
+            repaintPositions(event);
+        }
+
+        @Override
+        public void pieceCaptured(PieceCapturedEvent event) {
+            repaintPositions(event);
+        }
+
+        private void repaintPositions(BoardChangeEvent event) {
+            for(Position position : event.getAffectedPositions()) {
+                repaintSquare(position);
+            }
+        }
+    }
+}
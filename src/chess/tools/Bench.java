@@ -0,0 +1,117 @@
+package chess.tools;
+
+import chess.engine.EngineConfig;
+import chess.engine.SearchEngine;
+import chess.engine.SearchResult;
+import chess.engine.SearchStatistics;
+import chess.game.CoordinateNotation;
+import chess.game.Game;
+
+/**
+ * Searches a fixed set of positions to a fixed depth and prints the total
+ * number of nodes searched and the search speed.
+ *
+ * The bench is single threaded and fully deterministic, so the node count
+ * works as a signature of the move generation and search: a change to
+ * either that alters the search shows up as a different signature, while a
+ * change that only affects speed shows up in the nodes per second.
+ *
+ * Usage:
+ * Bench [--depth n] [--engine settings] [--verbose]
+ *
+ * Engine settings are given as "nullmove=false,lmr=false" and are applied
+ * on top of the bench defaults, to compare search techniques.
+ *
+ * @author CarrollFD
+ */
+public class Bench {
+    // the default search depth
+    private static final int DEFAULT_DEPTH = 3;
+
+    // the bench positions, each reached by a line of moves from the start
+    private static final String[] POSITIONS = {
+        "",
+        "e2e4 e7e5 g1f3 b8c6 f1b5 a7a6 b5a4 g8f6",
+        "d2d4 d7d5 c2c4 e7e6 b1c3 g8f6 c1g5 f8e7",
+        "e2e4 c7c5 g1f3 d7d6 d2d4 c5d4 f3d4 g8f6 b1c3 a7a6",
+        "d2d4 g8f6 c2c4 g7g6 b1c3 f8g7 e2e4 d7d6 g1f3",
+        "e2e4 e7e6 d2d4 d7d5 b1c3 f8b4 e4e5 c7c5 a2a3 b4c3 b2c3",
+        "c2c4 e7e5 b1c3 g8f6 g2g3 d7d5 c4d5 f6d5 f1g2 d5b6",
+        "e2e4 d7d5 e4d5 d8d5 b1c3 d5a5 d2d4 g8f6 g1f3 c8f5",
+        "e2e4 e7e5 g1f3 b8c6 d2d4 e5d4 f3d4 g8f6 d4c6 b7c6 e4e5 d8e7",
+        "d2d4 d7d5 c2c4 d5c4 e2e4 e7e5 g1f3 e5d4 f1c4 f8b4 b1d2 b8c6"
+    };
+
+    /**
+     * Runs the bench.
+     *
+     * @param config The engine settings, including the depth
+     * @param verbose TRUE to print the result of each position
+     */
+    public static void run(EngineConfig config, boolean verbose) {
+        SearchStatistics total = new SearchStatistics();
+        long totalTime = 0;
+
+        for(int i = 0; i < POSITIONS.length; i++) {
+            Game game = new Game();
+            CoordinateNotation.playMoves(game, POSITIONS[i]);
+
+            // a fresh engine per position so no state carries over
+            SearchEngine engine = new SearchEngine(config);
+
+            long startTime = System.nanoTime();
+            SearchResult result = engine.search(game);
+            totalTime += System.nanoTime() - startTime;
+            total.add(result.getStatistics());
+
+            if(verbose) {
+                System.out.printf("Position %2d: %-5s score %6d, %9d nodes%n", i + 1,
+                        result.getBestMove() == null ? "none" : CoordinateNotation.formatMove(result.getBestMove()),
+                        result.getScore(), result.getNodes());
+            }
+        }
+
+        double seconds = totalTime / 1e9;
+
+        System.out.println("Depth:     " + config.getDepth());
+        System.out.println("Positions: " + POSITIONS.length);
+        System.out.println("Search:    " + total);
+        System.out.println("Nodes:     " + total.getNodes());
+        System.out.printf("Time:      %.3f s%n", seconds);
+        System.out.printf("NPS:       %d%n", seconds > 0 ? (long)(total.getNodes() / seconds) : 0);
+    }
+
+    /**
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) {
+        // the bench defaults, which --engine settings may override
+        String settings = "name=bench,depth=" + DEFAULT_DEPTH;
+        int depth = 0;
+        boolean verbose = false;
+
+        for(int i = 0; i < args.length; i++) {
+            switch(args[i]) {
+                case "--depth":
+                    depth = Integer.parseInt(args[++i]);
+                    break;
+                case "--engine":
+                    settings += "," + args[++i];
+                    break;
+                case "--verbose":
+                    verbose = true;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        EngineConfig config = EngineConfig.parse(settings);
+
+        if(depth > 0) {
+            config.setDepth(depth);
+        }
+
+        run(config, verbose);
+    }
+}
@@ -0,0 +1,344 @@
+package chess.tools;
+
+import chess.engine.EngineConfig;
+import chess.engine.OpeningSuite;
+import chess.engine.RandomMoveStrategy;
+import chess.engine.SearchEngine;
+import chess.engine.Sprt;
+import chess.game.Game;
+import chess.game.GameResult;
+import chess.game.Move;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Plays a match between two engine configurations and decides with a
+ * sequential probability ratio test whether the first one is stronger.
+ *
+ * Every opening of the suite is played twice, once with each engine as
+ * white, and the two games form a pair.  Pairs are played in parallel and
+ * the test is updated as each pair finishes, so the match stops as soon as
+ * the result is settled instead of after a fixed number of games.
+ *
+ * The opening of each pair is followed by a few random moves, seeded by the
+ * pair number and the same in both games of the pair, so pairs differ even
+ * when there are more pairs than openings.  With --random-plies 0 the games
+ * start right after the opening and the match plays at most one pair per
+ * opening, as repeated pairs would only repeat the same two games.
+ *
+ * Each worker reuses one engine per side, clearing it between games.  A
+ * game the engines could not finish, because an engine found no move or
+ * made an illegal one, is counted as failed and its pair is left out of the
+ * test.
+ *
+ * Usage:
+ * EngineMatch --engine1 settings --engine2 settings [--pairs n]
+ *             [--threads n] [--max-plies n] [--openings file]
+ *             [--random-plies n] [--seed n]
+ *             [--elo0 n] [--elo1 n] [--alpha n] [--beta n]
+ *
+ * Engine settings are given as "name=new,depth=3".
+ *
+ * @author CarrollFD
+ */
+public class EngineMatch {
+    // defaults for the command line options
+    private static final int DEFAULT_PAIRS = 1000;
+    private static final int DEFAULT_MAX_PLIES = 300;
+    private static final int DEFAULT_RANDOM_PLIES = 4;
+    private static final double DEFAULT_ELO0 = 0;
+    private static final double DEFAULT_ELO1 = 10;
+    private static final double DEFAULT_ALPHA = 0.05;
+    private static final double DEFAULT_BETA = 0.05;
+
+    /**
+     * The score of a game the engines could not finish.
+     */
+    public static final int FAILED = -1;
+
+    private final EngineConfig engine1;
+    private final EngineConfig engine2;
+    private final OpeningSuite openings;
+    private final int maxPlies;
+    private final int randomPlies;
+    private final long seed;
+
+    // each worker's engines, reused for every game it plays
+    private final ThreadLocal<SearchEngine> engines1;
+    private final ThreadLocal<SearchEngine> engines2;
+
+    /**
+     * Constructs a match.
+     *
+     * @param engine1 The settings of the engine under test
+     * @param engine2 The settings of the reference engine
+     * @param openings The openings the games start from
+     * @param maxPlies The number of moves after which a game is scored a draw
+     * @param randomPlies The random moves played after the opening
+     * @param seed The base seed, each pair derives its own from it
+     */
+    public EngineMatch(EngineConfig engine1, EngineConfig engine2, OpeningSuite openings, int maxPlies,
+            int randomPlies, long seed) {
+        this.engine1 = engine1;
+        this.engine2 = engine2;
+        this.openings = openings;
+        this.maxPlies = maxPlies;
+        this.randomPlies = randomPlies;
+        this.seed = seed;
+
+        engines1 = ThreadLocal.withInitial(() -> new SearchEngine(engine1));
+        engines2 = ThreadLocal.withInitial(() -> new SearchEngine(engine2));
+    }
+
+    /**
+     * Plays both games of a pair.
+     *
+     * @param pairNumber The number of the pair, selecting its opening and
+     *                   seed
+     *
+     * @return The first engine's score in half points for each game, or
+     *         FAILED for a game the engines could not finish
+     */
+    public int[] playPair(int pairNumber) {
+        return new int[] { playGame(pairNumber, true), playGame(pairNumber, false) };
+    }
+
+    /**
+     * Plays a single game.
+     *
+     * @param pairNumber The number of the pair, selecting its opening and
+     *                   seed
+     * @param engine1White TRUE if the first engine plays white
+     *
+     * @return The first engine's score in half points, or FAILED
+     */
+    private int playGame(int pairNumber, boolean engine1White) {
+        Game game = openings.createGame(pairNumber);
+
+        // both games of the pair draw the same moves from the same seed
+        RandomMoveStrategy opening = new RandomMoveStrategy(seed + pairNumber);
+        for(int ply = 0; ply < randomPlies && game.getResult() == GameResult.inProgress; ply++) {
+            Move move = opening.selectMove(game);
+
+            if(move == null || !game.requestMove(move.getStartPosition(), move.getEndPosition())) {
+                break;
+            }
+        }
+
+        SearchEngine first = engines1.get();
+        SearchEngine second = engines2.get();
+        first.clear();
+        second.clear();
+
+        SearchEngine white = engine1White ? first : second;
+        SearchEngine black = engine1White ? second : first;
+
+        while(game.getResult() == GameResult.inProgress && game.getMoveList().size() < maxPlies) {
+            if(Thread.currentThread().isInterrupted()) {
+                return FAILED;
+            }
+
+            SearchEngine engine = game.getSideToMove() ? white : black;
+            Move move = engine.selectMove(game);
+
+            if(move == null || !game.requestMove(move.getStartPosition(), move.getEndPosition())) {
+                // the engine gave up or its move was refused in a game
+                // still in progress
+                return FAILED;
+            }
+        }
+
+        switch(game.getResult()) {
+            case whiteWins:
+                return engine1White ? 2 : 0;
+            case blackWins:
+                return engine1White ? 0 : 2;
+            default:
+                // stalemates and games reaching the move limit are draws
+                return 1;
+        }
+    }
+
+    /**
+     * Plays pairs until the test reaches a decision or the pair limit is
+     * reached, and prints the results.
+     *
+     * @param sprt The test to update
+     * @param maxPairs The largest number of pairs to play
+     * @param threads The number of worker threads
+     *
+     * @return The final state of the test
+     */
+    public Sprt.Decision run(Sprt sprt, int maxPairs, int threads) throws InterruptedException {
+        if(randomPlies == 0) {
+            // without random moves a pair past the last opening repeats an
+            // earlier one
+            maxPairs = Math.min(maxPairs, openings.size());
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CompletionService<int[]> completion = new ExecutorCompletionService<>(executor);
+        long startTime = System.nanoTime();
+
+        // keep a few pairs queued per thread so no worker waits for work
+        int submitted = 0;
+        int inFlight = Math.min(maxPairs, threads * 2);
+        for(; submitted < inFlight; submitted++) {
+            final int pairNumber = submitted;
+            completion.submit(() -> playPair(pairNumber));
+        }
+
+        int wins = 0;
+        int draws = 0;
+        int losses = 0;
+        int failed = 0;
+        Sprt.Decision decision = Sprt.Decision.continueTesting;
+
+        try {
+            for(int finished = 0; finished < submitted; finished++) {
+                int[] pair = completion.take().get();
+
+                if(pair[0] == FAILED || pair[1] == FAILED) {
+                    // a pair with a failed game says nothing about strength
+                    for(int halfPoints : pair) {
+                        if(halfPoints == FAILED) {
+                            failed++;
+                        }
+                    }
+                } else {
+                    for(int halfPoints : pair) {
+                        if(halfPoints == 2) {
+                            wins++;
+                        } else if(halfPoints == 1) {
+                            draws++;
+                        } else {
+                            losses++;
+                        }
+                    }
+
+                    sprt.addPair(pair[0] + pair[1]);
+
+                    decision = sprt.getDecision();
+                    if(decision != Sprt.Decision.continueTesting) {
+                        break;
+                    }
+                }
+
+                if(submitted < maxPairs) {
+                    final int pairNumber = submitted++;
+                    completion.submit(() -> playPair(pairNumber));
+                }
+            }
+        } catch(ExecutionException e) {
+            throw new IllegalStateException("Match worker failed.", e.getCause());
+        } finally {
+            // abandon the pairs still being played
+            executor.shutdownNow();
+        }
+
+        double seconds = (System.nanoTime() - startTime) / 1e9;
+
+        System.out.println("Engines:  " + engine1.getName() + " vs " + engine2.getName());
+        System.out.println("Pairs:    " + sprt.getPairs() + " (" + openings.size() + " openings, "
+                + threads + " threads, " + String.format("%.1f", seconds) + " s)");
+        System.out.println("Score:    +" + wins + " =" + draws + " -" + losses);
+        if(failed > 0) {
+            System.out.println("Failed:   " + failed + " games, their pairs not counted");
+        }
+        System.out.printf("LLR:      %.3f [%.3f, %.3f]%n", sprt.getLlr(), sprt.getLowerBound(), sprt.getUpperBound());
+        System.out.println("Result:   " + describe(decision));
+
+        return decision;
+    }
+
+    /**
+     * @return A readable description of a decision
+     */
+    private static String describe(Sprt.Decision decision) {
+        switch(decision) {
+            case acceptH1:
+                return "H1 accepted, the first engine is stronger";
+            case acceptH0:
+                return "H0 accepted, the first engine is not stronger";
+            default:
+                return "inconclusive, pair limit reached";
+        }
+    }
+
+    /**
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) throws InterruptedException, IOException {
+        EngineConfig engine1 = null;
+        EngineConfig engine2 = null;
+        int pairs = DEFAULT_PAIRS;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int maxPlies = DEFAULT_MAX_PLIES;
+        int randomPlies = DEFAULT_RANDOM_PLIES;
+        long seed = 1;
+        OpeningSuite openings = OpeningSuite.getDefault();
+        double elo0 = DEFAULT_ELO0;
+        double elo1 = DEFAULT_ELO1;
+        double alpha = DEFAULT_ALPHA;
+        double beta = DEFAULT_BETA;
+
+        for(int i = 0; i < args.length; i += 2) {
+            if(i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for option: " + args[i]);
+            }
+
+            switch(args[i]) {
+                case "--engine1":
+                    engine1 = EngineConfig.parse(args[i + 1]);
+                    break;
+                case "--engine2":
+                    engine2 = EngineConfig.parse(args[i + 1]);
+                    break;
+                case "--pairs":
+                    pairs = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--max-plies":
+                    maxPlies = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--random-plies":
+                    randomPlies = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(args[i + 1]);
+                    break;
+                case "--openings":
+                    openings = OpeningSuite.load(Paths.get(args[i + 1]));
+                    break;
+                case "--elo0":
+                    elo0 = Double.parseDouble(args[i + 1]);
+                    break;
+                case "--elo1":
+                    elo1 = Double.parseDouble(args[i + 1]);
+                    break;
+                case "--alpha":
+                    alpha = Double.parseDouble(args[i + 1]);
+                    break;
+                case "--beta":
+                    beta = Double.parseDouble(args[i + 1]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        if(engine1 == null || engine2 == null) {
+            throw new IllegalArgumentException("Both --engine1 and --engine2 are required.");
+        }
+
+        new EngineMatch(engine1, engine2, openings, maxPlies, randomPlies, seed).run(new Sprt(elo0, elo1, alpha, beta), pairs, threads);
+    }
+}
@@ -0,0 +1,134 @@
+package chess.tools;
+
+import chess.engine.training.TexelTuner;
+import chess.engine.training.TrainingDataSet;
+import chess.game.evaluation.EvaluationParameters;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Tunes the material values and piece-square tables of the evaluation to
+ * training data written by TrainingDataGenerator, see TexelTuner.  The
+ * data is memory mapped rather than read onto the heap.
+ *
+ * The tuned parameters are saved to the output file every report
+ * interval and at the end, in the format of EvaluationParameters.save(...),
+ * so an interrupted run keeps its progress and may be resumed with
+ * --start.
+ *
+ * Usage:
+ * EvaluationTuner --data path [--data path ...] --output file
+ *                 [--start file] [--iterations n] [--rate n]
+ *                 [--scale n] [--threads n] [--chunk n] [--report n]
+ *
+ * Each path is a training data file or a directory of them.  K is fitted
+ * to the starting parameters unless given with --scale.
+ *
+ * @author CarrollFD
+ */
+public class EvaluationTuner {
+    // defaults for the command line options
+    private static final int DEFAULT_ITERATIONS = 500;
+    private static final int DEFAULT_REPORT = 50;
+
+    /**
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) throws IOException {
+        List<Path> data = new ArrayList<>();
+        Path output = null;
+        EvaluationParameters start = EvaluationParameters.getDefault();
+        int iterations = DEFAULT_ITERATIONS;
+        double rate = TexelTuner.DEFAULT_LEARNING_RATE;
+        double scale = 0;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int chunk = TexelTuner.DEFAULT_CHUNK_RECORDS;
+        int report = DEFAULT_REPORT;
+
+        for(int i = 0; i < args.length; i += 2) {
+            if(i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for option: " + args[i]);
+            }
+
+            switch(args[i]) {
+                case "--data":
+                    data.add(Paths.get(args[i + 1]));
+                    break;
+                case "--output":
+                    output = Paths.get(args[i + 1]);
+                    break;
+                case "--start":
+                    start = EvaluationParameters.load(Paths.get(args[i + 1]));
+                    break;
+                case "--iterations":
+                    iterations = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--rate":
+                    rate = Double.parseDouble(args[i + 1]);
+                    break;
+                case "--scale":
+                    scale = Double.parseDouble(args[i + 1]);
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--chunk":
+                    chunk = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--report":
+                    report = Integer.parseInt(args[i + 1]);
+                    if(report < 1) {
+                        throw new IllegalArgumentException("Invalid value for --report: " + report);
+                    }
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        if(data.isEmpty() || output == null) {
+            throw new IllegalArgumentException("--data and --output are required.");
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        long startTime = System.nanoTime();
+
+        try(TrainingDataSet dataSet = new TrainingDataSet(data)) {
+            TexelTuner tuner = new TexelTuner(dataSet, start, pool, rate, chunk);
+
+            if(scale > 0) {
+                tuner.setScale(scale);
+            } else {
+                tuner.fitScale();
+            }
+
+            double initialLoss = tuner.getLoss();
+
+            System.out.println("Positions:  " + dataSet.size() + " (" + threads + " threads)");
+            System.out.printf("K:          %.4f%n", tuner.getScale());
+            System.out.printf("Loss:       %.6f at the start%n", initialLoss);
+
+            for(int iteration = 1; iteration <= iterations; iteration++) {
+                double loss = tuner.step();
+
+                if(iteration % report == 0 || iteration == iterations) {
+                    tuner.getParameters().save(output);
+                    System.out.printf("Iteration:  %d, loss %.6f, %.1f s%n",
+                            iteration, loss, (System.nanoTime() - startTime) / 1e9);
+                }
+            }
+
+            double finalLoss = tuner.getLoss();
+            tuner.getParameters().save(output);
+
+            System.out.printf("Loss:       %.6f at the end, saved to %s%n", finalLoss, output);
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package chess.tools;
+
+import chess.game.CoordinateNotation;
+import chess.game.Game;
+import chess.game.GameResult;
+import chess.game.archive.GameArchiveReader;
+import chess.game.archive.GameArchiveWriter;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Appends a corpus of games to a game archive, and reads an archive back.
+ *
+ * The corpus is in the format read by OpeningTreeBuilder, one game per
+ * line.  A result token is recorded with the game, a drawn result as
+ * stalemate; without one the result shown on the board is recorded.  A
+ * game with a refused move is archived up to that move.
+ *
+ * --read replays every game of the archive and reports the rate.
+ *
+ * Usage:
+ * GameArchiveTool --archive file [--read] [corpus...]
+ *
+ * @author CarrollFD
+ */
+public class GameArchiveTool {
+    private GameArchiveTool() {
+    }
+
+    /**
+     * Appends the games of a corpus.
+     *
+     * @param corpus The game files
+     * @param writer The archive to append to
+     *
+     * @return The number of games with refused moves
+     */
+    public static long append(List<Path> corpus, GameArchiveWriter writer) throws IOException {
+        long rejectedGames = 0;
+
+        for(Path path : corpus) {
+            try(BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+                for(String line = reader.readLine(); line != null; line = reader.readLine()) {
+                    line = line.trim();
+
+                    if(line.isEmpty() || line.startsWith("#")) {
+                        continue;
+                    }
+
+                    String[] tokens = line.split("\\s+");
+                    GameResult result = parseResult(tokens[tokens.length - 1]);
+                    int moveCount = result != null || tokens[tokens.length - 1].equals("*") ? tokens.length - 1
+                            : tokens.length;
+                    Game game = new Game();
+
+                    try {
+                        for(int i = 0; i < moveCount; i++) {
+                            CoordinateNotation.playMoves(game, tokens[i]);
+                        }
+                    } catch(IllegalArgumentException e) {
+                        rejectedGames++;
+                        result = null;
+                    }
+
+                    writer.append(game, result != null ? result : game.getResult());
+                }
+            }
+        }
+
+        return rejectedGames;
+    }
+
+    /**
+     * @return The result of a result token, or null if it is not one
+     */
+    private static GameResult parseResult(String token) {
+        switch(token) {
+            case "1-0":
+                return GameResult.whiteWins;
+            case "0-1":
+                return GameResult.blackWins;
+            case "1/2-1/2":
+                return GameResult.stalemate;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) throws IOException {
+        Path archive = null;
+        boolean read = false;
+        List<Path> corpus = new ArrayList<>();
+
+        for(int i = 0; i < args.length; i++) {
+            if(!args[i].startsWith("--")) {
+                corpus.add(Paths.get(args[i]));
+                continue;
+            }
+
+            switch(args[i]) {
+                case "--archive":
+                    if(i + 1 >= args.length) {
+                        throw new IllegalArgumentException("Missing value for option: " + args[i]);
+                    }
+                    archive = Paths.get(args[++i]);
+                    break;
+                case "--read":
+                    read = true;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        if(archive == null) {
+            throw new IllegalArgumentException("An archive file is required.");
+        }
+
+        if(!corpus.isEmpty()) {
+            long startTime = System.nanoTime();
+
+            try(GameArchiveWriter writer = new GameArchiveWriter(archive)) {
+                int before = writer.getGameCount();
+                long rejectedGames = append(corpus, writer);
+                double seconds = (System.nanoTime() - startTime) / 1e9;
+
+                System.out.println("Appended:       " + (writer.getGameCount() - before) + " games ("
+                        + rejectedGames + " with refused moves)");
+                System.out.printf("Time:           %.2f s%n", seconds);
+            }
+        }
+
+        if(read) {
+            long startTime = System.nanoTime();
+            long plies = 0;
+
+            try(GameArchiveReader reader = new GameArchiveReader(archive)) {
+                while(reader.hasNext()) {
+                    plies += reader.next().getMoveList().size();
+                }
+
+                double seconds = (System.nanoTime() - startTime) / 1e9;
+
+                System.out.println("Read:           " + reader.getGameCount() + " games, " + plies + " plies");
+                System.out.printf("Time:           %.2f s, %.1f games/s%n", seconds, reader.getGameCount() / seconds);
+            }
+        }
+
+        System.out.println("Archive size:   " + Files.size(archive) + " bytes");
+    }
+}
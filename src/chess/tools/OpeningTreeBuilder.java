@@ -0,0 +1,701 @@
+package chess.tools;
+
+import chess.engine.book.OpeningBook;
+import chess.engine.book.OpeningTree;
+import chess.game.CoordinateNotation;
+import chess.game.Game;
+import chess.game.Move;
+import chess.game.board.Position;
+import chess.io.IndexedSort;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Builds an opening tree, as read by OpeningTree, from a corpus of games,
+ * and optionally a Polyglot opening book from the tree.
+ *
+ * The corpus is one or more text files with one game per line, the moves
+ * in coordinate notation optionally followed by the result: "e2e4 e7e5
+ * g1f3 1-0".  Results are "1-0", "0-1", "1/2-1/2" or "*".  Without a
+ * result token, the result is taken from the replayed game.
+ *
+ * Worker threads replay the games through Board, collecting a record for
+ * each position and move into a buffer.  A full buffer is sorted,
+ * aggregated and written out as sorted runs, one run per shard, where a
+ * shard is a range of position keys.  The runs of each shard are then
+ * merged by its own thread, and since shards are key ranges the merged
+ * shards are simply joined in order.  Memory use is set by the buffer
+ * size, not the size of the corpus.  A shard with more runs than can be
+ * open at once is merged in passes, through intermediate runs.
+ *
+ * Games with a result token are only replayed up to the move limit, as
+ * their later moves add no records.
+ *
+ * Usage:
+ * OpeningTreeBuilder --output file [--book file] [--threads n]
+ *                    [--max-plies n] [--buffer n] [--min-games n]
+ *                    [--temp dir] corpus...
+ *
+ * @author CarrollFD
+ */
+public class OpeningTreeBuilder {
+    // defaults for the command line options
+    private static final int DEFAULT_MAX_PLIES = 40;
+    private static final int DEFAULT_BUFFER_RECORDS = 1 << 20;
+
+    // game results, from white's point of view
+    private static final int WHITE_WINS = 0;
+    private static final int DRAW = 1;
+    private static final int BLACK_WINS = 2;
+    private static final int UNKNOWN = 3;
+
+    // outcomes of a record, from the point of view of the side that moved
+    private static final int WIN = 0;
+    private static final int LOSS = 2;
+
+    // games queued for the workers
+    private static final int QUEUE_CAPACITY = 1024;
+
+    // how long the reader waits for room in the queue before checking
+    // that the workers are still running
+    private static final long QUEUE_WAIT_MILLIS = 100;
+
+    // the runs merged at once, bounding the open files and read buffers
+    private static final int MAX_MERGE_RUNS = 64;
+
+    // marks the end of the corpus in the queue
+    private static final Object END_OF_CORPUS = new Object();
+
+    private final int threads;
+    private final int shards;
+    private final int maxPlies;
+    private final int bufferRecords;
+    private final Path tempDirectory;
+
+    // the runs written for each shard
+    private final List<List<Path>> shardRuns = new ArrayList<>();
+    private final AtomicInteger runCount = new AtomicInteger();
+
+    // counters for the summary
+    private final AtomicLong games = new AtomicLong();
+    private final AtomicLong positions = new AtomicLong();
+    private final AtomicLong rejectedGames = new AtomicLong();
+
+    /**
+     * Constructs a builder.
+     *
+     * @param threads The number of worker threads, and of shards
+     * @param maxPlies The number of moves of each game to include
+     * @param bufferRecords The records each worker collects before writing
+     *                      them out
+     * @param tempDirectory The directory for the runs
+     */
+    public OpeningTreeBuilder(int threads, int maxPlies, int bufferRecords, Path tempDirectory) {
+        this.threads = threads;
+        this.shards = threads;
+        this.maxPlies = maxPlies;
+        this.bufferRecords = bufferRecords;
+        this.tempDirectory = tempDirectory;
+
+        for(int i = 0; i < shards; i++) {
+            shardRuns.add(new ArrayList<Path>());
+        }
+    }
+
+    /**
+     * Builds a tree file from a corpus.
+     *
+     * @param corpus The game files
+     * @param output The tree file to write
+     *
+     * @return The number of entries written
+     */
+    public long build(List<Path> corpus, Path output) throws IOException, InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        try {
+            replay(corpus, executor);
+
+            List<Future<Path>> merges = new ArrayList<>();
+            for(int i = 0; i < shards; i++) {
+                final int shard = i;
+                merges.add(executor.submit(() -> mergeShard(shard)));
+            }
+
+            // the shards are key ranges in order, so are joined as they are
+            try(FileChannel out = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                for(Future<Path> merge : merges) {
+                    Path shardFile = merge.get();
+
+                    try(FileChannel in = FileChannel.open(shardFile, StandardOpenOption.READ)) {
+                        long position = 0;
+                        while(position < in.size()) {
+                            position += in.transferTo(position, in.size() - position, out);
+                        }
+                    }
+
+                    Files.delete(shardFile);
+                }
+
+                return out.size() / OpeningTree.ENTRY_SIZE;
+            }
+        } catch(ExecutionException e) {
+            throw new IOException("Opening tree worker failed.", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Replays the corpus on the workers, leaving sorted runs for each shard.
+     */
+    private void replay(List<Path> corpus, ExecutorService executor)
+            throws IOException, InterruptedException, ExecutionException {
+        BlockingQueue<Object> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        List<Future<?>> workers = new ArrayList<>();
+
+        for(int i = 0; i < threads; i++) {
+            workers.add(executor.submit(() -> {
+                // a game may run past the size at which the buffer is written
+                RecordBuffer buffer = new RecordBuffer(bufferRecords + maxPlies);
+
+                for(Object line = queue.take(); line != END_OF_CORPUS; line = queue.take()) {
+                    replayGame((String)line, buffer);
+                }
+
+                writeRuns(buffer);
+                return null;
+            }));
+        }
+
+        try {
+            for(Path path : corpus) {
+                try(BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+                    for(String line = reader.readLine(); line != null; line = reader.readLine()) {
+                        line = line.trim();
+
+                        if(!line.isEmpty() && !line.startsWith("#")) {
+                            enqueue(queue, line, workers);
+                        }
+                    }
+                }
+            }
+        } finally {
+            for(int i = 0; i < threads; i++) {
+                enqueue(queue, END_OF_CORPUS, workers);
+            }
+        }
+
+        for(Future<?> worker : workers) {
+            worker.get();
+        }
+    }
+
+    /**
+     * Queues an item for the workers, rethrowing the failure of a worker
+     * rather than waiting for room that a failed worker will never make.
+     */
+    private static void enqueue(BlockingQueue<Object> queue, Object item, List<Future<?>> workers)
+            throws InterruptedException, ExecutionException {
+        while(!queue.offer(item, QUEUE_WAIT_MILLIS, TimeUnit.MILLISECONDS)) {
+            for(Future<?> worker : workers) {
+                if(worker.isDone()) {
+                    worker.get();
+                }
+            }
+        }
+    }
+
+    /**
+     * Replays one game of the corpus, adding its records to the buffer.
+     */
+    private void replayGame(String line, RecordBuffer buffer) throws IOException {
+        String[] tokens = line.split("\\s+");
+        String lastToken = tokens[tokens.length - 1];
+        int result = parseResult(lastToken);
+        int moveCount = result != UNKNOWN || lastToken.equals("*") ? tokens.length - 1 : tokens.length;
+
+        // without a result token the game is replayed to the end for its
+        // result
+        if(result != UNKNOWN) {
+            moveCount = Math.min(moveCount, maxPlies);
+        }
+
+        Game game = new Game();
+        int start = buffer.size();
+
+        try {
+            for(int i = 0; i < moveCount; i++) {
+                Position[] move = CoordinateNotation.parseMove(tokens[i]);
+                boolean color = game.getSideToMove();
+                long key = game.getHashKey();
+
+                if(!game.requestMove(move[0], move[1])) {
+                    throw new IllegalArgumentException("Move " + tokens[i] + " refused.");
+                }
+
+                if(i < maxPlies) {
+                    List<Move> moveList = game.getMoveList();
+                    int encoded = OpeningBook.encodeMove(moveList.get(moveList.size() - 1));
+
+                    // the outcome is filled in once the result is known
+                    buffer.add(key, encoded << 2 | (color ? 0 : 1));
+                }
+            }
+        } catch(IllegalArgumentException e) {
+            // the records so far are of valid positions, so are kept
+            rejectedGames.incrementAndGet();
+            result = UNKNOWN;
+        }
+
+        if(result == UNKNOWN) {
+            switch(game.getResult()) {
+                case whiteWins:
+                    result = WHITE_WINS;
+                    break;
+                case blackWins:
+                    result = BLACK_WINS;
+                    break;
+                case stalemate:
+                    result = DRAW;
+                    break;
+                default:
+            }
+        }
+
+        // replace the color of each record with its outcome
+        for(int i = start; i < buffer.size(); i++) {
+            boolean white = (buffer.values[i] & 1) == 0;
+            int outcome = result == UNKNOWN || result == DRAW ? result
+                    : (result == WHITE_WINS) == white ? WIN : LOSS;
+
+            buffer.values[i] = buffer.values[i] & ~3 | outcome;
+        }
+
+        games.incrementAndGet();
+        positions.addAndGet(buffer.size() - start);
+
+        if(buffer.size() >= bufferRecords) {
+            writeRuns(buffer);
+        }
+    }
+
+    /**
+     * @return The result of a result token, or UNKNOWN if it is not one
+     */
+    private static int parseResult(String token) {
+        switch(token) {
+            case "1-0":
+                return WHITE_WINS;
+            case "0-1":
+                return BLACK_WINS;
+            case "1/2-1/2":
+                return DRAW;
+            default:
+                return UNKNOWN;
+        }
+    }
+
+    /**
+     * Sorts the buffer and writes it out as one run per shard, then empties
+     * the buffer.
+     */
+    private void writeRuns(RecordBuffer buffer) throws IOException {
+        buffer.sort();
+
+        int record = 0;
+        while(record < buffer.size()) {
+            int shard = getShard(buffer.keys[record]);
+            Path run = tempDirectory.resolve("tree-" + shard + "-" + runCount.incrementAndGet() + ".run");
+
+            try(EntryWriter writer = new EntryWriter(run)) {
+                while(record < buffer.size() && getShard(buffer.keys[record]) == shard) {
+                    int outcome = buffer.values[record] & 3;
+                    writer.add(buffer.keys[record], buffer.values[record] >>> 2, 1, outcome == WIN ? 1 : 0,
+                            outcome == DRAW ? 1 : 0);
+                    record++;
+                }
+            }
+
+            synchronized(shardRuns) {
+                shardRuns.get(shard).add(run);
+            }
+        }
+
+        buffer.clear();
+    }
+
+    /**
+     * Merges the runs of a shard into a single sorted file.
+     *
+     * @return The merged file
+     */
+    private Path mergeShard(int shard) throws IOException {
+        List<Path> runs = new ArrayList<>(shardRuns.get(shard));
+        List<Path> written = new ArrayList<>(runs);
+
+        try {
+            for(int pass = 1; runs.size() > MAX_MERGE_RUNS; pass++) {
+                List<Path> merged = new ArrayList<>();
+
+                for(int first = 0; first < runs.size(); first += MAX_MERGE_RUNS) {
+                    Path run = tempDirectory.resolve("tree-" + shard + "-pass" + pass + "-" + merged.size() + ".run");
+                    merged.add(run);
+                    written.add(run);
+
+                    mergeRuns(runs.subList(first, Math.min(first + MAX_MERGE_RUNS, runs.size())), run);
+                }
+
+                runs = merged;
+            }
+
+            Path merged = tempDirectory.resolve("tree-" + shard + ".shard");
+            mergeRuns(runs, merged);
+            return merged;
+        } finally {
+            // the runs merged so far are already gone
+            for(Path run : written) {
+                Files.deleteIfExists(run);
+            }
+        }
+    }
+
+    /**
+     * Merges sorted runs into one and deletes them.
+     *
+     * @param runs The runs, no more than MAX_MERGE_RUNS
+     * @param output The file to write
+     */
+    private static void mergeRuns(List<Path> runs, Path output) throws IOException {
+        PriorityQueue<RunReader> readers = new PriorityQueue<>();
+
+        try(EntryWriter writer = new EntryWriter(output)) {
+            for(Path run : runs) {
+                RunReader reader = new RunReader(run);
+
+                if(reader.next()) {
+                    readers.add(reader);
+                } else {
+                    reader.close();
+                }
+            }
+
+            while(!readers.isEmpty()) {
+                RunReader reader = readers.poll();
+                writer.add(reader.key, reader.move, reader.games, reader.wins, reader.draws);
+
+                if(reader.next()) {
+                    readers.add(reader);
+                } else {
+                    reader.close();
+                }
+            }
+        } finally {
+            for(RunReader reader : readers) {
+                reader.close();
+            }
+        }
+
+        for(Path run : runs) {
+            Files.delete(run);
+        }
+    }
+
+    /**
+     * @return The shard of a key, shards are ranges of unsigned keys
+     */
+    private int getShard(long key) {
+        return (int)(((key >>> 32) * shards) >>> 32);
+    }
+
+    /**
+     * Writes a Polyglot book from a tree, weighting each move by the points
+     * scored with it.
+     *
+     * @param tree The tree file
+     * @param book The book file to write
+     * @param minGames The number of games a move needs to be included
+     *
+     * @return The number of entries written
+     */
+    public static long writeBook(Path tree, Path book, int minGames) throws IOException {
+        long entries = 0;
+
+        try(RunReader reader = new RunReader(tree);
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(book)))) {
+            while(reader.next()) {
+                int weight = (int)Math.min(0xFFFF, 2L * reader.wins + reader.draws);
+
+                if(reader.games >= minGames && weight > 0) {
+                    out.writeLong(reader.key);
+                    out.writeShort(reader.move);
+                    out.writeShort(weight);
+                    out.writeInt(0);
+                    entries++;
+                }
+            }
+        }
+
+        return entries;
+    }
+
+    /**
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int threads = Runtime.getRuntime().availableProcessors();
+        int maxPlies = DEFAULT_MAX_PLIES;
+        int bufferRecords = DEFAULT_BUFFER_RECORDS;
+        int minGames = 1;
+        Path output = null;
+        Path book = null;
+        Path tempDirectory = null;
+        List<Path> corpus = new ArrayList<>();
+
+        for(int i = 0; i < args.length; i++) {
+            if(!args[i].startsWith("--")) {
+                corpus.add(Paths.get(args[i]));
+                continue;
+            }
+
+            if(i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for option: " + args[i]);
+            }
+
+            switch(args[i]) {
+                case "--output":
+                    output = Paths.get(args[++i]);
+                    break;
+                case "--book":
+                    book = Paths.get(args[++i]);
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(args[++i]);
+                    break;
+                case "--max-plies":
+                    maxPlies = Integer.parseInt(args[++i]);
+                    break;
+                case "--buffer":
+                    bufferRecords = Integer.parseInt(args[++i]);
+                    break;
+                case "--min-games":
+                    minGames = Integer.parseInt(args[++i]);
+                    break;
+                case "--temp":
+                    tempDirectory = Paths.get(args[++i]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        if(output == null || corpus.isEmpty()) {
+            throw new IllegalArgumentException("An output file and at least one corpus file are required.");
+        }
+
+        if(tempDirectory == null) {
+            tempDirectory = output.toAbsolutePath().getParent();
+        }
+
+        long startTime = System.nanoTime();
+        OpeningTreeBuilder builder = new OpeningTreeBuilder(threads, maxPlies, bufferRecords, tempDirectory);
+        long entries = builder.build(corpus, output);
+        double seconds = (System.nanoTime() - startTime) / 1e9;
+
+        System.out.println("Games:          " + builder.games.get() + " (" + builder.rejectedGames.get()
+                + " with refused moves)");
+        System.out.println("Positions:      " + builder.positions.get());
+        System.out.println("Tree entries:   " + entries + " (" + builder.runCount.get() + " runs, " + threads
+                + " threads)");
+
+        if(book != null) {
+            System.out.println("Book entries:   " + writeBook(output, book, minGames));
+        }
+
+        System.out.printf("Time:           %.2f s, %.1f games/s%n", seconds, builder.games.get() / seconds);
+    }
+
+    /**
+     * Records collected by a worker: a position key, and a move and outcome
+     * packed as move << 2 | outcome.
+     */
+    private static class RecordBuffer implements IndexedSort.Sortable {
+        final long[] keys;
+        final int[] values;
+        private int size;
+
+        RecordBuffer(int capacity) {
+            keys = new long[capacity];
+            values = new int[keys.length];
+        }
+
+        int size() {
+            return size;
+        }
+
+        void add(long key, int value) {
+            if(size == keys.length) {
+                throw new IllegalStateException("Record buffer overflow.");
+            }
+
+            keys[size] = key;
+            values[size++] = value;
+        }
+
+        void clear() {
+            size = 0;
+        }
+
+        /**
+         * Sorts by unsigned key, then by value.
+         */
+        void sort() {
+            IndexedSort.sort(this, size);
+        }
+
+        @Override
+        public int compare(int a, int b) {
+            int result = Long.compareUnsigned(keys[a], keys[b]);
+
+            return result != 0 ? result : Integer.compare(values[a], values[b]);
+        }
+
+        @Override
+        public void swap(int a, int b) {
+            long key = keys[a];
+            keys[a] = keys[b];
+            keys[b] = key;
+
+            int value = values[a];
+            values[a] = values[b];
+            values[b] = value;
+        }
+    }
+
+    /**
+     * Writes tree entries in order, combining consecutive entries for the
+     * same position and move.
+     */
+    private static class EntryWriter implements Closeable {
+        private final DataOutputStream out;
+        private boolean pending;
+        private long key;
+        private int move;
+        private int games;
+        private int wins;
+        private int draws;
+
+        EntryWriter(Path path) throws IOException {
+            out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)));
+        }
+
+        void add(long key, int move, int games, int wins, int draws) throws IOException {
+            if(pending && key == this.key && move == this.move) {
+                this.games += games;
+                this.wins += wins;
+                this.draws += draws;
+                return;
+            }
+
+            flush();
+            pending = true;
+            this.key = key;
+            this.move = move;
+            this.games = games;
+            this.wins = wins;
+            this.draws = draws;
+        }
+
+        private void flush() throws IOException {
+            if(pending) {
+                out.writeLong(key);
+                out.writeShort(move);
+                out.writeInt(games);
+                out.writeInt(wins);
+                out.writeInt(draws);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                flush();
+            } finally {
+                out.close();
+            }
+        }
+    }
+
+    /**
+     * Reads tree entries in order, ordered by its current entry for merging.
+     */
+    private static class RunReader implements Closeable, Comparable<RunReader> {
+        private final DataInputStream in;
+        long key;
+        int move;
+        int games;
+        int wins;
+        int draws;
+
+        RunReader(Path path) throws IOException {
+            in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)));
+        }
+
+        /**
+         * Reads the next entry.
+         *
+         * @return FALSE at the end of the run
+         */
+        boolean next() throws IOException {
+            try {
+                key = in.readLong();
+            } catch(EOFException e) {
+                return false;
+            }
+
+            move = in.readUnsignedShort();
+            games = in.readInt();
+            wins = in.readInt();
+            draws = in.readInt();
+            return true;
+        }
+
+        @Override
+        public int compareTo(RunReader other) {
+            int result = Long.compareUnsigned(key, other.key);
+
+            return result != 0 ? result : Integer.compare(move, other.move);
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,297 @@
+package chess.tools;
+
+import chess.game.CoordinateNotation;
+import chess.game.Game;
+import chess.game.Move;
+import chess.game.board.Position;
+import chess.game.index.MaterialSignature;
+import chess.game.index.Occurrence;
+import chess.game.index.PositionIndex;
+import chess.game.index.PositionIndexWriter;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Adds a corpus of games to a PositionIndex, and queries an index.
+ *
+ * The corpus is in the format read by OpeningTreeBuilder, one game per
+ * line.  Games are numbered in the order they appear, starting from
+ * --first-id, and any result token is ignored.  Worker threads replay the
+ * games and add them through a shared PositionIndexWriter.
+ *
+ * A query lists the games reaching the position after --moves, or
+ * reaching the material named by --material with either side to play it.
+ *
+ * Usage:
+ * PositionIndexTool --index dir [--threads n] [--batch n] [--first-id n]
+ *                   [--compact] [--moves "e2e4 e7e5"] [--material KRPvKR]
+ *                   [corpus...]
+ *
+ * @author CarrollFD
+ */
+public class PositionIndexTool {
+    // games queued for the workers
+    private static final int QUEUE_CAPACITY = 1024;
+
+    // marks the end of the corpus in the queue
+    private static final CorpusGame END_OF_CORPUS = new CorpusGame(-1, "");
+
+    // the most occurrences listed by a query
+    private static final int MAX_LISTED = 20;
+
+    private final PositionIndexWriter writer;
+    private final int threads;
+
+    // counters for the summary
+    private final AtomicLong games = new AtomicLong();
+    private final AtomicLong rejectedGames = new AtomicLong();
+
+    /**
+     * @param writer The writer to add games through
+     * @param threads The number of worker threads
+     */
+    public PositionIndexTool(PositionIndexWriter writer, int threads) {
+        this.writer = writer;
+        this.threads = threads;
+    }
+
+    /**
+     * Adds the games of a corpus.
+     *
+     * @param corpus The game files
+     * @param firstId The id of the first game
+     *
+     * @return The id after the last game
+     */
+    public int add(List<Path> corpus, int firstId) throws IOException, InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        BlockingQueue<CorpusGame> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        List<Future<?>> workers = new ArrayList<>();
+        int gameId = firstId;
+
+        try {
+            for(int i = 0; i < threads; i++) {
+                workers.add(executor.submit(() -> {
+                    for(CorpusGame game = queue.take(); game != END_OF_CORPUS; game = queue.take()) {
+                        addGame(game.id, game.line);
+                    }
+
+                    return null;
+                }));
+            }
+
+            try {
+                for(Path path : corpus) {
+                    try(BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+                        for(String line = reader.readLine(); line != null; line = reader.readLine()) {
+                            line = line.trim();
+
+                            if(!line.isEmpty() && !line.startsWith("#")) {
+                                queue.put(new CorpusGame(gameId++, line));
+                            }
+                        }
+                    }
+                }
+            } finally {
+                for(int i = 0; i < threads; i++) {
+                    queue.put(END_OF_CORPUS);
+                }
+            }
+
+            for(Future<?> worker : workers) {
+                worker.get();
+            }
+        } catch(ExecutionException e) {
+            throw new IOException("Position index worker failed.", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        return gameId;
+    }
+
+    /**
+     * Replays one game of the corpus and adds it.  A game with a refused
+     * move is added up to that move.
+     */
+    private void addGame(int gameId, String line) throws IOException {
+        String[] tokens = line.split("\\s+");
+        int moveCount = isResult(tokens[tokens.length - 1]) ? tokens.length - 1 : tokens.length;
+        List<Move> moves = new ArrayList<>(moveCount);
+        boolean rejected = false;
+
+        // the writer replays the moves, and only needs their squares
+        try {
+            for(int i = 0; i < moveCount; i++) {
+                Position[] move = CoordinateNotation.parseMove(tokens[i]);
+                moves.add(new Move(null, move[0], move[1]));
+            }
+        } catch(IllegalArgumentException e) {
+            rejected = true;
+        }
+
+        try {
+            writer.add(gameId, moves);
+        } catch(IllegalArgumentException e) {
+            // the positions before the refused move are indexed
+            rejected = true;
+        }
+
+        if(rejected) {
+            rejectedGames.incrementAndGet();
+        }
+
+        games.incrementAndGet();
+    }
+
+    /**
+     * @return TRUE if a token is a result rather than a move
+     */
+    private static boolean isResult(String token) {
+        switch(token) {
+            case "1-0":
+            case "0-1":
+            case "1/2-1/2":
+            case "*":
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static void printOccurrences(String label, List<Occurrence> occurrences) {
+        System.out.println(label + ": " + occurrences.size());
+
+        for(int i = 0; i < occurrences.size() && i < MAX_LISTED; i++) {
+            Occurrence occurrence = occurrences.get(i);
+            System.out.println("  game " + occurrence.getGameId() + ", ply " + occurrence.getPly());
+        }
+
+        if(occurrences.size() > MAX_LISTED) {
+            System.out.println("  ...");
+        }
+    }
+
+    /**
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int threads = Runtime.getRuntime().availableProcessors();
+        int batchSize = PositionIndexWriter.DEFAULT_BATCH_SIZE;
+        int firstId = 0;
+        boolean compact = false;
+        Path directory = null;
+        String moves = null;
+        String material = null;
+        List<Path> corpus = new ArrayList<>();
+
+        for(int i = 0; i < args.length; i++) {
+            if(!args[i].startsWith("--")) {
+                corpus.add(Paths.get(args[i]));
+                continue;
+            } else if(args[i].equals("--compact")) {
+                compact = true;
+                continue;
+            }
+
+            if(i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for option: " + args[i]);
+            }
+
+            switch(args[i]) {
+                case "--index":
+                    directory = Paths.get(args[++i]);
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(args[++i]);
+                    break;
+                case "--batch":
+                    batchSize = Integer.parseInt(args[++i]);
+                    break;
+                case "--first-id":
+                    firstId = Integer.parseInt(args[++i]);
+                    break;
+                case "--moves":
+                    moves = args[++i];
+                    break;
+                case "--material":
+                    material = args[++i];
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        if(directory == null) {
+            throw new IllegalArgumentException("An index directory is required.");
+        }
+
+        if(!corpus.isEmpty() || compact) {
+            long startTime = System.nanoTime();
+
+            try(PositionIndexWriter writer = new PositionIndexWriter(directory, batchSize)) {
+                PositionIndexTool tool = new PositionIndexTool(writer, threads);
+                int nextId = tool.add(corpus, firstId);
+
+                if(compact) {
+                    writer.compact();
+                }
+
+                double seconds = (System.nanoTime() - startTime) / 1e9;
+
+                System.out.println("Games:          " + tool.games.get() + " (" + tool.rejectedGames.get()
+                        + " with refused moves), next id " + nextId);
+                System.out.printf("Time:           %.2f s, %.1f games/s%n", seconds, tool.games.get() / seconds);
+            }
+        }
+
+        try(PositionIndex index = new PositionIndex(directory)) {
+            System.out.println("Positions:      " + index.getPositionCount() + " in " + index.getSegmentCount()
+                    + " segments");
+
+            if(moves != null) {
+                Game game = new Game();
+                CoordinateNotation.playMoves(game, moves);
+                printOccurrences("Games reaching the position", index.findPositions(game));
+            }
+
+            if(material != null) {
+                long signature = MaterialSignature.parse(material);
+                long swapped = MaterialSignature.swapColors(signature);
+
+                printOccurrences(MaterialSignature.format(signature), index.findMaterial(signature));
+
+                if(swapped != signature) {
+                    printOccurrences(MaterialSignature.format(swapped), index.findMaterial(swapped));
+                }
+            }
+        }
+    }
+
+    /**
+     * A line of the corpus and the id of its game.
+     */
+    private static class CorpusGame {
+        final int id;
+        final String line;
+
+        CorpusGame(int id, String line) {
+            this.id = id;
+            this.line = line;
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package chess.tools;
+
+import chess.engine.MoveStrategies;
+import chess.engine.MoveStrategy;
+import chess.game.Game;
+import chess.game.GameResult;
+import chess.game.Move;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Plays complete games between two move strategies without any display,
+ * and reports the results, game lengths and moves per second.
+ *
+ * Games run in parallel, each worker playing one game at a time on its own
+ * Game.  Every move goes through Game.requestMove, so the runner doubles
+ * as a load test of the move validation: rejected moves and exceptions are
+ * counted and reported.
+ *
+ * Usage:
+ * SelfPlayRunner [--games n] [--threads n] [--white strategy]
+ *                [--black strategy] [--max-plies n] [--seed n]
+ *
+ * @author CarrollFD
+ */
+public class SelfPlayRunner {
+    // defaults for the command line options
+    private static final int DEFAULT_GAMES = 100;
+    private static final int DEFAULT_MAX_PLIES = 300;
+
+    private final String whiteStrategy;
+    private final String blackStrategy;
+    private final int maxPlies;
+    private final long seed;
+
+    /**
+     * Constructs a runner.
+     *
+     * @param whiteStrategy The name of the strategy playing white
+     * @param blackStrategy The name of the strategy playing black
+     * @param maxPlies The number of moves after which a game is abandoned
+     * @param seed The base seed, each game derives its own from it
+     */
+    public SelfPlayRunner(String whiteStrategy, String blackStrategy, int maxPlies, long seed) {
+        this.whiteStrategy = whiteStrategy;
+        this.blackStrategy = blackStrategy;
+        this.maxPlies = maxPlies;
+        this.seed = seed;
+
+        // fail early on unknown strategy names
+        MoveStrategies.create(whiteStrategy, seed);
+        MoveStrategies.create(blackStrategy, seed);
+    }
+
+    /**
+     * Plays a single game to completion.
+     *
+     * @param gameNumber The number of the game, used to derive its seeds
+     *
+     * @return The outcome of the game
+     */
+    public GameOutcome playGame(int gameNumber) {
+        Game game = new Game();
+        MoveStrategy white = MoveStrategies.create(whiteStrategy, seed + gameNumber * 2L);
+        MoveStrategy black = MoveStrategies.create(blackStrategy, seed + gameNumber * 2L + 1);
+        int rejectedMoves = 0;
+
+        try {
+            while(game.getResult() == GameResult.inProgress && game.getMoveList().size() < maxPlies) {
+                MoveStrategy strategy = game.getSideToMove() ? white : black;
+                Move move = strategy.selectMove(game);
+
+                // the board should have reported the end of the game
+                if(move == null) {
+                    break;
+                }
+
+                if(!game.requestMove(move.getStartPosition(), move.getEndPosition())) {
+                    // a move listed as legal was refused, stop rather than loop
+                    rejectedMoves++;
+                    break;
+                }
+            }
+        } catch(RuntimeException e) {
+            return new GameOutcome(GameResult.inProgress, game.getMoveList().size(), rejectedMoves, e);
+        }
+
+        return new GameOutcome(game.getResult(), game.getMoveList().size(), rejectedMoves, null);
+    }
+
+    /**
+     * Plays a number of games in parallel and prints a summary.
+     *
+     * @param games The number of games to play
+     * @param threads The number of worker threads
+     */
+    public void run(int games, int threads) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<GameOutcome>> futures = new ArrayList<>();
+        long startTime = System.nanoTime();
+
+        for(int i = 0; i < games; i++) {
+            final int gameNumber = i;
+            futures.add(executor.submit(() -> playGame(gameNumber)));
+        }
+
+        // tally the outcomes
+        int whiteWins = 0;
+        int blackWins = 0;
+        int stalemates = 0;
+        int unfinished = 0;
+        int stopped = 0;
+        int errors = 0;
+        int rejectedMoves = 0;
+        long totalPlies = 0;
+        int shortestGame = Integer.MAX_VALUE;
+        int longestGame = 0;
+
+        try {
+            for(Future<GameOutcome> future : futures) {
+                GameOutcome outcome = future.get();
+
+                // errors and refused moves end a game early, they are
+                // counted on their own rather than as unfinished games
+                if(outcome.getError() != null) {
+                    errors++;
+                    System.err.println("Game failed after " + outcome.getPlies() + " moves: " + outcome.getError());
+                } else if(outcome.getRejectedMoves() == 0) {
+                    switch(outcome.getResult()) {
+                        case whiteWins:
+                            whiteWins++;
+                            break;
+                        case blackWins:
+                            blackWins++;
+                            break;
+                        case stalemate:
+                            stalemates++;
+                            break;
+                        default:
+                            if(outcome.getPlies() >= maxPlies) {
+                                unfinished++;
+                            } else {
+                                // a strategy found no move in a game not over
+                                stopped++;
+                            }
+                    }
+                }
+
+                rejectedMoves += outcome.getRejectedMoves();
+                totalPlies += outcome.getPlies();
+                shortestGame = Math.min(shortestGame, outcome.getPlies());
+                longestGame = Math.max(longestGame, outcome.getPlies());
+            }
+        } catch(ExecutionException e) {
+            throw new IllegalStateException("Game worker failed.", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        double seconds = (System.nanoTime() - startTime) / 1e9;
+
+        System.out.println("Games:          " + games + " (" + whiteStrategy + " vs " + blackStrategy
+                + ", " + threads + " threads)");
+        System.out.println("White wins:     " + whiteWins);
+        System.out.println("Black wins:     " + blackWins);
+        System.out.println("Stalemates:     " + stalemates);
+        System.out.println("Move limit:     " + unfinished);
+        System.out.println("No move found:  " + stopped);
+        System.out.println("Errors:         " + errors);
+        System.out.println("Rejected moves: " + rejectedMoves);
+        System.out.printf("Game length:    avg %.1f, min %d, max %d moves%n",
+                games == 0 ? 0.0 : (double)totalPlies / games, games == 0 ? 0 : shortestGame, longestGame);
+        System.out.printf("Throughput:     %d moves in %.2f s, %.1f moves/s%n",
+                totalPlies, seconds, totalPlies / seconds);
+    }
+
+    /**
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int games = DEFAULT_GAMES;
+        int threads = Runtime.getRuntime().availableProcessors();
+        String white = MoveStrategies.RANDOM;
+        String black = MoveStrategies.RANDOM;
+        int maxPlies = DEFAULT_MAX_PLIES;
+        long seed = 1;
+
+        for(int i = 0; i < args.length; i += 2) {
+            if(i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for option: " + args[i]);
+            }
+
+            switch(args[i]) {
+                case "--games":
+                    games = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--white":
+                    white = args[i + 1];
+                    break;
+                case "--black":
+                    black = args[i + 1];
+                    break;
+                case "--max-plies":
+                    maxPlies = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(args[i + 1]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        new SelfPlayRunner(white, black, maxPlies, seed).run(games, threads);
+    }
+
+    /**
+     * The outcome of a single game.
+     */
+    public static class GameOutcome {
+        private final GameResult result;
+        private final int plies;
+        private final int rejectedMoves;
+        private final RuntimeException error;
+
+        GameOutcome(GameResult result, int plies, int rejectedMoves, RuntimeException error) {
+            this.result = result;
+            this.plies = plies;
+            this.rejectedMoves = rejectedMoves;
+            this.error = error;
+        }
+
+        /**
+         * @return The result, inProgress if the game did not finish
+         */
+        public GameResult getResult() {
+            return result;
+        }
+
+        /**
+         * @return The number of moves played
+         */
+        public int getPlies() {
+            return plies;
+        }
+
+        /**
+         * @return The number of legal moves the board refused
+         */
+        public int getRejectedMoves() {
+            return rejectedMoves;
+        }
+
+        /**
+         * @return The exception that ended the game, or null
+         */
+        public RuntimeException getError() {
+            return error;
+        }
+    }
+}
@@ -0,0 +1,384 @@
+package chess.tools;
+
+import chess.engine.tablebase.EndgameTable;
+import chess.engine.tablebase.Material;
+import chess.engine.tablebase.RetrogradeSolver;
+import chess.engine.tablebase.TablebaseResult;
+import chess.engine.tablebase.Tablebases;
+import chess.game.Game;
+import chess.game.GameResult;
+import chess.game.Move;
+import chess.game.board.Board;
+import chess.pieces.PieceCode;
+import chess.pieces.PieceType;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Generates endgame tables, see RetrogradeSolver.  Tables already in the
+ * output directory are kept, and the tables reached by captures are
+ * generated first when missing.
+ *
+ * Tables of up to 4 pieces take seconds to minutes each.  5 piece tables
+ * need about 2 bytes of heap per index, up to 2 GB with pawns, so run the
+ * generator with a large -Xmx.
+ *
+ * Usage:
+ * TablebaseGenerator --output dir [--threads n] [--pieces n] [--verify]
+ *                    [material...]
+ *
+ * where a material is named like "KQvKR", and --pieces generates every
+ * table with up to the given number of pieces.  --verify checks each table
+ * without pawns against distances to mate found by brute force with the
+ * game's own move rules, see verify(...); it is slow beyond 3 pieces.
+ *
+ * @author CarrollFD
+ */
+public class TablebaseGenerator {
+    // the piece types besides kings, strongest first
+    private static final PieceType[] TYPES = {
+        PieceType.queen, PieceType.rook, PieceType.bishop, PieceType.knight, PieceType.pawn
+    };
+
+    private final Path directory;
+    private final int threads;
+    private final Tablebases tablebases;
+
+    /**
+     * Constructs a generator.
+     *
+     * @param directory The directory the tables are written to
+     * @param threads The number of worker threads
+     */
+    public TablebaseGenerator(Path directory, int threads) throws IOException {
+        this.directory = directory;
+        this.threads = threads;
+
+        Files.createDirectories(directory);
+        tablebases = new Tablebases(directory);
+    }
+
+    /**
+     * Generates a table and any missing tables it depends on.
+     *
+     * @param material The material, with either side the stronger
+     */
+    public void generate(Material material) throws IOException, InterruptedException {
+        material = material.getCanonical();
+
+        if(material.getPieceCount() <= 2 || tablebases.getTable(material) != null) {
+            return;
+        }
+
+        for(int slot = 0; slot < material.getPieceCount(); slot++) {
+            if(PieceCode.getType(material.getCode(slot)) != PieceType.king) {
+                generate(material.remove(slot));
+            }
+        }
+
+        long startTime = System.nanoTime();
+        RetrogradeSolver solver = new RetrogradeSolver(material, tablebases, threads);
+        solver.solve();
+
+        Path path = directory.resolve(material.getName() + EndgameTable.FILE_EXTENSION);
+        solver.write(path);
+        tablebases.add(new EndgameTable(path));
+
+        long[] white = solver.countResults(true);
+        long[] black = solver.countResults(false);
+        System.out.printf("%-8s wtm %d/%d/%d  btm %d/%d/%d  longest mate %d plies  %.1f s%n", material,
+                white[0], white[1], white[2], black[0], black[1], black[2], solver.getLongestPlies(),
+                (System.nanoTime() - startTime) / 1e9);
+    }
+
+    /**
+     * Checks a generated table without pawns against distances to mate
+     * found by brute force.  Every position is set up as a Game and its
+     * moves made with Game.createSuccessor(...), then the values are found
+     * a ply at a time, each position looking at all of its moves: won in n
+     * plies if a move reaches a position lost in n - 1, lost in n if every
+     * move reaches a won position and the slowest is won in n - 1.
+     * Captures are scored from the smaller tables.
+     *
+     * @param material The material
+     *
+     * @return The number of positions whose value differs from the table
+     */
+    public long verify(Material material) {
+        material = material.getCanonical();
+        EndgameTable table = tablebases.getTable(material);
+
+        if(table == null || material.hasPawns()) {
+            throw new IllegalArgumentException("No table without pawns to verify: " + material);
+        }
+
+        long startTime = System.nanoTime();
+        int pieces = material.getPieceCount();
+        int size = material.getIndexSize();
+        int[] squares = new int[pieces];
+        int[] codes = new int[Board.BOARD_SIZE_X * Board.BOARD_SIZE_Y];
+        Game game = new Game();
+
+        // the value of each position, -1 when not in use, and the moves of
+        // the positions left to resolve: the positions they reach, or the
+        // value after a capture as the complement of the value
+        int[] values = new int[2 * size];
+        int[][] moves = new int[2 * size][];
+
+        for(int node = 0; node < 2 * size; node++) {
+            values[node] = -1;
+            material.getSquares(node % size, squares);
+
+            if(material.getIndex(squares) != node % size || !setPosition(game, material, squares, codes, node < size)) {
+                continue;
+            }
+
+            values[node] = 0;
+
+            if(game.getResult() != GameResult.inProgress) {
+                // stalemate stays a draw
+                if(game.getResult() != GameResult.stalemate) {
+                    values[node] = 1;
+                }
+
+                continue;
+            }
+
+            List<Move> legalMoves = game.getBoard().getLegalMoves(game.getSideToMove());
+            moves[node] = new int[legalMoves.size()];
+
+            for(int i = 0; i < legalMoves.size(); i++) {
+                Game successor = game.createSuccessor(legalMoves.get(i));
+                Board board = successor.getBoard();
+
+                if(Long.bitCount(board.getOccupancy(true) | board.getOccupancy(false)) == pieces) {
+                    moves[node][i] = (node < size ? size : 0) + getIndex(material, board);
+                } else {
+                    TablebaseResult result = tablebases.probe(successor);
+                    moves[node][i] = ~(result.isDraw() ? 0 : result.getPlies() + 1);
+                }
+            }
+        }
+
+        for(int plies = 1; plies < 256; plies++) {
+            int[] previous = values.clone();
+
+            for(int node = 0; node < 2 * size; node++) {
+                if(previous[node] != 0 || moves[node] == null) {
+                    continue;
+                }
+
+                boolean allWon = true;
+                int slowestWin = 0;
+
+                for(int move : moves[node]) {
+                    int value = move < 0 ? ~move : previous[move];
+
+                    if(value > 0 && (value - 1) % 2 == 0) {
+                        // the opponent is mated
+                        if(value == plies) {
+                            values[node] = plies + 1;
+                        }
+
+                        allWon = false;
+                    } else if(value > 0) {
+                        slowestWin = Math.max(slowestWin, value);
+                    } else {
+                        allWon = false;
+                    }
+                }
+
+                if(values[node] == 0 && allWon && slowestWin == plies) {
+                    values[node] = plies + 1;
+                }
+            }
+        }
+
+        long mismatches = 0;
+
+        for(int node = 0; node < 2 * size; node++) {
+            if(values[node] < 0) {
+                continue;
+            }
+
+            material.getSquares(node % size, squares);
+            int stored = table.probe(squares, node < size);
+
+            if(stored != values[node]) {
+                if(mismatches++ < 10) {
+                    System.out.printf("%-8s index %d %s to move: table %d, brute force %d%n", material,
+                            node % size, node < size ? "white" : "black", stored, values[node]);
+                }
+            }
+        }
+
+        System.out.printf("%-8s verified, %d mismatches  %.1f s%n", material, mismatches,
+                (System.nanoTime() - startTime) / 1e9);
+
+        return mismatches;
+    }
+
+    /**
+     * Sets up a position of a material in a game.
+     *
+     * @return FALSE if the position is not legal
+     */
+    private static boolean setPosition(Game game, Material material, int[] squares, int[] codes, boolean whiteToMove) {
+        Arrays.fill(codes, PieceCode.EMPTY);
+
+        for(int slot = 0; slot < squares.length; slot++) {
+            if(codes[squares[slot]] != PieceCode.EMPTY) {
+                return false;
+            }
+
+            codes[squares[slot]] = material.getCode(slot);
+        }
+
+        try {
+            game.setPosition(codes, whiteToMove, 0, -1, 0, 1);
+        } catch(IllegalArgumentException e) {
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * @return The index of a board with the pieces of a material
+     */
+    private static int getIndex(Material material, Board board) {
+        int[] squares = new int[material.getPieceCount()];
+        boolean[] used = new boolean[squares.length];
+        long occupied = board.getOccupancy(true) | board.getOccupancy(false);
+
+        for(; occupied != 0; occupied &= occupied - 1) {
+            int square = Long.numberOfTrailingZeros(occupied);
+
+            for(int slot = 0; slot < squares.length; slot++) {
+                if(!used[slot] && material.getCode(slot) == board.getPieceCode(square)) {
+                    used[slot] = true;
+                    squares[slot] = square;
+                    break;
+                }
+            }
+        }
+
+        return material.getIndex(squares);
+    }
+
+    /**
+     * Lists every material with up to the given number of pieces, as
+     * getCanonical(), fewest pieces first.
+     *
+     * @param maxPieces The most pieces, kings included
+     *
+     * @return The materials
+     */
+    public static List<Material> getMaterials(int maxPieces) {
+        Set<Material> materials = new LinkedHashSet<>();
+
+        for(int pieces = 3; pieces <= maxPieces; pieces++) {
+            addMaterials(materials, new ArrayList<Integer>(), pieces - 2, 0);
+        }
+
+        return new ArrayList<>(materials);
+    }
+
+    /**
+     * Adds every way of choosing the remaining pieces, in type order so
+     * that each choice is made once.
+     */
+    private static void addMaterials(Set<Material> materials, List<Integer> chosen, int remaining, int firstChoice) {
+        if(remaining == 0) {
+            int[] codes = new int[chosen.size() + 2];
+            codes[0] = PieceCode.encode(PieceType.king, true);
+            codes[1] = PieceCode.encode(PieceType.king, false);
+
+            for(int i = 0; i < chosen.size(); i++) {
+                codes[i + 2] = chosen.get(i);
+            }
+
+            materials.add(new Material(codes).getCanonical());
+            return;
+        }
+
+        // choices are the piece types of white, then of black
+        for(int choice = firstChoice; choice < TYPES.length * 2; choice++) {
+            chosen.add(PieceCode.encode(TYPES[choice % TYPES.length], choice < TYPES.length));
+            addMaterials(materials, chosen, remaining - 1, choice);
+            chosen.remove(chosen.size() - 1);
+        }
+    }
+
+    /**
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Path directory = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+        List<Material> materials = new ArrayList<>();
+        boolean verify = false;
+
+        for(int i = 0; i < args.length; i++) {
+            if(!args[i].startsWith("--")) {
+                materials.add(Material.parse(args[i]));
+                continue;
+            }
+
+            if(args[i].equals("--verify")) {
+                verify = true;
+                continue;
+            }
+
+            if(i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for option: " + args[i]);
+            }
+
+            switch(args[i]) {
+                case "--output":
+                    directory = Paths.get(args[++i]);
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(args[++i]);
+                    break;
+                case "--pieces":
+                    materials.addAll(getMaterials(Integer.parseInt(args[++i])));
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        if(directory == null || materials.isEmpty()) {
+            throw new IllegalArgumentException("An output directory and a material or --pieces are required.");
+        }
+
+        TablebaseGenerator generator = new TablebaseGenerator(directory, threads);
+
+        for(Material material : materials) {
+            generator.generate(material);
+        }
+
+        if(verify) {
+            long mismatches = 0;
+
+            for(Material material : materials) {
+                if(!material.hasPawns()) {
+                    mismatches += generator.verify(material);
+                }
+            }
+
+            if(mismatches > 0) {
+                System.exit(1);
+            }
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package chess.tools;
+
+import chess.engine.EngineConfig;
+import chess.engine.MoveOrdering;
+import chess.engine.OpeningSuite;
+import chess.engine.RandomMoveStrategy;
+import chess.engine.SearchEngine;
+import chess.engine.SearchResult;
+import chess.engine.training.TrainingData;
+import chess.engine.training.TrainingDataWriter;
+import chess.game.Game;
+import chess.game.GameResult;
+import chess.game.Move;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Plays engine games in parallel and writes sampled positions, with the
+ * score the search gave them and the outcome of the game, as training
+ * data for tuning the evaluation.
+ *
+ * Each game starts from an opening of the suite followed by a few random
+ * moves, so games differ even between identical engines.  Every move is
+ * made with Game.requestMove(...), so every position written was reached
+ * legally.  Positions in check and positions whose best move captures are
+ * skipped, as their static evaluation says little about the outcome.
+ *
+ * Searches run on the worker threads, one game each, every worker reusing
+ * its own engine and clearing it between games.  A finished game's records
+ * are handed to a TrainingDataWriter, which writes them from a thread of
+ * its own.
+ *
+ * Games ending without a winner, by stalemate, fifty moves without a
+ * capture or pawn move, or the move limit, are scored as draws.
+ *
+ * Usage:
+ * TrainingDataGenerator --output dir [--games n] [--threads n]
+ *                       [--engine settings] [--random-plies n]
+ *                       [--sample n] [--max-plies n] [--file-records n]
+ *                       [--openings file] [--seed n]
+ *
+ * @author CarrollFD
+ */
+public class TrainingDataGenerator {
+    // defaults for the command line options
+    private static final int DEFAULT_GAMES = 1000;
+    private static final int DEFAULT_RANDOM_PLIES = 8;
+    private static final double DEFAULT_SAMPLE = 1.0;
+    private static final int DEFAULT_MAX_PLIES = 300;
+
+    // the halfmove clock at which a game is drawn
+    private static final int FIFTY_MOVES = 100;
+
+    private final EngineConfig engine;
+    private final OpeningSuite openings;
+    private final int randomPlies;
+    private final double sample;
+    private final int maxPlies;
+    private final long seed;
+
+    // the engine of each worker thread, reused for its games
+    private final ThreadLocal<SearchEngine> engines;
+
+    /**
+     * Constructs a generator.
+     *
+     * @param engine The settings of the engine playing both sides
+     * @param openings The openings the games start from
+     * @param randomPlies The random moves played after the opening
+     * @param sample The chance of writing each eligible position
+     * @param maxPlies The number of moves after which a game is drawn
+     * @param seed The base seed, each game derives its own from it
+     */
+    public TrainingDataGenerator(EngineConfig engine, OpeningSuite openings, int randomPlies, double sample,
+            int maxPlies, long seed) {
+        this.engine = engine;
+        this.openings = openings;
+        this.randomPlies = randomPlies;
+        this.sample = sample;
+        this.maxPlies = maxPlies;
+        this.seed = seed;
+
+        engines = ThreadLocal.withInitial(() -> new SearchEngine(engine));
+    }
+
+    /**
+     * Plays a single game and queues its records.
+     *
+     * @param gameNumber The number of the game, selecting its opening and
+     *                   seeds
+     * @param writer The writer
+     *
+     * @return The number of records queued
+     */
+    public int playGame(int gameNumber, TrainingDataWriter writer) throws IOException, InterruptedException {
+        Game game = openings.createGame(gameNumber);
+        SearchEngine searchEngine = engines.get();
+        searchEngine.clear();
+        RandomMoveStrategy opening = new RandomMoveStrategy(seed + gameNumber * 2L);
+        Random sampler = new Random(seed + gameNumber * 2L + 1);
+        ByteBuffer records = ByteBuffer.allocate(maxPlies * TrainingData.RECORD_SIZE);
+
+        for(int ply = 0; ply < randomPlies && game.getResult() == GameResult.inProgress; ply++) {
+            Move move = opening.selectMove(game);
+
+            if(move == null || !game.requestMove(move.getStartPosition(), move.getEndPosition())) {
+                break;
+            }
+        }
+
+        while(game.getResult() == GameResult.inProgress && game.getMoveList().size() < maxPlies
+                && game.getHalfmoveClock() < FIFTY_MOVES) {
+            if(Thread.currentThread().isInterrupted()) {
+                throw new InterruptedException();
+            }
+
+            SearchResult result = searchEngine.search(game);
+            Move move = result.getBestMove();
+
+            if(move == null) {
+                break;
+            }
+
+            if(game.getBoard().getColorInCheck().toBoolean() == null && !MoveOrdering.isCapture(game.getBoard(), move)
+                    && sampler.nextDouble() < sample && records.hasRemaining()) {
+                int score = game.getSideToMove() ? result.getScore() : -result.getScore();
+
+                TrainingData.encode(game, score, records, records.position());
+                records.position(records.position() + TrainingData.RECORD_SIZE);
+            }
+
+            if(!game.requestMove(move.getStartPosition(), move.getEndPosition())) {
+                // a move the search found legal was refused, stop rather than loop
+                break;
+            }
+        }
+
+        // now the outcome is known
+        int outcome = TrainingData.getOutcome(game.getResult());
+        records.flip();
+
+        for(int offset = 0; offset < records.limit(); offset += TrainingData.RECORD_SIZE) {
+            TrainingData.setOutcome(records, offset, outcome);
+        }
+
+        if(records.hasRemaining()) {
+            writer.write(records);
+        }
+
+        return records.limit() / TrainingData.RECORD_SIZE;
+    }
+
+    /**
+     * Plays a number of games in parallel and prints a summary.
+     *
+     * @param games The number of games to play
+     * @param threads The number of worker threads
+     * @param writer The writer for the records
+     */
+    public void run(int games, int threads, TrainingDataWriter writer) throws IOException, InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<Integer>> futures = new ArrayList<>();
+        long startTime = System.nanoTime();
+        long records = 0;
+
+        for(int i = 0; i < games; i++) {
+            final int gameNumber = i;
+            futures.add(executor.submit(() -> playGame(gameNumber, writer)));
+        }
+
+        try {
+            for(Future<Integer> future : futures) {
+                records += future.get();
+            }
+        } catch(ExecutionException e) {
+            if(e.getCause() instanceof IOException) {
+                throw (IOException)e.getCause();
+            }
+
+            throw new IllegalStateException("Game worker failed.", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        writer.close();
+
+        double seconds = (System.nanoTime() - startTime) / 1e9;
+
+        System.out.println("Games:      " + games + " (" + engine.getName() + ", " + threads + " threads)");
+        System.out.println("Positions:  " + records + " in " + writer.getFilesWritten() + " files");
+        System.out.printf("Throughput: %.2f s, %.1f games/s, %.1f positions/s%n",
+                seconds, games / seconds, records / seconds);
+    }
+
+    /**
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Path output = null;
+        int games = DEFAULT_GAMES;
+        int threads = Runtime.getRuntime().availableProcessors();
+        EngineConfig engine = new EngineConfig();
+        int randomPlies = DEFAULT_RANDOM_PLIES;
+        double sample = DEFAULT_SAMPLE;
+        int maxPlies = DEFAULT_MAX_PLIES;
+        int fileRecords = TrainingDataWriter.DEFAULT_FILE_RECORDS;
+        OpeningSuite openings = OpeningSuite.getDefault();
+        long seed = 1;
+
+        for(int i = 0; i < args.length; i += 2) {
+            if(i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for option: " + args[i]);
+            }
+
+            switch(args[i]) {
+                case "--output":
+                    output = Paths.get(args[i + 1]);
+                    break;
+                case "--games":
+                    games = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--engine":
+                    engine = EngineConfig.parse(args[i + 1]);
+                    break;
+                case "--random-plies":
+                    randomPlies = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--sample":
+                    sample = Double.parseDouble(args[i + 1]);
+                    break;
+                case "--max-plies":
+                    maxPlies = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--file-records":
+                    fileRecords = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--openings":
+                    openings = OpeningSuite.load(Paths.get(args[i + 1]));
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(args[i + 1]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        if(output == null) {
+            throw new IllegalArgumentException("--output is required.");
+        }
+
+        try(TrainingDataWriter writer = new TrainingDataWriter(output, fileRecords,
+                TrainingDataWriter.DEFAULT_QUEUE_CAPACITY)) {
+            new TrainingDataGenerator(engine, openings, randomPlies, sample, maxPlies, seed)
+                    .run(games, threads, writer);
+        }
+    }
+}